@@ -0,0 +1,108 @@
+package com.realmmc.controller.modules.role;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checagem de permissão antes e depois do {@link PermissionMatcher}: {@code legacy} é o algoritmo
+ * anterior (split por ponto e um {@code contains} por prefixo), {@code compiled} a consulta na trie.
+ * <p>
+ * As consultas misturam permissões exatas, cobertas por wildcard parcial, negadas e ausentes, em
+ * caixa variada como chegam das plataformas. Rodar com {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionLookupBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"50", "500"})
+    private int permissionCount;
+
+    private Set<String> permissions;
+    private PermissionMatcher matcher;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        permissions = new HashSet<>();
+        for (int i = 0; i < permissionCount; i++) {
+            String node = "plugin" + random.nextInt(permissionCount / 5 + 1) + ".command." + i;
+            switch (i % 10) {
+                case 0 -> permissions.add("plugin" + i + ".*");
+                case 1 -> permissions.add("-" + node);
+                default -> permissions.add(node);
+            }
+        }
+        matcher = PermissionMatcher.compile(permissions);
+
+        String[] known = permissions.toArray(new String[0]);
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String permission = known[random.nextInt(known.length)];
+            queries[i] = switch (i % 4) {
+                // Exata ou negada, como está no conjunto
+                case 0 -> permission.startsWith("-") ? permission.substring(1) : permission;
+                // Coberta (ou não) por um wildcard parcial
+                case 1 -> permission.replace("*", "sub.node");
+                // Ausente
+                case 2 -> "other" + i + ".command.node";
+                default -> permission.replace("*", "Sub").toUpperCase();
+            };
+        }
+    }
+
+    private String nextQuery() {
+        String query = queries[next];
+        next = (next + 1) & (QUERIES - 1);
+        return query;
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return legacyHasPermission(permissions, nextQuery());
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return matcher.matches(nextQuery());
+    }
+
+    /**
+     * Implementação anterior de {@code PlayerSessionData.hasPermission}, mantida só como referência.
+     */
+    static boolean legacyHasPermission(Set<String> effectivePermissions, String permission) {
+        if (permission == null || permission.isEmpty()) return false;
+        String permLower = permission.toLowerCase();
+        if (effectivePermissions.contains("-" + permLower)) return false;
+        if (effectivePermissions.contains(permLower)) return true;
+        if (effectivePermissions.contains("*")) return true;
+        String[] parts = permLower.split("\\.");
+        StringBuilder builder = new StringBuilder(permLower.length());
+        for (int i = 0; i < parts.length - 1; i++) {
+            builder.append(parts[i]).append(".");
+            if (effectivePermissions.contains(builder + "*")) return true;
+        }
+        return false;
+    }
+}
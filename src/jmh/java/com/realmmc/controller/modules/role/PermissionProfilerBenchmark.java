@@ -0,0 +1,77 @@
+package com.realmmc.controller.modules.role;
+
+import com.realmmc.controller.shared.role.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do gancho do {@link PermissionProfiler} desligado: {@code withoutHook} é só
+ * {@link PlayerSessionData#hasPermission}, {@code profilerOff} faz a mesma checagem seguida do
+ * {@code if (PermissionProfiler.sample())} que {@code RealmPermissible} e
+ * {@code VelocityPermissionProvider} executam. Rodar com {@code ./gradlew jmh -PjmhIncludes=PermissionProfiler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionProfilerBenchmark {
+
+    private static final int QUERIES = 256;
+
+    private PlayerSessionData session;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        PermissionProfiler.disable();
+        Set<String> permissions = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            permissions.add(i % 10 == 0 ? "plugin" + i + ".*" : "plugin" + i + ".command");
+        }
+        session = new PlayerSessionData(UUID.randomUUID(), Role.builder().name("default").build(), permissions);
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = i % 2 == 0 ? "plugin" + (i % 100) + ".command" : "plugin" + (i % 100) + ".other";
+        }
+        // Memoriza as decisões, como numa sessão já aquecida
+        for (String query : queries) session.hasPermission(query);
+    }
+
+    private String nextQuery() {
+        String query = queries[next];
+        next = (next + 1) & (QUERIES - 1);
+        return query;
+    }
+
+    @Benchmark
+    public boolean withoutHook() {
+        return session.hasPermission(nextQuery());
+    }
+
+    @Benchmark
+    public boolean profilerOff() {
+        String permission = nextQuery();
+        boolean result = session.hasPermission(permission);
+        if (PermissionProfiler.sample()) {
+            PermissionProfiler.record(permission, result, PermissionMatcher.decidingRule(session.getEffectivePermissions(), permission));
+        }
+        return result;
+    }
+}
@@ -65,7 +65,7 @@ public class StaffChatModule extends AbstractCoreModule {
     protected void onDisable() throws Exception {
         if (this.redisSubscriber != null && this.staffChatListener != null) {
             try {
-                this.redisSubscriber.unregisterListener(RedisChannel.STAFF_CHAT);
+                this.redisSubscriber.unregisterListener(RedisChannel.STAFF_CHAT, this.staffChatListener);
                 logger.info("StaffChatListener removido do canal Redis.");
             } catch (Exception e) {
                 logger.log(Level.WARNING, "Erro ao desregistrar StaffChatListener.", e);
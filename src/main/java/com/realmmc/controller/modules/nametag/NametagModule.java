@@ -68,8 +68,8 @@ public class NametagModule extends AbstractCoreModule {
 
             ServiceRegistry.getInstance().getService(RedisSubscriber.class)
                     .ifPresent(sub -> {
-                        sub.unregisterListener(RedisChannel.PROFILES_SYNC);
-                        sub.unregisterListener(RedisChannel.COSMETICS_SYNC);
+                        sub.unregisterListener(RedisChannel.PROFILES_SYNC, nametagService);
+                        sub.unregisterListener(RedisChannel.COSMETICS_SYNC, nametagService);
                     });
 
             ServiceRegistry.getInstance().unregisterService(NametagService.class);
@@ -72,7 +72,7 @@ public class PreferencesModule extends AbstractCoreModule {
     protected void onDisable() throws Exception {
         if (this.syncSubscriber != null && this.redisSubscriber != null) {
             try {
-                this.redisSubscriber.unregisterListener(RedisChannel.PREFERENCES_SYNC);
+                this.redisSubscriber.unregisterListener(RedisChannel.PREFERENCES_SYNC, this.syncSubscriber);
                 logger.info("[PreferencesModule] PreferencesSyncSubscriber unregistered from shared subscriber.");
             } catch (Exception e) {
                 logger.log(Level.WARNING, "[PreferencesModule] Error unregistering PreferencesSyncSubscriber.", e);
@@ -4,8 +4,10 @@ import com.realmmc.controller.core.modules.AbstractCoreModule;
 import com.realmmc.controller.core.modules.AutoRegister;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.shared.cosmetics.CosmeticsService;
+import com.realmmc.controller.shared.expiry.ExpiryEngine;
 import com.realmmc.controller.shared.profile.ProfileService;
 import com.realmmc.controller.shared.profile.ProfileSyncSubscriber;
+import com.realmmc.controller.shared.profile.ProfileWriteStats;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
 import com.realmmc.controller.shared.storage.redis.RedisSubscriber;
 import com.realmmc.controller.shared.session.SessionTrackerService;
@@ -19,6 +21,7 @@ public class ProfileModule extends AbstractCoreModule {
     private RedisSubscriber redisSubscriber;
     private SessionTrackerService sessionTrackerService;
     private CosmeticsService cosmeticsService;
+    private ExpiryEngine expiryEngine;
 
     public ProfileModule(Logger logger) {
         super(logger);
@@ -46,6 +49,10 @@ public class ProfileModule extends AbstractCoreModule {
         ProfileService profileService = new ProfileService();
         ServiceRegistry.getInstance().registerService(ProfileService.class, profileService);
 
+        this.expiryEngine = new ExpiryEngine();
+        this.expiryEngine.setOnlineFilter(profileService::isOnlineHere);
+        ServiceRegistry.getInstance().registerService(ExpiryEngine.class, this.expiryEngine);
+
         try {
             this.sessionTrackerService = new SessionTrackerService();
             ServiceRegistry.getInstance().registerService(SessionTrackerService.class, this.sessionTrackerService);
@@ -91,7 +98,7 @@ public class ProfileModule extends AbstractCoreModule {
 
         if (this.profileSyncSubscriber != null && this.redisSubscriber != null) {
             try {
-                this.redisSubscriber.unregisterListener(RedisChannel.PROFILES_SYNC);
+                this.redisSubscriber.unregisterListener(RedisChannel.PROFILES_SYNC, this.profileSyncSubscriber);
                 logger.info("[ProfileModule] ProfileSyncSubscriber desregistrado.");
             } catch (Exception e) {
                 logger.log(Level.WARNING, "[ProfileModule] Erro ao desregistrar ProfileSyncSubscriber.", e);
@@ -106,12 +113,29 @@ public class ProfileModule extends AbstractCoreModule {
             this.cosmeticsService = null;
         }
 
+        if (this.expiryEngine != null) {
+            this.expiryEngine.shutdown();
+            ServiceRegistry.getInstance().unregisterService(ExpiryEngine.class);
+            this.expiryEngine = null;
+        }
+
         if (this.sessionTrackerService != null) {
             ServiceRegistry.getInstance().unregisterService(SessionTrackerService.class);
             logger.info("[ProfileModule] SessionTrackerService desregistrado.");
             this.sessionTrackerService = null;
         }
 
+        ServiceRegistry.getInstance().getService(ProfileService.class).ifPresent(ps -> {
+            try {
+                ps.shutdown();
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "[ProfileModule] Erro ao gravar perfis pendentes no desligamento.", e);
+            }
+            ProfileWriteStats writes = ps.getWriteStats();
+            logger.info("[ProfileModule] Cache de perfis: " + ps.getCacheStats());
+            logger.info(String.format("[ProfileModule] Escritas de perfil: %s (redução de %.1f%%)",
+                    writes, writes.writeReduction() * 100));
+        });
         ServiceRegistry.getInstance().unregisterService(ProfileService.class);
 
         logger.info("[ProfileModule] Módulo de perfil finalizado.");
@@ -0,0 +1,109 @@
+package com.realmmc.controller.modules.proxy;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Tempo que cada etapa do login/conexão no proxy passou esperando (Mongo, Redis, HTTP).
+ * <p>
+ * Os listeners devolvem {@code EventTask}s e embrulham o futuro de cada etapa com {@link #track}: o
+ * tempo medido é o tempo em que o evento ficou suspenso, sem ocupar thread de evento.
+ */
+public final class ConnectionStageMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionStageMetrics.class.getName());
+    private static final long SLOW_STAGE_MILLIS = Long.getLong("CONNECTION_STAGE_SLOW_MILLIS", 1_000L);
+
+    public enum Stage {
+        /** Contagem de sessões por IP (Redis). */
+        IP_LIMIT,
+        /** Verificação de conta original (cache/Mojang/Mongo). */
+        PREMIUM,
+        /** Criação da sessão de rede (Redis). */
+        LOGIN_SESSION,
+        /** Carregamento da sessão de permissões. */
+        LOGIN_PERMISSIONS,
+        /** Sessão de permissões ligada ao jogador (PermissionsSetupEvent). */
+        PERMISSIONS_SETUP,
+        /** Perfil, estatísticas, preferências e cosméticos (Mongo). */
+        POST_LOGIN_BOOTSTRAP,
+        /** Checagens antes de conectar a um servidor (sessão de permissões, Redis). */
+        PRE_CONNECT,
+        /** Limpeza da sessão e persistência ao sair. */
+        DISCONNECT
+    }
+
+    /**
+     * @param inFlight Eventos suspensos nesta etapa agora.
+     */
+    public record StageStats(Stage stage, long count, long failures, long inFlight, long lastMillis, long maxMillis,
+                             double averageMillis) {
+    }
+
+    private static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private volatile long lastMillis;
+    }
+
+    private static final Map<Stage, Counters> COUNTERS = new EnumMap<>(Stage.class);
+
+    static {
+        for (Stage stage : Stage.values()) COUNTERS.put(stage, new Counters());
+    }
+
+    private ConnectionStageMetrics() {
+    }
+
+    /**
+     * Mede o futuro de uma etapa. Devolve o mesmo futuro, para encadear com
+     * {@code EventTask.resumeWhenComplete}.
+     */
+    public static <T> CompletableFuture<T> track(Stage stage, CompletableFuture<T> future) {
+        Counters c = COUNTERS.get(stage);
+        long startedAt = System.nanoTime();
+        c.inFlight.incrementAndGet();
+        future.whenComplete((ignored, error) -> {
+            long millis = (System.nanoTime() - startedAt) / 1_000_000L;
+            c.inFlight.decrementAndGet();
+            c.count.increment();
+            c.totalMillis.add(millis);
+            c.lastMillis = millis;
+            c.maxMillis.accumulateAndGet(millis, Math::max);
+            if (error != null) c.failures.increment();
+            if (millis >= SLOW_STAGE_MILLIS) {
+                LOGGER.warning("[ConnectionStages] Etapa " + stage + " levou " + millis + "ms (em andamento: " + c.inFlight.get() + ").");
+            }
+        });
+        return future;
+    }
+
+    public static List<StageStats> snapshot() {
+        List<StageStats> stats = new ArrayList<>(COUNTERS.size());
+        COUNTERS.forEach((stage, c) -> {
+            long count = c.count.sum();
+            stats.add(new StageStats(stage, count, c.failures.sum(), c.inFlight.get(), c.lastMillis, c.maxMillis.get(),
+                    count == 0 ? 0.0 : (double) c.totalMillis.sum() / count));
+        });
+        return stats;
+    }
+
+    public static void reset() {
+        for (Counters c : COUNTERS.values()) {
+            c.count.reset();
+            c.failures.reset();
+            c.totalMillis.reset();
+            c.maxMillis.set(0);
+            c.lastMillis = 0;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.realmmc.controller.modules.proxy;
+
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resposta do ping da lista de servidores, servida sem tocar no Redis.
+ * <p>
+ * Uma tarefa lê as contagens globais num único lote a cada {@code PING_SNAPSHOT_REFRESH_MILLIS} e
+ * publica um {@link Snapshot} imutável com o MOTD já renderizado ({@code -DPROXY_MOTD}, MiniMessage
+ * com {@code <online>} e {@code <max>}). Se o Redis falhar, o último snapshot continua valendo.
+ * <p>
+ * Também contabiliza pings por IP em janelas fixas, para identificar scanners e sites de lista;
+ * acima do limite o IP continua recebendo o snapshot, mas é contado como excedente.
+ */
+public class PingSnapshotService {
+
+    private static final long REFRESH_MILLIS = Long.getLong("PING_SNAPSHOT_REFRESH_MILLIS", 2_000L);
+    private static final int DEFAULT_MAX_PLAYERS = Integer.getInteger("PING_DEFAULT_MAX_PLAYERS", 500);
+    private static final long RATE_WINDOW_MILLIS = Long.getLong("PING_RATE_WINDOW_MILLIS", 10_000L);
+    private static final int RATE_LIMIT_PER_IP = Integer.getInteger("PING_RATE_LIMIT_PER_IP", 20);
+    private static final int MAX_TRACKED_IPS = Integer.getInteger("PING_RATE_MAX_TRACKED_IPS", 20_000);
+    private static final String MOTD_TEMPLATE = System.getProperty("PROXY_MOTD");
+
+    /**
+     * @param description MOTD pré-renderizado; null mantém o do Velocity.
+     */
+    public record Snapshot(int onlinePlayers, int maxPlayers, Component description, long refreshedAt) {
+    }
+
+    /**
+     * @param overLimit  Pings de IPs que passaram de {@code PING_RATE_LIMIT_PER_IP} na janela.
+     * @param untracked  Pings de IPs novos quando o mapa já estava cheio.
+     * @param topIps     IPs com mais pings na janela atual ({@code ip=pings}).
+     */
+    public record PingStats(long pings, long overLimit, long untracked, int trackedIps, long refreshes,
+                            long refreshFailures, long snapshotAgeMillis, List<String> topIps) {
+    }
+
+    private static final class Window {
+        private volatile long startedAt;
+        private final AtomicLong count = new AtomicLong();
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final Logger logger;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder pings = new LongAdder();
+    private final LongAdder overLimit = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private ScheduledFuture<?> refreshTask;
+    private long lastReportedOverLimit;
+
+    public PingSnapshotService(Logger logger) {
+        this.logger = logger;
+        this.snapshot = new Snapshot(0, DEFAULT_MAX_PLAYERS, render(0, DEFAULT_MAX_PLAYERS), 0L);
+    }
+
+    public synchronized void start() {
+        if (refreshTask != null && !refreshTask.isDone()) return;
+        refreshTask = TaskScheduler.runAsyncTimer(() -> {
+            refresh();
+            pruneWindows(System.currentTimeMillis());
+        }, 0, REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("[PingSnapshot] Snapshot de ping atualizado a cada " + REFRESH_MILLIS + "ms (limite por IP: "
+                + RATE_LIMIT_PER_IP + "/" + RATE_WINDOW_MILLIS + "ms).");
+    }
+
+    public synchronized void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+        windows.clear();
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Conta um ping do endereço.
+     *
+     * @return false se o endereço passou do limite da janela atual.
+     */
+    public boolean recordPing(String address) {
+        pings.increment();
+        if (address == null) return true;
+        long now = System.currentTimeMillis();
+        Window window = windows.get(address);
+        if (window == null) {
+            if (windows.size() >= MAX_TRACKED_IPS) {
+                untracked.increment();
+                return true;
+            }
+            window = windows.computeIfAbsent(address, k -> new Window(now));
+        }
+        if (now - window.startedAt >= RATE_WINDOW_MILLIS) {
+            synchronized (window) {
+                if (now - window.startedAt >= RATE_WINDOW_MILLIS) {
+                    window.startedAt = now;
+                    window.count.set(0);
+                }
+            }
+        }
+        if (window.count.incrementAndGet() > RATE_LIMIT_PER_IP) {
+            overLimit.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public PingStats getStats(int topLimit) {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> active = new ArrayList<>();
+        windows.forEach((ip, window) -> {
+            if (now - window.startedAt < RATE_WINDOW_MILLIS) active.add(Map.entry(ip, window.count.get()));
+        });
+        active.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<String> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(topLimit, active.size()); i++) {
+            top.add(active.get(i).getKey() + "=" + active.get(i).getValue());
+        }
+        Snapshot current = snapshot;
+        return new PingStats(pings.sum(), overLimit.sum(), untracked.sum(), windows.size(), refreshes.get(),
+                refreshFailures.get(), current.refreshedAt() == 0 ? -1 : now - current.refreshedAt(), top);
+    }
+
+    void refresh() {
+        try {
+            @SuppressWarnings("unchecked")
+            Supplier<String>[] values = new Supplier[2];
+            StorageBackends.keyValue().batch(batch -> {
+                values[0] = batch.get(RedisChannel.GLOBAL_PLAYER_COUNT.getName());
+                values[1] = batch.get(RedisChannel.GLOBAL_NETWORK_MAX_PLAYERS.getName());
+            });
+            int online = parse(values[0].get(), 0, "GLOBAL_PLAYER_COUNT");
+            int max = parse(values[1].get(), DEFAULT_MAX_PLAYERS, "GLOBAL_NETWORK_MAX_PLAYERS");
+            if (max <= 0) max = DEFAULT_MAX_PLAYERS;
+
+            Snapshot previous = snapshot;
+            Component description = previous.onlinePlayers() == online && previous.maxPlayers() == max
+                    ? previous.description()
+                    : render(online, max);
+            snapshot = new Snapshot(online, max, description, System.currentTimeMillis());
+            refreshes.incrementAndGet();
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            logger.log(Level.WARNING, "[PingSnapshot] Falha ao atualizar contagens do Redis; mantendo o snapshot anterior.", e);
+        }
+    }
+
+    private void pruneWindows(long now) {
+        windows.entrySet().removeIf(entry -> now - entry.getValue().startedAt >= RATE_WINDOW_MILLIS);
+        long total = overLimit.sum();
+        if (total > lastReportedOverLimit) {
+            logger.fine("[PingSnapshot] " + (total - lastReportedOverLimit) + " pings acima do limite por IP desde a última atualização.");
+            lastReportedOverLimit = total;
+        }
+    }
+
+    private int parse(String value, int fallback, String key) {
+        if (value == null) return fallback;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warning("[PingSnapshot] Valor inválido para " + key + " no Redis: " + value);
+            return fallback;
+        }
+    }
+
+    private static Component render(int online, int max) {
+        if (MOTD_TEMPLATE == null || MOTD_TEMPLATE.isBlank()) return null;
+        return MiniMessage.miniMessage().deserialize(MOTD_TEMPLATE.replace("\\n", "\n"),
+                Placeholder.unparsed("online", String.valueOf(online)),
+                Placeholder.unparsed("max", String.valueOf(max)));
+    }
+}
@@ -3,26 +3,27 @@ package com.realmmc.controller.modules.proxy;
 import com.realmmc.controller.core.modules.AbstractCoreModule;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.modules.role.RoleService;
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
 import com.realmmc.controller.proxy.commands.CommandManager;
 import com.realmmc.controller.proxy.listeners.ListenersManager;
 import com.realmmc.controller.proxy.permission.VelocityPermissionInjector;
 import com.realmmc.controller.proxy.permission.VelocityPermissionRefresher;
 import com.realmmc.controller.proxy.sounds.VelocitySoundPlayer;
-import com.realmmc.controller.shared.profile.Profile;
-import com.realmmc.controller.shared.profile.ProfileService;
+import com.realmmc.controller.shared.premium.PremiumResolutionService;
 import com.realmmc.controller.shared.role.PermissionRefresher;
 import com.realmmc.controller.shared.role.RoleKickHandler;
 import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.realmmc.controller.shared.session.HeartbeatStats;
+import com.realmmc.controller.shared.session.NetworkPlayerCounts;
 import com.realmmc.controller.shared.session.SessionTrackerService;
-import com.realmmc.controller.shared.storage.redis.RedisManager;
-import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import com.realmmc.controller.shared.utils.TaskScheduler;
 import com.velocitypowered.api.proxy.Player;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.exceptions.JedisConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import com.velocitypowered.api.proxy.ProxyServer;
@@ -37,7 +38,10 @@ public class ProxyModule extends AbstractCoreModule {
     private Optional<SessionTrackerService> sessionTrackerServiceOpt;
     private ScheduledFuture<?> heartbeatTaskFuture = null;
     private ScheduledFuture<?> reaperTaskFuture = null;
-    private static final String SESSION_PREFIX = "controller:session:";
+    private static final int REAPER_BATCH = Integer.getInteger("SESSION_REAPER_BATCH", 500);
+    private static final long HEARTBEAT_SLOW_MILLIS = Long.getLong("HEARTBEAT_SLOW_MILLIS", 2_000L);
+    private static final long PLAYER_COUNT_TTL_MILLIS = Long.getLong("PLAYER_COUNT_PROXY_TTL_MILLIS", 40_000L);
+    private NetworkPlayerCounts networkPlayerCounts;
 
     public ProxyModule(ProxyServer server, Object pluginInstance, Logger logger) {
         super(logger);
@@ -73,6 +77,26 @@ public class ProxyModule extends AbstractCoreModule {
             logger.info("[ProxyModule] VelocitySoundPlayer registrado.");
         } catch (Exception e) { logger.log(Level.WARNING, "[ProxyModule] Falha ao registrar VelocitySoundPlayer", e); }
 
+        try {
+            ServiceRegistry.getInstance().registerService(PremiumResolutionService.class, PremiumResolutionService.create(logger));
+            logger.info("[ProxyModule] PremiumResolutionService registrado.");
+        } catch (Exception e) { logger.log(Level.SEVERE, "[ProxyModule] Falha ao registrar PremiumResolutionService", e); }
+
+        try {
+            String proxyId = System.getProperty("controller.proxyId", System.getenv("PROXY_NAME"));
+            networkPlayerCounts = new NetworkPlayerCounts(StorageBackends::keyValue, proxyId != null ? proxyId : "proxy_unknown",
+                    PLAYER_COUNT_TTL_MILLIS, System::currentTimeMillis);
+            ServiceRegistry.getInstance().registerService(NetworkPlayerCounts.class, networkPlayerCounts);
+            logger.info("[ProxyModule] NetworkPlayerCounts registrado para o proxy " + networkPlayerCounts.getProxyId() + ".");
+        } catch (Exception e) { logger.log(Level.SEVERE, "[ProxyModule] Falha ao registrar NetworkPlayerCounts", e); }
+
+        try {
+            PingSnapshotService pingSnapshotService = new PingSnapshotService(logger);
+            ServiceRegistry.getInstance().registerService(PingSnapshotService.class, pingSnapshotService);
+            pingSnapshotService.start();
+            logger.info("[ProxyModule] PingSnapshotService registrado.");
+        } catch (Exception e) { logger.log(Level.SEVERE, "[ProxyModule] Falha ao registrar PingSnapshotService", e); }
+
         try { CommandManager.registerAll(pluginInstance); }
         catch (Exception e) { logger.log(Level.SEVERE, "[ProxyModule] Falha ao registrar comandos Velocity.", e); }
 
@@ -125,9 +149,17 @@ public class ProxyModule extends AbstractCoreModule {
         logger.info("[ProxyModule] Desabilitando módulo...");
         stopHeartbeatTask();
         stopReaperTask();
+        ServiceRegistry.getInstance().getService(PingSnapshotService.class).ifPresent(PingSnapshotService::stop);
 
         ServiceRegistry.getInstance().unregisterService(SoundPlayer.class);
         ServiceRegistry.getInstance().unregisterService(PermissionRefresher.class);
+        ServiceRegistry.getInstance().unregisterService(PremiumResolutionService.class);
+        ServiceRegistry.getInstance().unregisterService(PingSnapshotService.class);
+        if (networkPlayerCounts != null) {
+            networkPlayerCounts.remove();
+            ServiceRegistry.getInstance().unregisterService(NetworkPlayerCounts.class);
+            networkPlayerCounts = null;
+        }
         logger.info("[ProxyModule] Serviços Velocity desregistrados.");
 
         if (permissionInjectorInstance != null) {
@@ -178,26 +210,45 @@ public class ProxyModule extends AbstractCoreModule {
     }
 
     private void runHeartbeat(SessionTrackerService sessionTracker) {
-        try (Jedis jedis = RedisManager.getResource()) {
-            String playerCountStr = String.valueOf(server.getPlayerCount());
-            jedis.setex(RedisChannel.GLOBAL_PLAYER_COUNT.getName(), 20, playerCountStr);
-        } catch (Exception e) {
-            logger.log(Level.WARNING, "[ProxyModule] Falha ao salvar contagem global de jogadores no Redis.", e);
-        }
-
+        List<SessionTrackerService.Heartbeat> heartbeats = new ArrayList<>();
+        Map<String, Integer> byServer = new HashMap<>();
         for (Player player : server.getAllPlayers()) {
             if (!player.isActive()) continue;
-            UUID uuid = player.getUniqueId();
             String currentServerName = player.getCurrentServer()
                     .map(serverConnection -> serverConnection.getServerInfo().getName())
                     .orElse(null);
-            int ping = (int) player.getPing();
-            int protocol = player.getProtocolVersion().getProtocol();
-            try {
-                sessionTracker.updateHeartbeat(uuid, currentServerName, ping, protocol);
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "[ProxyModule] Erro ao enviar heartbeat para " + player.getUsername(), e);
+            if (currentServerName != null) byServer.merge(currentServerName, 1, Integer::sum);
+            heartbeats.add(new SessionTrackerService.Heartbeat(player.getUniqueId(), currentServerName,
+                    (int) player.getPing(), player.getProtocolVersion().getProtocol()));
+        }
+        publishPlayerCounts(heartbeats.size(), byServer);
+
+        try {
+            sessionTracker.updateHeartbeats(heartbeats);
+            HeartbeatStats stats = sessionTracker.getHeartbeatStats();
+            if (stats.lastMillis() > HEARTBEAT_SLOW_MILLIS) {
+                logger.warning("[ProxyModule] Heartbeat lento: " + stats.lastMillis() + "ms para " + heartbeats.size() + " jogadores. " + stats);
+            } else {
+                logger.fine("[ProxyModule] Heartbeat: " + stats.lastSessions() + " sessões em " + stats.lastMillis() + "ms.");
             }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "[ProxyModule] Erro ao enviar heartbeat em lote (" + heartbeats.size() + " jogadores)", e);
+        }
+    }
+
+    private void publishPlayerCounts(int total, Map<String, Integer> byServer) {
+        if (networkPlayerCounts == null) return;
+        try {
+            Optional<ServerRegistryMirror> mirror = ServiceRegistry.getInstance().getService(ServerRegistryMirror.class);
+            Map<String, Integer> byType = new HashMap<>();
+            byServer.forEach((name, count) -> {
+                String type = mirror.flatMap(m -> m.findByName(name)).map(info -> info.getType().name()).orElse("UNKNOWN");
+                byType.merge(type, count, Integer::sum);
+            });
+            NetworkPlayerCounts.Totals totals = networkPlayerCounts.publish(new NetworkPlayerCounts.Counts(total, byServer, byType));
+            logger.fine("[ProxyModule] Jogadores na rede: " + totals.network().total() + " em " + totals.proxies().size() + " proxies.");
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "[ProxyModule] Falha ao publicar contagem de jogadores no Redis.", e);
         }
     }
 
@@ -247,78 +298,19 @@ public class ProxyModule extends AbstractCoreModule {
 
     private void runReaper(SessionTrackerService sessionTracker) {
         logger.fine("[ProxyModule] Executando Reaper Task...");
-        long now = System.currentTimeMillis();
         long heartbeatIntervalMillis = 15 * 1000;
         long thresholdMillis = (3 * heartbeatIntervalMillis) + 10000;
+        long cutoff = System.currentTimeMillis() - thresholdMillis;
         int cleanedCount = 0;
 
-        Set<String> onlineUsernames = sessionTracker.getOnlineUsernames();
-        if (onlineUsernames.isEmpty()) {
-            return;
-        }
-
-        for (String username : onlineUsernames) {
-            Optional<UUID> uuidOpt = getUuidFromUsername(username);
-            if (uuidOpt.isEmpty()) {
-                continue;
-            }
-            UUID uuid = uuidOpt.get();
-            String sessionKey = SESSION_PREFIX + uuid.toString();
-
-            try (Jedis jedis = RedisManager.getResource()) {
-                String lastHeartbeatStr = jedis.hget(sessionKey, "lastHeartbeat");
-
-                if (lastHeartbeatStr != null) {
-                    try {
-                        long lastHeartbeat = Long.parseLong(lastHeartbeatStr);
-                        if (now - lastHeartbeat > thresholdMillis) {
-                            logger.log(Level.WARNING, "[ProxyModule] Sessão inativa detectada para {0}. Limpando...", username);
-                            sessionTracker.endSession(uuid, username);
-                            cleanedCount++;
-                        }
-                    } catch (NumberFormatException e) {
-                        sessionTracker.endSession(uuid, username);
-                        cleanedCount++;
-                    }
-                } else {
-                    String state = jedis.hget(sessionKey, "state");
-                    if (!"ONLINE".equals(state)) {
-                        sessionTracker.endSession(uuid, username);
-                        cleanedCount++;
-                    }
-                }
-            } catch (JedisConnectionException e) {
-                logger.log(Level.SEVERE, "[ProxyModule] Erro de conexão Redis no Reaper.", e);
-                return;
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "[ProxyModule] Erro inesperado no Reaper para " + username, e);
-            }
-        }
+        int reaped;
+        do {
+            reaped = sessionTracker.reapStaleSessions(cutoff, REAPER_BATCH);
+            cleanedCount += reaped;
+        } while (reaped >= REAPER_BATCH);
 
         if (cleanedCount > 0) {
             logger.log(Level.INFO, "[ProxyModule] Reaper Task concluída. {0} sessões limpas.", cleanedCount);
         }
     }
-
-    private Optional<UUID> getUuidFromUsername(String username) {
-        Optional<ProfileService> profileServiceOpt = ServiceRegistry.getInstance().getService(ProfileService.class);
-        if (profileServiceOpt.isEmpty()) {
-            return Optional.empty();
-        }
-
-        Optional<UUID> uuidFromService = profileServiceOpt
-                .flatMap(ps -> ps.getByUsername(username.toLowerCase()))
-                .map(Profile::getUuid);
-
-        if(uuidFromService.isPresent()){
-            return uuidFromService;
-        }
-
-        Optional<Player> playerOpt = server.getPlayer(username);
-        if(playerOpt.isPresent()){
-            return Optional.of(playerOpt.get().getUniqueId());
-        }
-
-        return Optional.empty();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package com.realmmc.controller.modules.role;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conjunto de permissões compilado numa trie de caracteres.
+ * <p>
+ * Mesma semântica de antes: negação exata ({@code -a.b}) vence, depois permissão exata,
+ * depois {@code *} global e por fim wildcards parciais ({@code a.*} cobre {@code a.b}).
+ * A consulta percorre a permissão caractere a caractere (em minúsculas) sem alocar nada.
+ * <p>
+ * Jogadores com o mesmo conjunto de cargos compartilham a mesma instância (ver {@link #compile}).
+ */
+public final class PermissionMatcher {
+
+    private static final int MAX_COMPILED = Integer.getInteger("PERMISSION_MATCHER_CACHE_SIZE", 256);
+    private static final Map<Set<String>, PermissionMatcher> COMPILED = new ConcurrentHashMap<>();
+
+    private static final byte GRANT = 1;
+    private static final byte NEGATE = 2;
+    private static final byte WILDCARD = 4;
+
+    private final Node root = new Node();
+    private final boolean globalWildcard;
+
+    private PermissionMatcher(Set<String> permissions) {
+        boolean global = false;
+        for (String permission : permissions) {
+            if (permission == null || permission.isEmpty()) continue;
+            if (permission.equals("*")) global = true;
+            insert(permission, 0, GRANT);
+            if (permission.endsWith(".*")) {
+                // Marca o nó do prefixo "a.b." como wildcard
+                insertPrefix(permission, permission.length() - 1, WILDCARD);
+            }
+            if (permission.charAt(0) == '-' && permission.length() > 1) {
+                insert(permission, 1, NEGATE);
+            }
+        }
+        this.globalWildcard = global;
+    }
+
+    /**
+     * Compila (ou reaproveita) o matcher de um conjunto de permissões efetivas.
+     */
+    public static PermissionMatcher compile(Set<String> permissions) {
+        Set<String> key = Set.copyOf(permissions);
+        PermissionMatcher cached = COMPILED.get(key);
+        if (cached != null) return cached;
+        if (COMPILED.size() >= MAX_COMPILED) COMPILED.clear();
+        return COMPILED.computeIfAbsent(key, PermissionMatcher::new);
+    }
+
+    /**
+     * Descarta os matchers compilados (cargos recarregados).
+     */
+    public static void clearCompiled() {
+        COMPILED.clear();
+    }
+
+    public boolean matches(String permission) {
+        if (permission == null || permission.isEmpty()) return false;
+
+        Node node = root;
+        boolean pendingWildcard = false;
+        boolean wildcardHit = false;
+        int length = permission.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(permission.charAt(i));
+            // "a.*" só cobre a permissão se houver algum segmento depois do ponto
+            if (pendingWildcard && c != '.') {
+                wildcardHit = true;
+                pendingWildcard = false;
+            }
+            if (node != null) {
+                node = node.child(c);
+                if (node != null && c == '.' && (node.flags & WILDCARD) != 0 && !wildcardHit) {
+                    pendingWildcard = true;
+                }
+            } else if (!pendingWildcard) {
+                break;
+            }
+        }
+
+        if (node != null) {
+            if ((node.flags & NEGATE) != 0) return false;
+            if ((node.flags & GRANT) != 0) return true;
+        }
+        return globalWildcard || wildcardHit;
+    }
+
+    /**
+     * Regra de {@code permissions} que decide a checagem, seguindo a mesma precedência de
+     * {@link #matches}: {@code -perm}, {@code perm}, {@code *} e o wildcard parcial mais específico.
+     * Sem trie nem cache; usado só para diagnóstico ({@link PermissionProfiler}).
+     *
+     * @return A regra, ou null se nenhuma se aplica (negado por padrão).
+     */
+    static String decidingRule(Set<String> permissions, String permission) {
+        if (permission == null || permission.isEmpty()) return null;
+        String node = permission.toLowerCase();
+        if (permissions.contains("-" + node)) return "-" + node;
+        if (permissions.contains(node)) return node;
+        if (permissions.contains("*")) return "*";
+        // Como em matches, "a.*" só cobre a permissão se houver algum caractere além de pontos depois dele
+        int lastSegment = node.length() - 1;
+        while (lastSegment >= 0 && node.charAt(lastSegment) == '.') lastSegment--;
+        for (int i = node.lastIndexOf('.', lastSegment); i >= 0; i = node.lastIndexOf('.', i - 1)) {
+            String wildcard = node.substring(0, i + 1) + "*";
+            if (permissions.contains(wildcard)) return wildcard;
+        }
+        return null;
+    }
+
+    private void insert(String permission, int from, byte flag) {
+        insertPrefix(permission.substring(from), permission.length() - from, flag);
+    }
+
+    private void insertPrefix(String value, int length, byte flag) {
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            node = node.getOrCreate(value.charAt(i));
+        }
+        node.flags |= flag;
+    }
+
+    /**
+     * Nó da trie; filhos em arrays ordenados por caractere (busca binária).
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private byte flags;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) return children[index];
+            int insertAt = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            Node created = new Node();
+            newChildren[insertAt] = created;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.realmmc.controller.modules.role;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Profiler opcional das checagens de permissão (ligado pelo comando {@code /permprofile}).
+ * <p>
+ * Os pontos de checagem ({@code RealmPermissible}, {@code VelocityPermissionProvider}) chamam
+ * {@link #sample()} antes de qualquer outra coisa; desligado, ele só lê a flag e devolve false. Ligado,
+ * uma a cada {@code sampleRate} checagens entra nos contadores do nó, junto com a regra/cargo que
+ * decidiu e o chamador (primeiro frame fora do controller e da plataforma).
+ * <p>
+ * "Nunca usadas" são as permissões próprias de cada cargo que não decidiram nenhuma checagem
+ * amostrada desde o último {@link #reset()}: é uma indicação, não prova, do que pode ser podado.
+ */
+public final class PermissionProfiler {
+
+    private static final int MAX_NODES = Integer.getInteger("PERMISSION_PROFILER_MAX_NODES", 5_000);
+    private static final int MAX_BREAKDOWN = 16;
+    private static final String[] SKIPPED_FRAMES = {
+            "com.realmmc.controller.modules.role.", "com.realmmc.controller.spigot.permission.",
+            "com.realmmc.controller.proxy.permission.", "org.bukkit.", "org.spigotmc.", "io.papermc.",
+            "com.destroystokyo.", "net.minecraft.", "com.velocitypowered.", "java.", "jdk.", "sun."
+    };
+
+    private static volatile boolean enabled;
+    private static volatile int sampleRate = 1;
+    private static volatile long enabledAt;
+
+    private static final Map<String, NodeStats> NODES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> RULE_HITS = new ConcurrentHashMap<>();
+    private static final LongAdder OVERFLOW = new LongAdder();
+
+    private PermissionProfiler() {
+    }
+
+    /**
+     * Resumo de um nó de permissão.
+     *
+     * @param samples Checagens amostradas (multiplique pela taxa para estimar o total).
+     * @param decider Regra/cargo que mais decidiu este nó.
+     * @param caller  Chamador mais frequente.
+     */
+    public record NodeReport(String permission, long samples, long granted, String decider, String caller) {
+    }
+
+    private static final class NodeStats {
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder granted = new LongAdder();
+        private final Map<String, LongAdder> deciders = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> callers = new ConcurrentHashMap<>();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+
+    public static long getEnabledAt() {
+        return enabledAt;
+    }
+
+    /**
+     * @param rate Amostra uma a cada {@code rate} checagens (1 = todas).
+     */
+    public static void enable(int rate) {
+        sampleRate = Math.max(1, rate);
+        enabledAt = System.currentTimeMillis();
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static void reset() {
+        NODES.clear();
+        RULE_HITS.clear();
+        OVERFLOW.reset();
+        if (enabled) enabledAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return true se esta checagem deve ser registrada com {@link #record}.
+     */
+    public static boolean sample() {
+        if (!enabled) return false;
+        int rate = sampleRate;
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    /**
+     * @param decider Regra que decidiu, no formato {@code cargo:regra} (ver
+     *                {@link RoleService#explainPermission}), ou a origem na plataforma ({@code op}, {@code attachment}).
+     */
+    public static void record(String permission, boolean granted, String decider) {
+        if (permission == null) return;
+        String node = permission.toLowerCase();
+        NodeStats stats = NODES.get(node);
+        if (stats == null) {
+            if (NODES.size() >= MAX_NODES) {
+                OVERFLOW.increment();
+                return;
+            }
+            stats = NODES.computeIfAbsent(node, k -> new NodeStats());
+        }
+        stats.samples.increment();
+        if (granted) stats.granted.increment();
+        String decidedBy = decider != null ? decider : "none";
+        increment(stats.deciders, decidedBy);
+        increment(stats.callers, caller());
+        RULE_HITS.computeIfAbsent(decidedBy, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Nós mais checados, em ordem decrescente de amostras.
+     */
+    public static List<NodeReport> top(int limit) {
+        List<NodeReport> reports = new ArrayList<>(NODES.size());
+        NODES.forEach((node, stats) -> reports.add(new NodeReport(node, stats.samples.sum(), stats.granted.sum(),
+                mostFrequent(stats.deciders), mostFrequent(stats.callers))));
+        reports.sort(Comparator.comparingLong(NodeReport::samples).reversed());
+        return reports.size() > limit ? reports.subList(0, limit) : reports;
+    }
+
+    /**
+     * Permissões próprias dos cargos que não decidiram nenhuma checagem amostrada.
+     *
+     * @param ownPermissions Permissões declaradas por cargo (sem as herdadas).
+     * @return Entradas no formato {@code cargo:permissão}.
+     */
+    public static List<String> unusedGrants(Map<String, ? extends Collection<String>> ownPermissions) {
+        List<String> unused = new ArrayList<>();
+        ownPermissions.forEach((role, permissions) -> {
+            for (String permission : permissions) {
+                String key = role.toLowerCase() + ":" + permission.toLowerCase();
+                if (!RULE_HITS.containsKey(key)) unused.add(key);
+            }
+        });
+        unused.sort(null);
+        return unused;
+    }
+
+    public static long getTrackedNodes() {
+        return NODES.size();
+    }
+
+    public static long getOverflow() {
+        return OVERFLOW.sum();
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_BREAKDOWN) key = "other";
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private static String mostFrequent(Map<String, LongAdder> counters) {
+        return counters.entrySet().stream()
+                .max(Comparator.comparingLong(e -> e.getValue().sum()))
+                .map(Map.Entry::getKey)
+                .orElse("-");
+    }
+
+    private static String caller() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !isSkipped(f.getClassName()))
+                .findFirst());
+        return frame.map(f -> f.getClassName() + "#" + f.getMethodName()).orElse("platform");
+    }
+
+    private static boolean isSkipped(String className) {
+        for (String prefix : SKIPPED_FRAMES) {
+            if (className.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+}
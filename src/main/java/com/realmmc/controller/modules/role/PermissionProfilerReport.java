@@ -0,0 +1,138 @@
+package com.realmmc.controller.modules.role;
+
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.role.Role;
+import com.realmmc.controller.shared.utils.TimeUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Subcomandos do {@code /permprofile}, compartilhados entre proxy e servidor (cada nó tem o seu
+ * próprio profiler, ver {@link PermissionProfiler}). Os comandos de cada plataforma só checam a
+ * permissão, tocam o som e delegam para cá.
+ */
+public final class PermissionProfilerReport {
+
+    public static final String PERMISSION = "controller.manager";
+    public static final String REQUIRED_GROUP = "Gerente";
+    private static final List<String> SUBCOMMANDS = List.of("on", "off", "status", "top", "unused", "reset", "help");
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAX_UNUSED_LINES = 50;
+
+    private PermissionProfilerReport() {
+    }
+
+    /**
+     * @return false se os argumentos eram inválidos (a ajuda foi mostrada).
+     */
+    public static boolean handle(Object sender, String label, String[] args, RoleService roleService) {
+        String sub = args.length > 0 ? args[0].toLowerCase() : "status";
+        switch (sub) {
+            case "on" -> {
+                int rate = args.length > 1 ? parsePositive(args[1], -1) : 1;
+                if (rate < 0) return help(sender, label);
+                PermissionProfiler.enable(rate);
+                status(sender);
+            }
+            case "off" -> {
+                PermissionProfiler.disable();
+                status(sender);
+            }
+            case "reset" -> {
+                PermissionProfiler.reset();
+                status(sender);
+            }
+            case "status" -> status(sender);
+            case "top" -> {
+                int limit = args.length > 1 ? parsePositive(args[1], -1) : DEFAULT_TOP;
+                if (limit < 0) return help(sender, label);
+                top(sender, limit);
+            }
+            case "unused" -> unused(sender, roleService);
+            default -> {
+                return help(sender, label);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sugestões para o primeiro argumento.
+     */
+    public static List<String> complete(String[] args) {
+        if (args.length != 1) return List.of();
+        String current = args[0].toLowerCase();
+        return SUBCOMMANDS.stream().filter(s -> s.startsWith(current)).toList();
+    }
+
+    private static void status(Object sender) {
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_HEADER).with("subject", "Profiler de Permissões"));
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", "Estado")
+                .with("value", Messages.translate(PermissionProfiler.isEnabled() ? MessageKey.COMMON_ENABLED : MessageKey.COMMON_DISABLED)));
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", "Amostragem")
+                .with("value", "1/" + PermissionProfiler.getSampleRate()));
+        if (PermissionProfiler.isEnabled()) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", "Coletando há")
+                    .with("value", TimeUtils.formatDuration(System.currentTimeMillis() - PermissionProfiler.getEnabledAt())));
+        }
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", "Nós registrados")
+                .with("value", PermissionProfiler.getTrackedNodes() + " (descartados: " + PermissionProfiler.getOverflow() + ")"));
+    }
+
+    private static void top(Object sender, int limit) {
+        List<PermissionProfiler.NodeReport> reports = PermissionProfiler.top(limit);
+        int rate = PermissionProfiler.getSampleRate();
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_HEADER).with("key", "Permissões mais checadas").with("count", reports.size()));
+        if (reports.isEmpty()) {
+            Messages.send(sender, MessageKey.COMMON_INFO_LIST_EMPTY);
+            return;
+        }
+        int index = 1;
+        for (PermissionProfiler.NodeReport r : reports) {
+            long grantedPct = r.samples() == 0 ? 0 : r.granted() * 100 / r.samples();
+            String value = r.permission() + " <gray>~" + (r.samples() * rate) + " checagens, " + grantedPct
+                    + "% concedidas, decisão: " + r.decider() + ", origem: " + r.caller();
+            Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_ITEM).with("index", index++).with("value", value));
+        }
+    }
+
+    private static void unused(Object sender, RoleService roleService) {
+        Map<String, List<String>> own = new HashMap<>();
+        for (Role role : roleService.getAllCachedRoles()) {
+            if (role.getPermissions() != null) own.put(role.getName(), role.getPermissions());
+        }
+        List<String> unused = PermissionProfiler.unusedGrants(own);
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_HEADER).with("key", "Permissões nunca usadas (cargo:permissão)").with("count", unused.size()));
+        if (unused.isEmpty()) {
+            Messages.send(sender, MessageKey.COMMON_INFO_LIST_EMPTY);
+            return;
+        }
+        for (int i = 0; i < Math.min(unused.size(), MAX_UNUSED_LINES); i++) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_ITEM).with("index", i + 1).with("value", unused.get(i)));
+        }
+    }
+
+    private static boolean help(Object sender, String label) {
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_HEADER).with("system", "Profiler de Permissões"));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " on [taxa]").with("description", "Liga o profiler, amostrando 1 a cada [taxa] checagens."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " off").with("description", "Desliga o profiler (os dados são mantidos)."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " top [n]").with("description", "Mostra as permissões mais checadas."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " unused").with("description", "Lista permissões dos cargos que nunca decidiram uma checagem."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " reset").with("description", "Zera os contadores."));
+        Messages.send(sender, MessageKey.COMMON_HELP_FOOTER_FULL);
+        return false;
+    }
+
+    private static int parsePositive(String value, int fallback) {
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed > 0 ? parsed : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
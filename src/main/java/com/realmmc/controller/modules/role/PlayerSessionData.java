@@ -5,11 +5,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.realmmc.controller.shared.role.Role;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.time.Instant;
 import java.util.*; // Import HashSet e Collections
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @ToString
@@ -25,6 +27,21 @@ public class PlayerSessionData {
     private final String suffix;
     private final long calculatedAtTimestamp;
 
+    private static final int MAX_CACHED_DECISIONS = Integer.getInteger("PERMISSION_DECISION_CACHE_SIZE", 1024);
+
+    @Getter(AccessLevel.NONE)
+    @JsonIgnore
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    @JsonIgnore
+    private transient volatile PermissionMatcher matcher;
+
+    // Cargos usados no cálculo e a versão do RoleGraph na época (ver RoleService#isStale)
+    @JsonIgnore
+    private volatile Set<String> sourceRoles = Set.of();
+    @JsonIgnore
+    private volatile long rolesVersion;
+
     /** Construtor principal usado pela lógica (calculatePermissionsExplicit). */
     public PlayerSessionData(UUID uuid, Role primaryRole, Set<String> effectivePermissions) {
         if (primaryRole == null) {
@@ -66,36 +83,39 @@ public class PlayerSessionData {
         this.calculatedAtTimestamp = (calculatedAtTimestamp > 0) ? calculatedAtTimestamp : Instant.now().toEpochMilli();
     }
 
+    void bindRoles(Set<String> roles, long version) {
+        this.sourceRoles = Set.copyOf(roles);
+        this.rolesVersion = version;
+    }
+
     @JsonIgnore
     public Instant getCalculatedAt() {
         return Instant.ofEpochMilli(calculatedAtTimestamp);
     }
 
     /**
-     * Lógica de verificação de permissão (ajustada para clareza).
+     * Verificação de permissão: negação explícita, exata, {@code *} e wildcards parciais
+     * (ver {@link PermissionMatcher}). As decisões ficam memorizadas nesta sessão; quando os
+     * cargos mudam a sessão inteira é recalculada, levando o cache junto.
      */
     public boolean hasPermission(String permission) {
         if (permission == null || permission.isEmpty()) { return false; }
-        if (effectivePermissions == null) { return false; } // Checagem de segurança
-        String permLower = permission.toLowerCase();
-
-        // 1. Negação explícita tem prioridade máxima
-        if (effectivePermissions.contains("-" + permLower)) { return false; }
-        // 2. Permissão exata
-        if (effectivePermissions.contains(permLower)) { return true; }
-        // 3. Wildcard global
-        if (effectivePermissions.contains("*")) { return true; }
-        // 4. Wildcards parciais (a.b.* -> a.b.c)
-        String[] parts = permLower.split("\\.");
-        StringBuilder builder = new StringBuilder(permLower.length());
-        for (int i = 0; i < parts.length - 1; i++) { // Itera até o penúltimo
-            builder.append(parts[i]).append(".");
-            if (effectivePermissions.contains(builder + "*")) {
-                return true;
-            }
+        Boolean cached = decisions.get(permission);
+        if (cached != null) { return cached; }
+
+        boolean result = matcher().matches(permission);
+        if (decisions.size() >= MAX_CACHED_DECISIONS) { decisions.clear(); }
+        decisions.put(permission, result);
+        return result;
+    }
+
+    private PermissionMatcher matcher() {
+        PermissionMatcher current = matcher;
+        if (current == null) {
+            current = PermissionMatcher.compile(effectivePermissions != null ? effectivePermissions : Collections.emptySet());
+            matcher = current;
         }
-        // 5. Nenhuma permissão encontrada
-        return false;
+        return current;
     }
 
     /**
@@ -96,7 +96,7 @@ public class RedisRoleSyncListener implements RedisMessageListener {
 
     public void stopListening() {
         try {
-            subscriber.unregisterListener(RedisChannel.ROLE_SYNC);
+            subscriber.unregisterListener(RedisChannel.ROLE_SYNC, this);
             LOGGER.info("RedisRoleSyncListener desregistrado do canal Redis ROLE_SYNC.");
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Erro ao desregistrar RedisRoleSyncListener do Redis.", e);
@@ -0,0 +1,197 @@
+package com.realmmc.controller.modules.role;
+
+import com.realmmc.controller.shared.role.Role;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grafo de herança dos cargos, compilado em ordem topológica.
+ * <p>
+ * Cada {@link #compile} compara as definições novas com as atuais e recalcula só os cargos alterados
+ * e seus descendentes (quem herda deles). Ciclos de herança são rejeitados com o caminho do ciclo.
+ * A cada compilação com mudanças a {@link #version()} avança; sessões guardam a versão com que foram
+ * calculadas e usam {@link #changedSince} para saber se algum dos seus cargos mudou.
+ */
+final class RoleGraph {
+
+    /**
+     * Herança circular entre cargos. A mensagem traz o caminho, ex.: {@code vip -> mvp -> vip}.
+     */
+    static final class RoleCycleException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> cycle;
+
+        RoleCycleException(List<String> cycle) {
+            super("Herança circular entre cargos: " + String.join(" -> ", cycle));
+            this.cycle = List.copyOf(cycle);
+        }
+
+        List<String> getCycle() {
+            return cycle;
+        }
+    }
+
+    private record Definition(List<String> permissions, List<String> parents) {
+    }
+
+    private Map<String, Definition> definitions = Map.of();
+    private Map<String, Set<String>> effective = Map.of();
+    private final Map<String, Long> roleVersions = new HashMap<>();
+    private volatile long version;
+
+    long version() {
+        return version;
+    }
+
+    synchronized Set<String> effectivePermissions(String roleName) {
+        return roleName == null ? Set.of() : effective.getOrDefault(roleName.toLowerCase(), Set.of());
+    }
+
+    /**
+     * O cargo seguido de todos os que ele herda, do mais próximo ao mais distante.
+     */
+    synchronized List<String> lineage(String roleName) {
+        if (roleName == null) return List.of();
+        Set<String> seen = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(roleName.toLowerCase()));
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            Definition def = definitions.get(name);
+            if (def == null || !seen.add(name)) continue;
+            pending.addAll(def.parents());
+        }
+        return List.copyOf(seen);
+    }
+
+    /**
+     * @return true se algum dos cargos foi recalculado depois da versão {@code since}.
+     */
+    synchronized boolean changedSince(long since, Collection<String> roleNames) {
+        for (String name : roleNames) {
+            if (roleVersions.getOrDefault(name.toLowerCase(), 0L) > since) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Substitui o conjunto de cargos. Em caso de ciclo nada é alterado.
+     *
+     * @param breakCycles Em vez de rejeitar, ignora as heranças que fecham ciclos (usado na
+     *                    primeira carga, quando não há estado anterior para manter).
+     * @return Cargos recalculados.
+     * @throws RoleCycleException se houver ciclo e {@code breakCycles} for false.
+     */
+    synchronized Set<String> compile(Collection<Role> roles, boolean breakCycles) {
+        Map<String, Definition> next = new HashMap<>();
+        for (Role role : roles) {
+            if (role == null || role.getName() == null) continue;
+            next.put(role.getName().toLowerCase(), new Definition(
+                    role.getPermissions() != null ? List.copyOf(role.getPermissions()) : List.of(),
+                    normalize(role.getInheritance())));
+        }
+
+        List<String> order = topologicalOrder(next, breakCycles);
+
+        // Cargos alterados + todos que herdam deles, direta ou indiretamente
+        Set<String> affected = new HashSet<>();
+        for (String name : next.keySet()) {
+            if (!next.get(name).equals(definitions.get(name))) affected.add(name);
+        }
+        for (String name : definitions.keySet()) {
+            if (!next.containsKey(name)) affected.add(name);
+        }
+        Map<String, List<String>> children = childrenOf(next);
+        Deque<String> pending = new ArrayDeque<>(affected);
+        while (!pending.isEmpty()) {
+            for (String child : children.getOrDefault(pending.poll(), List.of())) {
+                if (affected.add(child)) pending.add(child);
+            }
+        }
+
+        Map<String, Set<String>> computed = new HashMap<>();
+        for (String name : order) {
+            Set<String> previous = effective.get(name);
+            if (previous != null && !affected.contains(name)) {
+                computed.put(name, previous);
+                continue;
+            }
+            Set<String> perms = new HashSet<>(next.get(name).permissions());
+            for (String parent : next.get(name).parents()) {
+                Set<String> inherited = computed.get(parent);
+                if (inherited != null) perms.addAll(inherited);
+            }
+            computed.put(name, Collections.unmodifiableSet(perms));
+        }
+
+        definitions = next;
+        effective = computed;
+        if (!affected.isEmpty()) {
+            long newVersion = version + 1;
+            for (String name : affected) roleVersions.put(name, newVersion);
+            version = newVersion;
+        }
+        return affected;
+    }
+
+    private static List<String> normalize(List<String> parents) {
+        if (parents == null || parents.isEmpty()) return List.of();
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String parent : parents) {
+            if (parent != null && !parent.isBlank()) normalized.add(parent.toLowerCase());
+        }
+        return List.copyOf(normalized);
+    }
+
+    private static Map<String, List<String>> childrenOf(Map<String, Definition> graph) {
+        Map<String, List<String>> children = new HashMap<>();
+        graph.forEach((name, def) -> {
+            for (String parent : def.parents()) {
+                children.computeIfAbsent(parent, k -> new ArrayList<>()).add(name);
+            }
+        });
+        return children;
+    }
+
+    /**
+     * Ordem em que cada cargo vem depois de todos os que ele herda. Pais inexistentes são ignorados.
+     */
+    private static List<String> topologicalOrder(Map<String, Definition> graph, boolean breakCycles) {
+        List<String> order = new ArrayList<>(graph.size());
+        Map<String, Integer> state = new HashMap<>(); // 1 = visitando, 2 = concluído
+        for (String name : graph.keySet()) {
+            visit(name, graph, state, new ArrayList<>(), order, breakCycles);
+        }
+        return order;
+    }
+
+    private static void visit(String name, Map<String, Definition> graph, Map<String, Integer> state,
+                              List<String> path, List<String> order, boolean breakCycles) {
+        Integer current = state.get(name);
+        if (current != null && current == 2) return;
+        if (current != null) {
+            List<String> cycle = new ArrayList<>(path.subList(path.indexOf(name), path.size()));
+            cycle.add(name);
+            if (!breakCycles) throw new RoleCycleException(cycle);
+            return;
+        }
+        state.put(name, 1);
+        path.add(name);
+        for (String parent : graph.get(name).parents()) {
+            if (graph.containsKey(parent)) visit(parent, graph, state, path, order, breakCycles);
+        }
+        path.remove(path.size() - 1);
+        state.put(name, 2);
+        order.add(name);
+    }
+}
@@ -123,7 +123,7 @@ public class RoleModule extends AbstractCoreModule {
                 ServiceRegistry.getInstance().getService(RedisSubscriber.class)
                         .ifPresent(sub -> {
                             try {
-                                sub.unregisterListener(RedisChannel.ROLE_BROADCAST);
+                                sub.unregisterListener(RedisChannel.ROLE_BROADCAST, roleBroadcastListener);
                                 logger.info("[RoleModule] RoleBroadcastListener unregistered.");
                             } catch (Exception ex) {
                                 logger.log(Level.WARNING, "[RoleModule] Error unregistering RoleBroadcastListener.", ex);
@@ -4,11 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mongodb.MongoException;
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.shared.expiry.ExpiryEngine;
 import com.realmmc.controller.shared.profile.Profile;
 import com.realmmc.controller.shared.profile.ProfileService;
 import com.realmmc.controller.shared.role.DefaultRole;
 import com.realmmc.controller.shared.role.PlayerRole;
 import com.realmmc.controller.shared.role.Role;
+import com.realmmc.controller.shared.role.RoleKickHandler;
 import com.realmmc.controller.shared.role.RoleRepository;
 import com.realmmc.controller.shared.role.RoleType;
 import com.realmmc.controller.shared.sounds.SoundKeys;
@@ -25,7 +27,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 public class RoleService {
@@ -42,10 +44,22 @@ public class RoleService {
 
     private final Set<UUID> sentExpirationWarnings = ConcurrentHashMap.newKeySet();
 
+    private final RoleGraph roleGraph = new RoleGraph();
+    private final SessionReadiness readiness = new SessionReadiness();
+    // Carregamento vigente de cada jogador; um carregamento só grava a sessão se ainda for o vigente
+    private final Map<UUID, Long> loadTokens = new ConcurrentHashMap<>();
+    private final AtomicLong nextLoadToken = new AtomicLong();
+
+    private static final String ROLE_EXPIRY = "roles";
+    private static final long EXPIRY_SWEEP_MILLIS = Long.getLong("ROLE_EXPIRY_SWEEP_MILLIS", TimeUnit.MINUTES.toMillis(5));
+    private static final int EXPIRY_SWEEP_BATCH = Integer.getInteger("ROLE_EXPIRY_SWEEP_BATCH", 500);
+    private final ExpiryEngine expiryEngine;
+
     public RoleService(Logger logger) {
         this.logger = logger;
         try {
             this.profileService = ServiceRegistry.getInstance().requireService(ProfileService.class);
+            this.expiryEngine = ServiceRegistry.getInstance().requireService(ExpiryEngine.class);
         } catch (IllegalStateException e) {
             throw e;
         }
@@ -302,81 +316,223 @@ public class RoleService {
 
 
     private void startExpirationTask() {
-        TaskScheduler.runAsyncTimer(() -> {
-            try {
-                for (UUID uuid : sessionCache.keySet()) {
-                    checkExpiration(uuid);
-                }
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Erro na task de expiração de roles", e);
-            }
-        }, 1, 1, TimeUnit.MINUTES);
+        expiryEngine.register(ROLE_EXPIRY, this::checkExpiration);
+        expiryEngine.scheduleSweep(ROLE_EXPIRY, EXPIRY_SWEEP_MILLIS, this::sweepExpiredRoles);
     }
 
+    /**
+     * Remove os cargos vencidos de um jogador online. Chamado pelo {@link ExpiryEngine} quando vence o
+     * prazo agendado e no join. Só o nó que reivindicar a expiração grava e agenda o kick de aviso;
+     * os outros reconferem depois do período de tolerância.
+     */
     public void checkExpiration(UUID uuid) {
         profileService.getByUuid(uuid).ifPresent(profile -> {
             if (profile.getRoles() == null) return;
+            long now = System.currentTimeMillis();
 
-            List<String> expiredRoles = new ArrayList<>();
-            boolean changed = profile.getRoles().removeIf(pr -> {
-                if (pr.hasExpired()) {
-                    expiredRoles.add(pr.getRoleName());
-                    return true;
-                }
-                return false;
-            });
+            List<PlayerRole> expired = profile.getRoles().stream().filter(PlayerRole::hasExpired).toList();
+            List<PlayerRole> claimed = expired.stream()
+                    .filter(pr -> expiryEngine.claim(ROLE_EXPIRY, uuid, pr.getRoleName(), pr.getExpiresAt()))
+                    .toList();
+            boolean overdue = expired.stream().anyMatch(pr -> now - pr.getExpiresAt() >= ExpiryEngine.CLAIM_GRACE_MILLIS);
 
-            if (changed) {
-                updatePauseState(profile);
+            if (!expired.isEmpty() && claimed.isEmpty() && !overdue) {
+                // Outro nó está aplicando; confere de novo quando a tolerância acabar
+                expiryEngine.track(ROLE_EXPIRY, uuid, now + ExpiryEngine.CLAIM_GRACE_MILLIS);
+                return;
+            }
 
-                ensureDefaultRole(profile);
-                recalculatePrimaryRole(profile);
+            if (!expired.isEmpty() && removeExpiredRoles(profile, now)) {
                 profileService.save(profile);
                 invalidateSession(uuid);
-                logger.info("[RoleService] Cargos expirados removidos de " + uuid + ": " + expiredRoles);
+                publishSync(uuid);
+                logger.info("[RoleService] Cargos expirados removidos de " + uuid + ": "
+                        + expired.stream().map(PlayerRole::getRoleName).toList());
+
+                for (PlayerRole pr : claimed) {
+                    getRole(pr.getRoleName()).ifPresent(role ->
+                            RoleKickHandler.scheduleKick(uuid, role.getType(), RoleKickHandler.KickReason.EXPIRED, role.getDisplayName()));
+                }
             }
+            expiryEngine.track(ROLE_EXPIRY, uuid, nextExpiration(profile));
         });
     }
 
+    /**
+     * Varredura dos jogadores offline: busca pelo índice de {@code roles.expiresAt} só os perfis com
+     * cargos vencidos há mais que a tolerância (os online já foram tratados pela fila) e grava tudo
+     * em bulk. Pagina por {@code _id}: perfis pulados (jogador conectado, versão alterada) ficam para
+     * a próxima varredura sem travar as páginas seguintes.
+     */
+    private void sweepExpiredRoles() {
+        long cutoff = System.currentTimeMillis() - ExpiryEngine.CLAIM_GRACE_MILLIS;
+        long total = 0;
+        Integer afterId = null;
+        List<Profile> batch;
+        do {
+            batch = profileService.findWithRolesExpiredBefore(cutoff, afterId, EXPIRY_SWEEP_BATCH);
+            if (batch.isEmpty()) break;
+            total += profileService.saveAllIfUnchanged(batch, p -> removeExpiredRoles(p, cutoff));
+            afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() >= EXPIRY_SWEEP_BATCH);
+
+        if (total > 0) logger.info("[RoleService] Varredura de expiração: " + total + " perfil(is) offline atualizados.");
+    }
+
+    /**
+     * Remove do perfil os cargos expirados até {@code cutoff} e ajusta pausa, cargo padrão e primário.
+     * @return true se algum cargo foi removido.
+     */
+    private boolean removeExpiredRoles(Profile profile, long cutoff) {
+        if (profile.getRoles() == null) return false;
+        boolean changed = profile.getRoles().removeIf(pr -> pr.hasExpired() && pr.getExpiresAt() <= cutoff);
+        if (changed) {
+            updatePauseState(profile);
+            ensureDefaultRole(profile);
+            recalculatePrimaryRole(profile);
+        }
+        return changed;
+    }
+
+    /**
+     * Próximo vencimento entre os cargos ativos (cargos pausados não correm).
+     */
+    private static Long nextExpiration(Profile profile) {
+        if (profile.getRoles() == null) return null;
+        Long next = null;
+        for (PlayerRole pr : profile.getRoles()) {
+            if (pr.isPaused() || pr.getExpiresAt() == null) continue;
+            if (next == null || pr.getExpiresAt() < next) next = pr.getExpiresAt();
+        }
+        return next;
+    }
+
 
+    /**
+     * Os dados do jogador mudaram: recalcula a sessão em segundo plano. Se ele já tinha uma sessão,
+     * ela continua respondendo até a nova ficar pronta, então nenhuma checagem cai num cache vazio.
+     */
     public void invalidateSession(UUID uuid) {
-        sessionCache.remove(uuid);
         removePreLoginFuture(uuid);
+        if (sessionCache.containsKey(uuid)) {
+            reloadSession(uuid, false);
+        }
     }
 
+    /**
+     * Descarta a sessão do jogador (saiu deste nó).
+     */
+    public void unloadSession(UUID uuid) {
+        // Sob o mesmo lock da gravação: um carregamento em andamento não recoloca a sessão
+        loadTokens.compute(uuid, (k, token) -> {
+            sessionCache.remove(uuid);
+            return null;
+        });
+        removePreLoginFuture(uuid);
+        readiness.forget(uuid);
+    }
+
+    /**
+     * Sessão do jogador: a do cache, o carregamento que já estiver em andamento (inclusive um
+     * recálculo, para quem precisa dos dados novos) ou um carregamento novo.
+     */
     public CompletableFuture<PlayerSessionData> loadPlayerDataAsync(UUID uuid) {
-        if (sessionCache.containsKey(uuid)) {
-            return CompletableFuture.completedFuture(sessionCache.get(uuid));
+        CompletableFuture<PlayerSessionData> inFlight = readiness.inFlight(uuid);
+        if (inFlight != null) return inFlight;
+        PlayerSessionData cached = sessionCache.get(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
         CompletableFuture<PlayerSessionData> existingFuture = preLoginFutures.get(uuid);
         if (existingFuture != null) {
             return existingFuture;
         }
+        return reloadSession(uuid, true);
+    }
+
+    /**
+     * @return true se o jogador já tem a sessão de permissões carregada neste nó.
+     */
+    public boolean isSessionReady(UUID uuid) {
+        return uuid != null && sessionCache.containsKey(uuid);
+    }
 
-        return CompletableFuture.supplyAsync(() -> {
-            Profile p = profileService.getByUuid(uuid).orElse(null);
-            if (p == null) return getDefaultSessionData(uuid);
+    public SessionReadinessStats getReadinessStats() {
+        return readiness.getStats();
+    }
 
-            PlayerSessionData data = calculateSession(p);
-            sessionCache.put(uuid, data);
-            return data;
-        }, TaskScheduler.getAsyncExecutor());
+    private CompletableFuture<PlayerSessionData> reloadSession(UUID uuid, boolean initial) {
+        return readiness.load(uuid, initial, () -> {
+            long token = nextLoadToken.incrementAndGet();
+            loadTokens.put(uuid, token);
+            return CompletableFuture.supplyAsync(() -> {
+                Profile p = profileService.getByUuid(uuid).orElse(null);
+                PlayerSessionData data = p != null ? calculateSession(p) : null;
+                // Só grava se o jogador não saiu do nó nem começou outro carregamento nesse meio tempo
+                loadTokens.computeIfPresent(uuid, (k, current) -> {
+                    if (current != token) return current;
+                    if (data != null) sessionCache.put(uuid, data);
+                    return null;
+                });
+                return data != null ? data : getDefaultSessionData(uuid);
+            }, TaskScheduler.getAsyncExecutor());
+        });
     }
 
     public Optional<PlayerSessionData> getSessionDataFromCache(UUID uuid) {
-        return Optional.ofNullable(sessionCache.get(uuid));
+        PlayerSessionData session = sessionCache.get(uuid);
+        if (session != null && isStale(session)) reloadSession(uuid, false);
+        return Optional.ofNullable(session);
     }
 
+    /**
+     * Checa a permissão sobre a sessão em cache, sem nunca bloquear quem chama (thread principal do
+     * Bukkit, eventos do Velocity). Sem sessão pronta a checagem é negada e o carregamento começa
+     * em segundo plano. Os logins (proxy e servidor) só liberam o jogador com a sessão pronta, então
+     * isso fica restrito a checagens de jogadores que ainda estão conectando.
+     */
     public boolean hasPermission(UUID uuid, String permission) {
         if (uuid == null || permission == null) return false;
         PlayerSessionData session = sessionCache.get(uuid);
         if (session == null) {
+            readiness.recordEarlyCheck();
             loadPlayerDataAsync(uuid);
             return false;
         }
+        if (isStale(session)) reloadSession(uuid, false);
         return session.hasPermission(permission);
     }
 
+    /**
+     * Regra que decidiu a checagem e o cargo que a declara, no formato {@code cargo:regra}
+     * (ex.: {@code vip:chat.*}). Bem mais caro que {@link #hasPermission}; o
+     * {@link PermissionProfiler} só chama para checagens amostradas.
+     *
+     * @return null se nenhuma regra se aplica ou o jogador não tem sessão.
+     */
+    public String explainPermission(UUID uuid, String permission) {
+        PlayerSessionData session = uuid != null ? sessionCache.get(uuid) : null;
+        if (session == null) return null;
+        String rule = PermissionMatcher.decidingRule(session.getEffectivePermissions(), permission);
+        if (rule == null) return null;
+
+        List<Role> roles = session.getSourceRoles().stream()
+                .map(name -> roleCache.get(name.toLowerCase()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt(Role::getWeight).reversed())
+                .toList();
+        for (Role role : roles) {
+            for (String name : roleGraph.lineage(role.getName())) {
+                Role declaring = roleCache.get(name);
+                if (declaring != null && declaring.getPermissions() != null
+                        && declaring.getPermissions().stream().anyMatch(rule::equalsIgnoreCase)) {
+                    return name + ":" + rule;
+                }
+            }
+        }
+        return "?:" + rule;
+    }
+
     private void ensureDefaultRole(Profile profile) {
         if (profile.getRoles() == null) profile.setRoles(new ArrayList<>());
         boolean hasDefault = profile.getRoles().stream().anyMatch(pr -> pr.getRoleName().equalsIgnoreCase("default"));
@@ -418,7 +574,7 @@ public class RoleService {
 
     public void publishSync(UUID uuid) {
         if (uuid == null) return;
-        RedisPublisher.publish(RedisChannel.ROLE_SYNC, uuid.toString());
+        RedisPublisher.publish(RedisChannel.ROLE_SYNC, uuid.toString(), uuid.toString());
     }
 
 
@@ -440,39 +596,53 @@ public class RoleService {
         loadRolesToCache();
     }
 
+    /**
+     * Recarrega os cargos do banco e recompila o grafo de herança. Só os cargos alterados e seus
+     * descendentes têm as permissões recalculadas; uma atualização com herança circular é
+     * rejeitada e os cargos atuais são mantidos.
+     */
     public void loadRolesToCache() {
-        roleCache.clear();
-        roleRepository.collection().find().forEach(role -> {
-            role.setCachedEffectivePermissions(calculateEffectivePermissionsForRole(role));
-            roleCache.put(role.getName().toLowerCase(), role);
-        });
-
-        if (!roleCache.containsKey("default")) {
-            Role def = DefaultRole.DEFAULT.toRole();
-            def.setCachedEffectivePermissions(calculateEffectivePermissionsForRole(def));
-            roleCache.put("default", def);
+        List<Role> roles = new ArrayList<>(roleRepository.findAll());
+        if (roles.stream().noneMatch(r -> "default".equalsIgnoreCase(r.getName()))) {
+            roles.add(DefaultRole.DEFAULT.toRole());
         }
 
-        logger.info("[RoleService] Roles carregados: " + roleCache.size());
-    }
+        Set<String> recompiled;
+        boolean firstLoad = roleGraph.version() == 0;
+        try {
+            recompiled = roleGraph.compile(roles, firstLoad);
+        } catch (RoleGraph.RoleCycleException e) {
+            logger.severe("[RoleService] Atualização de cargos rejeitada: " + e.getMessage() + ". Mantendo os cargos atuais.");
+            return;
+        }
 
-    private Set<String> calculateEffectivePermissionsForRole(Role role) {
-        Set<String> perms = new HashSet<>();
-        if (role.getPermissions() != null) perms.addAll(role.getPermissions());
-        if (role.getInheritance() != null) {
-            for (String parent : role.getInheritance()) {
-                getRole(parent).ifPresent(r -> perms.addAll(calculateEffectivePermissionsForRole(r)));
-            }
+        Set<String> loaded = new HashSet<>();
+        for (Role role : roles) {
+            String key = role.getName().toLowerCase();
+            role.setCachedEffectivePermissions(roleGraph.effectivePermissions(key));
+            roleCache.put(key, role);
+            loaded.add(key);
         }
-        return perms;
+        roleCache.keySet().retainAll(loaded);
+        if (!recompiled.isEmpty()) {
+            PermissionMatcher.clearCompiled();
+        }
+
+        logger.info("[RoleService] Roles carregados: " + roleCache.size() + " (recalculados: " + recompiled.size()
+                + ", versão " + roleGraph.version() + ")");
     }
 
     private PlayerSessionData calculateSession(Profile profile) {
+        long rolesVersion = roleGraph.version();
         Set<String> finalPerms = new HashSet<>();
+        Set<String> activeRoles = new HashSet<>();
         if (profile.getRoles() != null) {
             for (PlayerRole pr : profile.getRoles()) {
                 if (pr.isActive()) {
-                    getRole(pr.getRoleName()).ifPresent(r -> finalPerms.addAll(r.getCachedEffectivePermissions()));
+                    getRole(pr.getRoleName()).ifPresent(r -> {
+                        finalPerms.addAll(r.getCachedEffectivePermissions());
+                        activeRoles.add(r.getName());
+                    });
                 }
             }
         }
@@ -480,7 +650,25 @@ public class RoleService {
         recalculatePrimaryRole(profile);
         Role primary = getRole(profile.getPrimaryRoleName()).orElse(getRole("default").get());
 
-        return new PlayerSessionData(profile.getUuid(), primary, finalPerms);
+        activeRoles.add(primary.getName());
+
+        PlayerSessionData data = new PlayerSessionData(profile.getUuid(), primary, finalPerms);
+        data.bindRoles(activeRoles, rolesVersion);
+        expiryEngine.track(ROLE_EXPIRY, profile.getUuid(), nextExpiration(profile));
+        return data;
+    }
+
+    /**
+     * Sessão calculada antes de uma recompilação que alterou algum dos seus cargos.
+     * A comparação de versão resolve o caso comum sem tocar no grafo.
+     */
+    private boolean isStale(PlayerSessionData session) {
+        long current = roleGraph.version();
+        long seen = session.getRolesVersion();
+        if (seen >= current) return false;
+        if (roleGraph.changedSince(seen, session.getSourceRoles())) return true;
+        session.bindRoles(session.getSourceRoles(), current);
+        return false;
     }
 
     public PlayerSessionData getDefaultSessionData(UUID uuid) {
@@ -489,6 +677,7 @@ public class RoleService {
     }
 
     public void shutdown() {
+        logger.info("[RoleService] Prontidão das sessões: " + readiness.getStats());
         preLoginFutures.clear();
         sessionCache.clear();
         sentExpirationWarnings.clear();
@@ -0,0 +1,88 @@
+package com.realmmc.controller.modules.role;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Prontidão das sessões de permissão, por jogador.
+ * <p>
+ * Todo carregamento ou recálculo de sessão passa por {@link #load}: chamadas concorrentes para o
+ * mesmo jogador recebem o mesmo futuro, e quem precisa da sessão nova (ex.: o refresher de
+ * permissões) espera por ele. O tempo até a primeira sessão de cada jogador ficar pronta e as
+ * checagens negadas por chegarem antes disso entram nas métricas ({@link SessionReadinessStats}).
+ */
+final class SessionReadiness {
+
+    private record Pending(CompletableFuture<PlayerSessionData> future, long startedAt, boolean initial) {
+    }
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong ready = new AtomicLong();
+    private final AtomicLong totalReadyMillis = new AtomicLong();
+    private final AtomicLong maxReadyMillis = new AtomicLong();
+    private final AtomicLong earlyChecks = new AtomicLong();
+    private final AtomicLong failedLoads = new AtomicLong();
+
+    /**
+     * Carregamento em andamento para o jogador, se houver.
+     */
+    CompletableFuture<PlayerSessionData> inFlight(UUID uuid) {
+        Pending entry = pending.get(uuid);
+        return entry != null ? entry.future() : null;
+    }
+
+    /**
+     * Inicia o carregamento com {@code loader}, ou devolve o que já estiver em andamento.
+     *
+     * @param initial true se o jogador ainda não tem sessão (conta para o tempo até ficar pronto).
+     */
+    CompletableFuture<PlayerSessionData> load(UUID uuid, boolean initial, Supplier<CompletableFuture<PlayerSessionData>> loader) {
+        Pending fresh = new Pending(new CompletableFuture<>(), System.currentTimeMillis(), initial);
+        Pending existing = pending.putIfAbsent(uuid, fresh);
+        if (existing != null) return existing.future();
+
+        CompletableFuture<PlayerSessionData> source;
+        try {
+            source = loader.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((data, error) -> {
+            pending.remove(uuid, fresh);
+            if (error != null) {
+                failedLoads.incrementAndGet();
+                fresh.future().completeExceptionally(error);
+                return;
+            }
+            if (fresh.initial()) {
+                long elapsed = System.currentTimeMillis() - fresh.startedAt();
+                ready.incrementAndGet();
+                totalReadyMillis.addAndGet(elapsed);
+                maxReadyMillis.accumulateAndGet(elapsed, Math::max);
+            }
+            fresh.future().complete(data);
+        });
+        return fresh.future();
+    }
+
+    /**
+     * Descarta o acompanhamento do jogador (saiu do nó). Quem já espera o futuro continua esperando.
+     */
+    void forget(UUID uuid) {
+        pending.remove(uuid);
+    }
+
+    void recordEarlyCheck() {
+        earlyChecks.incrementAndGet();
+    }
+
+    SessionReadinessStats getStats() {
+        return new SessionReadinessStats(pending.size(), ready.get(), totalReadyMillis.get(), maxReadyMillis.get(),
+                earlyChecks.get(), failedLoads.get());
+    }
+}
@@ -0,0 +1,24 @@
+package com.realmmc.controller.modules.role;
+
+/**
+ * Snapshot das métricas de prontidão das sessões de permissão.
+ *
+ * @param loading          Sessões sendo carregadas ou recalculadas agora.
+ * @param ready            Jogadores que tiveram a primeira sessão carregada.
+ * @param totalReadyMillis Soma do tempo até a primeira sessão ficar pronta.
+ * @param maxReadyMillis   Maior tempo até ficar pronto.
+ * @param earlyChecks      Checagens de permissão negadas por chegarem antes da sessão estar pronta.
+ * @param failedLoads      Carregamentos que terminaram com erro.
+ */
+public record SessionReadinessStats(
+        int loading,
+        long ready,
+        long totalReadyMillis,
+        long maxReadyMillis,
+        long earlyChecks,
+        long failedLoads
+) {
+    public double averageReadyMillis() {
+        return ready == 0 ? 0.0 : (double) totalReadyMillis / ready;
+    }
+}
@@ -13,6 +13,8 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
@@ -29,6 +31,7 @@ public class PterodactylService {
 
     private final int lobbyEggId;
     private final int lobbyNestId;
+    private final Map<ServerType, EggRef> typeEggs = new EnumMap<>(ServerType.class);
     private final int ownerUserId;
     private final int defaultLocationId;
 
@@ -43,6 +46,12 @@ public class PterodactylService {
     private final String redisDatabase;
     private final String redisSsl;
 
+    /**
+     * Egg/Nest usados para criar servidores de um tipo além do LOBBY
+     * ({@code -DPTERODACTYL_<TIPO>_EGG_ID} e {@code -DPTERODACTYL_<TIPO>_NEST_ID}).
+     */
+    private record EggRef(int eggId, int nestId) {
+    }
 
     public PterodactylService(Logger logger) {
         this.logger = logger;
@@ -75,6 +84,16 @@ public class PterodactylService {
         this.lobbyNestId = tempLobbyNestId;
         this.defaultLocationId = tempDefaultLocationId;
 
+        for (ServerType type : ServerType.values()) {
+            if (type == ServerType.LOBBY) continue;
+            Integer eggId = Integer.getInteger("PTERODACTYL_" + type.name() + "_EGG_ID");
+            Integer nestId = Integer.getInteger("PTERODACTYL_" + type.name() + "_NEST_ID");
+            if (eggId != null && nestId != null && eggId > 0 && nestId > 0) {
+                typeEggs.put(type, new EggRef(eggId, nestId));
+                logger.info("Egg " + eggId + " (nest " + nestId + ") configurado para servidores " + type + ".");
+            }
+        }
+
         this.mongoUri = System.getProperty("MONGO_URI");
         this.mongoDb = System.getProperty("MONGO_DB");
         this.redisHost = System.getProperty("REDIS_HOST");
@@ -143,6 +162,45 @@ public class PterodactylService {
         return sendPowerCommand(pterodactylId, "stop");
     }
 
+    /**
+     * Sonda usada pelo health check: vazio só quando o painel responde 404. Qualquer outra falha
+     * (status inesperado, JSON inválido, rede, prazo) completa o futuro com erro. Cancelar o futuro
+     * devolvido aborta a requisição HTTP em andamento.
+     */
+    public CompletableFuture<Optional<JsonNode>> probeServerDetails(String pterodactylId, Duration timeout) {
+        String url = String.format("%s/api/client/servers/%s/resources", panelUrl, pterodactylId);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "Bearer " + clientApiKey)
+                .header("Accept", "application/json")
+                .GET()
+                .timeout(timeout)
+                .build();
+
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, BodyHandlers.ofString());
+        CompletableFuture<Optional<JsonNode>> result = exchange
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    if (status == 404) {
+                        return Optional.<JsonNode>empty();
+                    }
+                    if (status != 200) {
+                        throw new IllegalStateException("Status " + status + " ao buscar detalhes de " + pterodactylId);
+                    }
+                    try {
+                        return Optional.of(objectMapper.readTree(response.body()));
+                    } catch (Exception e) {
+                        throw new IllegalStateException("JSON inválido nos detalhes de " + pterodactylId, e);
+                    }
+                });
+        // O cancelamento não sobe sozinho pelo thenApply; repassa para o sendAsync abortar a troca
+        result.whenComplete((details, error) -> {
+            if (result.isCancelled()) exchange.cancel(true);
+        });
+        return result;
+    }
+
     public CompletableFuture<Optional<JsonNode>> getServerDetails(String pterodactylId) {
         String url = String.format("%s/api/client/servers/%s/resources", panelUrl, pterodactylId);
 
@@ -181,6 +239,13 @@ public class PterodactylService {
 
 
 
+    /**
+     * @return true se há um egg configurado para criar servidores deste tipo.
+     */
+    public boolean supportsType(ServerType serverType) {
+        return serverType == ServerType.LOBBY || typeEggs.containsKey(serverType);
+    }
+
     public CompletableFuture<Optional<ServerInfo>> createPterodactylServer(String serverName, ServerType serverType) {
         if (this.appApiKey == null) {
             logger.severe("PTERODACTYL_APP_KEY não configurada. Impossível criar servidor.");
@@ -196,6 +261,12 @@ public class PterodactylService {
             nestId = this.lobbyNestId;
             mapType = "lobby";
         }
+        else if (typeEggs.containsKey(serverType)) {
+            EggRef egg = typeEggs.get(serverType);
+            eggId = egg.eggId();
+            nestId = egg.nestId();
+            mapType = serverType.name().toLowerCase();
+        }
         else {
             logger.warning("Tentativa de criar servidor de tipo não suportado (sem Egg ID definido): " + serverType);
             return CompletableFuture.completedFuture(Optional.empty());
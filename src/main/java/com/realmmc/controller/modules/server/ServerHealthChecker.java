@@ -0,0 +1,168 @@
+package com.realmmc.controller.modules.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.realmmc.controller.modules.server.data.ServerInfo;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Sonda o estado de vários servidores no painel ao mesmo tempo.
+ * <p>
+ * No máximo {@code parallelism} requisições ficam em voo; cada uma tem seu próprio prazo, então um
+ * painel lento atrasa só a própria resposta. Quando o prazo esgota, o futuro devolvido pela sonda é
+ * cancelado para que ela aborte a requisição em andamento, em vez de deixá-la ocupando conexão até
+ * o painel responder. A sonda é uma função ({@code pterodactylId, prazo}) para que o pipeline possa
+ * rodar contra o {@link PterodactylService} ou contra um painel falso.
+ */
+public class ServerHealthChecker {
+
+    /**
+     * Resultado da sonda de um servidor.
+     *
+     * @param details   Resposta do painel; vazio se o servidor não foi encontrado.
+     * @param error     Falha da sonda (inclui {@link TimeoutException}); null em caso de sucesso.
+     * @param latencyMs Tempo até a resposta ou falha.
+     */
+    public record ProbeResult(ServerInfo server, Optional<JsonNode> details, Throwable error, long latencyMs) {
+        public boolean failed() {
+            return error != null;
+        }
+
+        public boolean timedOut() {
+            return isTimeout(error);
+        }
+    }
+
+    /**
+     * Latência das sondas de um servidor.
+     */
+    public record ProbeStats(String server, long probes, long failures, long timeouts, long lastMs, long maxMs, long avgMs) {
+    }
+
+    private static final class Counters {
+        private long probes;
+        private long failures;
+        private long timeouts;
+        private long lastMs;
+        private long maxMs;
+        private long totalMs;
+    }
+
+    private final BiFunction<String, Duration, CompletableFuture<Optional<JsonNode>>> probe;
+    private final int parallelism;
+    private final Duration deadline;
+    private final Map<String, Counters> stats = new ConcurrentHashMap<>();
+
+    public ServerHealthChecker(BiFunction<String, Duration, CompletableFuture<Optional<JsonNode>>> probe, int parallelism, Duration deadline) {
+        this.probe = probe;
+        this.parallelism = Math.max(1, parallelism);
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sonda todos os servidores. O futuro completa quando todas as sondas terminaram (com resposta,
+     * erro ou prazo esgotado), nunca excepcionalmente.
+     */
+    public CompletableFuture<List<ProbeResult>> probeAll(List<ServerInfo> servers) {
+        if (servers.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyList());
+
+        Queue<ServerInfo> pending = new ConcurrentLinkedQueue<>(servers);
+        Queue<ProbeResult> results = new ConcurrentLinkedQueue<>();
+        AtomicInteger remaining = new AtomicInteger(servers.size());
+        CompletableFuture<List<ProbeResult>> done = new CompletableFuture<>();
+
+        int workers = Math.min(parallelism, servers.size());
+        for (int i = 0; i < workers; i++) {
+            next(pending, results, remaining, done);
+        }
+        return done;
+    }
+
+    public List<ProbeStats> getProbeStats() {
+        List<ProbeStats> snapshot = new ArrayList<>(stats.size());
+        stats.forEach((server, c) -> {
+            synchronized (c) {
+                snapshot.add(new ProbeStats(server, c.probes, c.failures, c.timeouts, c.lastMs, c.maxMs,
+                        c.probes == 0 ? 0 : c.totalMs / c.probes));
+            }
+        });
+        snapshot.sort((a, b) -> Long.compare(b.lastMs(), a.lastMs()));
+        return snapshot;
+    }
+
+    /**
+     * Descarta as métricas de servidores que não existem mais.
+     */
+    public void retain(Set<String> serverNames) {
+        stats.keySet().retainAll(serverNames);
+    }
+
+    private void next(Queue<ServerInfo> pending, Queue<ProbeResult> results, AtomicInteger remaining,
+                      CompletableFuture<List<ProbeResult>> done) {
+        ServerInfo server = pending.poll();
+        if (server == null) return;
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<Optional<JsonNode>> call;
+        try {
+            call = probe.apply(server.getPterodactylId(), deadline);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Optional<JsonNode>> request = call;
+        // O prazo corre numa cópia: completar a cópia não cancela a sonda, então ela é cancelada abaixo
+        call.copy().orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS).whenComplete((details, error) -> {
+            long latencyMs = (System.nanoTime() - startedAt) / 1_000_000L;
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) request.cancel(true);
+            record(server.getName(), latencyMs, cause);
+            results.add(new ProbeResult(server, cause == null && details != null ? details : Optional.empty(), cause, latencyMs));
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(new ArrayList<>(results));
+            } else {
+                next(pending, results, remaining, done);
+            }
+        });
+    }
+
+    private void record(String server, long latencyMs, Throwable error) {
+        Counters c = stats.computeIfAbsent(server, k -> new Counters());
+        synchronized (c) {
+            c.probes++;
+            c.lastMs = latencyMs;
+            c.maxMs = Math.max(c.maxMs, latencyMs);
+            c.totalMs += latencyMs;
+            if (error != null) {
+                c.failures++;
+                if (isTimeout(error)) c.timeouts++;
+            }
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        return error instanceof TimeoutException || error instanceof HttpTimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -3,6 +3,7 @@ package com.realmmc.controller.modules.server;
 import com.realmmc.controller.core.modules.AbstractCoreModule;
 import com.realmmc.controller.core.modules.AutoRegister;
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.proxy.listeners.ServerRegistryListener;
 import com.realmmc.controller.proxy.listeners.ServerStatusListener;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
 import com.realmmc.controller.shared.storage.redis.RedisSubscriber;
@@ -15,7 +16,9 @@ public class ServerManagerModule extends AbstractCoreModule {
 
     private PterodactylService pterodactylService;
     private ServerRegistryService serverRegistryService;
+    private ServerRegistryMirror serverRegistryMirror;
     private ServerStatusListener statusListener;
+    private ServerRegistryListener registryListener;
 
     public ServerManagerModule(Logger logger) {
         super(logger);
@@ -38,6 +41,18 @@ public class ServerManagerModule extends AbstractCoreModule {
             ServiceRegistry.getInstance().registerService(PterodactylService.class, this.pterodactylService);
             logger.info("PterodactylService registado.");
 
+            this.serverRegistryMirror = new ServerRegistryMirror(logger);
+            this.serverRegistryMirror.initialize();
+            ServiceRegistry.getInstance().registerService(ServerRegistryMirror.class, this.serverRegistryMirror);
+
+            try {
+                RedisSubscriber redis = ServiceRegistry.getInstance().requireService(RedisSubscriber.class);
+                this.registryListener = new ServerRegistryListener(this.serverRegistryMirror);
+                redis.registerListener(RedisChannel.SERVER_REGISTRY_SYNC, this.registryListener);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Falha ao registar ServerRegistryListener; o espelho dependerá só da reconciliação.", e);
+            }
+
             this.serverRegistryService = new ServerRegistryService(logger);
             ServiceRegistry.getInstance().registerService(ServerRegistryService.class, this.serverRegistryService);
             logger.info("ServerRegistryService registado.");
@@ -57,11 +72,13 @@ public class ServerManagerModule extends AbstractCoreModule {
 
         } catch (IllegalStateException e) {
             logger.log(Level.SEVERE, "Falha ao iniciar ServerManagerModule: " + e.getMessage());
+            this.serverRegistryMirror = null;
             this.pterodactylService = null;
             this.serverRegistryService = null;
             throw e;
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Erro crítico ao iniciar ServerManagerModule.", e);
+            this.serverRegistryMirror = null;
             this.pterodactylService = null;
             this.serverRegistryService = null;
             throw e;
@@ -72,7 +89,12 @@ public class ServerManagerModule extends AbstractCoreModule {
     protected void onDisable() throws Exception {
         if (this.statusListener != null) {
             ServiceRegistry.getInstance().getService(RedisSubscriber.class)
-                    .ifPresent(r -> r.unregisterListener(RedisChannel.SERVER_STATUS_UPDATE));
+                    .ifPresent(r -> r.unregisterListener(RedisChannel.SERVER_STATUS_UPDATE, this.statusListener));
+        }
+
+        if (this.registryListener != null) {
+            ServiceRegistry.getInstance().getService(RedisSubscriber.class)
+                    .ifPresent(r -> r.unregisterListener(RedisChannel.SERVER_REGISTRY_SYNC, this.registryListener));
         }
 
         if (this.serverRegistryService != null) {
@@ -81,6 +103,11 @@ public class ServerManagerModule extends AbstractCoreModule {
             logger.info("ServerRegistryService finalizado e desregistado.");
         }
 
+        if (this.serverRegistryMirror != null) {
+            this.serverRegistryMirror.shutdown();
+            ServiceRegistry.getInstance().unregisterService(ServerRegistryMirror.class);
+        }
+
         if (this.pterodactylService != null) {
             ServiceRegistry.getInstance().unregisterService(PterodactylService.class);
             logger.info("PterodactylService desregistado.");
@@ -88,7 +115,9 @@ public class ServerManagerModule extends AbstractCoreModule {
 
         this.serverRegistryService = null;
         this.pterodactylService = null;
+        this.serverRegistryMirror = null;
         this.statusListener = null;
+        this.registryListener = null;
         logger.info("Módulo ServerManager finalizado.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.realmmc.controller.modules.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.modules.server.data.ServerInfo;
+import com.realmmc.controller.modules.server.data.ServerInfoRepository;
+import com.realmmc.controller.modules.server.data.ServerRegistryEvent;
+import com.realmmc.controller.modules.server.data.ServerStatus;
+import com.realmmc.controller.modules.server.data.ServerType;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import com.realmmc.controller.shared.storage.redis.RedisPublisher;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Espelho em memória de todos os {@link ServerInfo} da coleção {@code servers}.
+ * <p>
+ * Leituras (roteamento, nomes de exibição, listagens) nunca vão ao Mongo. Toda gravação passa por
+ * {@link #save}/{@link #saveChanges}/{@link #delete}: o banco incrementa a versão do documento
+ * ({@code $inc}, sem depender do relógio dos nós) e o documento gravado é aplicado localmente e
+ * publicado em {@link RedisChannel#SERVER_REGISTRY_SYNC} para os outros proxies.
+ * <p>
+ * Eventos só substituem uma entrada por uma versão maior ou igual. Remoções ficam como lápide por
+ * {@link #TOMBSTONE_TTL_MILLIS}, para que um evento atrasado não ressuscite o servidor. A
+ * reconciliação periódica trata o banco como fonte da verdade: corrige eventos perdidos e também
+ * gravações feitas direto no Mongo, mesmo que não tenham mudado a versão.
+ * Os objetos devolvidos são cópias; alterá-los não afeta o espelho.
+ */
+public class ServerRegistryMirror {
+
+    private static final long RECONCILE_SECONDS = Long.getLong("SERVER_REGISTRY_RECONCILE_SECONDS", 60L);
+    private static final long TOMBSTONE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * @param info      Documento, ou null se é uma lápide.
+     * @param appliedAt Quando a entrada foi aplicada neste nó.
+     */
+    private record Entry(ServerInfo info, long version, long appliedAt) {
+    }
+
+    /**
+     * Alteração de um servidor feita sobre uma cópia do espelho.
+     *
+     * @param before Cópia exatamente como o chamador a recebeu, antes de alterá-la.
+     * @param after  A mesma cópia depois das alterações.
+     */
+    public record Change(ServerInfo before, ServerInfo after) {
+    }
+
+    private final Logger logger;
+    private final ServerInfoRepository repository;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong eventsIgnored = new AtomicLong();
+    private final AtomicLong reconcileFixes = new AtomicLong();
+    private ScheduledFuture<?> reconcileTask;
+
+    public ServerRegistryMirror(Logger logger) {
+        this.logger = logger;
+        this.repository = new ServerInfoRepository();
+    }
+
+    public void initialize() {
+        reconcile();
+        reconcileTask = TaskScheduler.runAsyncTimer(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "[ServerRegistryMirror] Falha na reconciliação com o MongoDB.", e);
+            }
+        }, RECONCILE_SECONDS, RECONCILE_SECONDS, TimeUnit.SECONDS);
+        logger.info("[ServerRegistryMirror] Espelho carregado com " + findAll().size() + " servidores.");
+    }
+
+    public void shutdown() {
+        if (reconcileTask != null) {
+            TaskScheduler.cancelTask(reconcileTask);
+            reconcileTask = null;
+        }
+        logger.info("[ServerRegistryMirror] Finalizado. " + this);
+    }
+
+    public Optional<ServerInfo> findByName(String name) {
+        if (name == null) return Optional.empty();
+        Entry entry = entries.get(name);
+        return entry != null && entry.info() != null ? Optional.of(copy(entry.info())) : Optional.empty();
+    }
+
+    public List<ServerInfo> findAll() {
+        List<ServerInfo> result = new ArrayList<>(entries.size());
+        entries.values().forEach(entry -> {
+            if (entry.info() != null) result.add(copy(entry.info()));
+        });
+        return result;
+    }
+
+    public List<ServerInfo> findByTypeAndStatus(ServerType type, ServerStatus status) {
+        List<ServerInfo> result = new ArrayList<>();
+        entries.values().forEach(entry -> {
+            ServerInfo info = entry.info();
+            if (info != null && info.getType() == type && info.getStatus() == status) result.add(copy(info));
+        });
+        return result;
+    }
+
+    /**
+     * Nome de exibição do servidor, ou o próprio nome se não houver.
+     */
+    public String getDisplayName(String name) {
+        Entry entry = name != null ? entries.get(name) : null;
+        String displayName = entry != null && entry.info() != null ? entry.info().getDisplayName() : null;
+        return displayName != null && !displayName.isEmpty() ? displayName : name;
+    }
+
+    /**
+     * Grava o servidor no banco com uma nova versão e propaga a alteração.
+     */
+    public void save(ServerInfo serverInfo) {
+        ServerInfo stored = repository.save(serverInfo);
+        serverInfo.setVersion(stored.getVersion());
+        if (apply(stored.getName(), stored.getVersion(), stored)) publish(stored.getName(), stored.getVersion(), stored);
+    }
+
+    /**
+     * Grava vários servidores de uma vez, num único bulk write. Cada alteração manda ao banco só os
+     * campos em que {@code after} difere do próprio {@code before}; campos alterados por outros nós
+     * depois que o chamador tirou a cópia não são sobrescritos. Alterações vazias (ou de servidores
+     * que não estão mais no espelho) são ignoradas.
+     *
+     * @return Quantidade de servidores alterados.
+     */
+    public int saveChanges(List<Change> changes) {
+        List<DocumentUpdate> updates = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        for (Change change : changes) {
+            String name = change.after().getName();
+            Entry entry = entries.get(name);
+            if (entry == null || entry.info() == null) continue;
+            List<Bson> sets = diff(change.before(), change.after());
+            if (sets.isEmpty()) continue;
+            updates.add(new DocumentUpdate(Filters.eq("_id", name), Updates.combine(sets)));
+            changed.add(name);
+        }
+        if (updates.isEmpty()) return 0;
+
+        repository.applyChanges(updates);
+        // Relê os documentos alterados para propagar as versões (e o conteúdo) que o banco atribuiu
+        for (ServerInfo stored : repository.findByNames(changed)) {
+            if (apply(stored.getName(), stored.getVersion(), stored)) publish(stored.getName(), stored.getVersion(), stored);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Remove o servidor do banco e propaga a remoção.
+     */
+    public void delete(String name) {
+        if (name == null) return;
+        long version = repository.delete(name);
+        if (apply(name, version, null)) publish(name, version, null);
+    }
+
+    /**
+     * Aplica uma alteração recebida de outro nó.
+     */
+    public void handleEvent(ServerRegistryEvent event) {
+        if (event == null || event.server() == null) return;
+        if (apply(event.server(), event.version(), event.info())) {
+            eventsApplied.incrementAndGet();
+        } else {
+            eventsIgnored.incrementAndGet();
+        }
+    }
+
+    /**
+     * Relê a coleção inteira e corrige o espelho com o que está no banco, comparando versão e
+     * conteúdo. Entradas aplicadas depois do início da leitura são preservadas (a leitura pode não
+     * tê-las visto).
+     */
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        List<ServerInfo> documents = repository.findAll();
+        Set<String> seen = new HashSet<>();
+        int fixes = 0;
+        for (ServerInfo document : documents) {
+            seen.add(document.getName());
+            if (overwrite(document, startedAt)) fixes++;
+        }
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.info() == null) {
+                if (entry.appliedAt() < startedAt - TOMBSTONE_TTL_MILLIS) entries.remove(e.getKey(), entry);
+            } else if (!seen.contains(e.getKey()) && entry.appliedAt() < startedAt) {
+                if (entries.replace(e.getKey(), entry, new Entry(null, entry.version(), System.currentTimeMillis()))) {
+                    generation.incrementAndGet();
+                    fixes++;
+                }
+            }
+        }
+        if (fixes > 0) {
+            reconcileFixes.addAndGet(fixes);
+            logger.fine("[ServerRegistryMirror] Reconciliação corrigiu " + fixes + " entradas.");
+        }
+    }
+
+    /**
+     * Contador de alterações aplicadas ao espelho; muda sempre que alguma entrada muda.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ServerRegistryMirror{servers=" + findAll().size() + ", generation=" + generation.get()
+                + ", eventsApplied=" + eventsApplied.get() + ", eventsIgnored=" + eventsIgnored.get()
+                + ", reconcileFixes=" + reconcileFixes.get() + "}";
+    }
+
+    private boolean apply(String name, long version, ServerInfo info) {
+        ServerInfo stored = info != null ? copy(info) : null;
+        boolean[] applied = {false};
+        entries.compute(name, (k, current) -> {
+            if (current != null && current.version() > version) return current;
+            applied[0] = true;
+            return new Entry(stored, version, System.currentTimeMillis());
+        });
+        if (applied[0]) generation.incrementAndGet();
+        return applied[0];
+    }
+
+    /**
+     * Substitui a entrada pelo documento lido do banco, a menos que ela já seja idêntica ou tenha
+     * sido aplicada depois de {@code readStartedAt}.
+     */
+    private boolean overwrite(ServerInfo document, long readStartedAt) {
+        boolean[] fixed = {false};
+        entries.compute(document.getName(), (k, current) -> {
+            if (current != null && current.appliedAt() >= readStartedAt) return current;
+            if (current != null && current.version() == document.getVersion() && document.equals(current.info())) return current;
+            fixed[0] = true;
+            return new Entry(copy(document), document.getVersion(), System.currentTimeMillis());
+        });
+        if (fixed[0]) generation.incrementAndGet();
+        return fixed[0];
+    }
+
+    /**
+     * Devolve os {@code $set} dos campos em que {@code after} difere de {@code before}.
+     */
+    private static List<Bson> diff(ServerInfo before, ServerInfo after) {
+        List<Bson> sets = new ArrayList<>();
+        setIfChanged(sets, "pterodactylId", before.getPterodactylId(), after.getPterodactylId());
+        setIfChanged(sets, "internalPteroId", before.getInternalPteroId(), after.getInternalPteroId());
+        setIfChanged(sets, "displayName", before.getDisplayName(), after.getDisplayName());
+        setIfChanged(sets, "ip", before.getIp(), after.getIp());
+        setIfChanged(sets, "port", before.getPort(), after.getPort());
+        setIfChanged(sets, "type", before.getType(), after.getType());
+        setIfChanged(sets, "status", before.getStatus(), after.getStatus());
+        setIfChanged(sets, "maxPlayers", before.getMaxPlayers(), after.getMaxPlayers());
+        setIfChanged(sets, "maxPlayersVip", before.getMaxPlayersVip(), after.getMaxPlayersVip());
+        setIfChanged(sets, "minGroup", before.getMinGroup(), after.getMinGroup());
+        setIfChanged(sets, "playerCount", before.getPlayerCount(), after.getPlayerCount());
+        return sets;
+    }
+
+    private static <V> void setIfChanged(List<Bson> sets, String field, V before, V after) {
+        if (Objects.equals(before, after)) return;
+        sets.add(Updates.set(field, after));
+    }
+
+    private void publish(String name, long version, ServerInfo info) {
+        try {
+            RedisPublisher.publish(RedisChannel.SERVER_REGISTRY_SYNC,
+                    mapper.writeValueAsString(new ServerRegistryEvent(name, version, info)), name);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "[ServerRegistryMirror] Falha ao publicar alteração de '" + name + "'. A reconciliação irá propagá-la.", e);
+        }
+    }
+
+    private static ServerInfo copy(ServerInfo info) {
+        return info.toBuilder().build();
+    }
+}
@@ -2,55 +2,72 @@ package com.realmmc.controller.modules.server;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.role.RoleService;
+import com.realmmc.controller.modules.server.balancer.LobbyBalancer;
+import com.realmmc.controller.modules.server.balancer.LobbyReservations;
 import com.realmmc.controller.modules.server.data.DefaultServer;
 import com.realmmc.controller.modules.server.data.ServerInfo;
-import com.realmmc.controller.modules.server.data.ServerInfoRepository;
 import com.realmmc.controller.modules.server.data.ServerStatus;
 import com.realmmc.controller.modules.server.data.ServerType;
+import com.realmmc.controller.modules.server.scaling.Autoscaler;
+import com.realmmc.controller.modules.server.scaling.PoolView;
+import com.realmmc.controller.modules.server.scaling.ScalingDecision;
+import com.realmmc.controller.shared.session.NetworkPlayerCounts;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
-import com.realmmc.controller.shared.storage.redis.RedisManager;
 import com.realmmc.controller.shared.utils.TaskScheduler;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.mongodb.MongoException;
-import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.Projections;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import redis.clients.jedis.Jedis;
 
 public class ServerRegistryService {
 
     private final Logger logger;
     private final ProxyServer proxyServer;
-    private final ServerInfoRepository repository;
+    private final ServerRegistryMirror mirror;
     private final PterodactylService pterodactylService;
 
-    private static final double LOBBY_SCALE_UP_THRESHOLD = 0.70;
-    private static final long SERVER_EMPTY_SHUTDOWN_MS = TimeUnit.SECONDS.toMillis(30);
-    private static final Pattern LOBBY_NAME_PATTERN = Pattern.compile("^lobby-(\\d+)$", Pattern.CASE_INSENSITIVE);
+    private static final int HEALTH_CHECK_PARALLELISM = Integer.getInteger("PTERODACTYL_HEALTH_PARALLELISM", 8);
+    private static final long HEALTH_CHECK_TIMEOUT_MILLIS = Long.getLong("PTERODACTYL_HEALTH_TIMEOUT_MILLIS", 5_000L);
+    private static final long LOBBY_RESERVATION_TTL_MILLIS = Long.getLong("LOBBY_RESERVATION_TTL_MILLIS", 10_000L);
+    private static final long LOBBY_RESERVATION_REFRESH_MILLIS = Long.getLong("LOBBY_RESERVATION_REFRESH_MILLIS", 250L);
 
-    private final Map<String, Long> emptySinceTimestamp = new ConcurrentHashMap<>();
+    private final Autoscaler autoscaler;
+    private final Map<String, ServerType> pendingCreations = new ConcurrentHashMap<>();
+    private final LobbyBalancer lobbyBalancer = LobbyBalancer.fromSystemProperties();
+    private final LobbyReservations lobbyReservations =
+            new LobbyReservations(StorageBackends::keyValue, LOBBY_RESERVATION_TTL_MILLIS, LOBBY_RESERVATION_REFRESH_MILLIS, System::currentTimeMillis);
     private ScheduledFuture<?> healthCheckTask = null;
+    private final ServerHealthChecker healthChecker;
+    private final AtomicBoolean healthCheckRunning = new AtomicBoolean(false);
 
     public ServerRegistryService(Logger logger) {
         this.logger = logger;
         this.proxyServer = ServiceRegistry.getInstance().requireService(ProxyServer.class);
-        this.repository = new ServerInfoRepository();
+        this.mirror = ServiceRegistry.getInstance().requireService(ServerRegistryMirror.class);
         this.pterodactylService = ServiceRegistry.getInstance().requireService(PterodactylService.class);
+        this.healthChecker = new ServerHealthChecker(pterodactylService::probeServerDetails,
+                HEALTH_CHECK_PARALLELISM, Duration.ofMillis(HEALTH_CHECK_TIMEOUT_MILLIS));
+        this.autoscaler = Autoscaler.fromSystemProperties(pterodactylService::supportsType);
+        logger.info("[ServerRegistry] Autoscaling enabled for: " + autoscaler.getManagedTypes());
     }
 
     public void initialize() {
@@ -64,10 +81,10 @@ public class ServerRegistryService {
         try {
             logger.info("[ServerRegistry] Synchronizing default servers with MongoDB...");
             for (DefaultServer defaultServer : DefaultServer.values()) {
-                Optional<ServerInfo> existingOpt = repository.findByName(defaultServer.getName());
+                Optional<ServerInfo> existingOpt = mirror.findByName(defaultServer.getName());
                 ServerInfo defaultInfo = defaultServer.toServerInfo();
                 if (existingOpt.isEmpty()) {
-                    repository.save(defaultInfo);
+                    mirror.save(defaultInfo);
                     logger.info("[ServerRegistry] Default server '" + defaultInfo.getName() + "' created in DB.");
                 } else {
                     ServerInfo existing = existingOpt.get();
@@ -88,7 +105,7 @@ public class ServerRegistryService {
                         existing.setPterodactylId(defaultInfo.getPterodactylId()); updated = true;
                     }
                     if (updated) {
-                        repository.save(existing);
+                        mirror.save(existing);
                         logger.fine("[ServerRegistry] Default server '" + existing.getName() + "' updated with defaults.");
                     }
                 }
@@ -100,7 +117,7 @@ public class ServerRegistryService {
 
     private void initializeStaticServers() {
         try {
-            List<ServerInfo> allDbServers = repository.collection().find().into(new ArrayList<>());
+            List<ServerInfo> allDbServers = mirror.findAll();
             List<ServerInfo> staticServersToStart = allDbServers.stream()
                     .filter(s -> isStaticDefault(s.getName()))
                     .toList();
@@ -117,7 +134,7 @@ public class ServerRegistryService {
                 }
                 if (server.getPlayerCount() != 0) {
                     server.setPlayerCount(0);
-                    repository.save(server);
+                    mirror.save(server);
                 }
             }
         } catch (Exception e) {
@@ -131,8 +148,8 @@ public class ServerRegistryService {
         }
         healthCheckTask = TaskScheduler.runAsyncTimer(() -> {
             try {
-                runHealthCheck();
                 checkServerScaling();
+                runHealthCheck();
             } catch (Exception e) {
                 logger.log(Level.SEVERE, "[ServerRegistry] Critical error in combined Health/Scaling Check loop.", e);
             }
@@ -143,7 +160,7 @@ public class ServerRegistryService {
     public void handleServerReadySignal(String serverName) {
         TaskScheduler.runAsync(() -> {
             try {
-                Optional<ServerInfo> opt = repository.findByName(serverName);
+                Optional<ServerInfo> opt = mirror.findByName(serverName);
                 if (opt.isPresent()) {
                     ServerInfo server = opt.get();
 
@@ -153,7 +170,7 @@ public class ServerRegistryService {
 
                     server.setStatus(ServerStatus.ONLINE);
                     server.setPlayerCount(0);
-                    repository.save(server);
+                    mirror.save(server);
 
                     registerServerWithVelocity(server);
                 }
@@ -163,15 +180,18 @@ public class ServerRegistryService {
         });
     }
 
+    /**
+     * Dispara as sondas do painel sem bloquear o loop de scaling. Se o ciclo anterior ainda não
+     * terminou, este é pulado.
+     */
     private void runHealthCheck() {
-        logger.fine("[ServerRegistry] Executing Health Check (Pterodactyl -> DB)...");
-        List<ServerInfo> allDbServers;
-        try {
-            allDbServers = repository.collection().find().into(new ArrayList<>());
-        } catch (MongoException e) {
-            logger.log(Level.SEVERE, "[ServerRegistry] Health Check failed: Could not read servers from MongoDB.", e);
+        if (!healthCheckRunning.compareAndSet(false, true)) {
+            logger.fine("[ServerRegistry] Health Check anterior ainda em andamento. Pulando ciclo.");
             return;
         }
+        logger.fine("[ServerRegistry] Executing Health Check (Pterodactyl -> DB)...");
+        List<ServerInfo> allDbServers = mirror.findAll();
+        List<ServerInfo> toProbe = new ArrayList<>();
 
         for (ServerInfo server : allDbServers) {
             if (isStaticDefault(server.getName()) && server.getStatus() == ServerStatus.STOPPING) {
@@ -182,72 +202,108 @@ public class ServerRegistryService {
             }
             if (server.getInternalPteroId() == 0 && !isStaticDefault(server.getName())) {
                 logger.warning("[ServerRegistry] Health Check: Dynamic server '" + server.getName() + "' has missing InternalPteroId(0). Deleting from DB.");
-                repository.delete(Filters.eq("_id", server.getName()));
+                mirror.delete(server.getName());
                 unregisterServerFromVelocity(server.getName());
                 continue;
             }
+            toProbe.add(server);
+        }
+        healthChecker.retain(toProbe.stream().map(ServerInfo::getName).collect(Collectors.toSet()));
+
+        long startedAt = System.currentTimeMillis();
+        healthChecker.probeAll(toProbe)
+                .thenAccept(this::applyHealthResults)
+                .whenComplete((ignored, ex) -> {
+                    healthCheckRunning.set(false);
+                    if (ex != null) {
+                        logger.log(Level.SEVERE, "[ServerRegistry] Health Check: failed to apply probe results.", ex);
+                    } else {
+                        logger.fine("[ServerRegistry] Health Check finished: " + toProbe.size() + " servers in " + (System.currentTimeMillis() - startedAt) + "ms.");
+                    }
+                });
+    }
+
+    private void applyHealthResults(List<ServerHealthChecker.ProbeResult> results) {
+        List<ServerRegistryMirror.Change> changed = new ArrayList<>();
+
+        for (ServerHealthChecker.ProbeResult result : results) {
+            ServerInfo server = result.server();
+            ServerInfo before = server.toBuilder().build();
+
+            if (result.failed()) {
+                if (result.timedOut()) {
+                    logger.warning("[ServerRegistry] Health Check: Pterodactyl did not answer for " + server.getName() + " within " + HEALTH_CHECK_TIMEOUT_MILLIS + "ms.");
+                } else {
+                    logger.log(Level.WARNING, "[ServerRegistry] Health Check: Failed to get Pterodactyl details for " + server.getName(), result.error());
+                }
+                continue;
+            }
+
+            if (result.details().isEmpty()) {
+                logger.warning("[ServerRegistry] Health Check: " + server.getName() + " was not found on Pterodactyl (deleted externally?).");
+                if (!isStaticDefault(server.getName())) {
+                    logger.warning("[ServerRegistry] [Health Check] Deleting '" + server.getName() + "' from DB as it was not found on Pterodactyl.");
+                    mirror.delete(server.getName());
+                    unregisterServerFromVelocity(server.getName());
+                }
+                continue;
+            }
+
+            ServerStatus pteroStatus = parsePteroState(result.details().get());
+            ServerStatus dbStatus = server.getStatus();
+
+            if (pteroStatus == ServerStatus.OFFLINE || pteroStatus == ServerStatus.STOPPING) {
+                if (dbStatus != ServerStatus.OFFLINE) {
+                    logger.info("[ServerRegistry] " + server.getName() + " morreu/parou no Pterodactyl. Marcando OFFLINE.");
+                    server.setStatus(ServerStatus.OFFLINE);
+                    server.setPlayerCount(0);
+                    changed.add(new ServerRegistryMirror.Change(before, server));
+                    unregisterServerFromVelocity(server.getName());
+                }
+
+                if (!isStaticDefault(server.getName()) && dbStatus == ServerStatus.STOPPING) {
+                    logger.info("[ServerRegistry] [Health Check] Dynamic server '" + server.getName() + "' is OFFLINE (was STOPPING). Deleting from Pterodactyl and MongoDB...");
+
+                    pterodactylService.deletePterodactylServer(server.getInternalPteroId())
+                            .thenAccept(deleted -> {
+                                if (deleted) {
+                                    mirror.delete(server.getName());
+                                    logger.info("[ServerRegistry] [Health Check] Server '" + server.getName() + "' deleted successfully.");
+                                } else {
+                                    logger.severe("[ServerRegistry] [Health Check] Failed to delete server '" + server.getName() + "' from Pterodactyl. Will retry later.");
+                                }
+                            });
+                }
+                continue;
+            }
+
+            if (pteroStatus == ServerStatus.ONLINE) {
+                if (dbStatus == ServerStatus.OFFLINE) {
+                    logger.info("[ServerRegistry] " + server.getName() + " detetado como 'running' no Pterodactyl. Marcando como STARTING (aguardando Redis).");
+                    server.setStatus(ServerStatus.STARTING);
+                    changed.add(new ServerRegistryMirror.Change(before, server));
+                }
 
-            pterodactylService.getServerDetails(server.getPterodactylId())
-                    .whenComplete((detailsOpt, ex) -> {
-                        if (ex != null) {
-                            logger.log(Level.WARNING, "[ServerRegistry] Health Check: Failed to get Pterodactyl details for " + server.getName(), ex);
-                            return;
-                        }
-
-                        if (detailsOpt.isEmpty()) {
-                            logger.warning("[ServerRegistry] Health Check: No details received for " + server.getName() + " (API failed or server deleted externally?).");
-                            if (!isStaticDefault(server.getName())) {
-                                logger.warning("[ServerRegistry] [Health Check] Deleting '" + server.getName() + "' from DB as it was not found on Pterodactyl.");
-                                repository.delete(Filters.eq("_id", server.getName()));
-                                unregisterServerFromVelocity(server.getName());
-                            }
-                            return;
-                        }
-
-                        ServerStatus pteroStatus = parsePteroState(detailsOpt.get());
-                        ServerStatus dbStatus = server.getStatus();
-
-                        if (pteroStatus == ServerStatus.OFFLINE || pteroStatus == ServerStatus.STOPPING) {
-                            if (dbStatus != ServerStatus.OFFLINE) {
-                                logger.info("[ServerRegistry] " + server.getName() + " morreu/parou no Pterodactyl. Marcando OFFLINE.");
-                                server.setStatus(ServerStatus.OFFLINE);
-                                server.setPlayerCount(0);
-                                repository.save(server);
-                                unregisterServerFromVelocity(server.getName());
-                            }
-
-                            if (!isStaticDefault(server.getName()) && dbStatus == ServerStatus.STOPPING) {
-                                logger.info("[ServerRegistry] [Health Check] Dynamic server '" + server.getName() + "' is OFFLINE (was STOPPING). Deleting from Pterodactyl and MongoDB...");
-
-                                pterodactylService.deletePterodactylServer(server.getInternalPteroId())
-                                        .thenAccept(deleted -> {
-                                            if (deleted) {
-                                                repository.delete(Filters.eq("_id", server.getName()));
-                                                logger.info("[ServerRegistry] [Health Check] Server '" + server.getName() + "' deleted successfully.");
-                                            } else {
-                                                logger.severe("[ServerRegistry] [Health Check] Failed to delete server '" + server.getName() + "' from Pterodactyl. Will retry later.");
-                                            }
-                                        });
-                            }
-                            return;
-                        }
-
-                        if (pteroStatus == ServerStatus.ONLINE) {
-                            if (dbStatus == ServerStatus.OFFLINE) {
-                                logger.info("[ServerRegistry] " + server.getName() + " detetado como 'running' no Pterodactyl. Marcando como STARTING (aguardando Redis).");
-                                server.setStatus(ServerStatus.STARTING);
-                                repository.save(server);
-                            }
-
-                            if (dbStatus == ServerStatus.ONLINE && proxyServer.getServer(server.getName()).isEmpty()) {
-                                logger.info("[ServerRegistry] " + server.getName() + " está ONLINE no DB mas falta no Proxy. Registrando.");
-                                registerServerWithVelocity(server);
-                            }
-                        }
-                    });
+                if (dbStatus == ServerStatus.ONLINE && proxyServer.getServer(server.getName()).isEmpty()) {
+                    logger.info("[ServerRegistry] " + server.getName() + " está ONLINE no DB mas falta no Proxy. Registrando.");
+                    registerServerWithVelocity(server);
+                }
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            int written = mirror.saveChanges(changed);
+            logger.fine("[ServerRegistry] Health Check: " + written + " server(s) updated in one bulk write.");
         }
     }
 
+    /**
+     * Latência das sondas do painel por servidor, da mais lenta para a mais rápida (último ciclo).
+     */
+    public List<ServerHealthChecker.ProbeStats> getHealthProbeStats() {
+        return healthChecker.getProbeStats();
+    }
+
     private ServerStatus parsePteroState(JsonNode details) {
         String pteroState = details.path("attributes").path("current_state").asText("offline").toLowerCase();
         return switch (pteroState) {
@@ -260,7 +316,7 @@ public class ServerRegistryService {
 
     private void checkServerScaling() {
         try {
-            List<ServerInfo> allDbServers = repository.collection().find().into(new ArrayList<>());
+            List<ServerInfo> allDbServers = mirror.findAll();
 
             int totalMaxPlayers = allDbServers.stream()
                     .filter(s -> s.getStatus() == ServerStatus.ONLINE || s.getStatus() == ServerStatus.STARTING)
@@ -268,8 +324,8 @@ public class ServerRegistryService {
                     .sum();
             totalMaxPlayers = Math.max(500, totalMaxPlayers);
 
-            try (Jedis jedis = RedisManager.getResource()) {
-                jedis.setex(RedisChannel.GLOBAL_NETWORK_MAX_PLAYERS.getName(), 20, String.valueOf(totalMaxPlayers));
+            try {
+                StorageBackends.keyValue().setex(RedisChannel.GLOBAL_NETWORK_MAX_PLAYERS.getName(), 20, String.valueOf(totalMaxPlayers));
             } catch (Exception e) {
                 logger.log(Level.WARNING, "[ServerRegistry] Failed to save global network max players to Redis.", e);
             }
@@ -281,24 +337,21 @@ public class ServerRegistryService {
                             Collectors.counting()
                     ))
                     .entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().intValue()));
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().intValue(), Integer::sum, HashMap::new));
+            // Soma de todos os proxies (último heartbeat); a contagem local cobre entradas mais recentes neste proxy
+            ServiceRegistry.getInstance().getService(NetworkPlayerCounts.class)
+                    .ifPresent(counts -> counts.getLastTotals().network().byServer().forEach((name, count) -> onlinePlayerCounts.merge(name, count, Math::max)));
 
+            List<ServerRegistryMirror.Change> countChanges = new ArrayList<>();
             for (ServerInfo server : allDbServers) {
-                boolean needsSave = false;
-                int newCount = onlinePlayerCounts.getOrDefault(server.getName(), 0);
-                if (server.getStatus() == ServerStatus.ONLINE) {
-                    if (server.getPlayerCount() != newCount) {
-                        server.setPlayerCount(newCount);
-                        needsSave = true;
-                    }
-                } else if (server.getPlayerCount() != 0) {
-                    server.setPlayerCount(0);
-                    needsSave = true;
-                }
-                if (needsSave) {
-                    repository.save(server);
+                int newCount = server.getStatus() == ServerStatus.ONLINE ? onlinePlayerCounts.getOrDefault(server.getName(), 0) : 0;
+                if (server.getPlayerCount() != newCount) {
+                    ServerInfo before = server.toBuilder().build();
+                    server.setPlayerCount(newCount);
+                    countChanges.add(new ServerRegistryMirror.Change(before, server));
                 }
             }
+            mirror.saveChanges(countChanges);
 
             List<ServerInfo> staticServers = allDbServers.stream()
                     .filter(s -> isStaticDefault(s.getName()))
@@ -310,65 +363,23 @@ public class ServerRegistryService {
                 }
             }
 
-            for (ServerInfo server : allDbServers) {
-                if (isStaticDefault(server.getName()) || server.getType() != ServerType.LOBBY) {
-                    continue;
-                }
-                if (server.getStatus() != ServerStatus.ONLINE) {
-                    emptySinceTimestamp.remove(server.getName());
-                    continue;
-                }
-                int playerCount = onlinePlayerCounts.getOrDefault(server.getName(), 0);
-                if (playerCount == 0) {
-                    long emptySince = emptySinceTimestamp.computeIfAbsent(server.getName(), k -> System.currentTimeMillis());
-                    if (System.currentTimeMillis() - emptySince > SERVER_EMPTY_SHUTDOWN_MS) {
-                        logger.info("[ServerRegistry] Dynamic server '" + server.getName() + "' empty for > 30s. Shutting down...");
-                        scaleDownDynamicServer(server);
-                        emptySinceTimestamp.remove(server.getName());
-                    }
-                } else {
-                    emptySinceTimestamp.remove(server.getName());
-                }
-            }
-
-            List<ServerInfo> allLobbyServers = allDbServers.stream()
-                    .filter(s -> s.getType() == ServerType.LOBBY)
-                    .toList();
-            List<ServerInfo> onlineLobbies = allLobbyServers.stream()
-                    .filter(s -> s.getStatus() == ServerStatus.ONLINE)
-                    .toList();
+            long now = System.currentTimeMillis();
+            Map<ServerType, PoolView> pools = withPendingCreations(autoscaler.pools(allDbServers, onlinePlayerCounts, this::isStaticDefault));
+            Map<ServerType, ScalingDecision> decisions = autoscaler.evaluate(pools, now);
 
-            boolean triggerLobbyScaleUp = false;
-            if (onlineLobbies.isEmpty()) {
-                logger.warning("[ServerRegistry] No online lobbies! Triggering scale-up.");
-                triggerLobbyScaleUp = true;
-            } else {
-                boolean allLobbiesFull = true;
-                for (ServerInfo lobby : onlineLobbies) {
-                    int playerCount = onlinePlayerCounts.getOrDefault(lobby.getName(), 0);
-                    if (playerCount < (lobby.getMaxPlayers() * LOBBY_SCALE_UP_THRESHOLD)) {
-                        allLobbiesFull = false;
-                        break;
-                    }
+            decisions.forEach((type, decision) -> {
+                if (decision.isNoop()) {
+                    logger.finer("[ServerRegistry] [Scaling] " + type + ": " + decision.reason() + " (ideal: " + decision.desired() + ")");
+                    return;
                 }
-                if (allLobbiesFull) {
-                    logger.info("[ServerRegistry] All lobbies are at >" + (LOBBY_SCALE_UP_THRESHOLD * 100) + "% capacity. Triggering scale-up.");
-                    triggerLobbyScaleUp = true;
+                logger.info("[ServerRegistry] [Scaling] " + type + ": " + decision.reason() + " -> +" + decision.scaleUp() + " / -" + decision.scaleDown().size());
+                for (int i = 0; i < decision.scaleUp(); i++) {
+                    scaleUpNewServer(type);
                 }
-            }
-
-            if (triggerLobbyScaleUp) {
-                long startingLobbyCount = allLobbyServers.stream()
-                        .filter(s -> s.getStatus() == ServerStatus.STARTING)
-                        .count();
-
-                if (startingLobbyCount < 2) {
-                    logger.info("[ServerRegistry] Attempting to create a new LOBBY server...");
-                    scaleUpNewServer(ServerType.LOBBY);
-                } else {
-                    logger.fine("[ServerRegistry] LOBBY scale-up paused. " + startingLobbyCount + " servers already STARTING.");
+                for (String name : decision.scaleDown()) {
+                    mirror.findByName(name).ifPresent(this::scaleDownDynamicServer);
                 }
-            }
+            });
 
         } catch (MongoException e) {
             logger.log(Level.SEVERE, "[ServerRegistry] MongoDB error in scaling loop.", e);
@@ -387,46 +398,62 @@ public class ServerRegistryService {
         return false;
     }
 
-    private String findNextAvailableLobbyName() {
-        try {
-            Set<Integer> existingNumbers = new HashSet<>();
-
-            repository.collection().find(Filters.regex("_id", "^lobby-(\\d+)$", "i"))
-                    .projection(Projections.include("_id"))
-                    .forEach(doc -> {
-                        Matcher matcher = LOBBY_NAME_PATTERN.matcher(doc.getName());
-                        if (matcher.matches()) {
-                            try {
-                                existingNumbers.add(Integer.parseInt(matcher.group(1)));
-                            } catch (NumberFormatException e) {
-                            }
-                        }
-                    });
-
-            existingNumbers.add(1);
-
-            int i = 1;
-            while (existingNumbers.contains(i)) {
-                i++;
-            }
+    /**
+     * Servidores em criação no painel ainda não estão no espelho; entram no pool como STARTING para
+     * que o próximo ciclo não peça os mesmos servidores de novo.
+     */
+    private Map<ServerType, PoolView> withPendingCreations(Map<ServerType, PoolView> pools) {
+        if (pendingCreations.isEmpty()) return pools;
+        pendingCreations.forEach((name, type) -> {
+            PoolView pool = pools.get(type);
+            if (pool == null || pool.servers().stream().anyMatch(s -> s.name().equalsIgnoreCase(name))) return;
+            List<PoolView.PoolServer> servers = new ArrayList<>(pool.servers());
+            servers.add(new PoolView.PoolServer(name, ServerStatus.STARTING, 0, 0, false));
+            pools.put(type, new PoolView(type, servers));
+        });
+        return pools;
+    }
 
-            String newName = "lobby-" + i;
-            logger.info("[ServerRegistry] Found next available name: " + newName);
-            return newName;
+    /**
+     * Reserva o menor nome livre {@code <tipo>-N}, considerando o espelho, os servidores padrão e as
+     * criações ainda em andamento.
+     */
+    private synchronized String reserveNextAvailableName(ServerType type) {
+        String prefix = type.name().toLowerCase(Locale.ROOT) + "-";
+        Set<String> used = new HashSet<>(pendingCreations.keySet());
+        for (ServerInfo server : mirror.findAll()) {
+            used.add(server.getName().toLowerCase(Locale.ROOT));
+        }
+        for (DefaultServer ds : DefaultServer.values()) {
+            used.add(ds.getName().toLowerCase(Locale.ROOT));
+        }
 
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "[ServerRegistry] Failed to find next available lobby name", e);
-            return null;
+        int i = 1;
+        while (used.contains(prefix + i)) {
+            i++;
         }
+        String newName = prefix + i;
+        pendingCreations.put(newName, type);
+        logger.info("[ServerRegistry] Found next available name: " + newName);
+        return newName;
     }
 
+    /**
+     * Criação pedida fora do ciclo de scaling (ex.: nenhum lobby com vaga). Passa pelo cooldown e pelo
+     * limite de STARTING da política do tipo.
+     */
+    private void requestScaleUp(ServerType type) {
+        int starting = mirror.findByTypeAndStatus(type, ServerStatus.STARTING).size()
+                + (int) pendingCreations.values().stream().filter(t -> t == type).count();
+        if (autoscaler.tryScaleUp(type, starting, System.currentTimeMillis())) {
+            scaleUpNewServer(type);
+        } else {
+            logger.fine("[ServerRegistry] " + type + " scale-up request ignored (cooldown, " + starting + " STARTING or autoscaling disabled).");
+        }
+    }
 
     private void scaleUpNewServer(ServerType type) {
-        String serverName = findNextAvailableLobbyName();
-        if (serverName == null) {
-            logger.severe("[ServerRegistry] Failed to find an available server name. Aborting scale-up.");
-            return;
-        }
+        String serverName = reserveNextAvailableName(type);
 
         logger.info("[ServerRegistry] Attempting to create Pterodactyl server for: " + serverName);
 
@@ -441,7 +468,7 @@ public class ServerRegistryService {
                     newServer.setStatus(ServerStatus.STARTING);
 
                     try {
-                        repository.save(newServer);
+                        mirror.save(newServer);
                         logger.info("[ServerRegistry] New ServerInfo for '" + serverName + "' saved to MongoDB.");
                     } catch (Exception e) {
                         logger.log(Level.SEVERE, "[ServerRegistry] Failed to save new ServerInfo to MongoDB. Deleting Pterodactyl server...", e);
@@ -455,7 +482,7 @@ public class ServerRegistryService {
                                     logger.info("[ServerRegistry] 'start' command sent to new server '" + serverName + "'.");
                                 } else {
                                     logger.severe("[ServerRegistry] Failed to send 'start' command to new server '" + serverName + "'. Deleting...");
-                                    repository.delete(Filters.eq("_id", newServer.getName()));
+                                    mirror.delete(newServer.getName());
                                     pterodactylService.deletePterodactylServer(newServer.getInternalPteroId());
                                 }
                             });
@@ -463,7 +490,8 @@ public class ServerRegistryService {
                 .exceptionally(ex -> {
                     logger.log(Level.SEVERE, "[ServerRegistry] Exception in server creation chain for " + serverName, ex);
                     return null;
-                });
+                })
+                .whenComplete((ignored, ex) -> pendingCreations.remove(serverName));
     }
 
     private void scaleUpStaticServer(ServerInfo server) {
@@ -474,7 +502,7 @@ public class ServerRegistryService {
 
         server.setStatus(ServerStatus.STARTING);
         server.setPlayerCount(0);
-        repository.save(server);
+        mirror.save(server);
         logger.info("[ServerRegistry] (Re)starting static server '" + server.getName() + "'...");
 
         pterodactylService.startServer(server.getPterodactylId())
@@ -484,7 +512,7 @@ public class ServerRegistryService {
                     } else {
                         logger.severe("[ServerRegistry] Failed to (re)start static server '" + server.getName() + "'. Setting OFFLINE.");
                         server.setStatus(ServerStatus.OFFLINE);
-                        repository.save(server);
+                        mirror.save(server);
                     }
                 });
     }
@@ -497,7 +525,7 @@ public class ServerRegistryService {
 
         server.setStatus(ServerStatus.STOPPING);
         server.setPlayerCount(0);
-        repository.save(server);
+        mirror.save(server);
 
         unregisterServerFromVelocity(server.getName());
         logger.info("[ServerRegistry] Server '" + server.getName() + "' unregistered from Velocity.");
@@ -509,14 +537,14 @@ public class ServerRegistryService {
                     } else {
                         logger.severe("[ServerRegistry] Failed to stop server '" + server.getName() + "'. Reverting to ONLINE.");
                         server.setStatus(ServerStatus.ONLINE);
-                        repository.save(server);
+                        mirror.save(server);
                         registerServerWithVelocity(server);
                     }
                 })
                 .exceptionally(ex -> {
                     logger.log(Level.SEVERE, "[ServerRegistry] Exception while stopping server " + server.getName(), ex);
                     server.setStatus(ServerStatus.ONLINE);
-                    repository.save(server);
+                    mirror.save(server);
                     registerServerWithVelocity(server);
                     return null;
                 });
@@ -550,60 +578,95 @@ public class ServerRegistryService {
     }
 
     public Optional<RegisteredServer> getBestLobby() {
-        List<ServerInfo> onlineLobbies;
-        try {
-            onlineLobbies = repository.findByTypeAndStatus(ServerType.LOBBY, ServerStatus.ONLINE);
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "[ServerRegistry] [getBestLobby] Failed to query MongoDB for lobbies", e);
-            return proxyServer.getServer("lobby-1");
-        }
+        return getBestLobby(null, 0, false);
+    }
 
+    /**
+     * Escolhe um lobby com vaga para o jogador e reserva a vaga até a conexão completar.
+     *
+     * @param uuid         Jogador (null para não reservar).
+     * @param playerWeight Peso do cargo principal, comparado com o {@code minGroup} de cada lobby.
+     * @param vip          Se true, o limite é {@code maxPlayersVip}.
+     */
+    public Optional<RegisteredServer> getBestLobby(UUID uuid, int playerWeight, boolean vip) {
+        List<ServerInfo> onlineLobbies = mirror.findByTypeAndStatus(ServerType.LOBBY, ServerStatus.ONLINE);
 
         if (onlineLobbies.isEmpty()) {
             logger.warning("[ServerRegistry] [getBestLobby] Player tried to find a lobby, but none are ONLINE.");
-            repository.findByName("lobby-1").ifPresent(lobby1 -> {
+            mirror.findByName("lobby-1").ifPresent(lobby1 -> {
                 if (lobby1.getStatus() == ServerStatus.OFFLINE) {
                     logger.warning("[ServerRegistry] [getBestLobby] lobby-1 is offline, attempting to start it.");
                     scaleUpStaticServer(lobby1);
                 }
             });
-            scaleUpNewServer(ServerType.LOBBY);
+            requestScaleUp(ServerType.LOBBY);
             return proxyServer.getServer("lobby-1");
         }
 
-        RegisteredServer bestChoice = null;
-        int bestChoicePlayerCount = Integer.MAX_VALUE;
+        Optional<RoleService> roleService = ServiceRegistry.getInstance().getService(RoleService.class);
+        Map<String, Integer> reserved = lobbyReservations.counts(uuid);
+        Map<String, RegisteredServer> registered = new HashMap<>();
+        List<LobbyBalancer.Candidate> candidates = new ArrayList<>(onlineLobbies.size());
 
         for (ServerInfo lobbyInfo : onlineLobbies) {
             Optional<RegisteredServer> registeredServerOpt = proxyServer.getServer(lobbyInfo.getName());
-            if (registeredServerOpt.isEmpty()) {
+            if (registeredServerOpt.isEmpty() || !meetsMinGroup(lobbyInfo, playerWeight, roleService)) {
                 continue;
             }
-
-            RegisteredServer registeredServer = registeredServerOpt.get();
-
             try {
-                int playerCount = registeredServer.getPlayersConnected().size();
-                if (playerCount < lobbyInfo.getMaxPlayers()) {
-                    if (playerCount < bestChoicePlayerCount) {
-                        bestChoice = registeredServer;
-                        bestChoicePlayerCount = playerCount;
-                    }
-                }
+                int load = currentLoad(lobbyInfo, registeredServerOpt.get()) + reserved.getOrDefault(lobbyInfo.getName(), 0);
+                int limit = vip ? lobbyInfo.getMaxPlayersVip() : lobbyInfo.getMaxPlayers();
+                candidates.add(new LobbyBalancer.Candidate(lobbyInfo.getName(), load, limit));
+                registered.put(lobbyInfo.getName(), registeredServerOpt.get());
             } catch (Exception e) {
                 logger.warning("[ServerRegistry] Could not get player count for " + lobbyInfo.getName() + ": " + e.getMessage());
             }
         }
 
-        if (bestChoice == null) {
+        Optional<LobbyBalancer.Candidate> choice = lobbyBalancer.select(candidates);
+        if (choice.isEmpty()) {
             logger.warning("[ServerRegistry] [getBestLobby] All ONLINE lobbies (" + onlineLobbies.size() + ") are full. Triggering new server.");
-            scaleUpNewServer(ServerType.LOBBY);
+            requestScaleUp(ServerType.LOBBY);
             return proxyServer.getServer("lobby-1").or(() -> onlineLobbies.stream()
                     .findFirst()
                     .flatMap(s -> proxyServer.getServer(s.getName())));
         }
 
-        return Optional.of(bestChoice);
+        String target = choice.get().name();
+        if (uuid != null) lobbyReservations.reserve(target, uuid);
+        return Optional.of(registered.get(target));
+    }
+
+    /**
+     * Jogadores em um servidor: o maior entre a contagem do registro (atualizada pelo ciclo de
+     * scaling) e os conectados por este proxy agora. Não inclui reservas.
+     */
+    public int currentLoad(ServerInfo serverInfo, RegisteredServer registeredServer) {
+        return Math.max(serverInfo.getPlayerCount(), registeredServer.getPlayersConnected().size());
+    }
+
+    /**
+     * Reserva uma vaga em um lobby escolhido fora do balanceador (ex.: conexão direta a um lobby).
+     */
+    public void reserveLobbySlot(String serverName, UUID uuid) {
+        lobbyReservations.reserve(serverName, uuid);
+    }
+
+    public void releaseLobbyReservation(UUID uuid) {
+        lobbyReservations.release(uuid);
+    }
+
+    /**
+     * Vagas reservadas em {@code serverName} por conexões em andamento de outros jogadores.
+     */
+    public int getReservedSlots(String serverName, UUID excluding) {
+        return lobbyReservations.reservedFor(serverName, excluding);
+    }
+
+    private boolean meetsMinGroup(ServerInfo serverInfo, int playerWeight, Optional<RoleService> roleService) {
+        String minGroup = serverInfo.getMinGroup();
+        if (minGroup == null || minGroup.equalsIgnoreCase("default") || roleService.isEmpty()) return true;
+        return roleService.get().getRole(minGroup).map(r -> playerWeight >= r.getWeight()).orElse(true);
     }
 
     public void shutdown() {
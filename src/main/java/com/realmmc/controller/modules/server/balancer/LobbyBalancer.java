@@ -0,0 +1,111 @@
+package com.realmmc.controller.modules.server.balancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escolha do lobby de destino entre os candidatos com vaga.
+ * <p>
+ * A carga de cada candidato já deve incluir as reservas em voo ({@link LobbyReservations}); o
+ * balanceador só decide entre eles. A estratégia vem de {@code -DLOBBY_BALANCER_STRATEGY}.
+ */
+public class LobbyBalancer {
+
+    public enum Strategy {
+        /** Sempre o menos ocupado (proporcionalmente). Determinístico; sensível a leituras atrasadas. */
+        LEAST_LOADED,
+        /** Sorteio ponderado pelas vagas livres. */
+        WEIGHTED,
+        /** Sorteia dois candidatos e fica com o menos ocupado. */
+        POWER_OF_TWO
+    }
+
+    /**
+     * @param load  Jogadores conectados mais reservas em voo.
+     * @param limit Vagas para este jogador ({@code maxPlayers} ou {@code maxPlayersVip}).
+     */
+    public record Candidate(String name, int load, int limit) {
+        public int free() {
+            return limit - load;
+        }
+
+        public double utilization() {
+            return limit <= 0 ? 1.0 : (double) load / limit;
+        }
+    }
+
+    private final Strategy strategy;
+
+    public LobbyBalancer(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public static LobbyBalancer fromSystemProperties() {
+        String value = System.getProperty("LOBBY_BALANCER_STRATEGY", Strategy.POWER_OF_TWO.name());
+        try {
+            return new LobbyBalancer(Strategy.valueOf(value.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return new LobbyBalancer(Strategy.POWER_OF_TWO);
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public Optional<Candidate> select(List<Candidate> candidates) {
+        return select(candidates, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @return O candidato escolhido, ou vazio se nenhum tem vaga.
+     */
+    public Optional<Candidate> select(List<Candidate> candidates, Random random) {
+        List<Candidate> open = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            if (c.free() > 0) open.add(c);
+        }
+        if (open.isEmpty()) return Optional.empty();
+        if (open.size() == 1) return Optional.of(open.get(0));
+
+        return Optional.of(switch (strategy) {
+            case LEAST_LOADED -> leastLoaded(open);
+            case WEIGHTED -> weighted(open, random);
+            case POWER_OF_TWO -> {
+                int i = random.nextInt(open.size());
+                int j = random.nextInt(open.size() - 1);
+                if (j >= i) j++;
+                yield lessLoaded(open.get(i), open.get(j));
+            }
+        });
+    }
+
+    private static Candidate leastLoaded(List<Candidate> open) {
+        Candidate best = open.get(0);
+        for (int i = 1; i < open.size(); i++) {
+            best = lessLoaded(best, open.get(i));
+        }
+        return best;
+    }
+
+    private static Candidate lessLoaded(Candidate a, Candidate b) {
+        int cmp = Double.compare(a.utilization(), b.utilization());
+        if (cmp == 0) cmp = Integer.compare(b.free(), a.free());
+        return cmp <= 0 ? a : b;
+    }
+
+    private static Candidate weighted(List<Candidate> open, Random random) {
+        long total = 0;
+        for (Candidate c : open) total += c.free();
+        long pick = (long) (random.nextDouble() * total);
+        for (Candidate c : open) {
+            pick -= c.free();
+            if (pick < 0) return c;
+        }
+        return open.get(open.size() - 1);
+    }
+}
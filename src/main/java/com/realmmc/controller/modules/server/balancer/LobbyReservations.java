@@ -0,0 +1,175 @@
+package com.realmmc.controller.modules.server.balancer;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Vagas reservadas em lobbies para conexões em andamento, visíveis para todos os proxies.
+ * <p>
+ * Cada reserva é um membro {@code servidor|uuid} de um sorted set com score = instante de expiração.
+ * A reserva é criada quando o proxy encaminha o jogador e liberada quando a conexão completa (a partir
+ * daí o jogador entra na contagem do servidor); se a conexão falhar, ela expira sozinha após o TTL.
+ * Falhas do Redis não bloqueiam a entrada: sem reservas, o balanceamento cai para a contagem pura.
+ * <p>
+ * As contagens não leem o sorted set a cada decisão: as reservas dos outros proxies vêm de uma leitura
+ * reaproveitada por {@code refreshMillis}, e as deste proxy são somadas na hora a partir do mapa
+ * local. Numa rajada, o custo no Redis fica em uma leitura por janela, independente de quantas
+ * entradas e pré-conexões houver.
+ */
+public class LobbyReservations {
+
+    private static final Logger LOGGER = Logger.getLogger(LobbyReservations.class.getName());
+    private static final String RESERVATIONS_KEY = "controller:lobby:reservations";
+    private static final char SEPARATOR = '|';
+    private static final int MAX_READ = 10_000;
+    private static final int PRUNE_BATCH = 500;
+    static final long DEFAULT_REFRESH_MILLIS = 250L;
+
+    private record Reservation(String server, String member, long expiresAt) {
+    }
+
+    /**
+     * Reservas de outros proxies por servidor, como estavam na última leitura.
+     */
+    private record Snapshot(Map<String, Integer> remote, long readAt) {
+    }
+
+    private final Supplier<KeyValueStore> store;
+    private final long ttlMillis;
+    private final long refreshMillis;
+    private final LongSupplier clock;
+    // Reserva atual de cada jogador deste proxy, para liberar sem varrer o set e contar sem ir ao Redis
+    private final Map<UUID, Reservation> own = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    private volatile long lastPruneAt;
+
+    public LobbyReservations(Supplier<KeyValueStore> store, long ttlMillis, LongSupplier clock) {
+        this(store, ttlMillis, DEFAULT_REFRESH_MILLIS, clock);
+    }
+
+    /**
+     * @param refreshMillis Por quanto tempo a leitura das reservas dos outros proxies é reaproveitada.
+     */
+    public LobbyReservations(Supplier<KeyValueStore> store, long ttlMillis, long refreshMillis, LongSupplier clock) {
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+        this.refreshMillis = Math.max(0L, refreshMillis);
+        this.clock = clock;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Reserva uma vaga em {@code server} para o jogador, substituindo a reserva anterior dele.
+     */
+    public void reserve(String server, UUID uuid) {
+        String member = server + SEPARATOR + uuid;
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        Reservation previous = own.put(uuid, new Reservation(server, member, expiresAt));
+        try {
+            KeyValueStore kv = store.get();
+            if (previous != null && !previous.member().equals(member)) kv.zrem(RESERVATIONS_KEY, previous.member());
+            kv.zadd(RESERVATIONS_KEY, expiresAt, member);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "[LobbyReservations] Falha ao reservar vaga em " + server, e);
+        }
+    }
+
+    public void release(UUID uuid) {
+        Reservation reservation = own.remove(uuid);
+        if (reservation == null) return;
+        try {
+            store.get().zrem(RESERVATIONS_KEY, reservation.member());
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "[LobbyReservations] Falha ao liberar reserva de " + uuid, e);
+        }
+    }
+
+    /**
+     * Reservas ativas por servidor, em toda a rede.
+     *
+     * @param excluding Jogador cuja própria reserva não deve contar (pode ser null).
+     */
+    public Map<String, Integer> counts(UUID excluding) {
+        long now = clock.getAsLong();
+        Map<String, Integer> counts = new HashMap<>(remote(now).remote());
+        own.forEach((uuid, reservation) -> {
+            if (reservation.expiresAt() < now) {
+                own.remove(uuid, reservation);
+            } else if (!uuid.equals(excluding)) {
+                counts.merge(reservation.server(), 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
+
+    public int reservedFor(String server, UUID excluding) {
+        return counts(excluding).getOrDefault(server, 0);
+    }
+
+    /**
+     * Reservas dos outros proxies, relidas no máximo uma vez por {@code refreshMillis}. Se outra
+     * thread já está relendo, devolve a leitura anterior em vez de esperar.
+     */
+    private Snapshot remote(long now) {
+        Snapshot current = snapshot;
+        if (current != null && now - current.readAt() < refreshMillis) return current;
+        if (!refreshLock.tryLock()) return current != null ? current : new Snapshot(Map.of(), now);
+        try {
+            current = snapshot;
+            if (current != null && now - current.readAt() < refreshMillis) return current;
+            Map<String, Integer> remote = new HashMap<>();
+            try {
+                KeyValueStore kv = store.get();
+                pruneExpired(kv, now);
+                for (String member : kv.zrangeByScore(RESERVATIONS_KEY, now, Double.POSITIVE_INFINITY, MAX_READ)) {
+                    int split = member.lastIndexOf(SEPARATOR);
+                    if (split <= 0 || isOwn(member, split)) continue;
+                    remote.merge(member.substring(0, split), 1, Integer::sum);
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "[LobbyReservations] Falha ao ler reservas.", e);
+            }
+            current = new Snapshot(remote, now);
+            snapshot = current;
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Reservas deste proxy já são contadas pelo mapa local.
+     */
+    private boolean isOwn(String member, int split) {
+        try {
+            Reservation reservation = own.get(UUID.fromString(member.substring(split + 1)));
+            return reservation != null && reservation.member().equals(member);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove reservas expiradas no máximo uma vez por TTL (em qualquer proxy basta um).
+     */
+    private void pruneExpired(KeyValueStore kv, long now) {
+        if (now - lastPruneAt < ttlMillis) return;
+        lastPruneAt = now;
+        List<String> expired = kv.zrangeByScore(RESERVATIONS_KEY, Double.NEGATIVE_INFINITY, now - 1, PRUNE_BATCH);
+        if (!expired.isEmpty()) kv.zrem(RESERVATIONS_KEY, expired.toArray(new String[0]));
+    }
+}
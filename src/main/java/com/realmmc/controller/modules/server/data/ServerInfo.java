@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import org.bson.codecs.pojo.annotations.BsonId;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ServerInfo {
@@ -52,4 +52,8 @@ public class ServerInfo {
     /** A contagem atual de jogadores neste servidor. */
     @Builder.Default
     private int playerCount = 0;
+
+    /** Versão do documento, incrementada pelo banco a cada gravação; usada pelo ServerRegistryMirror. */
+    @Builder.Default
+    private long version = 0L;
 }
\ No newline at end of file
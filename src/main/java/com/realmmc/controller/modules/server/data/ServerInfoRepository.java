@@ -2,15 +2,25 @@ package com.realmmc.controller.modules.server.data;
 
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import com.realmmc.controller.shared.storage.mongodb.AbstractMongoRepository;
+import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class ServerInfoRepository extends AbstractMongoRepository<ServerInfo> {
 
+    // Documento em "counters" com a última versão de um servidor removido, para que um servidor
+    // recriado com o mesmo nome continue acima da lápide
+    private static final String DELETED_VERSION_PREFIX = "servers.deleted:";
+
     public ServerInfoRepository() {
         super(ServerInfo.class, "servers");
         ensureIndexes();
@@ -38,9 +48,7 @@ public class ServerInfoRepository extends AbstractMongoRepository<ServerInfo> {
      * Encontra todos os servidores de um determinado tipo.
      */
     public List<ServerInfo> findByType(ServerType type) {
-        List<ServerInfo> results = new ArrayList<>();
-        collection().find(Filters.eq("type", type)).forEach(results::add);
-        return results;
+        return collection().find(Filters.eq("type", type));
     }
 
     /**
@@ -52,16 +60,101 @@ public class ServerInfoRepository extends AbstractMongoRepository<ServerInfo> {
                 Filters.eq("type", type),
                 Filters.eq("status", status)
         );
-        List<ServerInfo> results = new ArrayList<>();
-        collection().find(filter).forEach(results::add);
-        return results;
+        return collection().find(filter);
+    }
+
+    /**
+     * Encontra os servidores com os nomes informados numa única consulta.
+     */
+    public List<ServerInfo> findByNames(Collection<String> names) {
+        if (names.isEmpty()) return List.of();
+        return collection().find(Filters.in("_id", names));
+    }
+
+    /**
+     * Guarda ou atualiza um servidor na base de dados. A versão é incrementada pelo próprio banco
+     * ({@code $inc}); a de {@code serverInfo} é ignorada.
+     * @return O documento como ficou gravado, com a nova versão.
+     */
+    public ServerInfo save(ServerInfo serverInfo) {
+        Optional<ServerInfo> updated = update(serverInfo.getName(), fieldUpdates(serverInfo));
+        if (updated.isPresent()) return updated.get();
+
+        // Documento novo (ou recriado após uma remoção): começa acima da última versão removida
+        ServerInfo created = serverInfo.toBuilder().version(deletedVersion(serverInfo.getName()) + 1).build();
+        try {
+            insert(created);
+            return created;
+        } catch (RuntimeException e) {
+            // Outro nó criou o documento entre o update e o insert
+            return update(serverInfo.getName(), fieldUpdates(serverInfo)).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Aplica os {@code $set} ao servidor e incrementa a versão no banco.
+     * @return O documento depois do update, ou vazio se o servidor não existe.
+     */
+    public Optional<ServerInfo> update(String name, List<Bson> sets) {
+        List<Bson> updates = new ArrayList<>(sets);
+        updates.add(Updates.inc("version", 1L));
+        return collection().findOneAndUpdate(Filters.eq("_id", name), Updates.combine(updates), false);
+    }
+
+    /**
+     * Aplica updates parciais (só os campos alterados) num único bulk write não ordenado, incrementando
+     * a versão de cada documento no banco.
+     * @return Quantidade de documentos modificados.
+     */
+    public long applyChanges(List<DocumentUpdate> updates) {
+        if (updates.isEmpty()) return 0;
+        List<DocumentUpdate> versioned = new ArrayList<>(updates.size());
+        for (DocumentUpdate update : updates) {
+            versioned.add(new DocumentUpdate(update.filter(), Updates.combine(update.update(), Updates.inc("version", 1L))));
+        }
+        return collection().bulkUpdate(versioned, false);
     }
 
     /**
-     * Guarda ou atualiza um servidor na base de dados.
+     * Remove o servidor, guardando a versão final para uma eventual recriação.
+     * @return Versão da remoção (maior que a de qualquer gravação anterior do servidor).
      */
-    public void save(ServerInfo serverInfo) {
-        // Usa o 'name' (que é o @BsonId) como filtro
-        replace(Filters.eq("_id", serverInfo.getName()), serverInfo);
+    public long delete(String name) {
+        long version = collection().findOneAndUpdate(Filters.eq("_id", name), Updates.inc("version", 1L), false)
+                .map(ServerInfo::getVersion)
+                .orElse(0L);
+        long deleted = counters().findOneAndUpdate(Filters.eq("_id", DELETED_VERSION_PREFIX + name),
+                        Updates.max("version", version), true)
+                .map(doc -> doc.get("version", Number.class).longValue())
+                .orElse(version);
+        delete(Filters.eq("_id", name));
+        return deleted;
+    }
+
+    private long deletedVersion(String name) {
+        return counters().findOne(Filters.eq("_id", DELETED_VERSION_PREFIX + name))
+                .map(doc -> doc.get("version", Number.class))
+                .map(Number::longValue)
+                .orElse(0L);
+    }
+
+    private static DocumentCollection<Document> counters() {
+        return StorageBackends.documents().collection("counters", Document.class);
+    }
+
+    private static List<Bson> fieldUpdates(ServerInfo info) {
+        List<Bson> sets = new ArrayList<>();
+        sets.add(Updates.set("pterodactylId", info.getPterodactylId()));
+        sets.add(Updates.set("internalPteroId", info.getInternalPteroId()));
+        sets.add(Updates.set("displayName", info.getDisplayName()));
+        sets.add(Updates.set("ip", info.getIp()));
+        sets.add(Updates.set("port", info.getPort()));
+        sets.add(Updates.set("type", info.getType()));
+        sets.add(Updates.set("status", info.getStatus()));
+        sets.add(Updates.set("maxPlayers", info.getMaxPlayers()));
+        sets.add(Updates.set("maxPlayersVip", info.getMaxPlayersVip()));
+        sets.add(Updates.set("minGroup", info.getMinGroup()));
+        sets.add(Updates.set("playerCount", info.getPlayerCount()));
+        return sets;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.realmmc.controller.modules.server.data;
+
+/**
+ * Corpo das mensagens do canal SERVER_REGISTRY_SYNC.
+ *
+ * @param server  Nome do servidor alterado.
+ * @param version Versão do documento depois da alteração.
+ * @param info    Documento completo, ou null se o servidor foi removido.
+ */
+public record ServerRegistryEvent(String server, long version, ServerInfo info) {
+}
@@ -0,0 +1,10 @@
+package com.realmmc.controller.modules.server.data;
+
+/**
+ * Corpo das mensagens do canal SERVER_STATUS_UPDATE.
+ *
+ * @param server Nome do servidor que enviou o sinal.
+ * @param status Estado anunciado (ex.: "ONLINE").
+ */
+public record ServerStatusSignal(String server, String status) {
+}
@@ -0,0 +1,132 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerInfo;
+import com.realmmc.controller.modules.server.data.ServerStatus;
+import com.realmmc.controller.modules.server.data.ServerType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Avalia a política de cada tipo de servidor gerenciado e guarda o estado entre avaliações
+ * (cooldowns, tempo vazio, histórico de jogadores). Não cria nem desliga nada: devolve as decisões
+ * para quem chamou ({@code ServerRegistryService} em produção, o simulador dos testes offline).
+ */
+public class Autoscaler {
+
+    private static final Logger LOGGER = Logger.getLogger(Autoscaler.class.getName());
+    private static final int HISTORY_SAMPLES = Integer.getInteger("SCALING_HISTORY_SAMPLES", 240);
+    private static final int HISTORY_FIT_WINDOW = Integer.getInteger("SCALING_HISTORY_FIT_WINDOW", 20);
+
+    private final Map<ServerType, ScalingPolicy> policies;
+    private final Map<ServerType, ScalingState> states = new EnumMap<>(ServerType.class);
+    private final Map<ServerType, PlayerHistory> histories = new EnumMap<>(ServerType.class);
+    private final Map<ServerType, ScalingDecision> lastDecisions = new EnumMap<>(ServerType.class);
+
+    public Autoscaler(Map<ServerType, ScalingPolicy> policies) {
+        this.policies = new EnumMap<>(ServerType.class);
+        this.policies.putAll(policies);
+        for (ServerType type : this.policies.keySet()) {
+            states.put(type, new ScalingState());
+            histories.put(type, new PlayerHistory(HISTORY_SAMPLES, HISTORY_FIT_WINDOW));
+        }
+    }
+
+    /**
+     * Autoscaler com uma {@link ThresholdScalingPolicy} para cada tipo habilitado nas propriedades
+     * do sistema e aceito por {@code supported} (ex.: tipos com egg configurado). Um tipo com
+     * configuração inválida fica sem autoscaling.
+     */
+    public static Autoscaler fromSystemProperties(Predicate<ServerType> supported) {
+        Map<ServerType, ScalingPolicy> policies = new EnumMap<>(ServerType.class);
+        for (ServerType type : ServerType.values()) {
+            ScalingPolicyConfig config = ScalingPolicyConfig.forType(type);
+            if (!config.enabled() || !supported.test(type)) continue;
+            try {
+                policies.put(type, new ThresholdScalingPolicy(config));
+            } catch (IllegalArgumentException e) {
+                LOGGER.severe("[Autoscaler] Configuração inválida para " + type + ", autoscaling desativado: " + e.getMessage());
+            }
+        }
+        return new Autoscaler(policies);
+    }
+
+    public Set<ServerType> getManagedTypes() {
+        return Collections.unmodifiableSet(policies.keySet());
+    }
+
+    public boolean manages(ServerType type) {
+        return policies.containsKey(type);
+    }
+
+    /**
+     * Agrupa os servidores por tipo gerenciado.
+     *
+     * @param playerCounts Jogadores por servidor (servidores ausentes contam 0).
+     * @param isStatic     Servidores que nunca são desligados pelo autoscaler.
+     */
+    public Map<ServerType, PoolView> pools(List<ServerInfo> servers, Map<String, Integer> playerCounts, Predicate<String> isStatic) {
+        Map<ServerType, List<PoolView.PoolServer>> grouped = new EnumMap<>(ServerType.class);
+        for (ServerType type : policies.keySet()) grouped.put(type, new ArrayList<>());
+        for (ServerInfo server : servers) {
+            List<PoolView.PoolServer> pool = grouped.get(server.getType());
+            if (pool == null) continue;
+            int players = server.getStatus() == ServerStatus.ONLINE ? playerCounts.getOrDefault(server.getName(), 0) : 0;
+            pool.add(new PoolView.PoolServer(server.getName(), server.getStatus(), players, server.getMaxPlayers(), isStatic.test(server.getName())));
+        }
+        Map<ServerType, PoolView> pools = new EnumMap<>(ServerType.class);
+        grouped.forEach((type, list) -> pools.put(type, new PoolView(type, list)));
+        return pools;
+    }
+
+    /**
+     * Avalia todos os pools gerenciados em {@code now} e registra as ações decididas nos cooldowns.
+     */
+    public synchronized Map<ServerType, ScalingDecision> evaluate(Map<ServerType, PoolView> pools, long now) {
+        Map<ServerType, ScalingDecision> decisions = new EnumMap<>(ServerType.class);
+        policies.forEach((type, policy) -> {
+            PoolView pool = pools.getOrDefault(type, new PoolView(type, List.of()));
+            ScalingState state = states.get(type);
+            PlayerHistory history = histories.get(type);
+
+            history.record(now, pool.players());
+            state.retain(pool.servers().stream().map(PoolView.PoolServer::name).collect(Collectors.toSet()));
+
+            ScalingDecision decision = policy.decide(pool, state, history, now);
+            if (decision.scaleUp() > 0) state.markScaleUp(now);
+            if (!decision.scaleDown().isEmpty()) state.markScaleDown(now);
+            decisions.put(type, decision);
+            lastDecisions.put(type, decision);
+        });
+        return decisions;
+    }
+
+    /**
+     * Pedido de criação fora do ciclo (ex.: um jogador não encontrou lobby). Respeita o cooldown de
+     * criação e o limite de servidores em STARTING da política.
+     *
+     * @return true se a criação foi autorizada (e registrada no cooldown).
+     */
+    public synchronized boolean tryScaleUp(ServerType type, int starting, long now) {
+        ScalingPolicy policy = policies.get(type);
+        if (policy == null) return false;
+        ScalingState state = states.get(type);
+        ScalingPolicyConfig config = policy.config();
+        if (starting >= config.maxStarting() || now - state.getLastScaleUpAt() < config.scaleUpCooldownMillis()) {
+            return false;
+        }
+        state.markScaleUp(now);
+        return true;
+    }
+
+    public synchronized Map<ServerType, ScalingDecision> getLastDecisions() {
+        return new EnumMap<>(lastDecisions);
+    }
+}
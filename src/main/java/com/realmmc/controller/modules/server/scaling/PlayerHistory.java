@@ -0,0 +1,68 @@
+package com.realmmc.controller.modules.server.scaling;
+
+/**
+ * Histórico recente de jogadores de um pool (buffer circular de amostras) e previsão por tendência
+ * linear (mínimos quadrados sobre as últimas amostras).
+ */
+public class PlayerHistory {
+
+    private final long[] times;
+    private final int[] players;
+    private final int fitWindow;
+    private int size;
+    private int head;
+
+    /**
+     * @param capacity  Amostras guardadas.
+     * @param fitWindow Amostras usadas no ajuste da tendência.
+     */
+    public PlayerHistory(int capacity, int fitWindow) {
+        this.times = new long[capacity];
+        this.players = new int[capacity];
+        this.fitWindow = Math.max(2, Math.min(fitWindow, capacity));
+    }
+
+    public synchronized void record(long time, int playerCount) {
+        times[head] = time;
+        players[head] = playerCount;
+        head = (head + 1) % times.length;
+        if (size < times.length) size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Jogadores previstos em {@code now + horizonMillis}, nunca negativo. Com menos de duas amostras,
+     * devolve a última (ou 0).
+     */
+    public synchronized double forecast(long now, long horizonMillis) {
+        if (size == 0) return 0;
+        int n = Math.min(size, fitWindow);
+        if (n < 2) return players[index(size - 1)];
+
+        // Tempo relativo em segundos, para manter os somatórios pequenos
+        long origin = times[index(size - n)];
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = size - n; i < size; i++) {
+            double x = (times[index(i)] - origin) / 1000.0;
+            double y = players[index(i)];
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (denominator == 0) return sumY / n;
+        double slope = (n * sumXY - sumX * sumY) / denominator;
+        double intercept = (sumY - slope * sumX) / n;
+        double target = (now + horizonMillis - origin) / 1000.0;
+        return Math.max(0, intercept + slope * target);
+    }
+
+    private int index(int logical) {
+        int oldest = size < times.length ? 0 : head;
+        return (oldest + logical) % times.length;
+    }
+}
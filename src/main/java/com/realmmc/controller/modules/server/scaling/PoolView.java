@@ -0,0 +1,42 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerStatus;
+import com.realmmc.controller.modules.server.data.ServerType;
+
+import java.util.List;
+
+/**
+ * Estado de um pool (todos os servidores de um tipo) no momento da decisão.
+ */
+public record PoolView(ServerType type, List<PoolServer> servers) {
+
+    /**
+     * @param isStatic Servidor fixo (DefaultServer): conta para o pool mas nunca é desligado.
+     */
+    public record PoolServer(String name, ServerStatus status, int players, int capacity, boolean isStatic) {
+    }
+
+    public int online() {
+        return (int) servers.stream().filter(s -> s.status() == ServerStatus.ONLINE).count();
+    }
+
+    public int starting() {
+        return (int) servers.stream().filter(s -> s.status() == ServerStatus.STARTING).count();
+    }
+
+    public int players() {
+        return servers.stream().filter(s -> s.status() == ServerStatus.ONLINE).mapToInt(PoolServer::players).sum();
+    }
+
+    /**
+     * Capacidade média dos servidores ativos (ONLINE ou STARTING), ou {@code fallback} se não houver nenhum.
+     */
+    public double averageCapacity(int fallback) {
+        return servers.stream()
+                .filter(s -> s.status() == ServerStatus.ONLINE || s.status() == ServerStatus.STARTING)
+                .mapToInt(PoolServer::capacity)
+                .filter(c -> c > 0)
+                .average()
+                .orElse(fallback);
+    }
+}
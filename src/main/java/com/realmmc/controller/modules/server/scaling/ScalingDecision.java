@@ -0,0 +1,22 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import java.util.List;
+
+/**
+ * Resultado de uma avaliação da política.
+ *
+ * @param scaleUp   Quantos servidores novos criar.
+ * @param scaleDown Servidores dinâmicos a desligar.
+ * @param desired   Tamanho de pool que a política considera ideal.
+ * @param reason    Explicação curta (logs e simulador).
+ */
+public record ScalingDecision(int scaleUp, List<String> scaleDown, int desired, String reason) {
+
+    public static ScalingDecision hold(int desired, String reason) {
+        return new ScalingDecision(0, List.of(), desired, reason);
+    }
+
+    public boolean isNoop() {
+        return scaleUp == 0 && scaleDown.isEmpty();
+    }
+}
@@ -0,0 +1,13 @@
+package com.realmmc.controller.modules.server.scaling;
+
+/**
+ * Política de autoscaling de um pool. Implementações não têm efeitos colaterais: recebem o estado
+ * do pool, o histórico e o relógio, e devolvem a decisão; quem executa é o {@link Autoscaler}
+ * (ou o simulador usado nos testes).
+ */
+public interface ScalingPolicy {
+
+    ScalingPolicyConfig config();
+
+    ScalingDecision decide(PoolView pool, ScalingState state, PlayerHistory history, long now);
+}
@@ -0,0 +1,82 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerType;
+
+import java.util.Locale;
+
+/**
+ * Parâmetros de autoscaling de um tipo de servidor.
+ * <p>
+ * Lidos de propriedades {@code SCALING_<TIPO>_<PARÂMETRO>} (ex.: {@code -DSCALING_LOBBY_MAX=20}).
+ * Só o {@link ServerType#LOBBY} vem habilitado por padrão, com os valores equivalentes ao scaling
+ * antigo; os demais tipos precisam de {@code SCALING_<TIPO>_ENABLED=true} e de um egg configurado
+ * no {@code PterodactylService}.
+ *
+ * @param min                   Servidores mínimos no pool (estáticos contam).
+ * @param max                   Servidores máximos no pool.
+ * @param warmSpares            Servidores extras mantidos além do necessário para a demanda.
+ * @param scaleUpThreshold      Ocupação alvo; acima dela o pool cresce.
+ * @param scaleDownThreshold    Ocupação abaixo da qual o pool pode encolher (histerese).
+ * @param emptyShutdownMillis   Tempo vazio antes de um servidor dinâmico poder ser desligado.
+ * @param scaleUpCooldownMillis Intervalo mínimo entre duas criações.
+ * @param scaleDownCooldownMillis Intervalo mínimo entre dois desligamentos.
+ * @param maxStarting           Máximo de servidores em STARTING ao mesmo tempo.
+ * @param predictive            Se true, a demanda considera a previsão do {@link PlayerHistory}.
+ * @param horizonMillis         Horizonte da previsão (em geral, o tempo de boot de um servidor).
+ */
+public record ScalingPolicyConfig(
+        boolean enabled,
+        int min,
+        int max,
+        int warmSpares,
+        double scaleUpThreshold,
+        double scaleDownThreshold,
+        long emptyShutdownMillis,
+        long scaleUpCooldownMillis,
+        long scaleDownCooldownMillis,
+        int maxStarting,
+        boolean predictive,
+        long horizonMillis
+) {
+
+    public static ScalingPolicyConfig defaults(ServerType type) {
+        return new ScalingPolicyConfig(type == ServerType.LOBBY, 1, 20, 0, 0.70, 0.35,
+                30_000L, 15_000L, 30_000L, 2, false, 120_000L);
+    }
+
+    /**
+     * Configuração do tipo, com os padrões sobrescritos pelas propriedades do sistema.
+     */
+    public static ScalingPolicyConfig forType(ServerType type) {
+        ScalingPolicyConfig d = defaults(type);
+        String prefix = "SCALING_" + type.name().toUpperCase(Locale.ROOT) + "_";
+        return new ScalingPolicyConfig(
+                bool(prefix + "ENABLED", d.enabled()),
+                Integer.getInteger(prefix + "MIN", d.min()),
+                Integer.getInteger(prefix + "MAX", d.max()),
+                Integer.getInteger(prefix + "WARM_SPARES", d.warmSpares()),
+                dbl(prefix + "UP_THRESHOLD", d.scaleUpThreshold()),
+                dbl(prefix + "DOWN_THRESHOLD", d.scaleDownThreshold()),
+                Long.getLong(prefix + "EMPTY_SHUTDOWN_MILLIS", d.emptyShutdownMillis()),
+                Long.getLong(prefix + "UP_COOLDOWN_MILLIS", d.scaleUpCooldownMillis()),
+                Long.getLong(prefix + "DOWN_COOLDOWN_MILLIS", d.scaleDownCooldownMillis()),
+                Integer.getInteger(prefix + "MAX_STARTING", d.maxStarting()),
+                bool(prefix + "PREDICTIVE", d.predictive()),
+                Long.getLong(prefix + "HORIZON_MILLIS", d.horizonMillis()));
+    }
+
+    private static boolean bool(String key, boolean fallback) {
+        String value = System.getProperty(key);
+        return value != null ? Boolean.parseBoolean(value) : fallback;
+    }
+
+    private static double dbl(String key, double fallback) {
+        String value = System.getProperty(key);
+        if (value == null) return fallback;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
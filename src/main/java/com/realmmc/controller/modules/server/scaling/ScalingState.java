@@ -0,0 +1,46 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estado mutável de um pool entre avaliações: cooldowns e há quanto tempo cada servidor está vazio.
+ */
+public class ScalingState {
+
+    private long lastScaleUpAt = Long.MIN_VALUE / 2;
+    private long lastScaleDownAt = Long.MIN_VALUE / 2;
+    private final Map<String, Long> emptySince = new HashMap<>();
+
+    public long getLastScaleUpAt() {
+        return lastScaleUpAt;
+    }
+
+    public long getLastScaleDownAt() {
+        return lastScaleDownAt;
+    }
+
+    public void markScaleUp(long now) {
+        lastScaleUpAt = now;
+    }
+
+    public void markScaleDown(long now) {
+        lastScaleDownAt = now;
+    }
+
+    /**
+     * Atualiza o "vazio desde" do servidor e devolve há quantos ms ele está vazio (0 se tem jogadores).
+     */
+    public long emptyFor(String server, int players, long now) {
+        if (players > 0) {
+            emptySince.remove(server);
+            return 0;
+        }
+        return now - emptySince.computeIfAbsent(server, k -> now);
+    }
+
+    public void retain(Set<String> servers) {
+        emptySince.keySet().retainAll(servers);
+    }
+}
@@ -0,0 +1,100 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerStatus;
+
+import java.util.List;
+
+/**
+ * Política por ocupação com histerese.
+ * <p>
+ * O pool ideal é o menor número de servidores que mantém a demanda abaixo de
+ * {@code scaleUpThreshold} da capacidade, mais os {@code warmSpares}, dentro de {@code [min, max]}.
+ * A demanda é o número de jogadores atual ou, no modo preditivo, o maior entre ele e a previsão
+ * para o fim do horizonte. Para crescer basta o pool estar abaixo do ideal; para encolher, além
+ * disso, a ocupação sem o servidor removido precisa ficar abaixo de {@code scaleDownThreshold} e o
+ * servidor precisa estar vazio há {@code emptyShutdownMillis}. Cada direção tem seu cooldown. O
+ * servidor desligado é o que está vazio há mais tempo.
+ */
+public class ThresholdScalingPolicy implements ScalingPolicy {
+
+    private static final int DEFAULT_CAPACITY = 100;
+
+    private final ScalingPolicyConfig config;
+
+    /**
+     * @throws IllegalArgumentException Se os limiares ou os limites do pool forem inválidos.
+     */
+    public ThresholdScalingPolicy(ScalingPolicyConfig config) {
+        if (!(config.scaleUpThreshold() > 0) || Double.isInfinite(config.scaleUpThreshold())) {
+            throw new IllegalArgumentException("scaleUpThreshold deve ser maior que zero: " + config.scaleUpThreshold());
+        }
+        if (!(config.scaleDownThreshold() >= 0) || config.scaleDownThreshold() >= config.scaleUpThreshold()) {
+            throw new IllegalArgumentException("scaleDownThreshold deve ficar entre 0 e scaleUpThreshold: " + config.scaleDownThreshold());
+        }
+        if (config.min() < 0 || config.max() < config.min()) {
+            throw new IllegalArgumentException("Limites do pool inválidos: min=" + config.min() + ", max=" + config.max());
+        }
+        this.config = config;
+    }
+
+    @Override
+    public ScalingPolicyConfig config() {
+        return config;
+    }
+
+    @Override
+    public ScalingDecision decide(PoolView pool, ScalingState state, PlayerHistory history, long now) {
+        int online = pool.online();
+        int starting = pool.starting();
+        int current = online + starting;
+        int players = pool.players();
+        double capacity = pool.averageCapacity(DEFAULT_CAPACITY);
+
+        double demand = players;
+        if (config.predictive() && history != null) {
+            demand = Math.max(demand, history.forecast(now, config.horizonMillis()));
+        }
+
+        int needed = (int) Math.ceil(demand / (capacity * config.scaleUpThreshold()));
+        int desired = Math.max(config.min(), Math.min(config.max(), needed + config.warmSpares()));
+
+        String victim = null;
+        long victimEmptyFor = -1;
+        for (PoolView.PoolServer server : pool.servers()) {
+            if (server.status() != ServerStatus.ONLINE) continue;
+            long emptyFor = state.emptyFor(server.name(), server.players(), now);
+            if (server.isStatic() || emptyFor < config.emptyShutdownMillis()) continue;
+            // Vazio há mais tempo; empate pelo nome, para a decisão não depender da ordem do pool
+            if (emptyFor > victimEmptyFor || (emptyFor == victimEmptyFor && server.name().compareTo(victim) > 0)) {
+                victim = server.name();
+                victimEmptyFor = emptyFor;
+            }
+        }
+
+        if (current < desired) {
+            if (starting >= config.maxStarting()) {
+                return ScalingDecision.hold(desired, "aguardando " + starting + " servidor(es) em STARTING");
+            }
+            if (now - state.getLastScaleUpAt() < config.scaleUpCooldownMillis()) {
+                return ScalingDecision.hold(desired, "cooldown de criação");
+            }
+            int count = Math.min(desired - current, config.maxStarting() - starting);
+            return new ScalingDecision(count, List.of(), desired,
+                    String.format("demanda %.0f, pool %d < ideal %d", demand, current, desired));
+        }
+
+        if (current > desired && victim != null) {
+            double utilizationAfter = demand / (Math.max(1, current - 1) * capacity);
+            if (utilizationAfter >= config.scaleDownThreshold()) {
+                return ScalingDecision.hold(desired, "histerese: ocupação sem um servidor seria " + Math.round(utilizationAfter * 100) + "%");
+            }
+            if (now - state.getLastScaleDownAt() < config.scaleDownCooldownMillis()) {
+                return ScalingDecision.hold(desired, "cooldown de desligamento");
+            }
+            return new ScalingDecision(0, List.of(victim), desired,
+                    String.format("demanda %.0f, pool %d > ideal %d", demand, current, desired));
+        }
+
+        return ScalingDecision.hold(desired, "estável");
+    }
+}
@@ -20,6 +20,8 @@ import com.realmmc.controller.shared.session.SessionTrackerService;
 import com.realmmc.controller.shared.utils.TaskScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ScheduledFuture;
@@ -202,7 +204,7 @@ public class SpigotModule extends AbstractCoreModule {
             try {
                 HandlerList.unregisterAll(spigotCashCacheInstance);
                 ServiceRegistry.getInstance().getService(RedisSubscriber.class)
-                        .ifPresent(sub -> sub.unregisterListener(RedisChannel.PROFILES_SYNC));
+                        .ifPresent(sub -> sub.unregisterListener(RedisChannel.PROFILES_SYNC, spigotCashCacheInstance));
             } catch (Exception e) {
                 logger.log(Level.WARNING, "[SpigotModule] Error unregistering SpigotCashCache.", e);
             }
@@ -265,6 +267,7 @@ public class SpigotModule extends AbstractCoreModule {
 
         final String finalServerName = serverName;
 
+        List<SessionTrackerService.Heartbeat> heartbeats = new ArrayList<>();
         for (Player player : Bukkit.getOnlinePlayers()) {
             if (!player.isOnline()) continue;
 
@@ -278,11 +281,14 @@ public class SpigotModule extends AbstractCoreModule {
                 }
             } catch (Exception ignored) { protocol = -1; }
 
-            try {
-                sessionTracker.updateHeartbeat(uuid, finalServerName, ping, protocol);
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "[SpigotModule] Error sending heartbeat for " + player.getName() + " (UUID: " + uuid + ")", e);
-            }
+            heartbeats.add(new SessionTrackerService.Heartbeat(uuid, finalServerName, ping, protocol));
+        }
+
+        try {
+            sessionTracker.updateHeartbeats(heartbeats);
+            logger.fine("[SpigotModule] Heartbeat cycle: " + sessionTracker.getHeartbeatStats());
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "[SpigotModule] Error sending batched heartbeat (" + heartbeats.size() + " players)", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.realmmc.controller.proxy.commands.cmds;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.role.PermissionProfilerReport;
+import com.realmmc.controller.modules.role.RoleService;
+import com.realmmc.controller.proxy.commands.CommandInterface;
+import com.realmmc.controller.shared.annotations.Cmd;
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.sounds.SoundKeys;
+import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Cmd(cmd = "permprofile", aliases = {"permprof"}, onlyPlayer = false)
+public class PermProfileCommand implements CommandInterface {
+
+    private final Optional<SoundPlayer> soundPlayerOpt;
+    private final RoleService roleService;
+
+    public PermProfileCommand() {
+        this.soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
+        this.roleService = ServiceRegistry.getInstance().requireService(RoleService.class);
+    }
+
+    @Override
+    public void execute(CommandSource sender, String label, String[] args) {
+        if (!sender.hasPermission(PermissionProfilerReport.PERMISSION)) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_NO_PERMISSION_GROUP).with("group", PermissionProfilerReport.REQUIRED_GROUP));
+            playSound(sender, SoundKeys.USAGE_ERROR);
+            return;
+        }
+
+        boolean ok = PermissionProfilerReport.handle(sender, label, args, roleService);
+        playSound(sender, ok ? SoundKeys.SUCCESS : SoundKeys.USAGE_ERROR);
+    }
+
+    private void playSound(CommandSource sender, String key) {
+        if (sender instanceof Player player) {
+            soundPlayerOpt.ifPresent(sp -> sp.playSound(player, key));
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSource sender, String[] args) {
+        if (!sender.hasPermission(PermissionProfilerReport.PERMISSION)) return Collections.emptyList();
+        return PermissionProfilerReport.complete(args);
+    }
+}
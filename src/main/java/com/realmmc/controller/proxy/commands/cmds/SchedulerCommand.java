@@ -0,0 +1,58 @@
+package com.realmmc.controller.proxy.commands.cmds;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.proxy.commands.CommandInterface;
+import com.realmmc.controller.shared.annotations.Cmd;
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.sounds.SoundKeys;
+import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.realmmc.controller.shared.utils.TaskSchedulerReport;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Cmd(cmd = "scheduler", aliases = {"sched"}, onlyPlayer = false)
+public class SchedulerCommand implements CommandInterface {
+
+    private final String requiredPermission = "controller.manager";
+    private final String requiredGroupName = "Gerente";
+    private final Optional<SoundPlayer> soundPlayerOpt;
+
+    public SchedulerCommand() {
+        this.soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
+    }
+
+    @Override
+    public void execute(CommandSource sender, String label, String[] args) {
+        if (!sender.hasPermission(requiredPermission)) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_NO_PERMISSION_GROUP).with("group", requiredGroupName));
+            playSound(sender, SoundKeys.USAGE_ERROR);
+            return;
+        }
+
+        boolean ok = TaskSchedulerReport.handle(sender, label, args);
+        playSound(sender, ok ? SoundKeys.SUCCESS : SoundKeys.USAGE_ERROR);
+    }
+
+    private void playSound(CommandSource sender, String key) {
+        if (sender instanceof Player player) {
+            soundPlayerOpt.ifPresent(sp -> sp.playSound(player, key));
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSource sender, String[] args) {
+        if (!sender.hasPermission(requiredPermission) || args.length != 1) return Collections.emptyList();
+        String current = args[0].toLowerCase();
+        return Stream.of("pools", "timers", "reset", "help")
+                .filter(s -> s.startsWith(current))
+                .collect(Collectors.toList());
+    }
+}
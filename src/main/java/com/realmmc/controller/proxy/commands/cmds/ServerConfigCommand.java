@@ -1,11 +1,10 @@
 package com.realmmc.controller.proxy.commands.cmds;
 
-import com.mongodb.client.model.Filters;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.modules.role.RoleService;
 import com.realmmc.controller.modules.server.ServerRegistryService;
 import com.realmmc.controller.modules.server.data.ServerInfo;
-import com.realmmc.controller.modules.server.data.ServerInfoRepository;
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
 import com.realmmc.controller.modules.server.data.ServerStatus;
 import com.realmmc.controller.modules.server.data.ServerType;
 import com.realmmc.controller.proxy.Proxy;
@@ -47,7 +46,7 @@ public class ServerConfigCommand implements CommandInterface {
     private final String permission = "controller.manager";
     private final String requiredGroupName = "Gerente";
 
-    private ServerInfoRepository repository;
+    private ServerRegistryMirror mirror;
     private ServerRegistryService serverRegistryService;
     private RoleService roleService;
     private ProxyServer proxyServer;
@@ -62,11 +61,11 @@ public class ServerConfigCommand implements CommandInterface {
 
     // --- Métodos Lazy Getter ---
 
-    public ServerInfoRepository getRepository() {
-        if (this.repository == null) {
-            this.repository = new ServerInfoRepository();
+    public ServerRegistryMirror getMirror() {
+        if (this.mirror == null) {
+            this.mirror = ServiceRegistry.getInstance().requireService(ServerRegistryMirror.class);
         }
-        return this.repository;
+        return this.mirror;
     }
 
     public ServerRegistryService getServerRegistryService() {
@@ -154,7 +153,7 @@ public class ServerConfigCommand implements CommandInterface {
 
         TaskScheduler.runAsync(() -> {
             try {
-                if (getRepository().findByName(serverId).isPresent()) {
+                if (getMirror().findByName(serverId).isPresent()) {
                     Messages.send(sender, Message.of(MessageKey.SCONFIG_ALREADY_EXISTS).with("id", serverId));
                     playSound(sender, SoundKeys.ERROR);
                     return;
@@ -174,7 +173,7 @@ public class ServerConfigCommand implements CommandInterface {
                         .playerCount(0)
                         .build();
 
-                getRepository().save(newServer);
+                getMirror().save(newServer);
 
                 TaskScheduler.runSync(() -> {
                     Messages.send(sender, Message.of(MessageKey.SCONFIG_CREATED).with("id", serverId));
@@ -195,14 +194,14 @@ public class ServerConfigCommand implements CommandInterface {
 
         TaskScheduler.runAsync(() -> {
             try {
-                Optional<ServerInfo> serverOpt = getRepository().findByName(serverId);
+                Optional<ServerInfo> serverOpt = getMirror().findByName(serverId);
                 if (serverOpt.isEmpty()) {
                     Messages.send(sender, Message.of(MessageKey.SCONFIG_NOT_FOUND).with("id", serverId));
                     playSound(sender, SoundKeys.ERROR);
                     return;
                 }
 
-                getRepository().delete(Filters.eq("_id", serverId));
+                getMirror().delete(serverId);
 
                 TaskScheduler.runSync(() -> {
                     getServerRegistryService().unregisterServerFromVelocity(serverId);
@@ -340,7 +339,7 @@ public class ServerConfigCommand implements CommandInterface {
 
         TaskScheduler.runAsync(() -> {
             try {
-                Optional<ServerInfo> serverOpt = getRepository().findByName(serverId);
+                Optional<ServerInfo> serverOpt = getMirror().findByName(serverId);
                 if (serverOpt.isEmpty()) {
                     Messages.send(sender, Message.of(MessageKey.SCONFIG_NOT_FOUND).with("id", serverId));
                     playSound(sender, SoundKeys.ERROR);
@@ -383,7 +382,7 @@ public class ServerConfigCommand implements CommandInterface {
         Locale locale = Messages.determineLocale(sender);
         TaskScheduler.runAsync(() -> {
             try {
-                List<ServerInfo> servers = getRepository().collection().find().into(new ArrayList<>());
+                List<ServerInfo> servers = getMirror().findAll();
                 servers.sort(Comparator
                         .comparing(ServerInfo::getType)
                         .thenComparing(ServerInfo::getName)
@@ -508,7 +507,7 @@ public class ServerConfigCommand implements CommandInterface {
 
         TaskScheduler.runAsync(() -> {
             try {
-                Optional<ServerInfo> serverOpt = getRepository().findByName(serverName);
+                Optional<ServerInfo> serverOpt = getMirror().findByName(serverName);
                 if (serverOpt.isEmpty()) {
                     Messages.send(sender, Message.of(MessageKey.SCONFIG_NOT_FOUND).with("id", serverName));
                     playSound(sender, SoundKeys.ERROR);
@@ -517,7 +516,7 @@ public class ServerConfigCommand implements CommandInterface {
 
                 ServerInfo server = serverOpt.get();
                 modification.accept(server);
-                getRepository().save(server);
+                getMirror().save(server);
 
                 TaskScheduler.runSync(onMainThreadSuccess);
 
@@ -607,7 +606,7 @@ public class ServerConfigCommand implements CommandInterface {
 
                     // Busca IDs no DB para inclusão (útil para IDs de servidores offline/não registrados)
                     try {
-                        getRepository().collection().find().forEach(serverInfo -> serverNames.add(serverInfo.getName()));
+                        getMirror().findAll().forEach(serverInfo -> serverNames.add(serverInfo.getName()));
                     } catch (Exception e) {
                         getLogger().warning("Falha ao buscar nomes do DB para tab-complete: " + e.getMessage());
                     }
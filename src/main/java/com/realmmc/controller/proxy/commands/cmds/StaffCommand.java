@@ -2,8 +2,7 @@ package com.realmmc.controller.proxy.commands.cmds;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.modules.role.RoleService;
-import com.realmmc.controller.modules.server.data.ServerInfo;
-import com.realmmc.controller.modules.server.data.ServerInfoRepository;
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
 import com.realmmc.controller.proxy.commands.CommandInterface;
 import com.realmmc.controller.shared.annotations.Cmd;
 import com.realmmc.controller.shared.messaging.Message;
@@ -40,7 +39,6 @@ public class StaffCommand implements CommandInterface {
     private final SessionTrackerService sessionTrackerService;
     private final ProfileService profileService;
     private final RoleService roleService;
-    private final ServerInfoRepository serverInfoRepository;
 
     public StaffCommand() {
         this.logger = Logger.getLogger(StaffCommand.class.getName());
@@ -48,7 +46,6 @@ public class StaffCommand implements CommandInterface {
         this.sessionTrackerService = ServiceRegistry.getInstance().requireService(SessionTrackerService.class);
         this.profileService = ServiceRegistry.getInstance().requireService(ProfileService.class);
         this.roleService = ServiceRegistry.getInstance().requireService(RoleService.class);
-        this.serverInfoRepository = new ServerInfoRepository();
     }
 
     @Override
@@ -83,8 +80,8 @@ public class StaffCommand implements CommandInterface {
                                                     .thenApply(sessionData -> {
                                                         if (sessionData != null && sessionData.getPrimaryRole().getType() == RoleType.STAFF) {
                                                             String serverName = sessionTrackerService.getSessionField(profile.getUuid(), "currentServer")
-                                                                    .map(id -> serverInfoRepository.findByName(id)
-                                                                            .map(ServerInfo::getDisplayName)
+                                                                    .map(id -> ServiceRegistry.getInstance().getService(ServerRegistryMirror.class)
+                                                                            .map(mirror -> mirror.getDisplayName(id))
                                                                             .orElse(id))
                                                                     .orElse("Desconhecido");
 
@@ -1,11 +1,14 @@
 package com.realmmc.controller.proxy.listeners;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics;
 import com.realmmc.controller.shared.annotations.Listeners;
 import com.realmmc.controller.shared.messaging.Message;
 import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
 import com.realmmc.controller.shared.session.SessionTrackerService;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.PreLoginEvent;
@@ -13,6 +16,8 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Listeners
@@ -29,21 +34,30 @@ public class IPLimitListener {
     }
 
     @Subscribe(order = PostOrder.FIRST)
-    public void onPreLogin(PreLoginEvent event) {
+    public EventTask onPreLogin(PreLoginEvent event) {
         if (!event.getResult().isAllowed()) {
-            return;
+            return null;
         }
 
         InetSocketAddress address = event.getConnection().getRemoteAddress();
         if (address == null || address.getAddress() == null) {
             logger.warning("[IPLimit] Endereço IP do jogador " + event.getUsername() + " é nulo. A permitir conexão.");
-            return;
+            return null;
         }
 
         String ip = address.getAddress().getHostAddress();
 
-        long activeSessions = sessionTrackerService.getActiveSessionsCountByIp(ip);
+        CompletableFuture<Long> count = CompletableFuture.supplyAsync(
+                () -> sessionTrackerService.getActiveSessionsCountByIp(ip), TaskScheduler.getAsyncExecutor());
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(ConnectionStageMetrics.Stage.IP_LIMIT, count)
+                .thenAccept(activeSessions -> applyLimit(event, ip, activeSessions))
+                .exceptionally(e -> {
+                    logger.log(Level.WARNING, "[IPLimit] Falha ao contar sessões do IP " + ip + ". A permitir conexão.", e);
+                    return null;
+                }));
+    }
 
+    private void applyLimit(PreLoginEvent event, String ip, long activeSessions) {
         if (activeSessions >= MAX_ACCOUNTS_PER_IP) {
             String translatedKick = Messages.translate(
                     Message.of(MessageKey.KICK_IP_LIMIT).with("limit", MAX_ACCOUNTS_PER_IP));
@@ -1,18 +1,21 @@
 package com.realmmc.controller.proxy.listeners;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics.Stage;
 import com.realmmc.controller.modules.role.RoleService;
 import com.realmmc.controller.proxy.Proxy;
 import com.realmmc.controller.shared.annotations.Listeners;
-import com.realmmc.controller.shared.auth.AuthenticationGuard;
-import com.realmmc.controller.shared.cosmetics.CosmeticsService;
 import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
 import com.realmmc.controller.shared.preferences.PreferencesService;
-import com.realmmc.controller.shared.profile.Profile;
 import com.realmmc.controller.shared.profile.ProfileService;
+import com.realmmc.controller.shared.session.LoginBootstrapService;
 import com.realmmc.controller.shared.session.SessionTrackerService;
 import com.realmmc.controller.shared.stats.StatisticsService;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.velocitypowered.api.event.EventTask;
+import com.velocitypowered.api.event.ResultedEvent;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.connection.LoginEvent;
@@ -24,17 +27,25 @@ import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Listeners
 public class PlayerJoinListener {
 
+    private static final long SESSION_READY_TIMEOUT_SECONDS = 10;
+
     private final ProfileService profileService;
     private final PreferencesService preferencesService;
     private final RoleService roleService;
     private final StatisticsService statisticsService;
     private final Optional<SessionTrackerService> sessionTrackerServiceOpt;
+    private final LoginBootstrapService loginBootstrap;
     private final Logger logger;
 
     public PlayerJoinListener() {
@@ -43,40 +54,70 @@ public class PlayerJoinListener {
         this.roleService = ServiceRegistry.getInstance().requireService(RoleService.class);
         this.statisticsService = ServiceRegistry.getInstance().requireService(StatisticsService.class);
         this.sessionTrackerServiceOpt = ServiceRegistry.getInstance().getService(SessionTrackerService.class);
+        this.loginBootstrap = new LoginBootstrapService();
         this.logger = Proxy.getInstance().getLogger();
     }
 
     @Subscribe
     public void onPreLogin(PreLoginEvent event) {
         if (!event.getResult().isAllowed()) {
-            sessionTrackerServiceOpt.ifPresent(service -> service.endSession(event.getUniqueId(), event.getUsername()));
+            sessionTrackerServiceOpt.ifPresent(service -> TaskScheduler.runAsync(() -> service.endSession(event.getUniqueId(), event.getUsername())));
         }
     }
 
     @Subscribe
-    public void onLogin(LoginEvent event) {
+    public EventTask onLogin(LoginEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
         String username = player.getUsername();
 
         roleService.startPreLoadingPlayerData(uuid);
 
-        sessionTrackerServiceOpt.ifPresent(service -> {
+        CompletableFuture<Void> session = sessionTrackerServiceOpt.map(service -> {
             String proxyId = System.getProperty("controller.proxyId", System.getenv("PROXY_NAME"));
-            if (proxyId == null) proxyId = "proxy_unknown";
+            String finalProxyId = proxyId != null ? proxyId : "proxy_unknown";
 
             String ip = player.getRemoteAddress().getAddress().getHostAddress();
             int protocol = player.getProtocolVersion().getProtocol();
             boolean isPremium = Proxy.getInstance().getPremiumLoginStatus().getOrDefault(username.toLowerCase(), false);
 
-            service.startSession(uuid, username, proxyId, null, protocol, -1, ip, null, null, isPremium, null);
-        });
-
-        logger.info("[PlayerJoin] Sessão iniciada (CONNECTING) para " + username);
+            return ConnectionStageMetrics.track(Stage.LOGIN_SESSION, TaskScheduler.runAsync(() -> {
+                service.startSession(uuid, username, finalProxyId, null, protocol, -1, ip, null, null, isPremium, null);
+                logger.info("[PlayerJoin] Sessão iniciada (CONNECTING) para " + username);
+            }));
+        }).orElseGet(() -> CompletableFuture.completedFuture(null));
+
+        // O jogador só segue para o PostLogin com a sessão de rede e a de permissões prontas
+        CompletableFuture<?> permissions = roleService.getPreLoginFuture(uuid)
+                .map(future -> ConnectionStageMetrics.track(Stage.LOGIN_PERMISSIONS, future))
+                .map(future -> (CompletableFuture<?>) future)
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+
+        // Sem a sessão de permissões o jogador teria toda permissão negada: recusa, como no Spigot
+        CompletableFuture<Void> ready = CompletableFuture.allOf(session, permissions)
+                .orTimeout(SESSION_READY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .handle((ignored, e) -> {
+                    if (e == null) return null;
+                    Throwable cause = (e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null ? e.getCause() : e;
+                    MessageKey kick;
+                    if (cause instanceof TimeoutException) {
+                        logger.log(Level.SEVERE, "[PlayerJoin] Timeout esperando a sessão de " + username + " no login! Recusando...");
+                        kick = MessageKey.KICK_PROFILE_TIMEOUT;
+                    } else {
+                        logger.log(Level.SEVERE, "[PlayerJoin] Falha ao preparar a sessão de " + username + ". Recusando...", cause);
+                        kick = MessageKey.KICK_PROFILE_ERROR;
+                    }
+                    event.setResult(ResultedEvent.ComponentResult.denied(MiniMessage.miniMessage().deserialize(Messages.translate(kick))));
+                    roleService.removePreLoginFuture(uuid);
+                    sessionTrackerServiceOpt.ifPresent(service -> TaskScheduler.runAsync(() -> service.endSession(uuid, username)));
+                    return null;
+                });
+
+        return EventTask.resumeWhenComplete(ready);
     }
 
     @Subscribe
-    public void onPostLogin(PostLoginEvent event) {
+    public EventTask onPostLogin(PostLoginEvent event) {
         final Player player = event.getPlayer();
         final UUID uuid = player.getUniqueId();
         final String username = player.getUsername();
@@ -84,59 +125,57 @@ public class PlayerJoinListener {
 
         Proxy.getInstance().getLoginTimestamps().put(uuid, System.currentTimeMillis());
 
-        try {
-            boolean isPremium = Proxy.getInstance().getPremiumLoginStatus().getOrDefault(username.toLowerCase(), false);
-            String clientVersion = player.getProtocolVersion().getName();
-
-            Profile profile = profileService.ensureProfile(uuid, username, username.toLowerCase(), ip, clientVersion, "Java", isPremium, player);
-
-            ServiceRegistry.getInstance().getService(CosmeticsService.class).ifPresent(cs -> {
-                cs.ensureCosmetics(profile);
-            });
+        boolean isPremium = Proxy.getInstance().getPremiumLoginStatus().getOrDefault(username.toLowerCase(), false);
+        String clientVersion = player.getProtocolVersion().getName();
 
-            sessionTrackerServiceOpt.ifPresent(service -> {
-                service.setSessionField(uuid, "username", profile.getName());
-                service.setSessionField(uuid, "clientVersion", clientVersion);
-                service.setSessionField(uuid, "role", profile.getPrimaryRoleName());
-                service.setSessionField(uuid, "cash", String.valueOf(profile.getCash()));
-                service.setSessionField(uuid, "medal", profile.getEquippedMedal());
-                service.setSessionState(uuid, AuthenticationGuard.STATE_ONLINE);
-            });
+        CompletableFuture<Void> bootstrap = loginBootstrap
+                .bootstrap(uuid, username, ip, clientVersion, "Java", isPremium, player)
+                .thenAccept(snapshot -> {
+                    logger.fine("[PlayerJoin] Bootstrap de " + username + " concluído em " + snapshot.bootstrapMillis() + "ms.");
 
-            preferencesService.loadAndCachePreferences(uuid);
-
-            roleService.clearSentWarnings(uuid);
+                    roleService.clearSentWarnings(uuid);
+                    roleService.checkAndSendLoginExpirationWarning(player);
 
-            roleService.checkAndSendLoginExpirationWarning(player);
+                    Proxy.getInstance().getPremiumLoginStatus().remove(username.toLowerCase());
+                    Proxy.getInstance().getOfflineUuids().remove(username.toLowerCase());
+                })
+                .exceptionally(e -> {
+                    logger.log(Level.SEVERE, "[PlayerJoin] Erro crítico no PostLogin para " + username, e);
+                    player.disconnect(MiniMessage.miniMessage().deserialize(Messages.translate(MessageKey.KICK_GENERIC_PROFILE_ERROR)));
+                    sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid));
+                    return null;
+                });
 
-            Proxy.getInstance().getPremiumLoginStatus().remove(username.toLowerCase());
-            Proxy.getInstance().getOfflineUuids().remove(username.toLowerCase());
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "[PlayerJoin] Erro crítico no PostLogin para " + username, e);
-            player.disconnect(MiniMessage.miniMessage().deserialize(Messages.translate(MessageKey.KICK_GENERIC_PROFILE_ERROR)));
-            sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid));
-        }
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(Stage.POST_LOGIN_BOOTSTRAP, bootstrap));
     }
 
     @Subscribe
-    public void onDisconnect(DisconnectEvent event) {
+    public EventTask onDisconnect(DisconnectEvent event) {
         final Player player = event.getPlayer();
         final UUID uuid = player.getUniqueId();
+        final String username = player.getUsername();
+        final Long loginTime = Proxy.getInstance().getLoginTimestamps().remove(uuid);
 
-        sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, player.getUsername()));
-        logger.info("[PlayerJoin] Sessão finalizada para " + player.getUsername());
+        CompletableFuture<Void> cleanup = TaskScheduler.runAsync(() -> {
+            sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, username));
+            logger.info("[PlayerJoin] Sessão finalizada para " + username);
 
-        Long loginTime = Proxy.getInstance().getLoginTimestamps().remove(uuid);
-        if (loginTime != null) {
-            long duration = System.currentTimeMillis() - loginTime;
-            if (duration > 0) {
-                try { statisticsService.addOnlineTime(uuid, duration); } catch (Exception ignored) {}
+            if (loginTime != null) {
+                long duration = System.currentTimeMillis() - loginTime;
+                if (duration > 0) {
+                    try { statisticsService.addOnlineTime(uuid, duration); } catch (Exception ignored) {}
+                }
             }
-        }
 
-        preferencesService.removeCachedPreferences(uuid);
-        roleService.invalidateSession(uuid);
-        roleService.clearSentWarnings(uuid);
+            preferencesService.removeCachedPreferences(uuid);
+            profileService.markOffline(uuid);
+            roleService.unloadSession(uuid);
+            roleService.clearSentWarnings(uuid);
+        });
+
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(Stage.DISCONNECT, cleanup).exceptionally(e -> {
+            logger.log(Level.WARNING, "[PlayerJoin] Erro ao finalizar a sessão de " + username, e);
+            return null;
+        }));
     }
 }
\ No newline at end of file
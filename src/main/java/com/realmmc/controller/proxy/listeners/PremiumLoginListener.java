@@ -1,10 +1,15 @@
 package com.realmmc.controller.proxy.listeners;
 
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics;
 import com.realmmc.controller.proxy.Proxy;
 import com.realmmc.controller.shared.annotations.Listeners;
 import com.realmmc.controller.shared.messaging.Message;
 import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.premium.PremiumCheckResult;
+import com.realmmc.controller.shared.premium.PremiumResolutionService;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.PreLoginEvent;
 import com.velocitypowered.api.event.PostOrder;
@@ -22,8 +27,14 @@ public class PremiumLoginListener {
     private static final Logger LOGGER = Logger.getLogger(PremiumLoginListener.class.getName());
     private static final MiniMessage MINI_MESSAGE = MiniMessage.miniMessage();
 
+    private final PremiumResolutionService premiumResolution;
+
+    public PremiumLoginListener() {
+        this.premiumResolution = ServiceRegistry.getInstance().requireService(PremiumResolutionService.class);
+    }
+
     @Subscribe(order = PostOrder.LATE)
-    public void onPreLogin(PreLoginEvent event) {
+    public EventTask onPreLogin(PreLoginEvent event) {
         String username = event.getUsername();
         String usernameLower = username.toLowerCase();
 
@@ -32,51 +43,56 @@ public class PremiumLoginListener {
             String translatedKick = Messages.translate(MessageKey.KICK_ALREADY_CONNECTED);
             event.setResult(PreLoginEvent.PreLoginComponentResult.denied(MINI_MESSAGE.deserialize(translatedKick)));
             LOGGER.warning(String.format("[Premium] '%s' was blocked from duplicate connection.", username));
-            return;
+            return null;
         }
 
-        try {
-            var premiumResult = PremiumChecker.checkPremium(username);
-
-            if (premiumResult.reason() != null) {
-                LOGGER.severe(String.format("[Premium] Mojang API failed to verify '%s'. Reason: %s", username, premiumResult.reason()));
-                String translatedKick = Messages.translate(Message.of(MessageKey.KICK_PREMIUM_AUTH_FAILED));
-                event.setResult(PreLoginEvent.PreLoginComponentResult.denied(MINI_MESSAGE.deserialize(translatedKick)));
-                return;
-            }
+        // O login fica suspenso (sem ocupar a thread de eventos) até a resolução completar
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(ConnectionStageMetrics.Stage.PREMIUM, premiumResolution.resolve(username))
+                .thenAccept(premiumResult -> applyResult(event, username, premiumResult))
+                .exceptionally(e -> {
+                    Proxy.getInstance().getPremiumLoginStatus().put(usernameLower, false);
+                    event.setResult(PreLoginEvent.PreLoginComponentResult.forceOfflineMode());
+                    LOGGER.severe(String.format("[Premium] A critical error occurred while verifying the account of '%s': %s", username, e.getMessage()));
+                    return null;
+                }));
+    }
 
-            boolean isUsernamePremium = premiumResult.premium();
-            Proxy.getInstance().getPremiumLoginStatus().put(usernameLower, isUsernamePremium);
+    private void applyResult(PreLoginEvent event, String username, PremiumCheckResult premiumResult) {
+        String usernameLower = username.toLowerCase();
+        if (!premiumResult.conclusive()) {
+            LOGGER.severe(String.format("[Premium] Mojang API failed to verify '%s'. Reason: %s", username, premiumResult.reason()));
+            String translatedKick = Messages.translate(Message.of(MessageKey.KICK_PREMIUM_AUTH_FAILED));
+            event.setResult(PreLoginEvent.PreLoginComponentResult.denied(MINI_MESSAGE.deserialize(translatedKick)));
+            return;
+        }
 
-            if (isUsernamePremium) {
-                UUID realPremiumUuid = premiumResult.profile().getId();
-                UUID clientReportedUuid = event.getUniqueId();
+        boolean isUsernamePremium = premiumResult.premium();
+        Proxy.getInstance().getPremiumLoginStatus().put(usernameLower, isUsernamePremium);
 
-                if (clientReportedUuid != null && clientReportedUuid.equals(realPremiumUuid)) {
-                    event.setResult(PreLoginEvent.PreLoginComponentResult.forceOnlineMode());
-                    LOGGER.info(String.format("[Premium] '%s' successfully authenticated as premium.", username));
-                } else {
-                    String translatedKick = Messages.translate(
-                            Message.of(MessageKey.KICK_PREMIUM_NICKNAME)
-                                    .with("nickname", username)
-                    );
+        if (isUsernamePremium) {
+            UUID realPremiumUuid = premiumResult.profile().getId();
+            UUID clientReportedUuid = event.getUniqueId();
 
-                    Component kickMessage = MINI_MESSAGE.deserialize(translatedKick);
-                    event.setResult(PreLoginEvent.PreLoginComponentResult.denied(kickMessage));
-                    LOGGER.warning(String.format("[Premium] '%s' blocked for using premium nick on a non-original launcher (UUID Mismatch: Client: %s, Mojang: %s).",
-                            username, clientReportedUuid, realPremiumUuid));
-                }
+            if (clientReportedUuid != null && clientReportedUuid.equals(realPremiumUuid)) {
+                event.setResult(PreLoginEvent.PreLoginComponentResult.forceOnlineMode());
+                LOGGER.info(String.format("[Premium] '%s' successfully authenticated as premium (%s).", username, premiumResult.source()));
             } else {
-                UUID offlineUuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes());
-                Proxy.getInstance().getOfflineUuids().put(usernameLower, offlineUuid);
+                String translatedKick = Messages.translate(
+                        Message.of(MessageKey.KICK_PREMIUM_NICKNAME)
+                                .with("nickname", username)
+                );
 
-                event.setResult(PreLoginEvent.PreLoginComponentResult.forceOfflineMode());
-                LOGGER.info(String.format("[Premium] '%s' successfully authenticated as non-premium.", username));
+                Component kickMessage = MINI_MESSAGE.deserialize(translatedKick);
+                event.setResult(PreLoginEvent.PreLoginComponentResult.denied(kickMessage));
+                LOGGER.warning(String.format("[Premium] '%s' blocked for using premium nick on a non-original launcher (UUID Mismatch: Client: %s, Mojang: %s).",
+                        username, clientReportedUuid, realPremiumUuid));
             }
-        } catch (Exception e) {
-            Proxy.getInstance().getPremiumLoginStatus().put(usernameLower, false);
+        } else {
+            UUID offlineUuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes());
+            Proxy.getInstance().getOfflineUuids().put(usernameLower, offlineUuid);
+
             event.setResult(PreLoginEvent.PreLoginComponentResult.forceOfflineMode());
-            LOGGER.severe(String.format("[Premium] A critical error occurred while verifying the account of '%s': %s", username, e.getMessage()));
+            LOGGER.info(String.format("[Premium] '%s' successfully authenticated as non-premium (%s).", username, premiumResult.source()));
         }
     }
 }
\ No newline at end of file
@@ -1,11 +1,12 @@
 package com.realmmc.controller.proxy.listeners;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics;
 import com.realmmc.controller.modules.role.PlayerSessionData;
 import com.realmmc.controller.modules.role.RoleService;
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
 import com.realmmc.controller.modules.server.ServerRegistryService;
 import com.realmmc.controller.modules.server.data.ServerInfo;
-import com.realmmc.controller.modules.server.data.ServerInfoRepository;
 import com.realmmc.controller.modules.server.data.ServerStatus;
 import com.realmmc.controller.modules.server.data.ServerType;
 import com.realmmc.controller.shared.annotations.Listeners;
@@ -16,7 +17,10 @@ import com.realmmc.controller.shared.messaging.Messages;
 import com.realmmc.controller.shared.session.SessionTrackerService;
 import com.realmmc.controller.shared.sounds.SoundKeys;
 import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 import com.velocitypowered.api.event.player.ServerPreConnectEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ServerConnection;
@@ -24,15 +28,17 @@ import com.velocitypowered.api.proxy.server.RegisteredServer;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Listeners
 public class ServerJoinListener {
 
     private final RoleService roleService;
-    private final ServerInfoRepository serverRepo;
+    private final ServerRegistryMirror serverMirror;
     private final Optional<SoundPlayer> soundPlayerOpt;
     private final ServerRegistryService serverRegistryService;
     private final SessionTrackerService sessionTrackerService;
@@ -42,21 +48,58 @@ public class ServerJoinListener {
 
     public ServerJoinListener() {
         this.roleService = ServiceRegistry.getInstance().requireService(RoleService.class);
-        this.serverRepo = new ServerInfoRepository();
+        this.serverMirror = ServiceRegistry.getInstance().requireService(ServerRegistryMirror.class);
         this.soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
         this.serverRegistryService = ServiceRegistry.getInstance().requireService(ServerRegistryService.class);
         this.sessionTrackerService = ServiceRegistry.getInstance().requireService(SessionTrackerService.class);
     }
 
     @Subscribe
-    public void onServerPreConnect(ServerPreConnectEvent event) {
+    public EventTask onServerPreConnect(ServerPreConnectEvent event) {
         Player player = event.getPlayer();
         RegisteredServer targetServer = event.getOriginalServer();
 
         if (targetServer == null) {
-            return;
+            return null;
+        }
+
+        // Espera a sessão de permissões e faz as checagens (Redis) fora da thread de eventos
+        CompletableFuture<Void> checks = awaitSessionData(player)
+                .thenAcceptAsync(sessionDataOpt -> handlePreConnect(event, player, targetServer, sessionDataOpt), TaskScheduler.getAsyncExecutor());
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(ConnectionStageMetrics.Stage.PRE_CONNECT, checks)
+                .exceptionally(e -> {
+                    logger.log(Level.SEVERE, "[ServerJoin] Erro ao processar conexão de " + player.getUsername() + " para " + targetServer.getServerInfo().getName(), e);
+                    return null;
+                }));
+    }
+
+    private CompletableFuture<Optional<PlayerSessionData>> awaitSessionData(Player player) {
+        Optional<PlayerSessionData> cached = roleService.getSessionDataFromCache(player.getUniqueId());
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Optional<CompletableFuture<PlayerSessionData>> futureOpt = roleService.getPreLoginFuture(player.getUniqueId());
+        if (futureOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
 
+        // thenApply cria um futuro próprio: o timeout não afeta o futuro compartilhado do RoleService
+        return futureOpt.get()
+                .thenApply(Optional::ofNullable)
+                .orTimeout(3, TimeUnit.SECONDS)
+                .handle((loadedData, error) -> {
+                    if (error != null) {
+                        logger.warning("[ServerJoin] Timeout ao esperar dados do jogador " + player.getUsername());
+                        return Optional.empty();
+                    }
+                    logger.info("[ServerJoin] Dados carregados via espera (Future) para " + player.getUsername());
+                    return loadedData;
+                });
+    }
+
+    private void handlePreConnect(ServerPreConnectEvent event, Player player, RegisteredServer targetServer,
+                                  Optional<PlayerSessionData> sessionDataOpt) {
         String newServerName = targetServer.getServerInfo().getName();
         String oldServerName = player.getCurrentServer()
                 .map(ServerConnection::getServerInfo)
@@ -74,7 +117,7 @@ public class ServerJoinListener {
         com.velocitypowered.api.proxy.server.ServerInfo targetInfo = targetServer.getServerInfo();
         String targetName = targetInfo.getName();
 
-        Optional<ServerInfo> serverInfoOpt = serverRepo.findByName(targetName);
+        Optional<ServerInfo> serverInfoOpt = serverMirror.findByName(targetName);
 
         if (serverInfoOpt.isEmpty()) {
             return;
@@ -82,22 +125,6 @@ public class ServerJoinListener {
 
         ServerInfo serverInfo = serverInfoOpt.get();
 
-        Optional<PlayerSessionData> sessionDataOpt = roleService.getSessionDataFromCache(player.getUniqueId());
-
-        if (sessionDataOpt.isEmpty()) {
-            Optional<CompletableFuture<PlayerSessionData>> futureOpt = roleService.getPreLoginFuture(player.getUniqueId());
-
-            if (futureOpt.isPresent()) {
-                try {
-                    PlayerSessionData loadedData = futureOpt.get().get(3, TimeUnit.SECONDS);
-                    sessionDataOpt = Optional.ofNullable(loadedData);
-                    logger.info("[ServerJoin] Dados carregados via espera (Future) para " + player.getUsername());
-                } catch (Exception e) {
-                    logger.warning("[ServerJoin] Timeout ao esperar dados do jogador " + player.getUsername());
-                }
-            }
-        }
-
         if (sessionDataOpt.isEmpty()) {
             logger.warning("[ServerJoin] Session Data not found for " + player.getUsername() + " when trying to connect to " + targetName + ". Denying.");
             event.setResult(ServerPreConnectEvent.ServerResult.denied());
@@ -123,13 +150,24 @@ public class ServerJoinListener {
             }
         }
 
-        int currentPlayers = targetServer.getPlayersConnected().size();
+        boolean isLobby = serverInfo.getType() == ServerType.LOBBY;
+        int currentPlayers = serverRegistryService.currentLoad(serverInfo, targetServer)
+                + (isLobby ? serverRegistryService.getReservedSlots(targetName, player.getUniqueId()) : 0);
         int maxNormalSlots = serverInfo.getMaxPlayers();
         int maxVipSlots = serverInfo.getMaxPlayersVip();
+        boolean hasVipSlot = sessionData.getPrimaryRole().getType() == com.realmmc.controller.shared.role.RoleType.VIP ||
+                playerWeight > roleService.getRole("default").map(r->r.getWeight()).orElse(0);
 
         if (currentPlayers >= maxNormalSlots) {
-            boolean hasVipSlot = sessionData.getPrimaryRole().getType() == com.realmmc.controller.shared.role.RoleType.VIP ||
-                    playerWeight > roleService.getRole("default").map(r->r.getWeight()).orElse(0);
+            if (isLobby && serverInfo.getStatus() == ServerStatus.ONLINE && currentPlayers >= (hasVipSlot ? maxVipSlots : maxNormalSlots)) {
+                Optional<RegisteredServer> otherLobby = serverRegistryService.getBestLobby(player.getUniqueId(), playerWeight, hasVipSlot);
+                if (otherLobby.isPresent() && !otherLobby.get().getServerInfo().getName().equals(targetName)) {
+                    event.setResult(ServerPreConnectEvent.ServerResult.allowed(otherLobby.get()));
+                    Messages.send(player, Message.of(MessageKey.SERVER_FALLBACK_REDIRECT)
+                            .with("server", otherLobby.get().getServerInfo().getName()));
+                    return;
+                }
+            }
 
             if (hasVipSlot) {
                 if (currentPlayers >= maxVipSlots) {
@@ -174,7 +212,7 @@ public class ServerJoinListener {
 
             logger.fine("[ServerJoin] Player " + player.getUsername() + " tried to join server " + serverInfo.getName() + " which is NOT ONLINE. Redirecting...");
 
-            Optional<RegisteredServer> bestLobby = serverRegistryService.getBestLobby();
+            Optional<RegisteredServer> bestLobby = serverRegistryService.getBestLobby(player.getUniqueId(), playerWeight, hasVipSlot);
 
             if (bestLobby.isPresent() && !bestLobby.get().getServerInfo().getName().equals(targetName)) {
                 event.setResult(ServerPreConnectEvent.ServerResult.allowed(bestLobby.get()));
@@ -190,6 +228,16 @@ public class ServerJoinListener {
             }
             return;
         }
+
+        if (isLobby) {
+            serverRegistryService.reserveLobbySlot(targetName, player.getUniqueId());
+        }
+    }
+
+    @Subscribe
+    public void onServerPostConnect(ServerPostConnectEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        TaskScheduler.runAsync(() -> serverRegistryService.releaseLobbyReservation(uuid));
     }
 
     private void sendFailureSound(Player player) {
@@ -0,0 +1,44 @@
+package com.realmmc.controller.proxy.listeners;
+
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
+import com.realmmc.controller.modules.server.data.ServerRegistryEvent;
+import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import com.realmmc.controller.shared.storage.redis.RedisEnvelope;
+import com.realmmc.controller.shared.storage.redis.RedisMessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ServerRegistryListener implements RedisMessageListener {
+
+    private static final Logger LOGGER = Logger.getLogger(ServerRegistryListener.class.getName());
+    private final ServerRegistryMirror mirror;
+
+    public ServerRegistryListener(ServerRegistryMirror mirror) {
+        this.mirror = mirror;
+    }
+
+    @Override
+    public void onMessage(String channel, String message) {
+        onEnvelope(RedisEnvelope.decode(channel, message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void onEnvelope(RedisEnvelope envelope) {
+        if (!RedisChannel.SERVER_REGISTRY_SYNC.getName().equals(envelope.channel())) {
+            return;
+        }
+
+        try {
+            mirror.handleEvent(envelope.decode(ServerRegistryEvent.class));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Erro ao processar SERVER_REGISTRY_SYNC", e);
+        }
+    }
+
+    @Override
+    public boolean ignoreOwnMessages() {
+        return true;
+    }
+}
@@ -1,20 +1,20 @@
 package com.realmmc.controller.proxy.listeners;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.modules.server.ServerRegistryService;
+import com.realmmc.controller.modules.server.data.ServerStatusSignal;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import com.realmmc.controller.shared.storage.redis.RedisEnvelope;
 import com.realmmc.controller.shared.storage.redis.RedisMessageListener;
 import com.velocitypowered.api.proxy.ProxyServer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ServerStatusListener implements RedisMessageListener {
 
     private static final Logger LOGGER = Logger.getLogger(ServerStatusListener.class.getName());
-    private final ObjectMapper mapper = new ObjectMapper();
     private final ServerRegistryService registryService;
     private final ProxyServer proxyServer;
 
@@ -25,16 +25,20 @@ public class ServerStatusListener implements RedisMessageListener {
 
     @Override
     public void onMessage(String channel, String message) {
-        if (!RedisChannel.SERVER_STATUS_UPDATE.getName().equals(channel)) {
+        onEnvelope(RedisEnvelope.decode(channel, message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void onEnvelope(RedisEnvelope envelope) {
+        if (!RedisChannel.SERVER_STATUS_UPDATE.getName().equals(envelope.channel())) {
             return;
         }
 
         try {
-            JsonNode node = mapper.readTree(message);
-            String serverName = node.path("server").asText(null);
-            String statusStr = node.path("status").asText(null);
+            ServerStatusSignal signal = envelope.decode(ServerStatusSignal.class);
+            String serverName = signal.server();
 
-            if (serverName != null && "ONLINE".equalsIgnoreCase(statusStr)) {
+            if (serverName != null && "ONLINE".equalsIgnoreCase(signal.status())) {
                 LOGGER.info("[ServerStatus] Recebido sinal READY de: " + serverName);
 
                 registryService.handleServerReadySignal(serverName);
@@ -4,8 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.modules.role.RoleService;
-import com.realmmc.controller.modules.server.data.ServerInfo;
-import com.realmmc.controller.modules.server.data.ServerInfoRepository;
+import com.realmmc.controller.modules.server.ServerRegistryMirror;
 import com.realmmc.controller.shared.preferences.PreferencesService;
 import com.realmmc.controller.shared.role.RoleType;
 import com.realmmc.controller.shared.sounds.SoundKeys;
@@ -29,14 +28,12 @@ public class StaffChatListener implements RedisMessageListener {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final MiniMessage miniMessage = MiniMessage.miniMessage();
     private final ProxyServer proxyServer;
-    private final ServerInfoRepository serverInfoRepository;
     private final PreferencesService preferencesService;
     private final RoleService roleService;
     private final Optional<SoundPlayer> soundPlayerOpt;
 
     public StaffChatListener() {
         this.proxyServer = ServiceRegistry.getInstance().requireService(ProxyServer.class);
-        this.serverInfoRepository = new ServerInfoRepository();
         this.preferencesService = ServiceRegistry.getInstance().requireService(PreferencesService.class);
         this.roleService = ServiceRegistry.getInstance().requireService(RoleService.class);
         this.soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
@@ -56,8 +53,8 @@ public class StaffChatListener implements RedisMessageListener {
             String formattedName = node.path("formattedName").asText(playerName);
             String textMessage = node.path("message").asText("");
 
-            String serverDisplayName = serverInfoRepository.findByName(serverName)
-                    .map(ServerInfo::getDisplayName)
+            String serverDisplayName = ServiceRegistry.getInstance().getService(ServerRegistryMirror.class)
+                    .map(mirror -> mirror.getDisplayName(serverName))
                     .orElse(serverName);
 
             String format = "<light_purple>[Staff] <dark_gray>[<server>] <reset><formatted_name><light_purple>: <white><message>";
@@ -1,11 +1,14 @@
 package com.realmmc.controller.proxy.permission;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.proxy.ConnectionStageMetrics;
 import com.realmmc.controller.modules.role.RoleService;
 import com.realmmc.controller.shared.auth.AuthenticationGuard;
 import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
 import com.realmmc.controller.shared.session.SessionTrackerService;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.permission.PermissionsSetupEvent;
 import com.velocitypowered.api.proxy.Player;
@@ -14,6 +17,7 @@ import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,32 +38,30 @@ public class VelocityPermissionInjector {
     }
 
     @Subscribe
-    public void onPermissionsSetup(PermissionsSetupEvent event) {
-        if (!(event.getSubject() instanceof Player player)) return;
+    public EventTask onPermissionsSetup(PermissionsSetupEvent event) {
+        if (!(event.getSubject() instanceof Player player)) return null;
 
         UUID uuid = player.getUniqueId();
         String playerName = player.getUsername();
-        boolean loadSuccess = false;
 
-        try {
-            roleService.loadPlayerDataAsync(uuid).get(10, TimeUnit.SECONDS);
+        // copy(): o timeout não deve completar o futuro compartilhado do RoleService
+        CompletableFuture<Void> setup = roleService.loadPlayerDataAsync(uuid).copy()
+                .orTimeout(10, TimeUnit.SECONDS)
+                .thenAcceptAsync(ignored -> {
+                    event.setProvider(this.provider);
+                    sessionTrackerServiceOpt.ifPresent(service ->
+                            service.setSessionState(uuid, AuthenticationGuard.STATE_ONLINE)
+                    );
+                    logger.info("[VelocityPerm] " + playerName + " is now ONLINE.");
+                }, TaskScheduler.getAsyncExecutor());
 
-            event.setProvider(this.provider);
-            loadSuccess = true;
-
-            sessionTrackerServiceOpt.ifPresent(service ->
-                    service.setSessionState(uuid, AuthenticationGuard.STATE_ONLINE)
-            );
-            logger.info("[VelocityPerm] " + playerName + " is now ONLINE.");
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "[VelocityPerm] Failed to load permissions for " + playerName, e);
-            Component kick = miniMessage.deserialize(Messages.translate(MessageKey.KICK_PROFILE_ERROR));
-            player.disconnect(kick);
-        } finally {
-            if (!loadSuccess) {
-                sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, playerName));
-            }
-        }
+        return EventTask.resumeWhenComplete(ConnectionStageMetrics.track(ConnectionStageMetrics.Stage.PERMISSIONS_SETUP, setup)
+                .exceptionally(e -> {
+                    logger.log(Level.SEVERE, "[VelocityPerm] Failed to load permissions for " + playerName, e);
+                    Component kick = miniMessage.deserialize(Messages.translate(MessageKey.KICK_PROFILE_ERROR));
+                    player.disconnect(kick);
+                    sessionTrackerServiceOpt.ifPresent(service -> TaskScheduler.runAsync(() -> service.endSession(uuid, playerName)));
+                    return null;
+                }));
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.realmmc.controller.proxy.permission;
 
 import com.realmmc.controller.core.services.ServiceRegistry; // Import ServiceRegistry
+import com.realmmc.controller.modules.role.PermissionProfiler;
 import com.realmmc.controller.modules.role.RoleService;
 import com.velocitypowered.api.permission.PermissionFunction;
 import com.velocitypowered.api.permission.PermissionProvider;
@@ -57,6 +58,9 @@ public class VelocityPermissionProvider implements PermissionProvider {
             // logger.finest("Verificando permissão: " + permission); // Opcional
             // Chama o hasPermission do RoleService (que usa o cache de sessão)
             boolean hasPerm = roleService.hasPermission(uuid, permission);
+            if (PermissionProfiler.sample()) {
+                PermissionProfiler.record(permission, hasPerm, roleService.explainPermission(uuid, permission));
+            }
             Tristate result = Tristate.fromBoolean(hasPerm);
             // logger.finest("Resultado para '" + permission + "': " + result); // Opcional
             return result;
@@ -23,6 +23,8 @@ import java.util.logging.Logger;
 
 public class SessionService implements Listener {
 
+    private static final long SESSION_READY_TIMEOUT_SECONDS = 10;
+
     private final Logger logger;
     private final RoleService roleService;
     private final Optional<SessionTrackerService> sessionTrackerServiceOpt;
@@ -55,56 +57,65 @@ public class SessionService implements Listener {
         }
     }
 
+    /**
+     * Espera a sessão de permissões ficar pronta ainda no pré-login, que roda fora da thread
+     * principal. Assim o {@link PlayerLoginEvent} (síncrono) não precisa bloquear o servidor.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onAsyncPreLoginAwaitSession(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        final UUID uuid = event.getUniqueId();
+        final String playerName = event.getName();
+
+        Optional<CompletableFuture<PlayerSessionData>> futureOpt = roleService.getPreLoginFuture(uuid);
+        if (futureOpt.isEmpty()) return;
+        try {
+            futureOpt.get().get(SESSION_READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            logger.finer("[SessionService] Sessão de permissões pronta (pré-login) para " + playerName);
+        } catch (TimeoutException te) {
+            logger.log(Level.SEVERE, "[SessionService] Timeout esperando a sessão de " + playerName + " no pré-login! Recusando...");
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_TIMEOUT));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_ERROR));
+        } catch (Exception e) {
+            Throwable cause = (e instanceof ExecutionException || e instanceof CompletionException) ? e.getCause() : e;
+            logger.log(Level.SEVERE, "[SessionService] Erro ao esperar a sessão de " + playerName + " no pré-login", cause);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_ERROR));
+        }
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            roleService.removePreLoginFuture(uuid);
+            sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, playerName));
+        }
+    }
+
     @EventHandler(priority = EventPriority.HIGH)
-    public void onLoginWaitForLoadAndSetOnline(PlayerLoginEvent event) {
+    public void onLoginSetOnline(PlayerLoginEvent event) {
         final Player player = event.getPlayer();
         final UUID uuid = player.getUniqueId();
         final String playerName = player.getName();
 
+        // A espera já aconteceu no pré-login; aqui só confere, sem bloquear a thread principal
+        boolean ready = roleService.isSessionReady(uuid) || roleService.getPreLoginFuture(uuid)
+                .map(f -> f.isDone() && !f.isCompletedExceptionally())
+                .orElse(false);
+        roleService.removePreLoginFuture(uuid);
+
         if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
-            logger.finer("[SessionService] Login negado (HIGH) para " + playerName + ". Limpando futuro e sessão.");
-            roleService.removePreLoginFuture(uuid);
+            logger.finer("[SessionService] Login negado (HIGH) para " + playerName + ". Limpando sessão.");
             sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, playerName));
             return;
         }
 
-        logger.finer("[SessionService] PlayerLogin (HIGH): Aguardando conclusão do pré-carregamento/carregamento sync para " + playerName);
-        boolean loadSuccess = false;
-        try {
-            Optional<CompletableFuture<PlayerSessionData>> futureOpt = roleService.getPreLoginFuture(uuid);
-            if (futureOpt.isPresent()) {
-                try {
-                    futureOpt.get().get(10, TimeUnit.SECONDS);
-                    logger.finer("[SessionService] Pré-carregamento concluído (HIGH) para " + playerName);
-                    loadSuccess = true;
-                } catch (TimeoutException te) {
-                    logger.log(Level.SEVERE, "[SessionService] Timeout (HIGH) esperando pré-carregamento para " + playerName + "! Kickando...");
-                    event.disallow(PlayerLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_TIMEOUT));
-                } catch (Exception e) {
-                    Throwable cause = (e instanceof ExecutionException || e instanceof CompletionException) ? e.getCause() : e;
-                    logger.log(Level.SEVERE, "[SessionService] Erro (HIGH) ao esperar pré-carregamento para " + playerName, cause);
-                    event.disallow(PlayerLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_ERROR));
-                }
-            } else {
-                if (roleService.getSessionDataFromCache(uuid).isPresent()) {
-                    logger.log(Level.INFO, "[SessionService] Futuro não encontrado (HIGH) para {0}, mas dados já estão no cache. Assumindo sucesso.", playerName);
-                    loadSuccess = true;
-                } else {
-                    logger.log(Level.SEVERE, "[SessionService] CRÍTICO (HIGH): Futuro de pré-login não encontrado E cache vazio para {0}! Kickando.", playerName);
-                    event.disallow(PlayerLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_UNEXPECTED));
-                }
-            }
-        } finally {
-            roleService.removePreLoginFuture(uuid);
-            if (!loadSuccess && event.getResult() == PlayerLoginEvent.Result.ALLOWED) {
-                logger.log(Level.SEVERE, "[SessionService] Carregamento falhou (HIGH) mas evento não foi cancelado! Limpando sessão Redis para " + playerName);
-                sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, playerName));
-            } else if (loadSuccess) {
-                sessionTrackerServiceOpt.ifPresent(service -> service.setSessionState(uuid, AuthenticationGuard.STATE_ONLINE));
-                logger.fine("[SessionService] Estado da sessão definido como ONLINE para " + playerName);
-            }
+        if (!ready) {
+            logger.log(Level.SEVERE, "[SessionService] CRÍTICO (HIGH): Sessão de permissões não está pronta para {0}! Kickando.", playerName);
+            event.disallow(PlayerLoginEvent.Result.KICK_OTHER, Messages.translate(MessageKey.KICK_PROFILE_UNEXPECTED));
+            sessionTrackerServiceOpt.ifPresent(service -> service.endSession(uuid, playerName));
+            return;
         }
-        if(loadSuccess) logger.finer("[SessionService] Processamento de login (HIGH) concluído para " + playerName);
+
+        sessionTrackerServiceOpt.ifPresent(service -> service.setSessionState(uuid, AuthenticationGuard.STATE_ONLINE));
+        logger.fine("[SessionService] Estado da sessão definido como ONLINE para " + playerName);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
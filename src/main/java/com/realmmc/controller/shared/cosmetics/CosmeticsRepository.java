@@ -3,9 +3,14 @@ package com.realmmc.controller.shared.cosmetics;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
 import com.realmmc.controller.shared.storage.mongodb.AbstractMongoRepository;
 import com.realmmc.controller.shared.storage.mongodb.MongoRepository;
+import org.bson.conversions.Bson;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,12 +23,31 @@ public class CosmeticsRepository extends AbstractMongoRepository<Cosmetics> {
 
     private void ensureIndexes() {
         collection().createIndex(Indexes.ascending("uuid"), new IndexOptions().unique(true));
+        collection().createIndex(Indexes.ascending("unlockedMedals.expiresAt"), new IndexOptions().sparse(true));
     }
 
     public Optional<Cosmetics> findByUuid(UUID uuid) {
         return findOne(Filters.eq("uuid", uuid));
     }
 
+    /**
+     * Documentos com alguma medalha expirada antes de {@code cutoff} (usa o índice de {@code unlockedMedals.expiresAt}).
+     */
+    public List<Cosmetics> findWithMedalsExpiredBefore(long cutoff, int limit) {
+        Bson filter = Filters.elemMatch("unlockedMedals", Filters.lt("expiresAt", cutoff));
+        return collection().find(filter, null, Projections.include("uuid", "unlockedMedals"), limit);
+    }
+
+    /**
+     * Remove num único update as medalhas expiradas antes de {@code cutoff} dos jogadores informados.
+     * @return Documentos alterados.
+     */
+    public long pullMedalsExpiredBefore(Collection<UUID> uuids, long cutoff) {
+        if (uuids.isEmpty()) return 0;
+        return collection().updateMany(Filters.in("uuid", uuids),
+                Updates.pull("unlockedMedals", Filters.lt("expiresAt", cutoff)));
+    }
+
     public void upsert(Cosmetics cosmetics) {
         if (cosmetics.getId() == null) throw new IllegalArgumentException("Cosmetics ID cannot be null");
         replace(MongoRepository.idEquals(cosmetics.getId()), cosmetics);
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.shared.cosmetics.medals.UnlockedMedal;
+import com.realmmc.controller.shared.expiry.ExpiryEngine;
 import com.realmmc.controller.shared.messaging.Message;
 import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
@@ -33,7 +34,12 @@ public class CosmeticsService implements RedisMessageListener {
     private final Map<UUID, List<String>> activeMedalsCache = new ConcurrentHashMap<>();
     private final ObjectMapper mapper = new ObjectMapper();
 
+    private static final String MEDAL_EXPIRY = "medals";
+    private static final long EXPIRY_SWEEP_MILLIS = Long.getLong("MEDAL_EXPIRY_SWEEP_MILLIS", TimeUnit.MINUTES.toMillis(5));
+    private static final int EXPIRY_SWEEP_BATCH = Integer.getInteger("MEDAL_EXPIRY_SWEEP_BATCH", 500);
+
     private final ProfileService profileService;
+    private final ExpiryEngine expiryEngine;
     private final Optional<SoundPlayer> soundPlayer;
 
     public CosmeticsService() {
@@ -41,24 +47,22 @@ public class CosmeticsService implements RedisMessageListener {
                 .ifPresent(sub -> sub.registerListener(RedisChannel.COSMETICS_SYNC, this));
 
         this.profileService = ServiceRegistry.getInstance().requireService(ProfileService.class);
+        this.expiryEngine = ServiceRegistry.getInstance().requireService(ExpiryEngine.class);
         this.soundPlayer = ServiceRegistry.getInstance().getService(SoundPlayer.class);
 
         startExpirationTask();
     }
 
     private void startExpirationTask() {
-        TaskScheduler.runAsyncTimer(() -> {
-            try {
-                for (UUID uuid : activeMedalsCache.keySet()) {
-                    checkAndRemoveExpired(uuid);
-                }
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Erro na tarefa de verificação de expiração de cosméticos", e);
-            }
-        }, 1, 1, TimeUnit.MINUTES);
-        LOGGER.info("[CosmeticsService] Tarefa de verificação de expiração iniciada.");
+        expiryEngine.register(MEDAL_EXPIRY, this::checkAndRemoveExpired);
+        expiryEngine.scheduleSweep(MEDAL_EXPIRY, EXPIRY_SWEEP_MILLIS, this::sweepExpiredMedals);
+        LOGGER.info("[CosmeticsService] Expiração de medalhas registrada no ExpiryEngine.");
     }
 
+    /**
+     * Chamado pelo {@link ExpiryEngine} quando vence a medalha de um jogador online. Só o nó que
+     * reivindicar a expiração grava e avisa o jogador.
+     */
     private void checkAndRemoveExpired(UUID uuid) {
         Optional<Cosmetics> cosmeticsOpt = repository.findByUuid(uuid);
         if (cosmeticsOpt.isEmpty()) return;
@@ -67,31 +71,88 @@ public class CosmeticsService implements RedisMessageListener {
         List<UnlockedMedal> medals = cosmetics.getUnlockedMedals();
         if (medals == null || medals.isEmpty()) return;
 
-        List<String> expiredIds = new ArrayList<>();
-        boolean changed = medals.removeIf(m -> {
-            if (m.hasExpired()) {
-                expiredIds.add(m.getMedalId());
-                return true;
-            }
-            return false;
-        });
+        long now = System.currentTimeMillis();
+        List<UnlockedMedal> expired = medals.stream().filter(UnlockedMedal::hasExpired).toList();
+        if (expired.isEmpty()) {
+            updateCache(cosmetics);
+            return;
+        }
+        Set<String> claimedIds = expired.stream()
+                .filter(m -> expiryEngine.claim(MEDAL_EXPIRY, uuid, m.getMedalId(), m.getExpiresAt()))
+                .map(m -> m.getMedalId().toLowerCase())
+                .collect(Collectors.toSet());
+        boolean overdue = expired.stream().anyMatch(m -> now - m.getExpiresAt() >= ExpiryEngine.CLAIM_GRACE_MILLIS);
+        if (claimedIds.isEmpty() && !overdue) {
+            // Outro nó está aplicando; confere de novo quando a tolerância acabar
+            expiryEngine.track(MEDAL_EXPIRY, uuid, now + ExpiryEngine.CLAIM_GRACE_MILLIS);
+            return;
+        }
 
-        if (changed) {
-            save(cosmetics);
-            LOGGER.info("[CosmeticsService] Removidas " + expiredIds.size() + " medalhas expiradas de " + uuid);
+        medals.removeAll(expired);
+        save(cosmetics);
+        LOGGER.info("[CosmeticsService] Removidas " + expired.size() + " medalhas expiradas de " + uuid);
 
-            profileService.getByUuid(uuid).ifPresent(profile -> {
-                String currentEquipped = profile.getEquippedMedal();
+        profileService.getByUuid(uuid).ifPresent(profile -> {
+            String currentEquipped = profile.getEquippedMedal();
+            boolean equippedExpired = expired.stream().anyMatch(m -> m.getMedalId().equalsIgnoreCase(currentEquipped));
 
-                if (expiredIds.contains(currentEquipped.toLowerCase())) {
-                    profile.setEquippedMedal("none");
-                    profileService.save(profile);
+            if (equippedExpired) {
+                profile.setEquippedMedal("none");
+                profileService.save(profile);
 
-                    LOGGER.info("[CosmeticsService] Medalha equipada '" + currentEquipped + "' expirou e foi removida de " + profile.getName());
+                LOGGER.info("[CosmeticsService] Medalha equipada '" + currentEquipped + "' expirou e foi removida de " + profile.getName());
 
+                if (claimedIds.contains(currentEquipped.toLowerCase())) {
                     notifyPlayerExpiration(uuid, currentEquipped);
                 }
+            }
+        });
+    }
+
+    /**
+     * Varredura dos jogadores offline: busca pelo índice as medalhas vencidas há mais que a
+     * tolerância, remove todas com um único update por lote e desequipa em bulk as que estavam em
+     * uso. Repete os lotes até esvaziar o backlog (ou um lote não conseguir gravar nada).
+     */
+    private void sweepExpiredMedals() {
+        long cutoff = System.currentTimeMillis() - ExpiryEngine.CLAIM_GRACE_MILLIS;
+        long totalRemoved = 0;
+        long totalUnequipped = 0;
+        List<Cosmetics> affected;
+        do {
+            affected = repository.findWithMedalsExpiredBefore(cutoff, EXPIRY_SWEEP_BATCH);
+            if (affected.isEmpty()) break;
+
+            Map<UUID, Set<String>> expiredByUuid = new HashMap<>();
+            for (Cosmetics c : affected) {
+                Set<String> ids = c.getUnlockedMedals().stream()
+                        .filter(m -> m.getExpiresAt() != null && m.getExpiresAt() < cutoff)
+                        .map(m -> m.getMedalId().toLowerCase())
+                        .collect(Collectors.toSet());
+                if (!ids.isEmpty()) expiredByUuid.put(c.getUuid(), ids);
+            }
+
+            long removed = repository.pullMedalsExpiredBefore(expiredByUuid.keySet(), cutoff);
+            for (Cosmetics c : affected) {
+                c.getUnlockedMedals().removeIf(m -> m.getExpiresAt() != null && m.getExpiresAt() < cutoff);
+                if (activeMedalsCache.containsKey(c.getUuid())) updateCache(c);
+                publishUpdate(c);
+            }
+
+            List<Profile> equipped = profileService.findByUuids(expiredByUuid.keySet());
+            totalUnequipped += profileService.saveAllIfUnchanged(equipped, profile -> {
+                Set<String> ids = expiredByUuid.get(profile.getUuid());
+                if (ids == null || profile.getEquippedMedal() == null || !ids.contains(profile.getEquippedMedal().toLowerCase())) return false;
+                profile.setEquippedMedal("none");
+                return true;
             });
+            totalRemoved += removed;
+            if (removed == 0) break;
+        } while (affected.size() >= EXPIRY_SWEEP_BATCH);
+
+        if (totalRemoved > 0 || totalUnequipped > 0) {
+            LOGGER.info("[CosmeticsService] Varredura de expiração: " + totalRemoved + " jogador(es) offline com medalhas removidas, "
+                    + totalUnequipped + " desequipada(s).");
         }
     }
 
@@ -207,6 +268,15 @@ public class CosmeticsService implements RedisMessageListener {
                 .map(UnlockedMedal::getMedalId)
                 .collect(Collectors.toList());
         activeMedalsCache.put(cosmetics.getUuid(), activeIds);
+
+        Long nextExpiration = cosmetics.getUnlockedMedals().stream()
+                .map(UnlockedMedal::getExpiresAt)
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .orElse(null);
+        if (profileService.isOnlineHere(cosmetics.getUuid())) {
+            expiryEngine.track(MEDAL_EXPIRY, cosmetics.getUuid(), nextExpiration);
+        }
     }
 
     public List<String> getCachedMedals(UUID uuid) {
@@ -222,12 +292,18 @@ public class CosmeticsService implements RedisMessageListener {
                     .filter(m -> !m.hasExpired())
                     .forEach(m -> array.add(m.getMedalId()));
 
-            RedisPublisher.publish(RedisChannel.COSMETICS_SYNC, node.toString());
+            RedisPublisher.publish(RedisChannel.COSMETICS_SYNC, node.toString(), cosmetics.getUuid().toString());
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error publishing cosmetics sync", e);
         }
     }
 
+    @Override
+    public boolean ignoreOwnMessages() {
+        // O próprio save() já atualizou o cache local
+        return true;
+    }
+
     @Override
     public void onMessage(String channel, String message) {
         if (!RedisChannel.COSMETICS_SYNC.getName().equals(channel)) return;
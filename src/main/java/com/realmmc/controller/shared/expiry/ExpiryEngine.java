@@ -0,0 +1,196 @@
+package com.realmmc.controller.shared.expiry;
+
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import com.realmmc.controller.shared.storage.redis.RedisEnvelope;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Motor de expiração de itens temporários (cargos, medalhas).
+ * <p>
+ * Jogadores conectados a este nó entram numa fila de prazos ordenada pelo {@code expiresAt} mais
+ * próximo, com no máximo uma entrada por tipo e jogador (reagendar ou remover tira a anterior); o
+ * tick só olha o topo da fila, então nada é lido do banco enquanto nenhum prazo vence.
+ * Jogadores offline ficam com a varredura periódica ({@link #scheduleSweep}), que consulta o banco
+ * por índice e roda em um único nó da rede por vez.
+ * <p>
+ * Como o mesmo jogador pode estar na fila do proxy e do servidor, quem aplica e avisa sobre uma
+ * expiração é quem ganhar o {@link #claim} dela; os demais só a aplicam se ela continuar pendente
+ * depois de {@link #CLAIM_GRACE_MILLIS}.
+ */
+public class ExpiryEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(ExpiryEngine.class.getName());
+    private static final String CLAIM_PREFIX = "controller:expiry:claim:";
+    private static final String SWEEP_LOCK_PREFIX = "controller:expiry:sweep:";
+
+    private static final long TICK_MILLIS = Long.getLong("EXPIRY_TICK_MILLIS", 1_000L);
+    public static final long CLAIM_GRACE_MILLIS = Long.getLong("EXPIRY_CLAIM_GRACE_MILLIS", 30_000L);
+    private static final long CLAIM_TTL_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+    private record Deadline(String kind, UUID uuid, long at) {
+    }
+
+    private static final Comparator<Deadline> ORDER = Comparator.comparingLong(Deadline::at)
+            .thenComparing(Deadline::kind)
+            .thenComparing(Deadline::uuid);
+
+    private final TreeSet<Deadline> queue = new TreeSet<>(ORDER);
+    // Entrada da fila de cada tipo e jogador, para removê-la ao reagendar ou na saída
+    private final Map<String, Map<UUID, Deadline>> current = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<UUID>> handlers = new ConcurrentHashMap<>();
+    private final List<ScheduledFuture<?>> tasks = new CopyOnWriteArrayList<>();
+    private volatile Predicate<UUID> onlineHere = uuid -> true;
+
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong claimsWon = new AtomicLong();
+    private final AtomicLong claimsLost = new AtomicLong();
+    private final AtomicLong sweeps = new AtomicLong();
+
+    public ExpiryEngine() {
+        tasks.add(TaskScheduler.runAsyncTimer(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Filtro de jogadores conectados a este nó. Prazos vencidos de quem já saiu são descartados
+     * (a varredura offline cuida deles).
+     */
+    public void setOnlineFilter(Predicate<UUID> onlineHere) {
+        this.onlineHere = Objects.requireNonNull(onlineHere);
+    }
+
+    /**
+     * @param handler Chamado (fora da fila) quando vence o prazo de um jogador deste tipo.
+     */
+    public void register(String kind, Consumer<UUID> handler) {
+        handlers.put(kind, handler);
+    }
+
+    /**
+     * Agenda (ou reagenda) o próximo prazo do jogador. {@code null} remove o agendamento.
+     */
+    public void track(String kind, UUID uuid, Long deadline) {
+        if (kind == null || uuid == null) return;
+        Map<UUID, Deadline> byUuid = current.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+        synchronized (queue) {
+            Deadline previous = byUuid.get(uuid);
+            if (previous != null && deadline != null && previous.at == deadline) return;
+            if (previous != null) queue.remove(previous);
+            if (deadline == null) {
+                byUuid.remove(uuid);
+                return;
+            }
+            Deadline next = new Deadline(kind, uuid, deadline);
+            byUuid.put(uuid, next);
+            queue.add(next);
+        }
+    }
+
+    /**
+     * Remove todos os prazos do jogador (saiu deste nó).
+     */
+    public void untrack(UUID uuid) {
+        if (uuid == null) return;
+        synchronized (queue) {
+            for (Map<UUID, Deadline> byUuid : current.values()) {
+                Deadline removed = byUuid.remove(uuid);
+                if (removed != null) queue.remove(removed);
+            }
+        }
+    }
+
+    /**
+     * Reivindica, para toda a rede, a expiração de um item. Só um nó recebe {@code true} para a
+     * mesma combinação de jogador, item e prazo.
+     */
+    public boolean claim(String kind, UUID uuid, String itemId, long expiresAt) {
+        String key = CLAIM_PREFIX + kind + ":" + uuid + ":" + itemId.toLowerCase() + ":" + expiresAt;
+        boolean won;
+        try {
+            won = StorageBackends.keyValue().setnx(key, CLAIM_TTL_SECONDS, RedisEnvelope.localNodeId());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[ExpiryEngine] Falha ao reivindicar expiração " + key + ". Aplicando localmente.", e);
+            won = true;
+        }
+        (won ? claimsWon : claimsLost).incrementAndGet();
+        return won;
+    }
+
+    /**
+     * Roda {@code sweep} a cada {@code intervalMillis} em apenas um nó da rede (o que pegar o lock).
+     */
+    public void scheduleSweep(String kind, long intervalMillis, Runnable sweep) {
+        long lockSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(intervalMillis) - 1);
+        tasks.add(TaskScheduler.runAsyncTimer(() -> {
+            try {
+                if (!StorageBackends.keyValue().setnx(SWEEP_LOCK_PREFIX + kind, lockSeconds, RedisEnvelope.localNodeId())) return;
+                sweeps.incrementAndGet();
+                sweep.run();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "[ExpiryEngine] Erro na varredura de expiração '" + kind + "'", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+    }
+
+    public int trackedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public void shutdown() {
+        tasks.forEach(TaskScheduler::cancelTask);
+        tasks.clear();
+        synchronized (queue) {
+            queue.clear();
+            current.clear();
+        }
+        LOGGER.info("[ExpiryEngine] Finalizado. " + this);
+    }
+
+    @Override
+    public String toString() {
+        return "ExpiryEngine{tracked=" + trackedCount() + ", expirations=" + expirations.get()
+                + ", claimsWon=" + claimsWon.get() + ", claimsLost=" + claimsLost.get() + ", sweeps=" + sweeps.get() + "}";
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Deadline> due = new ArrayList<>();
+        synchronized (queue) {
+            // hasExpired() usa "now > expiresAt"
+            while (!queue.isEmpty() && queue.first().at < now) {
+                Deadline d = queue.pollFirst();
+                Map<UUID, Deadline> byUuid = current.get(d.kind);
+                if (byUuid != null) byUuid.remove(d.uuid, d);
+                due.add(d);
+            }
+        }
+        for (Deadline d : due) {
+            Consumer<UUID> handler = handlers.get(d.kind);
+            if (handler == null || !onlineHere.test(d.uuid)) continue;
+            expirations.incrementAndGet();
+            try {
+                handler.accept(d.uuid);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "[ExpiryEngine] Erro ao expirar '" + d.kind + "' de " + d.uuid, e);
+            }
+        }
+    }
+}
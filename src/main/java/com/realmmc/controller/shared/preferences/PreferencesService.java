@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,12 +44,20 @@ public class PreferencesService {
     }
 
     public Preferences ensurePreferences(Profile profile, Language initialLanguage) {
+        return ensurePreferences(profile, () -> initialLanguage);
+    }
+
+    /**
+     * @param initialLanguage Só é consultado se as preferências ainda não existirem (ex.: detecção por GeoIP).
+     */
+    public Preferences ensurePreferences(Profile profile, Supplier<Language> initialLanguage) {
         if (profile == null) {
             throw new IllegalArgumentException("Profile cannot be null for ensurePreferences");
         }
         return repository.findById(profile.getId()).orElseGet(() -> {
             LOGGER.info("Creating default preferences for profile ID: " + profile.getId() + " (UUID: " + profile.getUuid() + ")");
-            Language langToSet = (initialLanguage != null) ? initialLanguage : Language.getDefault();
+            Language detected = initialLanguage != null ? initialLanguage.get() : null;
+            Language langToSet = (detected != null) ? detected : Language.getDefault();
 
             Preferences newPrefs = Preferences.builder()
                     .id(profile.getId())
@@ -65,7 +74,7 @@ public class PreferencesService {
     }
 
     public Preferences ensurePreferences(Profile profile) {
-        return ensurePreferences(profile, null);
+        return ensurePreferences(profile, (Language) null);
     }
 
     public Language toggleLanguage(UUID uuid) {
@@ -132,7 +141,7 @@ public class PreferencesService {
             node.put("staffChatEnabled", preferences.isStaffChatEnabled());
 
             String json = node.toString();
-            RedisPublisher.publish(RedisChannel.PREFERENCES_SYNC, json);
+            RedisPublisher.publish(RedisChannel.PREFERENCES_SYNC, json, preferences.getUuid().toString());
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to publish preferences sync message for " + preferences.getUuid(), e);
         }
@@ -36,6 +36,12 @@ public class PreferencesSyncSubscriber implements RedisMessageListener {
         }
     }
 
+    @Override
+    public boolean ignoreOwnMessages() {
+        // O próprio save() já atualizou o cache local
+        return true;
+    }
+
     @Override
     public void onMessage(String channel, String message) {
         if (!RedisChannel.PREFERENCES_SYNC.getName().equals(channel) || preferencesServiceOpt.isEmpty()) {
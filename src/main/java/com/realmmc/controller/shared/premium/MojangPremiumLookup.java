@@ -0,0 +1,117 @@
+package com.realmmc.controller.shared.premium;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.velocitypowered.api.util.GameProfile;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificação pela API pública da Mojang (nick -> uuid -> perfil), sem bloquear a thread chamadora.
+ * Falhas de rede e respostas 5xx são repetidas com espera crescente; 429 não é repetido.
+ */
+public class MojangPremiumLookup implements PremiumLookup {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int TIMEOUT_MS = 5000;
+    private static final int MAX_RETRIES = 3;
+    private static final int RETRY_DELAY_MS = 300;
+    private static final String BASE_UUID = "https://api.mojang.com/users/profiles/minecraft/";
+    private static final String BASE_PROFILE = "https://sessionserver.mojang.com/session/minecraft/profile/";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(TIMEOUT_MS))
+            .build();
+
+    /**
+     * @param body    Corpo da resposta ({@code {}} para 204/404); null em caso de falha.
+     * @param failure Motivo da falha.
+     */
+    private record HttpOutcome(String body, String failure) {
+    }
+
+    @Override
+    public CompletableFuture<PremiumCheckResult> lookup(String username) {
+        return request(BASE_UUID + username, "uuid", 1).thenCompose(uuidOutcome -> {
+            if (uuidOutcome.body() == null) {
+                return CompletableFuture.completedFuture(PremiumCheckResult.failed(uuidOutcome.failure(), "mojang"));
+            }
+            JsonNode uuidJson;
+            try {
+                uuidJson = MAPPER.readTree(uuidOutcome.body());
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(PremiumCheckResult.failed("json_parse_error", "mojang"));
+            }
+            if (uuidJson == null || !uuidJson.has("id")) {
+                return CompletableFuture.completedFuture(PremiumCheckResult.cracked("mojang"));
+            }
+
+            String idNoDash = uuidJson.get("id").asText();
+            return request(BASE_PROFILE + idNoDash + "?unsigned=false", "profile", 1).thenApply(profileOutcome -> {
+                if (profileOutcome.body() == null) {
+                    return PremiumCheckResult.failed(profileOutcome.failure(), "mojang");
+                }
+                try {
+                    return buildResult(username, idNoDash, MAPPER.readTree(profileOutcome.body()));
+                } catch (Exception e) {
+                    return PremiumCheckResult.failed("json_parse_error", "mojang");
+                }
+            });
+        });
+    }
+
+    private CompletableFuture<HttpOutcome> request(String url, String stage, int attempt) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", "application/json")
+                .header("User-Agent", "Mozilla/5.0")
+                .timeout(Duration.ofMillis(TIMEOUT_MS))
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) return new HttpOutcome(null, stage + "_request_failed");
+                    int status = response.statusCode();
+                    if (status == 200) return new HttpOutcome(response.body(), null);
+                    if (status == 204 || status == 404) return new HttpOutcome("{}", null);
+                    if (status == 429) return new HttpOutcome(null, RATE_LIMITED);
+                    return new HttpOutcome(null, stage + "_request_failed");
+                })
+                .thenCompose(outcome -> {
+                    if (outcome.body() != null || RATE_LIMITED.equals(outcome.failure()) || attempt >= MAX_RETRIES) {
+                        return CompletableFuture.completedFuture(outcome);
+                    }
+                    return CompletableFuture.supplyAsync(() -> null,
+                                    CompletableFuture.delayedExecutor((long) RETRY_DELAY_MS * attempt, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> request(url, stage, attempt + 1));
+                });
+    }
+
+    private static PremiumCheckResult buildResult(String username, String idNoDash, JsonNode profileJson) {
+        UUID uuid = UUID.fromString(idNoDash.replaceFirst("(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})", "$1-$2-$3-$4-$5"));
+
+        List<GameProfile.Property> properties = new ArrayList<>();
+        if (profileJson.has("properties") && profileJson.get("properties").isArray()) {
+            for (var prop : profileJson.get("properties")) {
+                properties.add(new GameProfile.Property(
+                        prop.path("name").asText(""),
+                        prop.path("value").asText(""),
+                        prop.path("signature").asText(null)
+                ));
+            }
+        }
+
+        String finalName = profileJson.has("name") ? profileJson.get("name").asText() : username;
+        return PremiumCheckResult.premium(new GameProfile(uuid, finalName, properties), "mojang");
+    }
+}
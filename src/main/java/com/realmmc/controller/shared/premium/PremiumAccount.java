@@ -0,0 +1,31 @@
+package com.realmmc.controller.shared.premium;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+/**
+ * Última decisão conclusiva sobre um nick, usada quando a Mojang não responde.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PremiumAccount {
+
+    /** Nick em minúsculas. */
+    @BsonId
+    private String name;
+
+    /** Nick com a capitalização da Mojang (ou a informada, se não for original). */
+    private String displayName;
+
+    private boolean premium;
+
+    /** UUID da conta original; null para contas não originais. */
+    private String uuid;
+
+    private long checkedAt;
+}
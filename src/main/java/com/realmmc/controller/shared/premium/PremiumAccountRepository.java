@@ -0,0 +1,21 @@
+package com.realmmc.controller.shared.premium;
+
+import com.mongodb.client.model.Filters;
+import com.realmmc.controller.shared.storage.mongodb.AbstractMongoRepository;
+
+import java.util.Optional;
+
+public class PremiumAccountRepository extends AbstractMongoRepository<PremiumAccount> {
+
+    public PremiumAccountRepository() {
+        super(PremiumAccount.class, "premium_accounts");
+    }
+
+    public Optional<PremiumAccount> findByName(String name) {
+        return findOne(Filters.eq("_id", name.toLowerCase()));
+    }
+
+    public void save(PremiumAccount account) {
+        replace(Filters.eq("_id", account.getName()), account);
+    }
+}
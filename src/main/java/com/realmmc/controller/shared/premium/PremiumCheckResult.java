@@ -0,0 +1,34 @@
+package com.realmmc.controller.shared.premium;
+
+import com.velocitypowered.api.util.GameProfile;
+
+/**
+ * Resultado da verificação de um nick.
+ *
+ * @param premium Se o nick pertence a uma conta original.
+ * @param profile Perfil da conta original (só o id/nome quando vem do cache persistido).
+ * @param reason  Motivo da falha; null se a verificação foi conclusiva.
+ * @param source  De onde veio a resposta ({@code cache}, {@code store}, {@code mojang}, {@code stub}).
+ */
+public record PremiumCheckResult(boolean premium, GameProfile profile, String reason, String source) {
+
+    public static PremiumCheckResult premium(GameProfile profile, String source) {
+        return new PremiumCheckResult(true, profile, null, source);
+    }
+
+    public static PremiumCheckResult cracked(String source) {
+        return new PremiumCheckResult(false, null, null, source);
+    }
+
+    public static PremiumCheckResult failed(String reason, String source) {
+        return new PremiumCheckResult(false, null, reason, source);
+    }
+
+    public boolean conclusive() {
+        return reason == null;
+    }
+
+    public PremiumCheckResult withSource(String newSource) {
+        return new PremiumCheckResult(premium, profile, reason, newSource);
+    }
+}
@@ -0,0 +1,15 @@
+package com.realmmc.controller.shared.premium;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fonte das verificações de conta original (API da Mojang em produção, {@link StubPremiumLookup} offline).
+ * O futuro nunca completa excepcionalmente: falhas voltam como {@link PremiumCheckResult#failed}.
+ */
+public interface PremiumLookup {
+
+    /** Motivo usado quando a fonte respondeu 429. */
+    String RATE_LIMITED = "rate_limited";
+
+    CompletableFuture<PremiumCheckResult> lookup(String username);
+}
@@ -0,0 +1,208 @@
+package com.realmmc.controller.shared.premium;
+
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.velocitypowered.api.util.GameProfile;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolve se um nick é de conta original sem bloquear as threads de evento.
+ * <p>
+ * Ordem de resolução:
+ * <ol>
+ *     <li>cache em memória (TTL longo para originais, curto para não originais);</li>
+ *     <li>consulta em andamento para o mesmo nick, se houver (uma só consulta por nick por vez);</li>
+ *     <li>{@link PremiumLookup} (Mojang ou stub);</li>
+ *     <li>se a fonte falhar ou estiver limitando, a última decisão conclusiva persistida no Mongo.</li>
+ * </ol>
+ * Depois de um 429 a fonte não é consultada por {@code PREMIUM_RATE_LIMIT_BACKOFF_MILLIS}.
+ */
+public class PremiumResolutionService {
+
+    private static final long POSITIVE_TTL_MILLIS = Long.getLong("PREMIUM_CACHE_POSITIVE_TTL_MILLIS", TimeUnit.HOURS.toMillis(6));
+    private static final long NEGATIVE_TTL_MILLIS = Long.getLong("PREMIUM_CACHE_NEGATIVE_TTL_MILLIS", TimeUnit.MINUTES.toMillis(10));
+    private static final long FALLBACK_TTL_MILLIS = Long.getLong("PREMIUM_CACHE_FALLBACK_TTL_MILLIS", TimeUnit.MINUTES.toMillis(1));
+    private static final long RATE_LIMIT_BACKOFF_MILLIS = Long.getLong("PREMIUM_RATE_LIMIT_BACKOFF_MILLIS", TimeUnit.SECONDS.toMillis(30));
+    private static final long STORE_MAX_AGE_MILLIS = Long.getLong("PREMIUM_STORE_MAX_AGE_MILLIS", TimeUnit.DAYS.toMillis(30));
+    private static final int MAX_CACHE_ENTRIES = Integer.getInteger("PREMIUM_CACHE_MAX_ENTRIES", 50_000);
+
+    private record CacheEntry(PremiumCheckResult result, long expiresAt) {
+    }
+
+    private final Logger logger;
+    private final PremiumLookup upstream;
+    private final PremiumAccountRepository store;
+    private final Executor storeExecutor;
+    private final LongSupplier clock;
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<PremiumCheckResult>> inFlight = new ConcurrentHashMap<>();
+    private volatile long upstreamBlockedUntil;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder upstreamFailures = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder storeFallbacks = new LongAdder();
+
+    /**
+     * @param store Decisões persistidas; null para operar só com o cache em memória.
+     */
+    public PremiumResolutionService(Logger logger, PremiumLookup upstream, PremiumAccountRepository store) {
+        this(logger, upstream, store, task -> TaskScheduler.getAsyncExecutor().execute(task), System::currentTimeMillis);
+    }
+
+    /**
+     * @param storeExecutor Onde rodam as leituras e gravações no {@code store}.
+     * @param clock         Relógio usado para TTLs, backoff e idade das decisões persistidas.
+     */
+    PremiumResolutionService(Logger logger, PremiumLookup upstream, PremiumAccountRepository store,
+                             Executor storeExecutor, LongSupplier clock) {
+        this.logger = logger;
+        this.upstream = upstream;
+        this.store = store;
+        this.storeExecutor = storeExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Serviço com a fonte escolhida por {@code -DPREMIUM_LOOKUP} ({@code mojang} ou {@code stub}).
+     */
+    public static PremiumResolutionService create(Logger logger) {
+        PremiumLookup lookup;
+        if ("stub".equalsIgnoreCase(System.getProperty("PREMIUM_LOOKUP", "mojang"))) {
+            logger.warning("[Premium] Usando StubPremiumLookup: nenhuma consulta será feita à Mojang.");
+            lookup = StubPremiumLookup.fromSystemProperties();
+        } else {
+            lookup = new MojangPremiumLookup();
+        }
+
+        PremiumAccountRepository repository = null;
+        try {
+            repository = new PremiumAccountRepository();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "[Premium] Repositório de contas indisponível. Operando só com cache em memória.", e);
+        }
+        return new PremiumResolutionService(logger, lookup, repository);
+    }
+
+    public CompletableFuture<PremiumCheckResult> resolve(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        CacheEntry cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > clock.getAsLong()) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached.result().withSource("cache"));
+        }
+
+        CompletableFuture<PremiumCheckResult> created = new CompletableFuture<>();
+        CompletableFuture<PremiumCheckResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        load(username, key).whenComplete((result, error) -> {
+            inFlight.remove(key, created);
+            if (error != null) {
+                logger.log(Level.WARNING, "[Premium] Erro inesperado ao resolver '" + username + "'.", error);
+                created.complete(PremiumCheckResult.failed("processing_exception", "service"));
+            } else {
+                created.complete(result);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Descarta a decisão em cache de um nick (a persistida é mantida).
+     */
+    public void invalidate(String username) {
+        cache.remove(username.toLowerCase(Locale.ROOT));
+    }
+
+    public PremiumResolutionStats getStats() {
+        return new PremiumResolutionStats(cache.size(), inFlight.size(), cacheHits.sum(), lookups.sum(), coalesced.sum(),
+                upstreamFailures.sum(), rateLimited.sum(), storeFallbacks.sum());
+    }
+
+    private CompletableFuture<PremiumCheckResult> load(String username, String key) {
+        if (clock.getAsLong() < upstreamBlockedUntil) {
+            return fallback(key, PremiumLookup.RATE_LIMITED);
+        }
+
+        lookups.increment();
+        return upstream.lookup(username).thenCompose(result -> {
+            if (result.conclusive()) {
+                remember(key, username, result);
+                return CompletableFuture.completedFuture(result);
+            }
+            upstreamFailures.increment();
+            if (PremiumLookup.RATE_LIMITED.equals(result.reason())) {
+                rateLimited.increment();
+                upstreamBlockedUntil = clock.getAsLong() + RATE_LIMIT_BACKOFF_MILLIS;
+                logger.warning("[Premium] Limite de requisições atingido. Consultas pausadas por " + RATE_LIMIT_BACKOFF_MILLIS + "ms.");
+            }
+            return fallback(key, result.reason());
+        });
+    }
+
+    private CompletableFuture<PremiumCheckResult> fallback(String key, String reason) {
+        if (store == null) {
+            return CompletableFuture.completedFuture(PremiumCheckResult.failed(reason, "service"));
+        }
+        return CompletableFuture.supplyAsync(() -> store.findByName(key), storeExecutor)
+                .handle((accountOpt, error) -> {
+                    if (error != null) {
+                        logger.log(Level.FINE, "[Premium] Falha ao ler decisão persistida de '" + key + "'.", error);
+                        return PremiumCheckResult.failed(reason, "service");
+                    }
+                    Optional<PremiumAccount> account = accountOpt.filter(a -> clock.getAsLong() - a.getCheckedAt() <= STORE_MAX_AGE_MILLIS);
+                    if (account.isEmpty()) {
+                        return PremiumCheckResult.failed(reason, "service");
+                    }
+
+                    PremiumAccount a = account.get();
+                    PremiumCheckResult result = a.isPremium() && a.getUuid() != null
+                            ? PremiumCheckResult.premium(new GameProfile(UUID.fromString(a.getUuid()), a.getDisplayName(), List.of()), "store")
+                            : PremiumCheckResult.cracked("store");
+                    storeFallbacks.increment();
+                    cache.put(key, new CacheEntry(result, clock.getAsLong() + FALLBACK_TTL_MILLIS));
+                    logger.info("[Premium] '" + key + "' resolvido pela última decisão persistida (" + reason + ").");
+                    return result;
+                });
+    }
+
+    private void remember(String key, String username, PremiumCheckResult result) {
+        long now = clock.getAsLong();
+        if (cache.size() >= MAX_CACHE_ENTRIES) {
+            cache.values().removeIf(e -> e.expiresAt() <= now);
+            if (cache.size() >= MAX_CACHE_ENTRIES) cache.clear();
+        }
+        cache.put(key, new CacheEntry(result, now + (result.premium() ? POSITIVE_TTL_MILLIS : NEGATIVE_TTL_MILLIS)));
+
+        if (store == null) return;
+        PremiumAccount account = PremiumAccount.builder()
+                .name(key)
+                .displayName(result.premium() ? result.profile().getName() : username)
+                .premium(result.premium())
+                .uuid(result.premium() ? result.profile().getId().toString() : null)
+                .checkedAt(now)
+                .build();
+        CompletableFuture.runAsync(() -> store.save(account), storeExecutor).exceptionally(e -> {
+            logger.log(Level.FINE, "[Premium] Falha ao persistir decisão de '" + key + "'.", e);
+            return null;
+        });
+    }
+}
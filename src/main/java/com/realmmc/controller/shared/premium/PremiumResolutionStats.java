@@ -0,0 +1,25 @@
+package com.realmmc.controller.shared.premium;
+
+/**
+ * Snapshot das métricas do {@link PremiumResolutionService}.
+ *
+ * @param cached           Nicks no cache em memória.
+ * @param inFlight         Consultas em andamento agora.
+ * @param cacheHits        Respostas servidas do cache.
+ * @param lookups          Consultas enviadas à fonte (Mojang ou stub).
+ * @param coalesced        Pedidos que aguardaram uma consulta já em andamento para o mesmo nick.
+ * @param upstreamFailures Consultas à fonte sem resposta conclusiva.
+ * @param rateLimited      Respostas 429 da fonte.
+ * @param storeFallbacks   Falhas respondidas pela última decisão persistida.
+ */
+public record PremiumResolutionStats(
+        int cached,
+        int inFlight,
+        long cacheHits,
+        long lookups,
+        long coalesced,
+        long upstreamFailures,
+        long rateLimited,
+        long storeFallbacks
+) {
+}
@@ -0,0 +1,87 @@
+package com.realmmc.controller.shared.premium;
+
+import com.velocitypowered.api.util.GameProfile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fonte local, sem rede, para testar cache, deduplicação, limite de requisições e queda da Mojang.
+ * <p>
+ * Ativada com {@code -DPREMIUM_LOOKUP=stub}. Os nicks em {@code -DPREMIUM_STUB_ACCOUNTS} (separados
+ * por vírgula) são originais, com UUID derivado do nick; os demais não. {@code -DPREMIUM_STUB_MODE}
+ * escolhe o comportamento: {@code ok}, {@code outage} (toda consulta falha) ou {@code rate_limited}
+ * (só {@code -DPREMIUM_STUB_RATE_LIMIT} consultas por minuto são atendidas).
+ */
+public class StubPremiumLookup implements PremiumLookup {
+
+    public enum Mode { OK, OUTAGE, RATE_LIMITED }
+
+    private final Set<String> premiumNames;
+    private final Mode mode;
+    private final long latencyMillis;
+    private final int perMinute;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicLong windowCalls = new AtomicLong();
+
+    public StubPremiumLookup(Set<String> premiumNames, Mode mode, long latencyMillis, int perMinute) {
+        this.premiumNames = premiumNames.stream().map(n -> n.toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        this.mode = mode;
+        this.latencyMillis = Math.max(0L, latencyMillis);
+        this.perMinute = Math.max(1, perMinute);
+    }
+
+    public static StubPremiumLookup fromSystemProperties() {
+        Set<String> names = Stream.of(System.getProperty("PREMIUM_STUB_ACCOUNTS", "").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        Mode mode;
+        try {
+            mode = Mode.valueOf(System.getProperty("PREMIUM_STUB_MODE", "ok").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            mode = Mode.OK;
+        }
+        return new StubPremiumLookup(names, mode, Long.getLong("PREMIUM_STUB_LATENCY_MILLIS", 50L),
+                Integer.getInteger("PREMIUM_STUB_RATE_LIMIT", 60));
+    }
+
+    /** Consultas recebidas (para conferir quantas chegaram à "Mojang"). */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public CompletableFuture<PremiumCheckResult> lookup(String username) {
+        calls.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> answer(username),
+                CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private PremiumCheckResult answer(String username) {
+        if (mode == Mode.OUTAGE) return PremiumCheckResult.failed("uuid_request_failed", "stub");
+        if (mode == Mode.RATE_LIMITED && !acquire()) return PremiumCheckResult.failed(RATE_LIMITED, "stub");
+
+        if (!premiumNames.contains(username.toLowerCase(Locale.ROOT))) return PremiumCheckResult.cracked("stub");
+        UUID uuid = UUID.nameUUIDFromBytes(("StubPremium:" + username.toLowerCase(Locale.ROOT)).getBytes(StandardCharsets.UTF_8));
+        return PremiumCheckResult.premium(new GameProfile(uuid, username, List.of()), "stub");
+    }
+
+    private synchronized boolean acquire() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart.get() >= 60_000L) {
+            windowStart.set(now);
+            windowCalls.set(0);
+        }
+        return windowCalls.incrementAndGet() <= perMinute;
+    }
+}
@@ -0,0 +1,282 @@
+package com.realmmc.controller.shared.profile;
+
+import com.realmmc.controller.shared.role.PlayerRole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache local de perfis indexado por UUID e por username.
+ * <p>
+ * Perfis de jogadores online ficam fixados (sem TTL e fora da evicção); os demais expiram
+ * após {@code PROFILE_CACHE_TTL_SECONDS} e o cache é limitado a {@code PROFILE_CACHE_MAX_SIZE}
+ * entradas. Guarda cópias: quem lê pode alterar o perfil sem afetar o cache.
+ * A coerência entre nós vem do canal PROFILES_SYNC (ver {@link ProfileSyncSubscriber}).
+ */
+public final class ProfileCache {
+
+    private static final int MAX_SIZE = Integer.getInteger("PROFILE_CACHE_MAX_SIZE", 5_000);
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("PROFILE_CACHE_TTL_SECONDS", 300L));
+    // Fração removida de uma vez quando o limite é excedido (amortiza a varredura)
+    private static final double EVICTION_FRACTION = 0.1;
+
+    private final Map<UUID, Entry> byUuid = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byUsername = new ConcurrentHashMap<>();
+    private final Set<UUID> pinned = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong deltasApplied = new AtomicLong();
+    private final AtomicLong deltaGaps = new AtomicLong();
+
+    public Optional<Profile> get(UUID uuid) {
+        if (uuid == null) return Optional.empty();
+        Entry entry = byUuid.get(uuid);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if (!pinned.contains(uuid) && now - entry.storedAt > TTL_MILLIS) {
+            if (remove(uuid, entry)) expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        entry.lastAccess = now;
+        hits.incrementAndGet();
+        return Optional.of(copyOf(entry.profile));
+    }
+
+    public Optional<Profile> getByUsername(String username) {
+        if (username == null) return Optional.empty();
+        UUID uuid = byUsername.get(username.toLowerCase());
+        if (uuid == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        return get(uuid);
+    }
+
+    /**
+     * Guarda uma cópia do perfil. Uma versão mais antiga (updatedAt menor) que a já
+     * guardada é ignorada, então mensagens de sync atrasadas não regridem o cache.
+     */
+    public void put(Profile profile) {
+        if (profile == null || profile.getUuid() == null) return;
+        Entry fresh = new Entry(copyOf(profile), System.currentTimeMillis());
+        Entry[] replaced = new Entry[1];
+        Entry stored = byUuid.compute(profile.getUuid(), (uuid, existing) -> {
+            if (existing != null && existing.profile.getUpdatedAt() > profile.getUpdatedAt()) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return fresh;
+        });
+        if (stored != fresh) return;
+
+        if (replaced[0] != null) {
+            String oldUsername = replaced[0].profile.getUsername();
+            if (oldUsername != null && !oldUsername.equalsIgnoreCase(profile.getUsername())) {
+                byUsername.remove(oldUsername.toLowerCase(), profile.getUuid());
+            }
+        }
+        if (profile.getUsername() != null) {
+            byUsername.put(profile.getUsername().toLowerCase(), profile.getUuid());
+        }
+        if (byUuid.size() > MAX_SIZE) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Versão guardada, sem cópia e sem contar nas métricas. Uso interno para calcular deltas;
+     * o perfil retornado não deve ser alterado.
+     */
+    Optional<Profile> peek(UUID uuid) {
+        if (uuid == null) return Optional.empty();
+        Entry entry = byUuid.get(uuid);
+        return entry != null ? Optional.of(entry.profile) : Optional.empty();
+    }
+
+    /**
+     * Aplica um delta de sync sobre a versão {@code base}, produzindo a versão {@code version}.
+     * Se a entrada local não está na versão base (mensagem perdida ou fora de ordem), ela é
+     * invalidada e a próxima leitura busca no banco.
+     */
+    DeltaResult applyDelta(UUID uuid, long base, long version, Consumer<Profile> mutation) {
+        if (uuid == null) return DeltaResult.NOT_CACHED;
+        DeltaResult[] result = {DeltaResult.NOT_CACHED};
+        Entry[] previous = new Entry[1];
+        Entry stored = byUuid.computeIfPresent(uuid, (key, existing) -> {
+            long current = existing.profile.getUpdatedAt();
+            if (current >= version) {
+                result[0] = DeltaResult.STALE;
+                return existing;
+            }
+            if (current != base) {
+                result[0] = DeltaResult.GAP;
+                return existing;
+            }
+            Profile updated = copyOf(existing.profile);
+            mutation.accept(updated);
+            updated.setUpdatedAt(version);
+            previous[0] = existing;
+            result[0] = DeltaResult.APPLIED;
+            Entry fresh = new Entry(updated, System.currentTimeMillis());
+            fresh.lastAccess = existing.lastAccess;
+            return fresh;
+        });
+
+        if (result[0] == DeltaResult.GAP && stored != null) {
+            if (remove(uuid, stored)) invalidations.incrementAndGet();
+            deltaGaps.incrementAndGet();
+        } else if (result[0] == DeltaResult.APPLIED) {
+            deltasApplied.incrementAndGet();
+            String oldUsername = previous[0].profile.getUsername();
+            String newUsername = stored.profile.getUsername();
+            if (oldUsername != null && !oldUsername.equalsIgnoreCase(newUsername)) {
+                byUsername.remove(oldUsername.toLowerCase(), uuid);
+            }
+            if (newUsername != null) byUsername.put(newUsername.toLowerCase(), uuid);
+        }
+        return result[0];
+    }
+
+    public void invalidate(UUID uuid) {
+        if (uuid == null) return;
+        Entry entry = byUuid.get(uuid);
+        if (entry != null && remove(uuid, entry)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fixa o perfil enquanto o jogador estiver online neste nó.
+     */
+    public void pin(UUID uuid) {
+        if (uuid != null) pinned.add(uuid);
+    }
+
+    /**
+     * Libera o perfil quando o jogador sai; a entrada volta a expirar normalmente.
+     */
+    public void unpin(UUID uuid) {
+        if (uuid == null) return;
+        pinned.remove(uuid);
+        Entry entry = byUuid.get(uuid);
+        if (entry != null) entry.storedAt = System.currentTimeMillis();
+    }
+
+    public boolean isPinned(UUID uuid) {
+        return uuid != null && pinned.contains(uuid);
+    }
+
+    public void clear() {
+        byUuid.clear();
+        byUsername.clear();
+        pinned.clear();
+    }
+
+    public ProfileCacheStats getStats() {
+        return new ProfileCacheStats(byUuid.size(), pinned.size(), hits.get(), misses.get(),
+                evictions.get(), expirations.get(), invalidations.get(), deltasApplied.get(), deltaGaps.get());
+    }
+
+    private boolean remove(UUID uuid, Entry entry) {
+        if (!byUuid.remove(uuid, entry)) return false;
+        String username = entry.profile.getUsername();
+        if (username != null) byUsername.remove(username.toLowerCase(), uuid);
+        return true;
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        int excess = byUuid.size() - MAX_SIZE;
+        if (excess <= 0) return;
+        int target = Math.max(excess, (int) (MAX_SIZE * EVICTION_FRACTION));
+
+        List<Map.Entry<UUID, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<UUID, Entry> e : byUuid.entrySet()) {
+            if (!pinned.contains(e.getKey())) candidates.add(e);
+        }
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (int i = 0; i < Math.min(target, candidates.size()); i++) {
+            Map.Entry<UUID, Entry> victim = candidates.get(i);
+            if (remove(victim.getKey(), victim.getValue())) evictions.incrementAndGet();
+        }
+    }
+
+    static Profile copyOf(Profile source) {
+        List<PlayerRole> roles = new ArrayList<>();
+        if (source.getRoles() != null) {
+            for (PlayerRole role : source.getRoles()) {
+                roles.add(role == null ? null : PlayerRole.builder()
+                        .roleName(role.getRoleName())
+                        .addedAt(role.getAddedAt())
+                        .expiresAt(role.getExpiresAt())
+                        .paused(role.isPaused())
+                        .pausedTimeRemaining(role.getPausedTimeRemaining())
+                        .status(role.getStatus())
+                        .removedAt(role.getRemovedAt())
+                        .pendingNotification(role.isPendingNotification())
+                        .build());
+            }
+        }
+        return Profile.builder()
+                .id(source.getId())
+                .uuid(source.getUuid())
+                .name(source.getName())
+                .username(source.getUsername())
+                .firstIp(source.getFirstIp())
+                .lastIp(source.getLastIp())
+                .ipHistory(source.getIpHistory() != null ? new ArrayList<>(source.getIpHistory()) : new ArrayList<>())
+                .firstLogin(source.getFirstLogin())
+                .lastLogin(source.getLastLogin())
+                .lastLogout(source.getLastLogout())
+                .lastClientVersion(source.getLastClientVersion())
+                .lastClientType(source.getLastClientType())
+                .firstClientVersion(source.getFirstClientVersion())
+                .firstClientType(source.getFirstClientType())
+                .roles(roles)
+                .primaryRoleName(source.getPrimaryRoleName())
+                .cash(source.getCash())
+                .pendingCash(source.getPendingCash())
+                .cashTopPosition(source.getCashTopPosition())
+                .cashTopPositionEnteredAt(source.getCashTopPositionEnteredAt())
+                .premiumAccount(source.isPremiumAccount())
+                .equippedMedal(source.getEquippedMedal())
+                .createdAt(source.getCreatedAt())
+                .updatedAt(source.getUpdatedAt())
+                .build();
+    }
+
+    enum DeltaResult {
+        APPLIED,
+        NOT_CACHED,
+        STALE,
+        GAP
+    }
+
+    private static final class Entry {
+        private final Profile profile;
+        private volatile long storedAt;
+        private volatile long lastAccess;
+
+        private Entry(Profile profile, long now) {
+            this.profile = profile;
+            this.storedAt = now;
+            this.lastAccess = now;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.realmmc.controller.shared.profile;
+
+/**
+ * Snapshot das métricas do {@link ProfileCache}.
+ *
+ * @param size          Entradas no cache.
+ * @param pinned        Perfis fixados (jogadores online neste nó).
+ * @param hits          Leituras atendidas pelo cache.
+ * @param misses        Leituras que precisaram ir ao banco.
+ * @param evictions     Entradas removidas por limite de tamanho.
+ * @param expirations   Entradas removidas por TTL.
+ * @param invalidations Entradas removidas por invalidação (delete/sync).
+ * @param deltasApplied Deltas de sync aplicados em memória.
+ * @param deltaGaps     Deltas descartados por versão base divergente (entrada invalidada).
+ */
+public record ProfileCacheStats(
+        int size,
+        int pinned,
+        long hits,
+        long misses,
+        long evictions,
+        long expirations,
+        long invalidations,
+        long deltasApplied,
+        long deltaGaps
+) {
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,322 @@
+package com.realmmc.controller.shared.profile;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.shared.role.PlayerRole;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.storage.mongodb.MongoRepository;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Diferença campo a campo entre duas versões de um {@link Profile}, trafegada no PROFILES_SYNC.
+ * <p>
+ * Campos simples vão pelo nome (mesmos nomes da mensagem completa). Listas são enviadas de forma
+ * incremental: {@code ipHistoryAppend} para IPs novos no fim do histórico e
+ * {@code rolesUpsert}/{@code rolesRemove} por {@code roleName}. Quando isso não é possível
+ * (histórico reescrito, cargos repetidos), a lista inteira vai em {@code ipHistory}/{@code roles}.
+ */
+final class ProfileDelta {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Field(String name, Function<Profile, Object> getter, BiConsumer<Profile, JsonNode> setter) {
+    }
+
+    private static final List<Field> FIELDS = List.of(
+            new Field("id", Profile::getId, (p, n) -> p.setId(n.isNull() ? null : n.asInt())),
+            new Field("name", Profile::getName, (p, n) -> p.setName(text(n))),
+            new Field("username", Profile::getUsername, (p, n) -> p.setUsername(text(n))),
+            new Field("cash", Profile::getCash, (p, n) -> p.setCash(n.asInt())),
+            new Field("pendingCash", Profile::getPendingCash, (p, n) -> p.setPendingCash(n.asInt())),
+            new Field("premium", Profile::isPremiumAccount, (p, n) -> p.setPremiumAccount(n.asBoolean())),
+            new Field("equippedMedal", Profile::getEquippedMedal, (p, n) -> p.setEquippedMedal(text(n))),
+            new Field("cashTopPosition", Profile::getCashTopPosition, (p, n) -> p.setCashTopPosition(n.isNull() ? null : n.asInt())),
+            new Field("cashTopPositionEnteredAt", Profile::getCashTopPositionEnteredAt, (p, n) -> p.setCashTopPositionEnteredAt(n.isNull() ? null : n.asLong())),
+            new Field("firstIp", Profile::getFirstIp, (p, n) -> p.setFirstIp(text(n))),
+            new Field("lastIp", Profile::getLastIp, (p, n) -> p.setLastIp(text(n))),
+            new Field("firstLogin", Profile::getFirstLogin, (p, n) -> p.setFirstLogin(n.asLong())),
+            new Field("lastLogin", Profile::getLastLogin, (p, n) -> p.setLastLogin(n.asLong())),
+            new Field("lastLogout", Profile::getLastLogout, (p, n) -> p.setLastLogout(n.asLong())),
+            new Field("firstClientVersion", Profile::getFirstClientVersion, (p, n) -> p.setFirstClientVersion(text(n))),
+            new Field("firstClientType", Profile::getFirstClientType, (p, n) -> p.setFirstClientType(text(n))),
+            new Field("lastClientVersion", Profile::getLastClientVersion, (p, n) -> p.setLastClientVersion(text(n))),
+            new Field("lastClientType", Profile::getLastClientType, (p, n) -> p.setLastClientType(text(n))),
+            new Field("primaryRoleName", Profile::getPrimaryRoleName, (p, n) -> p.setPrimaryRoleName(text(n))),
+            new Field("createdAt", Profile::getCreatedAt, (p, n) -> p.setCreatedAt(n.asLong()))
+    );
+
+    // Contadores alterados também por $inc atômicos (addCash/removeCash) em qualquer nó
+    private static final Set<String> COUNTERS = Set.of("cash", "pendingCash");
+
+    private ProfileDelta() {
+    }
+
+    /**
+     * @return Objeto com apenas o que mudou de {@code before} para {@code after} (vazio se nada mudou).
+     */
+    static ObjectNode diff(Profile before, Profile after) {
+        ObjectNode fields = MAPPER.createObjectNode();
+        for (Field field : FIELDS) {
+            Object oldValue = field.getter().apply(before);
+            Object newValue = field.getter().apply(after);
+            if (!Objects.equals(oldValue, newValue)) {
+                fields.set(field.name(), MAPPER.valueToTree(newValue));
+            }
+        }
+        diffIpHistory(fields, nonNull(before.getIpHistory()), nonNull(after.getIpHistory()));
+        diffRoles(fields, nonNull(before.getRoles()), nonNull(after.getRoles()));
+        return fields;
+    }
+
+    /**
+     * Update mínimo para levar o documento de {@code before} para {@code after}: {@code $set} por campo
+     * alterado e {@code $addToSet} para IPs novos no histórico. Sobrescreve cash e cargos, então só
+     * serve com um filtro que garanta que o documento ainda está em {@code before} (ex.: {@code updatedAt}).
+     * @return Update do Mongo, ou null se nada mudou.
+     */
+    static Bson toUpdate(Profile before, Profile after) {
+        List<Bson> updates = fieldUpdates(before, after, false);
+        if (!nonNull(before.getRoles()).equals(nonNull(after.getRoles()))) {
+            updates.add(Updates.set("roles", new ArrayList<>(nonNull(after.getRoles()))));
+        }
+        if (updates.isEmpty()) return null;
+        updates.add(Updates.set("updatedAt", after.getUpdatedAt()));
+        return Updates.combine(updates);
+    }
+
+    /**
+     * Updates filtrados só pelo {@code _id}, que preservam alterações concorrentes de outros nós:
+     * cash e pendingCash vão como {@code $inc} da diferença, e cada cargo alterado é gravado pelo
+     * nome ({@code $pull} dos removidos; {@code $set} posicional ou {@code $push} dos demais), sem
+     * reescrever a lista. Se a lista não puder ser reconstruída por nome (nomes repetidos, ordem
+     * alterada), ela vai inteira em {@code $set}.
+     * <p>
+     * O primeiro update é sempre o dos campos; os de cargos são idempotentes e podem ser reaplicados.
+     * @return Updates na ordem descrita; lista vazia se nada mudou.
+     */
+    static List<DocumentUpdate> toUpdates(Profile before, Profile after) {
+        Bson byId = MongoRepository.idEquals(after.getId());
+        List<Bson> main = fieldUpdates(before, after, true);
+        List<DocumentUpdate> roleUpdates = new ArrayList<>();
+
+        List<PlayerRole> oldRoles = nonNull(before.getRoles());
+        List<PlayerRole> newRoles = nonNull(after.getRoles());
+        if (!oldRoles.equals(newRoles)) {
+            Map<String, PlayerRole> oldByName = indexByName(oldRoles);
+            Map<String, PlayerRole> newByName = indexByName(newRoles);
+            if (oldByName == null || newByName == null || !sameRelativeOrder(oldRoles, newByName.keySet())) {
+                main.add(Updates.set("roles", new ArrayList<>(newRoles)));
+            } else {
+                List<String> removed = new ArrayList<>();
+                for (String name : oldByName.keySet()) {
+                    if (!newByName.containsKey(name)) removed.add(name);
+                }
+                if (!removed.isEmpty()) main.add(Updates.pull("roles", Filters.in("roleName", removed)));
+                for (Map.Entry<String, PlayerRole> entry : newByName.entrySet()) {
+                    if (entry.getValue().equals(oldByName.get(entry.getKey()))) continue;
+                    // Só um dos dois casa: substitui o cargo se ele existir, senão adiciona no fim
+                    roleUpdates.add(new DocumentUpdate(byId, Updates.set("roles.$[r]", entry.getValue()),
+                            List.of(Filters.eq("r.roleName", entry.getKey()))));
+                    roleUpdates.add(new DocumentUpdate(Filters.and(byId, Filters.ne("roles.roleName", entry.getKey())),
+                            Updates.push("roles", entry.getValue())));
+                }
+            }
+        }
+
+        if (main.isEmpty() && roleUpdates.isEmpty()) return List.of();
+        main.add(Updates.set("updatedAt", after.getUpdatedAt()));
+        List<DocumentUpdate> updates = new ArrayList<>(roleUpdates.size() + 1);
+        updates.add(new DocumentUpdate(byId, Updates.combine(main)));
+        updates.addAll(roleUpdates);
+        return updates;
+    }
+
+    /**
+     * Campos simples e histórico de IPs.
+     * @param increments true para gravar cash/pendingCash como {@code $inc} da diferença.
+     */
+    private static List<Bson> fieldUpdates(Profile before, Profile after, boolean increments) {
+        List<Bson> updates = new ArrayList<>();
+        for (Field field : FIELDS) {
+            if ("id".equals(field.name())) continue;
+            Object oldValue = field.getter().apply(before);
+            Object newValue = field.getter().apply(after);
+            if (Objects.equals(oldValue, newValue)) continue;
+            if (increments && COUNTERS.contains(field.name())) {
+                updates.add(Updates.inc(field.name(), ((Number) newValue).intValue() - ((Number) oldValue).intValue()));
+            } else {
+                updates.add(Updates.set(documentField(field.name()), newValue));
+            }
+        }
+
+        List<String> oldIps = nonNull(before.getIpHistory());
+        List<String> newIps = nonNull(after.getIpHistory());
+        if (!oldIps.equals(newIps)) {
+            if (newIps.size() > oldIps.size() && newIps.subList(0, oldIps.size()).equals(oldIps)
+                    && new HashSet<>(newIps).size() == newIps.size()) {
+                updates.add(Updates.addEachToSet("ipHistory", new ArrayList<>(newIps.subList(oldIps.size(), newIps.size()))));
+            } else {
+                updates.add(Updates.set("ipHistory", new ArrayList<>(newIps)));
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Aplica no perfil as alterações geradas por {@link #diff}.
+     */
+    static void apply(Profile target, JsonNode fields) {
+        for (Field field : FIELDS) {
+            JsonNode value = fields.get(field.name());
+            if (value != null) field.setter().accept(target, value);
+        }
+
+        if (fields.has("ipHistory")) {
+            target.setIpHistory(readStrings(fields.get("ipHistory")));
+        } else if (fields.has("ipHistoryAppend")) {
+            List<String> history = target.getIpHistory() != null ? new ArrayList<>(target.getIpHistory()) : new ArrayList<>();
+            history.addAll(readStrings(fields.get("ipHistoryAppend")));
+            target.setIpHistory(history);
+        }
+
+        if (fields.has("roles")) {
+            List<PlayerRole> roles = new ArrayList<>();
+            for (JsonNode roleNode : fields.get("roles")) roles.add(roleFromJson(roleNode));
+            target.setRoles(roles);
+        } else if (fields.has("rolesUpsert") || fields.has("rolesRemove")) {
+            Map<String, PlayerRole> byName = new LinkedHashMap<>();
+            for (PlayerRole role : nonNull(target.getRoles())) byName.put(role.getRoleName(), role);
+            for (JsonNode name : fields.path("rolesRemove")) byName.remove(name.asText());
+            for (JsonNode roleNode : fields.path("rolesUpsert")) {
+                PlayerRole role = roleFromJson(roleNode);
+                byName.put(role.getRoleName(), role);
+            }
+            target.setRoles(new ArrayList<>(byName.values()));
+        }
+    }
+
+    /**
+     * Indica se a alteração mexe nos cargos do jogador (exige recalcular a sessão de permissões).
+     */
+    static boolean touchesRoles(JsonNode fields) {
+        return fields.has("roles") || fields.has("rolesUpsert") || fields.has("rolesRemove") || fields.has("primaryRoleName");
+    }
+
+    static ObjectNode roleToJson(PlayerRole pr) {
+        ObjectNode roleInfo = MAPPER.createObjectNode();
+        roleInfo.put("roleName", pr.getRoleName());
+        roleInfo.put("status", pr.getStatus() != null ? pr.getStatus().name() : PlayerRole.Status.ACTIVE.name());
+        if (pr.getExpiresAt() != null) roleInfo.put("expiresAt", pr.getExpiresAt()); else roleInfo.putNull("expiresAt");
+        roleInfo.put("paused", pr.isPaused());
+        if (pr.getPausedTimeRemaining() != null) roleInfo.put("pausedTimeRemaining", pr.getPausedTimeRemaining()); else roleInfo.putNull("pausedTimeRemaining");
+        roleInfo.put("addedAt", pr.getAddedAt());
+        if (pr.getRemovedAt() != null) roleInfo.put("removedAt", pr.getRemovedAt()); else roleInfo.putNull("removedAt");
+        roleInfo.put("pendingNotification", pr.isPendingNotification());
+        return roleInfo;
+    }
+
+    static PlayerRole roleFromJson(JsonNode roleNode) {
+        return PlayerRole.builder()
+                .roleName(roleNode.path("roleName").asText(null))
+                .status(PlayerRole.Status.valueOf(roleNode.path("status").asText("ACTIVE")))
+                .expiresAt(roleNode.path("expiresAt").isIntegralNumber() ? roleNode.path("expiresAt").asLong() : null)
+                .paused(roleNode.path("paused").asBoolean(false))
+                .pausedTimeRemaining(roleNode.path("pausedTimeRemaining").isIntegralNumber() ? roleNode.path("pausedTimeRemaining").asLong() : null)
+                .addedAt(roleNode.path("addedAt").asLong(0))
+                .removedAt(roleNode.path("removedAt").isIntegralNumber() ? roleNode.path("removedAt").asLong() : null)
+                .pendingNotification(roleNode.path("pendingNotification").asBoolean(false))
+                .build();
+    }
+
+    private static void diffIpHistory(ObjectNode fields, List<String> before, List<String> after) {
+        if (before.equals(after)) return;
+        if (after.size() > before.size() && after.subList(0, before.size()).equals(before)) {
+            ArrayNode appended = fields.putArray("ipHistoryAppend");
+            after.subList(before.size(), after.size()).forEach(appended::add);
+        } else {
+            ArrayNode full = fields.putArray("ipHistory");
+            after.forEach(full::add);
+        }
+    }
+
+    private static void diffRoles(ObjectNode fields, List<PlayerRole> before, List<PlayerRole> after) {
+        if (before.equals(after)) return;
+        Map<String, PlayerRole> oldByName = indexByName(before);
+        Map<String, PlayerRole> newByName = indexByName(after);
+        // Nomes repetidos ou ordem alterada: não dá para reconstruir por nome, manda a lista inteira
+        if (oldByName == null || newByName == null || !sameRelativeOrder(before, newByName.keySet())) {
+            ArrayNode full = fields.putArray("roles");
+            after.forEach(pr -> full.add(roleToJson(pr)));
+            return;
+        }
+        ArrayNode upserts = MAPPER.createArrayNode();
+        ArrayNode removals = MAPPER.createArrayNode();
+        for (Map.Entry<String, PlayerRole> entry : newByName.entrySet()) {
+            if (!entry.getValue().equals(oldByName.get(entry.getKey()))) upserts.add(roleToJson(entry.getValue()));
+        }
+        for (String name : oldByName.keySet()) {
+            if (!newByName.containsKey(name)) removals.add(name);
+        }
+        if (!upserts.isEmpty()) fields.set("rolesUpsert", upserts);
+        if (!removals.isEmpty()) fields.set("rolesRemove", removals);
+    }
+
+    /**
+     * Os cargos que continuam na lista precisam manter a ordem, pois upserts entram no fim.
+     */
+    private static boolean sameRelativeOrder(List<PlayerRole> before, Set<String> newNames) {
+        List<String> kept = new ArrayList<>();
+        for (PlayerRole role : before) if (newNames.contains(role.getRoleName())) kept.add(role.getRoleName());
+        List<String> newOrder = new ArrayList<>(newNames);
+        int index = 0;
+        for (String name : newOrder) {
+            if (index < kept.size() && name.equals(kept.get(index))) index++;
+            else if (kept.contains(name)) return false;
+        }
+        return index == kept.size();
+    }
+
+    private static Map<String, PlayerRole> indexByName(List<PlayerRole> roles) {
+        Map<String, PlayerRole> byName = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (PlayerRole role : roles) {
+            if (role == null || role.getRoleName() == null || !seen.add(role.getRoleName())) return null;
+            byName.put(role.getRoleName(), role);
+        }
+        return byName;
+    }
+
+    private static List<String> readStrings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        if (array != null && array.isArray()) {
+            for (JsonNode value : array) values.add(value.asText());
+        }
+        return values;
+    }
+
+    private static String documentField(String name) {
+        return "premium".equals(name) ? "premiumAccount" : name;
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
@@ -1,16 +1,15 @@
 package com.realmmc.controller.shared.profile;
 
 import com.mongodb.MongoException;
-import com.mongodb.client.FindIterable;
-import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.*;
-import com.mongodb.client.result.UpdateResult;
 import com.realmmc.controller.shared.role.PlayerRole;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
 import com.realmmc.controller.shared.storage.mongodb.AbstractMongoRepository;
 import com.realmmc.controller.shared.storage.mongodb.MongoRepository;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,7 +27,7 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
 
     private void ensureIndexes() {
         try {
-            MongoCollection<Profile> col = collection();
+            DocumentCollection<Profile> col = collection();
             col.createIndex(Indexes.ascending("uuid"), new IndexOptions().unique(true));
             col.createIndex(Indexes.ascending("username"), new IndexOptions()
                     .unique(true)
@@ -39,6 +38,7 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
             col.createIndex(Indexes.descending("lastLogin"));
             col.createIndex(Indexes.ascending("roles.roleName"));
             col.createIndex(Indexes.ascending("roles.status"));
+            col.createIndex(Indexes.ascending("roles.expiresAt"), new IndexOptions().sparse(true));
             col.createIndex(Indexes.descending("cash"));
 
             LOGGER.info("[ProfileRepository] Indexes for 'profiles' collection checked/created successfully.");
@@ -80,11 +80,7 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
                         Filters.eq("status", PlayerRole.Status.ACTIVE.name())
                 )
         );
-        List<Profile> results = new ArrayList<>();
-        FindIterable<Profile> found = collection().find(filter)
-                .projection(Projections.include("uuid", "name", "username", "roles"));
-        found.forEach(results::add);
-        return results;
+        return collection().find(filter, null, Projections.include("uuid", "name", "username", "roles"), 0);
     }
 
     public List<UUID> findUuidsWithRoleStatus(String roleName, PlayerRole.Status status) {
@@ -95,8 +91,7 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
                         Filters.eq("status", status.name())
                 )
         );
-        collection().find(filter)
-                .projection(Projections.include("uuid"))
+        collection().find(filter, null, Projections.include("uuid"), 0)
                 .forEach(profile -> uuids.add(profile.getUuid()));
         return uuids;
     }
@@ -121,10 +116,24 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
                 )
         );
 
-        UpdateOptions options = new UpdateOptions().arrayFilters(arrayFilters);
+        return collection().updateMany(filter, update, arrayFilters);
+    }
+
+    /**
+     * Perfis com algum cargo não pausado expirado antes de {@code cutoff} (usa o índice de {@code roles.expiresAt}),
+     * em ordem de {@code _id}.
+     *
+     * @param afterId Último id da página anterior (null na primeira página).
+     */
+    public List<Profile> findWithRolesExpiredBefore(long cutoff, Integer afterId, int limit) {
+        Bson expired = Filters.elemMatch("roles", Filters.and(Filters.lt("expiresAt", cutoff), Filters.ne("paused", true)));
+        Bson filter = afterId != null ? Filters.and(expired, Filters.gt("_id", afterId)) : expired;
+        return collection().find(filter, Sorts.ascending("_id"), null, limit);
+    }
 
-        UpdateResult result = collection().updateMany(filter, update, options);
-        return result.getModifiedCount();
+    public List<Profile> findByUuids(Collection<UUID> uuids) {
+        if (uuids.isEmpty()) return List.of();
+        return collection().find(Filters.in("uuid", uuids));
     }
 
     public List<Profile> findTopByCash(int limit) {
@@ -133,15 +142,11 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
                 Projections.include("uuid", "name", "cash", "primaryRoleName")
         );
 
-        return collection().find()
-                .sort(sort)
-                .projection(projection)
-                .limit(Math.max(1, limit))
-                .into(new ArrayList<>());
+        return collection().find(null, sort, projection, Math.max(1, limit));
     }
 
     public long countByCashGreaterThan(int cashAmount) {
-        return collection().countDocuments(Filters.gt("cash", cashAmount));
+        return collection().count(Filters.gt("cash", cashAmount));
     }
 
     public boolean atomicAddCash(UUID uuid, int amount) {
@@ -149,7 +154,6 @@ public class ProfileRepository extends AbstractMongoRepository<Profile> {
         Bson update = Updates.inc("cash", amount);
         Bson finalUpdate = Updates.combine(update, Updates.set("updatedAt", System.currentTimeMillis()));
 
-        UpdateResult result = collection().updateOne(filter, finalUpdate);
-        return result.getModifiedCount() > 0;
+        return collection().updateOne(filter, finalUpdate) > 0;
     }
 }
\ No newline at end of file
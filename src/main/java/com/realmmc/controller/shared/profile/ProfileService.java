@@ -1,26 +1,31 @@
 package com.realmmc.controller.shared.profile;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mongodb.MongoException;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Updates;
-import com.mongodb.client.result.UpdateResult;
 import com.realmmc.controller.core.services.ServiceRegistry;
-import com.realmmc.controller.shared.preferences.Language;
+import com.realmmc.controller.shared.expiry.ExpiryEngine;
 import com.realmmc.controller.shared.preferences.PreferencesService;
 import com.realmmc.controller.shared.role.PlayerRole;
 import com.realmmc.controller.shared.session.SessionTrackerService;
 import com.realmmc.controller.shared.stats.StatisticsService;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.storage.mongodb.MongoRepository;
 import com.realmmc.controller.shared.storage.mongodb.MongoSequences;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
 import com.realmmc.controller.shared.storage.redis.RedisPublisher;
-import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+import org.bson.conversions.Bson;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +33,8 @@ public class ProfileService {
 
     private static final Logger LOGGER = Logger.getLogger(ProfileService.class.getName());
     private final ProfileRepository repository = new ProfileRepository();
+    private final ProfileCache cache = new ProfileCache();
+    private final ProfileWriteBehind writeBehind = new ProfileWriteBehind(repository);
     private final ObjectMapper mapper = new ObjectMapper();
 
     private Optional<StatisticsService> getStatsService() {
@@ -44,14 +51,16 @@ public class ProfileService {
 
     public Optional<Profile> getByUuid(UUID uuid) {
         if (uuid == null) return Optional.empty();
+        Optional<Profile> cached = cache.get(uuid);
+        if (cached.isPresent()) return cached;
+        Optional<Profile> unsaved = writeBehind.pendingState(uuid);
+        if (unsaved.isPresent()) {
+            cache.put(unsaved.get());
+            return unsaved;
+        }
         try {
             Optional<Profile> profileOpt = repository.findByUuid(uuid);
-            if (profileOpt.isEmpty()) {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException ignored) {}
-                profileOpt = repository.findByUuid(uuid);
-            }
+            profileOpt.ifPresent(cache::put);
             return profileOpt;
         } catch (MongoException e) {
             LOGGER.log(Level.SEVERE, "[ProfileService] MongoDB error fetching profile by UUID: " + uuid, e);
@@ -76,8 +85,12 @@ public class ProfileService {
 
     public Optional<Profile> getByName(String name) {
         if (name == null || name.isBlank()) return Optional.empty();
+        Optional<Profile> cached = cache.getByUsername(name).filter(p -> name.equals(p.getName()));
+        if (cached.isPresent()) return cached;
         try {
-            return repository.findByName(name);
+            Optional<Profile> profileOpt = repository.findByName(name);
+            profileOpt.ifPresent(cache::put);
+            return profileOpt;
         } catch (MongoException e) {
             LOGGER.log(Level.SEVERE, "[ProfileService] MongoDB error fetching profile by name: " + name, e);
             return Optional.empty();
@@ -89,8 +102,12 @@ public class ProfileService {
 
     public Optional<Profile> getByUsername(String username) {
         if (username == null || username.isBlank()) return Optional.empty();
+        Optional<Profile> cached = cache.getByUsername(username);
+        if (cached.isPresent()) return cached;
         try {
-            return repository.findByUsername(username.toLowerCase());
+            Optional<Profile> profileOpt = repository.findByUsername(username.toLowerCase());
+            profileOpt.ifPresent(cache::put);
+            return profileOpt;
         } catch (MongoException e) {
             LOGGER.log(Level.SEVERE, "[ProfileService] MongoDB error fetching profile by username: " + username, e);
             return Optional.empty();
@@ -122,7 +139,8 @@ public class ProfileService {
         if (profile.getCreatedAt() == 0L) {
             profile.setCreatedAt(now);
         }
-        profile.setUpdatedAt(now);
+        Profile previous = profile.getUuid() != null ? cache.peek(profile.getUuid()).orElse(null) : null;
+        profile.setUpdatedAt(nextVersion(previous, now));
 
         try {
             if (profile.getId() == null) {
@@ -130,8 +148,13 @@ public class ProfileService {
                 LOGGER.info("[ProfileService] Assigned new sequential ID (" + profile.getId() + ") for profile UUID: " + profile.getUuid());
             }
 
-            repository.upsert(profile);
-            publish("upsert", profile);
+            if (canWriteBehind(previous, profile)) {
+                writeBehind.enqueue(previous, profile);
+            } else {
+                writeBehind.writeDirect(profile.getUuid(), () -> repository.upsert(profile));
+            }
+            cache.put(profile);
+            publishChange(previous, profile);
             updateSessionData(profile.getUuid(), profile.getCash(), profile.getPrimaryRoleName(), profile.getEquippedMedal());
 
             LOGGER.log(Level.INFO, "[ProfileService] Profile {0} (UUID: {1}) saved/updated successfully. ID: {2}",
@@ -146,12 +169,25 @@ public class ProfileService {
         }
     }
 
+    /**
+     * Só alterações de um perfil já gravado entram no write-behind. Perfil novo ou troca de
+     * username/ID vão direto, para que erros de índice único cheguem a quem chamou o save.
+     */
+    private boolean canWriteBehind(Profile previous, Profile profile) {
+        return writeBehind.isEnabled()
+                && previous != null
+                && Objects.equals(previous.getId(), profile.getId())
+                && Objects.equals(previous.getUsername(), profile.getUsername());
+    }
+
     private void updateSessionData(UUID uuid, int cash, String primaryRole, String medal) {
         getSessionTracker().ifPresent(session -> {
             try {
-                session.setSessionField(uuid, "cash", String.valueOf(cash));
-                if (primaryRole != null) session.setSessionField(uuid, "role", primaryRole);
-                if (medal != null) session.setSessionField(uuid, "medal", medal);
+                Map<String, String> fields = new HashMap<>();
+                fields.put("cash", String.valueOf(cash));
+                fields.put("role", primaryRole);
+                fields.put("medal", medal);
+                session.setSessionFields(uuid, fields);
             } catch (Exception e) {
                 LOGGER.warning("[ProfileService] Failed to update session data in Redis for " + uuid);
             }
@@ -162,7 +198,9 @@ public class ProfileService {
         if (uuid == null) return;
         try {
             Optional<Profile> profileOpt = getByUuid(uuid);
+            writeBehind.discard(uuid);
             repository.deleteByUuid(uuid);
+            cache.invalidate(uuid);
             LOGGER.info("[ProfileService] Profile deleted for UUID: " + uuid);
 
             Profile dummy = new Profile();
@@ -178,8 +216,9 @@ public class ProfileService {
 
     public boolean exists(UUID uuid) {
         if (uuid == null) return false;
+        if (cache.get(uuid).isPresent()) return true;
         try {
-            return repository.collection().countDocuments(Filters.eq("uuid", uuid)) > 0;
+            return repository.collection().count(Filters.eq("uuid", uuid)) > 0;
         } catch (MongoException e) {
             LOGGER.log(Level.WARNING, "[ProfileService] MongoDB error checking profile existence for UUID: {0}", uuid);
             return false;
@@ -189,8 +228,12 @@ public class ProfileService {
         }
     }
 
+    /**
+     * Carrega ou cria o perfil do login e atualiza os dados de conexão. Só trata o documento de
+     * perfil; estatísticas, preferências e cosméticos ficam com o {@link com.realmmc.controller.shared.session.LoginBootstrapService}.
+     */
     public Profile ensureProfile(UUID loginUuid, String displayName, String username, String currentIp,
-                                 String clientVersion, String clientType, boolean isPremium, Object playerObject) {
+                                 String clientVersion, String clientType, boolean isPremium) {
 
         Objects.requireNonNull(loginUuid, "loginUuid cannot be null");
         Objects.requireNonNull(displayName, "displayName cannot be null");
@@ -256,16 +299,9 @@ public class ProfileService {
                 needsSave.set(true);
             }
 
-            final Profile finalProfileForServices = profileToReturn;
-            getStatsService().ifPresent(stats -> stats.ensureStatistics(finalProfileForServices));
-            getPreferencesService().ifPresent(prefs -> {
-                prefs.ensurePreferences(finalProfileForServices, null);
-            });
-
         } else {
             long now = System.currentTimeMillis();
             int profileId = MongoSequences.getNext("profiles");
-            final Language initialLang = Messages.determineInitialLanguage(playerObject);
 
             profileToReturn = Profile.builder()
                     .id(profileId)
@@ -293,10 +329,6 @@ public class ProfileService {
             needsSave.set(true);
             LOGGER.log(Level.INFO, "[ProfileService] Creating new profile ID {0} for {1} ({2})",
                     new Object[]{profileId, displayName, loginUuid});
-
-            final Profile finalProfileForServices = profileToReturn;
-            getStatsService().ifPresent(stats -> stats.ensureStatistics(finalProfileForServices));
-            getPreferencesService().ifPresent(prefs -> prefs.ensurePreferences(finalProfileForServices, initialLang));
         }
 
         if (needsSave.get()) {
@@ -305,6 +337,7 @@ public class ProfileService {
             } catch (MongoException e) {
                 if (e.getCode() == 11000 && e.getMessage() != null && (e.getMessage().contains("index: username_1") || e.getMessage().contains("index: uuid_1"))) {
                     LOGGER.log(Level.WARNING, "[ProfileService] Duplicate key error saving profile for {0}. Attempting reload.", usernameLower);
+                    cache.invalidate(loginUuid);
                     profileToReturn = getByUuid(loginUuid)
                             .orElseThrow(() -> new RuntimeException("Failed to reload profile after duplicate key error", e));
                 } else {
@@ -317,12 +350,7 @@ public class ProfileService {
             }
         }
 
-        final Profile finalProfileToReturn = profileToReturn;
-        getPreferencesService().ifPresent(prefs -> {
-            prefs.loadAndCachePreferences(finalProfileToReturn.getUuid());
-        });
-
-        return finalProfileToReturn;
+        return profileToReturn;
     }
 
     public void updateName(UUID uuid, String newName) {
@@ -361,9 +389,10 @@ public class ProfileService {
                 Updates.set("updatedAt", System.currentTimeMillis())
         );
 
-        UpdateResult result = repository.collection().updateOne(filter, update);
+        writeBehind.flush(targetUuid);
+        long modified = repository.collection().updateOne(filter, update);
 
-        if (result.getModifiedCount() > 0) {
+        if (modified > 0) {
             try {
                 ObjectNode node = mapper.createObjectNode();
                 node.put("uuid", targetUuid.toString());
@@ -406,9 +435,10 @@ public class ProfileService {
                 Updates.set("updatedAt", now)
         );
 
-        UpdateResult result = repository.collection().updateOne(filter, update);
+        writeBehind.flush(targetUuid);
+        long modified = repository.collection().updateOne(filter, update);
 
-        if (result.getModifiedCount() > 0) {
+        if (modified > 0) {
             updateLocalAndPublish(targetUuid, p -> p.setCash(p.getCash() - amount));
             return true;
         }
@@ -436,16 +466,26 @@ public class ProfileService {
         }, "cash_clear");
     }
 
+    /**
+     * Propaga um update atômico já aplicado no banco ($inc). Com o perfil em cache, aplica a
+     * mesma alteração na cópia local; sem cache, relê o banco, que já contém o resultado.
+     */
     private void updateLocalAndPublish(UUID uuid, Consumer<Profile> action) {
-        Optional<Profile> localOpt = getByUuid(uuid);
-        if (localOpt.isPresent()) {
-            Profile p = localOpt.get();
+        Profile previous = cache.peek(uuid).orElse(null);
+        Profile p;
+        if (previous != null) {
+            p = ProfileCache.copyOf(previous);
             action.accept(p);
-            p.setUpdatedAt(System.currentTimeMillis());
-
-            publish("upsert", p);
-            updateSessionData(uuid, p.getCash(), p.getPrimaryRoleName(), p.getEquippedMedal());
+        } else {
+            Optional<Profile> storedOpt = repository.findByUuid(uuid);
+            if (storedOpt.isEmpty()) return;
+            p = storedOpt.get();
         }
+        p.setUpdatedAt(nextVersion(previous, System.currentTimeMillis()));
+
+        cache.put(p);
+        publishChange(previous, p);
+        updateSessionData(uuid, p.getCash(), p.getPrimaryRoleName(), p.getEquippedMedal());
     }
 
     private void update(UUID uuid, ProfileModifier modifier, String actionContext) {
@@ -475,11 +515,179 @@ public class ProfileService {
         );
     }
 
+    /**
+     * Fixa o perfil no cache local enquanto o jogador estiver conectado a este nó.
+     */
+    public void markOnline(UUID uuid) {
+        cache.pin(uuid);
+    }
+
+    public void markOffline(UUID uuid) {
+        cache.unpin(uuid);
+        ServiceRegistry.getInstance().getService(ExpiryEngine.class).ifPresent(engine -> engine.untrack(uuid));
+        TaskScheduler.runAsync(() -> writeBehind.flush(uuid));
+    }
+
+    /**
+     * @return true se o jogador está conectado a este nó (perfil fixado no cache).
+     */
+    public boolean isOnlineHere(UUID uuid) {
+        return cache.isPinned(uuid);
+    }
+
+    /**
+     * Perfis (lidos direto do banco) com cargos expirados antes de {@code cutoff}.
+     */
+    public List<Profile> findWithRolesExpiredBefore(long cutoff, Integer afterId, int limit) {
+        try {
+            return repository.findWithRolesExpiredBefore(cutoff, afterId, limit);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "[ProfileService] Error fetching profiles with expired roles", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Perfis lidos direto do banco, sem passar pelo cache (varreduras em lote).
+     */
+    public List<Profile> findByUuids(Collection<UUID> uuids) {
+        try {
+            return repository.findByUuids(uuids);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "[ProfileService] Error fetching " + uuids.size() + " profiles by UUID", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Aplica {@code mutation} a perfis lidos direto do banco e grava todos num único bulk write.
+     * Cada update só vale se o documento ainda estiver na versão lida ({@code updatedAt}); um perfil
+     * alterado no meio do caminho fica para a próxima rodada, sem delta publicado. Perfis de jogadores
+     * conectados a este nó ou com escrita pendente no write-behind são pulados.
+     *
+     * @param mutation Altera o perfil e devolve true se houve mudança.
+     * @return Quantidade de perfis gravados.
+     */
+    public long saveAllIfUnchanged(List<Profile> loaded, Predicate<Profile> mutation) {
+        record Change(Profile before, Profile after) {
+        }
+        long now = System.currentTimeMillis();
+        List<DocumentUpdate> updates = new ArrayList<>();
+        List<Change> changed = new ArrayList<>();
+        for (Profile before : loaded) {
+            if (before.getId() == null || before.getUuid() == null) continue;
+            if (cache.isPinned(before.getUuid()) || writeBehind.pendingState(before.getUuid()).isPresent()) continue;
+
+            Profile after = ProfileCache.copyOf(before);
+            if (!mutation.test(after)) continue;
+            after.setUpdatedAt(nextVersion(before, now));
+            Bson update = ProfileDelta.toUpdate(before, after);
+            if (update == null) continue;
+            updates.add(new DocumentUpdate(Filters.and(MongoRepository.idEquals(before.getId()),
+                    Filters.eq("updatedAt", before.getUpdatedAt())), update));
+            changed.add(new Change(before, after));
+        }
+        if (updates.isEmpty()) return 0;
+
+        long modified = repository.collection().bulkUpdate(updates, false);
+
+        // O bulk só diz quantos casaram; relê as versões para publicar apenas o que foi gravado
+        Map<Integer, Long> versions = new HashMap<>();
+        List<Integer> ids = changed.stream().map(change -> change.after().getId()).toList();
+        for (Profile stored : repository.collection().find(Filters.in("_id", ids), null, Projections.include("_id", "updatedAt"), 0)) {
+            versions.put(stored.getId(), stored.getUpdatedAt());
+        }
+        for (Change change : changed) {
+            cache.invalidate(change.after().getUuid());
+            if (!Objects.equals(versions.get(change.after().getId()), change.after().getUpdatedAt())) continue;
+            // Quem não aplicou a versão lida detecta a lacuna e recarrega do banco
+            publishChange(change.before(), change.after());
+        }
+        return modified;
+    }
+
+    /**
+     * Atualiza a cópia local com um perfil completo recebido pelo canal de sync. Perfis que
+     * este nó não tem em cache são ignorados (serão carregados do banco quando forem lidos).
+     */
+    public void cacheRemote(Profile profile) {
+        if (profile == null || cache.peek(profile.getUuid()).isEmpty()) return;
+        cache.put(profile);
+    }
+
+    /**
+     * Aplica em memória um delta recebido pelo canal de sync (ver {@link ProfileDelta}).
+     * @return {@code false} se o delta não pôde ser aplicado por divergência de versão
+     *         (a entrada local foi invalidada).
+     */
+    public boolean applyRemoteDelta(UUID uuid, long base, long version, JsonNode fields) {
+        ProfileCache.DeltaResult result = cache.applyDelta(uuid, base, version, p -> ProfileDelta.apply(p, fields));
+        if (result == ProfileCache.DeltaResult.GAP) {
+            LOGGER.fine("[ProfileService] Delta de " + uuid + " sobre versão " + base + " não bate com o cache local. Entrada invalidada.");
+            return false;
+        }
+        return true;
+    }
+
+    public void invalidateCached(UUID uuid) {
+        cache.invalidate(uuid);
+    }
+
+    public ProfileCacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    public ProfileWriteStats getWriteStats() {
+        return writeBehind.getStats();
+    }
+
+    /**
+     * Grava tudo que estiver pendente no write-behind. Chamado ao desligar o módulo.
+     */
+    public void shutdown() {
+        writeBehind.shutdown();
+    }
+
     @FunctionalInterface
     private interface ProfileModifier {
         boolean modify(Profile profile);
     }
 
+    /**
+     * Versão (updatedAt) da próxima escrita: sempre maior que a anterior, mesmo no mesmo milissegundo,
+     * para que os deltas formem uma cadeia sem empates.
+     */
+    private static long nextVersion(Profile previous, long now) {
+        return previous != null ? Math.max(now, previous.getUpdatedAt() + 1) : now;
+    }
+
+    /**
+     * Propaga a alteração para os outros nós. Com a versão anterior em mãos manda só os campos
+     * alterados; sem ela, manda o perfil completo.
+     * <p>
+     * Deltas não usam chave de coalescência: cada um depende do anterior ({@code base}), então
+     * substituir um na fila quebraria a cadeia. Mesmo um delta vazio é enviado para avançar a versão.
+     */
+    private void publishChange(Profile previous, Profile current) {
+        if (previous == null || current.getUuid() == null) {
+            publish("upsert", current);
+            return;
+        }
+        try {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("action", "delta");
+            node.put("uuid", current.getUuid().toString());
+            if (current.getId() != null) node.put("id", current.getId()); else node.putNull("id");
+            node.put("base", previous.getUpdatedAt());
+            node.put("updatedAt", current.getUpdatedAt());
+            node.set("fields", ProfileDelta.diff(previous, current));
+
+            RedisPublisher.publish(RedisChannel.PROFILES_SYNC, node.toString());
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "[ProfileService] Failed to publish profile delta for UUID: " + current.getUuid(), e);
+        }
+    }
+
     private void publish(String action, Profile profile) {
         if (profile == null || profile.getUuid() == null || action == null) {
             return;
@@ -495,6 +703,7 @@ public class ProfileService {
                 node.put("name", profile.getName());
                 node.put("username", profile.getUsername());
                 node.put("cash", profile.getCash());
+                node.put("pendingCash", profile.getPendingCash());
                 node.put("premium", profile.isPremiumAccount());
                 node.put("equippedMedal", profile.getEquippedMedal());
                 if (profile.getCashTopPosition() != null) node.put("cashTopPosition", profile.getCashTopPosition()); else node.putNull("cashTopPosition");
@@ -504,6 +713,7 @@ public class ProfileService {
                 if (profile.getIpHistory() != null) { ArrayNode ipHistoryNode = node.putArray("ipHistory"); profile.getIpHistory().forEach(ipHistoryNode::add); } else { node.putArray("ipHistory"); }
                 node.put("firstLogin", profile.getFirstLogin());
                 node.put("lastLogin", profile.getLastLogin());
+                node.put("lastLogout", profile.getLastLogout());
 
                 node.put("firstClientVersion", profile.getFirstClientVersion());
                 node.put("firstClientType", profile.getFirstClientType());
@@ -517,14 +727,7 @@ public class ProfileService {
                     ArrayNode rolesNode = node.putArray("roles");
                     for (PlayerRole pr : roles) {
                         if (pr == null || pr.getRoleName() == null) continue;
-                        ObjectNode roleInfo = rolesNode.addObject();
-                        roleInfo.put("roleName", pr.getRoleName());
-                        roleInfo.put("status", pr.getStatus() != null ? pr.getStatus().name() : PlayerRole.Status.ACTIVE.name());
-                        if (pr.getExpiresAt() != null) roleInfo.put("expiresAt", pr.getExpiresAt()); else roleInfo.putNull("expiresAt");
-                        roleInfo.put("paused", pr.isPaused());
-                        if (pr.getPausedTimeRemaining() != null) roleInfo.put("pausedTimeRemaining", pr.getPausedTimeRemaining()); else roleInfo.putNull("pausedTimeRemaining");
-                        roleInfo.put("addedAt", pr.getAddedAt());
-                        if (pr.getRemovedAt() != null) roleInfo.put("removedAt", pr.getRemovedAt()); else roleInfo.putNull("removedAt");
+                        rolesNode.add(ProfileDelta.roleToJson(pr));
                     }
                 } else {
                     node.putArray("roles");
@@ -538,7 +741,7 @@ public class ProfileService {
             }
 
             String jsonMessage = node.toString();
-            RedisPublisher.publish(RedisChannel.PROFILES_SYNC, jsonMessage);
+            RedisPublisher.publish(RedisChannel.PROFILES_SYNC, jsonMessage, profile.getUuid().toString());
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "[ProfileService] Failed to publish profile sync message for UUID: " + profile.getUuid(), e);
@@ -0,0 +1,326 @@
+package com.realmmc.controller.shared.profile;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistência write-behind dos perfis.
+ * <p>
+ * Cada {@code save} de um perfil já existente só registra o estado novo; as alterações do mesmo
+ * jogador dentro de {@code PROFILE_WRITE_BEHIND_MILLIS} viram um update com apenas os campos
+ * alterados (ver {@link ProfileDelta#toUpdates}), enviado num bulk write não ordenado junto com os
+ * dos outros jogadores. Cash vai como {@code $inc} e cargos são gravados um a um, então alterações
+ * feitas por outros nós no mesmo documento nesse meio tempo não são sobrescritas. O flush é forçado
+ * na saída do jogador e no desligamento. Com {@code PROFILE_WRITE_BEHIND_MILLIS=0} o service volta a
+ * gravar na hora.
+ * <p>
+ * Como o {@code $inc} não pode ser reaplicado às cegas, cada flush grava um token em
+ * {@code flushTokens} (só o update que ainda não tem o token casa). Se o resultado do bulk for
+ * desconhecido (timeout, conexão caída), o próximo flush do jogador primeiro confere no banco se o
+ * token chegou e só então decide a base do diff.
+ */
+final class ProfileWriteBehind {
+
+    private static final Logger LOGGER = Logger.getLogger(ProfileWriteBehind.class.getName());
+    private static final long WINDOW_MILLIS = Long.getLong("PROFILE_WRITE_BEHIND_MILLIS", 1_000L);
+    static final String FLUSH_TOKENS_FIELD = "flushTokens";
+    // Tokens mantidos por documento; basta cobrir os flushes entre uma falha e a conferência seguinte
+    private static final int KEPT_FLUSH_TOKENS = 8;
+
+    private final ProfileRepository repository;
+    private final Function<Runnable, ScheduledFuture<?>> scheduler;
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private volatile ScheduledFuture<?> flushTask;
+    // Locks explícitos em vez de synchronized: as gravações bloqueiam no Mongo e rodam em virtual
+    // threads, que ficariam presas à carrier thread enquanto seguram um monitor
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock startLock = new ReentrantLock();
+
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong documentWrites = new AtomicLong();
+    private final AtomicLong bulkWrites = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    ProfileWriteBehind(ProfileRepository repository) {
+        this(repository, flush -> TaskScheduler.runAsyncTimer("ProfileWriteBehind#ensureStarted", flush,
+                WINDOW_MILLIS, WINDOW_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * @param scheduler Agenda o flush periódico e devolve a tarefa (cancelada no desligamento).
+     */
+    ProfileWriteBehind(ProfileRepository repository, Function<Runnable, ScheduledFuture<?>> scheduler) {
+        this.repository = repository;
+        this.scheduler = scheduler;
+    }
+
+    boolean isEnabled() {
+        return WINDOW_MILLIS > 0;
+    }
+
+    /**
+     * @param persisted Estado que o banco tem hoje (base do diff).
+     * @param latest    Estado novo do perfil.
+     */
+    void enqueue(Profile persisted, Profile latest) {
+        ensureStarted();
+        mutations.incrementAndGet();
+        Profile snapshot = ProfileCache.copyOf(latest);
+        pending.compute(latest.getUuid(), (uuid, existing) -> existing == null
+                ? new Pending(ProfileCache.copyOf(persisted), snapshot, System.currentTimeMillis(), null)
+                : new Pending(existing.persisted, snapshot, existing.queuedAt, existing.unconfirmed));
+    }
+
+    /**
+     * Escrita completa feita na hora (perfil novo, troca de username etc.). Substitui o que estiver
+     * pendente para o jogador e roda sob o mesmo lock dos flushes, para não ser sobrescrita por um
+     * update mais antigo em andamento.
+     */
+    void writeDirect(UUID uuid, Runnable write) {
+        writeLock.lock();
+        try {
+            if (uuid != null) pending.remove(uuid);
+            write.run();
+            mutations.incrementAndGet();
+            documentWrites.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Estado ainda não gravado do perfil, para leituras que não acharam o perfil no cache.
+     */
+    Optional<Profile> pendingState(UUID uuid) {
+        Pending entry = uuid != null ? pending.get(uuid) : null;
+        return entry != null ? Optional.of(ProfileCache.copyOf(entry.latest)) : Optional.empty();
+    }
+
+    /**
+     * Descarta alterações pendentes (perfil removido).
+     */
+    void discard(UUID uuid) {
+        if (uuid != null) pending.remove(uuid);
+    }
+
+    /**
+     * Grava agora o que estiver pendente para o jogador (saída do jogador, updates atômicos).
+     */
+    void flush(UUID uuid) {
+        if (uuid == null) return;
+        Pending entry = pending.get(uuid);
+        if (entry != null && pending.remove(uuid, entry)) {
+            write(Map.of(uuid, entry));
+        }
+    }
+
+    void flushAll() {
+        drain(true);
+    }
+
+    void shutdown() {
+        ScheduledFuture<?> task = flushTask;
+        flushTask = null;
+        if (task != null) TaskScheduler.cancelTask(task);
+        flushAll();
+        LOGGER.info("[ProfileWriteBehind] Finalizado. " + getStats());
+    }
+
+    ProfileWriteStats getStats() {
+        return new ProfileWriteStats(pending.size(), mutations.get(), documentWrites.get(), bulkWrites.get(), failedFlushes.get());
+    }
+
+    private void ensureStarted() {
+        if (flushTask != null) return;
+        startLock.lock();
+        try {
+            if (flushTask != null) return;
+            flushTask = scheduler.apply(() -> drain(false));
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    /**
+     * @param all true para gravar tudo; false para só o que já passou da janela.
+     */
+    private void drain(boolean all) {
+        long now = System.currentTimeMillis();
+        Map<UUID, Pending> due = new HashMap<>();
+        for (Map.Entry<UUID, Pending> e : pending.entrySet()) {
+            Pending entry = e.getValue();
+            if (all || now - entry.queuedAt >= WINDOW_MILLIS) {
+                if (pending.remove(e.getKey(), entry)) due.put(e.getKey(), entry);
+            }
+        }
+        if (!due.isEmpty()) write(due);
+    }
+
+    // Serializado: dois flushes do mesmo jogador não podem chegar ao banco fora de ordem
+    private void write(Map<UUID, Pending> due) {
+        writeLock.lock();
+        try {
+            writeLocked(due);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeLocked(Map<UUID, Pending> due) {
+        Map<UUID, Pending> ready = confirm(due);
+        List<DocumentUpdate> updates = new ArrayList<>(ready.size());
+        List<UUID> owners = new ArrayList<>(ready.size());
+        Map<UUID, String> tokens = new HashMap<>();
+        for (Map.Entry<UUID, Pending> e : ready.entrySet()) {
+            List<DocumentUpdate> entryUpdates = ProfileDelta.toUpdates(e.getValue().persisted, e.getValue().latest);
+            if (entryUpdates.isEmpty()) continue;
+            String token = UUID.randomUUID().toString();
+            tokens.put(e.getKey(), token);
+            for (int i = 0; i < entryUpdates.size(); i++) {
+                updates.add(i == 0 ? withToken(entryUpdates.get(0), token) : entryUpdates.get(i));
+                owners.add(e.getKey());
+            }
+        }
+        if (updates.isEmpty()) return;
+
+        try {
+            repository.collection().bulkUpdate(updates, false);
+            documentWrites.addAndGet(ready.size());
+            bulkWrites.incrementAndGet();
+        } catch (MongoBulkWriteException e) {
+            failedFlushes.incrementAndGet();
+            // O resto do lote foi aplicado: só os perfis com algum update recusado voltam para a fila
+            Map<UUID, Boolean> failed = new HashMap<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                int index = error.getIndex();
+                UUID uuid = owners.get(index);
+                boolean mainFailed = index == 0 || !owners.get(index - 1).equals(uuid);
+                failed.merge(uuid, mainFailed, Boolean::logicalOr);
+            }
+            LOGGER.log(Level.WARNING, "[ProfileWriteBehind] " + failed.size() + " perfil(is) recusado(s) no bulk write. Reenfileirando.", e);
+            documentWrites.addAndGet(ready.size() - failed.size());
+            failed.forEach((uuid, mainFailed) -> requeue(uuid, mainFailed ? ready.get(uuid) : rolesOnly(ready.get(uuid))));
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            // Resultado desconhecido: o update pode ter sido aplicado. Volta para a fila com o token,
+            // e o próximo flush confere no banco antes de reenviar qualquer $inc
+            LOGGER.log(Level.WARNING, "[ProfileWriteBehind] Falha ao gravar " + ready.size() + " perfil(is). Reenfileirando para conferência.", e);
+            ready.forEach((uuid, entry) -> {
+                String token = tokens.get(uuid);
+                requeue(uuid, token == null ? entry
+                        : new Pending(entry.persisted, entry.latest, entry.queuedAt, new Unconfirmed(token, entry.latest)));
+            });
+        }
+    }
+
+    /**
+     * Resolve os flushes de resultado desconhecido: se o token está no documento, o estado enviado
+     * virou a base; senão a base antiga continua valendo. Se a conferência falhar, os perfis
+     * voltam para a fila sem nada ser enviado.
+     */
+    private Map<UUID, Pending> confirm(Map<UUID, Pending> due) {
+        Map<UUID, Pending> unconfirmed = new HashMap<>();
+        due.forEach((uuid, entry) -> {
+            if (entry.unconfirmed != null) unconfirmed.put(uuid, entry);
+        });
+        if (unconfirmed.isEmpty()) return due;
+
+        Map<UUID, Pending> ready = new HashMap<>(due);
+        List<Integer> ids = new ArrayList<>(unconfirmed.size());
+        List<String> tokens = new ArrayList<>(unconfirmed.size());
+        unconfirmed.values().forEach(entry -> {
+            ids.add(entry.latest.getId());
+            tokens.add(entry.unconfirmed.token());
+        });
+        Set<Integer> applied = new HashSet<>();
+        try {
+            // Tokens são únicos: um documento que tem algum deles tem o do próprio flush
+            repository.collection().find(Filters.and(Filters.in("_id", ids), Filters.in(FLUSH_TOKENS_FIELD, tokens)),
+                    null, Projections.include("_id"), 0).forEach(p -> applied.add(p.getId()));
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            LOGGER.log(Level.WARNING, "[ProfileWriteBehind] Falha ao conferir " + unconfirmed.size() + " flush(es) sem resultado. Reenfileirando.", e);
+            unconfirmed.forEach((uuid, entry) -> {
+                ready.remove(uuid);
+                requeue(uuid, entry);
+            });
+            return ready;
+        }
+
+        unconfirmed.forEach((uuid, entry) -> {
+            if (applied.contains(entry.latest.getId())) {
+                documentWrites.incrementAndGet();
+                ready.put(uuid, rolesOnly(new Pending(entry.persisted, entry.unconfirmed.flushed(), entry.queuedAt, null), entry.latest));
+            } else {
+                ready.put(uuid, new Pending(entry.persisted, entry.latest, entry.queuedAt, null));
+            }
+        });
+        return ready;
+    }
+
+    /**
+     * Só aplica o update de campos se o documento ainda não recebeu este flush, e registra o token.
+     */
+    private static DocumentUpdate withToken(DocumentUpdate main, String token) {
+        return new DocumentUpdate(Filters.and(main.filter(), Filters.ne(FLUSH_TOKENS_FIELD, token)),
+                Updates.combine(main.update(), Updates.pushEach(FLUSH_TOKENS_FIELD, List.of(token), new PushOptions().slice(-KEPT_FLUSH_TOKENS))),
+                main.arrayFilters());
+    }
+
+    /**
+     * Os campos (incluindo os {@code $inc}) já foram gravados; falta só reaplicar os updates de
+     * cargos, que são idempotentes.
+     */
+    private static Pending rolesOnly(Pending entry) {
+        return rolesOnly(entry, entry.latest);
+    }
+
+    /**
+     * @param latest Estado a gravar a partir da nova base (pode ser mais novo que o já enviado).
+     */
+    private static Pending rolesOnly(Pending entry, Profile latest) {
+        Profile base = ProfileCache.copyOf(entry.latest);
+        base.setRoles(entry.persisted.getRoles());
+        return new Pending(base, latest, entry.queuedAt, null);
+    }
+
+    private void requeue(UUID uuid, Pending failed) {
+        pending.merge(uuid, failed, (newer, old) -> new Pending(old.persisted, newer.latest, old.queuedAt, old.unconfirmed));
+    }
+
+    /**
+     * @param unconfirmed Flush anterior cujo resultado não se sabe (null se não houver).
+     */
+    private record Pending(Profile persisted, Profile latest, long queuedAt, Unconfirmed unconfirmed) {
+    }
+
+    /**
+     * @param token   Token gravado junto com o update.
+     * @param flushed Estado enviado naquele flush.
+     */
+    private record Unconfirmed(String token, Profile flushed) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.realmmc.controller.shared.profile;
+
+/**
+ * Métricas da persistência write-behind de perfis.
+ *
+ * @param pending        Perfis com alterações ainda não gravadas.
+ * @param mutations      Alterações de perfil recebidas pelo service.
+ * @param documentWrites Escritas de documento efetivamente enviadas ao banco.
+ * @param bulkWrites     Bulk writes enviados.
+ * @param failedFlushes  Flushes que falharam e foram reenfileirados.
+ */
+public record ProfileWriteStats(
+        int pending,
+        long mutations,
+        long documentWrites,
+        long bulkWrites,
+        long failedFlushes
+) {
+    /**
+     * Fração das alterações que não precisou de escrita própria no banco.
+     */
+    public double writeReduction() {
+        return mutations == 0 ? 0.0 : 1.0 - (double) documentWrites / mutations;
+    }
+}
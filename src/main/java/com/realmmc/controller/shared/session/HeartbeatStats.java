@@ -0,0 +1,19 @@
+package com.realmmc.controller.shared.session;
+
+/**
+ * Snapshot das métricas do heartbeat em lote ({@link SessionTrackerService#updateHeartbeats}).
+ *
+ * @param cycles       Ciclos executados desde o início.
+ * @param lastSessions Sessões renovadas no último ciclo.
+ * @param lastMillis   Duração do último ciclo.
+ * @param maxMillis    Maior duração de ciclo observada.
+ * @param skipped      Heartbeats ignorados desde o início porque a sessão já estava encerrada.
+ */
+public record HeartbeatStats(
+        long cycles,
+        int lastSessions,
+        long lastMillis,
+        long maxMillis,
+        long skipped
+) {
+}
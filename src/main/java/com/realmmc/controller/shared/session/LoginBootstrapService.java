@@ -0,0 +1,114 @@
+package com.realmmc.controller.shared.session;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.shared.auth.AuthenticationGuard;
+import com.realmmc.controller.shared.cosmetics.CosmeticsService;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.preferences.Preferences;
+import com.realmmc.controller.shared.preferences.PreferencesService;
+import com.realmmc.controller.shared.profile.Profile;
+import com.realmmc.controller.shared.profile.ProfileService;
+import com.realmmc.controller.shared.stats.StatisticsService;
+import com.realmmc.controller.shared.utils.TaskScheduler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Prepara tudo que uma sessão precisa no login.
+ * <p>
+ * Primeiro garante o perfil, que fornece o ID usado pelos demais documentos. Depois estatísticas,
+ * preferências, cosméticos e o hash de sessão no Redis são resolvidos em paralelo. O tempo de login
+ * fica limitado pelo store mais lento, e não pela soma de todas as idas ao banco.
+ */
+public class LoginBootstrapService {
+
+    private static final Logger LOGGER = Logger.getLogger(LoginBootstrapService.class.getName());
+
+    private final ProfileService profileService;
+    private final StatisticsService statisticsService;
+    private final PreferencesService preferencesService;
+    private final Optional<CosmeticsService> cosmeticsService;
+    private final Optional<SessionTrackerService> sessionTracker;
+
+    public LoginBootstrapService() {
+        ServiceRegistry registry = ServiceRegistry.getInstance();
+        this.profileService = registry.requireService(ProfileService.class);
+        this.statisticsService = registry.requireService(StatisticsService.class);
+        this.preferencesService = registry.requireService(PreferencesService.class);
+        this.cosmeticsService = registry.getService(CosmeticsService.class);
+        this.sessionTracker = registry.getService(SessionTrackerService.class);
+    }
+
+    /**
+     * @param playerObject Jogador da plataforma, usado só para detectar o idioma de um perfil novo.
+     */
+    public CompletableFuture<LoginSnapshot> bootstrap(UUID uuid, String username, String ip, String clientVersion,
+                                                      String clientType, boolean premium, Object playerObject) {
+        long startNanos = System.nanoTime();
+        Executor executor = TaskScheduler.getAsyncExecutor();
+
+        return CompletableFuture
+                .supplyAsync(() -> profileService.ensureProfile(uuid, username, username.toLowerCase(), ip,
+                        clientVersion, clientType, premium), executor)
+                .thenCompose(profile -> {
+                    profileService.markOnline(uuid);
+
+                    CompletableFuture<Void> statistics = CompletableFuture.runAsync(
+                            () -> statisticsService.ensureStatistics(profile), executor);
+                    CompletableFuture<Preferences> preferences = CompletableFuture.supplyAsync(() -> {
+                        Preferences prefs = preferencesService.ensurePreferences(profile,
+                                () -> Messages.determineInitialLanguage(playerObject));
+                        preferencesService.updateCachedPreferences(uuid, prefs.getServerLanguage(), prefs.isStaffChatEnabled());
+                        return prefs;
+                    }, executor);
+                    CompletableFuture<List<String>> medals = cosmeticsService
+                            .map(cs -> CompletableFuture.supplyAsync(() -> {
+                                cs.ensureCosmetics(profile);
+                                return cs.getCachedMedals(uuid);
+                            }, executor))
+                            .orElseGet(() -> CompletableFuture.completedFuture(List.of()));
+                    CompletableFuture<Void> session = CompletableFuture.runAsync(
+                            () -> sessionTracker.ifPresent(st -> st.setSessionFields(uuid, sessionFields(profile, clientVersion))),
+                            executor);
+
+                    return CompletableFuture.allOf(statistics, preferences, medals, session)
+                            .thenApply(ignored -> snapshot(profile, preferences.join(), medals.join(), startNanos));
+                });
+    }
+
+    private Map<String, String> sessionFields(Profile profile, String clientVersion) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("username", profile.getName());
+        fields.put("clientVersion", clientVersion);
+        fields.put("role", profile.getPrimaryRoleName());
+        fields.put("cash", String.valueOf(profile.getCash()));
+        fields.put("medal", profile.getEquippedMedal());
+        fields.put("state", AuthenticationGuard.STATE_ONLINE);
+        return fields;
+    }
+
+    private LoginSnapshot snapshot(Profile profile, Preferences prefs, List<String> medals, long startNanos) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        LOGGER.fine("[LoginBootstrap] Sessão de " + profile.getName() + " pronta em " + elapsed + "ms.");
+        return new LoginSnapshot(
+                profile.getUuid(),
+                profile.getId(),
+                profile.getName(),
+                profile.getPrimaryRoleName(),
+                profile.getCash(),
+                profile.getEquippedMedal(),
+                profile.isPremiumAccount(),
+                prefs.getServerLanguage(),
+                prefs.isStaffChatEnabled(),
+                medals,
+                elapsed);
+    }
+}
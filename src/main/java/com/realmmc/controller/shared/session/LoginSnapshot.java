@@ -0,0 +1,39 @@
+package com.realmmc.controller.shared.session;
+
+import com.realmmc.controller.shared.preferences.Language;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Estado de uma sessão recém-autenticada, montado pelo {@link LoginBootstrapService}.
+ *
+ * @param uuid             UUID do jogador.
+ * @param profileId        ID sequencial do perfil.
+ * @param name             Nome de exibição.
+ * @param primaryRoleName  Cargo principal.
+ * @param cash             Saldo de cash no login.
+ * @param equippedMedal    Medalha equipada ("none" se nenhuma).
+ * @param premium          Conta original.
+ * @param language         Idioma das preferências.
+ * @param staffChatEnabled Staff chat ligado nas preferências.
+ * @param medals           Medalhas ativas desbloqueadas.
+ * @param bootstrapMillis  Tempo total do bootstrap.
+ */
+public record LoginSnapshot(
+        UUID uuid,
+        int profileId,
+        String name,
+        String primaryRoleName,
+        int cash,
+        String equippedMedal,
+        boolean premium,
+        Language language,
+        boolean staffChatEnabled,
+        List<String> medals,
+        long bootstrapMillis
+) {
+    public LoginSnapshot {
+        medals = medals != null ? List.copyOf(medals) : List.of();
+    }
+}
@@ -0,0 +1,215 @@
+package com.realmmc.controller.shared.session;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.redis.RedisChannel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Contagem de jogadores da rede somando todos os proxies.
+ * <p>
+ * Cada proxy grava a própria contagem num hash {@code controller:playercount:proxy:<id>}
+ * ({@code total}, {@code s:<servidor>}, {@code t:<TIPO>}) e se anuncia no sorted set
+ * {@code controller:playercount:proxies} com score = instante de expiração. Depois de publicar, o
+ * proxy soma os hashes de todos os proxies vivos e grava o resultado em
+ * {@link RedisChannel#GLOBAL_PLAYER_COUNT} (total) e nos hashes
+ * {@link RedisChannel#GLOBAL_PLAYER_COUNT_SERVERS}/{@link RedisChannel#GLOBAL_PLAYER_COUNT_TYPES};
+ * quem lê continua fazendo um único GET. Um proxy que para de publicar sai da soma após o TTL.
+ */
+public class NetworkPlayerCounts {
+
+    private static final Logger LOGGER = Logger.getLogger(NetworkPlayerCounts.class.getName());
+    static final String PROXIES_KEY = "controller:playercount:proxies";
+    static final String PROXY_KEY_PREFIX = "controller:playercount:proxy:";
+    private static final String TOTAL_FIELD = "total";
+    private static final String SERVER_PREFIX = "s:";
+    private static final String TYPE_PREFIX = "t:";
+    private static final int MAX_PROXIES = 1_000;
+
+    /**
+     * Contagem de um proxy (ou a soma da rede).
+     */
+    public record Counts(int total, Map<String, Integer> byServer, Map<String, Integer> byType) {
+        public static final Counts EMPTY = new Counts(0, Map.of(), Map.of());
+
+        public Counts {
+            byServer = Map.copyOf(byServer);
+            byType = Map.copyOf(byType);
+        }
+    }
+
+    /**
+     * @param proxies Proxies vivos que entraram na soma.
+     */
+    public record Totals(Counts network, List<String> proxies, long aggregatedAt) {
+    }
+
+    private final Supplier<KeyValueStore> store;
+    private final String proxyId;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private volatile Totals lastTotals = new Totals(Counts.EMPTY, List.of(), 0L);
+
+    public NetworkPlayerCounts(Supplier<KeyValueStore> store, String proxyId, long ttlMillis, LongSupplier clock) {
+        this.store = store;
+        this.proxyId = proxyId;
+        this.ttlMillis = Math.max(1_000L, ttlMillis);
+        this.clock = clock;
+    }
+
+    public String getProxyId() {
+        return proxyId;
+    }
+
+    /**
+     * Última soma calculada por este proxy (sem ir ao Redis).
+     */
+    public Totals getLastTotals() {
+        return lastTotals;
+    }
+
+    /**
+     * Publica a contagem deste proxy e recalcula a soma da rede.
+     */
+    public Totals publish(Counts local) {
+        long now = clock.getAsLong();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(TOTAL_FIELD, String.valueOf(local.total()));
+        local.byServer().forEach((server, count) -> fields.put(SERVER_PREFIX + server, String.valueOf(count)));
+        local.byType().forEach((type, count) -> fields.put(TYPE_PREFIX + type, String.valueOf(count)));
+
+        String proxyKey = PROXY_KEY_PREFIX + proxyId;
+        store.get().transaction(tx -> {
+            tx.del(proxyKey);
+            tx.hset(proxyKey, fields);
+            tx.expire(proxyKey, ttlSeconds());
+            tx.zadd(PROXIES_KEY, now + ttlMillis, proxyId);
+        });
+        return aggregate();
+    }
+
+    /**
+     * Remove este proxy da soma (desligamento limpo) e republica o total dos demais.
+     */
+    public void remove() {
+        try {
+            KeyValueStore kv = store.get();
+            kv.zrem(PROXIES_KEY, proxyId);
+            kv.del(PROXY_KEY_PREFIX + proxyId);
+            aggregate();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[NetworkPlayerCounts] Falha ao remover a contagem do proxy " + proxyId, e);
+        }
+    }
+
+    /**
+     * Soma os proxies vivos e grava o resultado nas chaves globais.
+     */
+    public Totals aggregate() {
+        KeyValueStore kv = store.get();
+        long now = clock.getAsLong();
+
+        List<String> expired = kv.zrangeByScore(PROXIES_KEY, Double.NEGATIVE_INFINITY, now - 1, MAX_PROXIES);
+        if (!expired.isEmpty()) {
+            kv.zrem(PROXIES_KEY, expired.toArray(new String[0]));
+            LOGGER.info("[NetworkPlayerCounts] Proxies sem contagem recente removidos da soma: " + expired);
+        }
+        List<String> proxies = kv.zrangeByScore(PROXIES_KEY, now, Double.POSITIVE_INFINITY, MAX_PROXIES);
+
+        List<Supplier<Map<String, String>>> hashes = new ArrayList<>(proxies.size());
+        if (!proxies.isEmpty()) {
+            kv.batch(batch -> {
+                for (String proxy : proxies) hashes.add(batch.hgetAll(PROXY_KEY_PREFIX + proxy));
+            });
+        }
+
+        int total = 0;
+        Map<String, Integer> byServer = new HashMap<>();
+        Map<String, Integer> byType = new HashMap<>();
+        for (Supplier<Map<String, String>> hash : hashes) {
+            Map<String, String> values = hash.get();
+            if (values == null || values.isEmpty()) continue;
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                int count = parse(entry.getValue());
+                String field = entry.getKey();
+                if (field.equals(TOTAL_FIELD)) total += count;
+                else if (field.startsWith(SERVER_PREFIX)) byServer.merge(field.substring(SERVER_PREFIX.length()), count, Integer::sum);
+                else if (field.startsWith(TYPE_PREFIX)) byType.merge(field.substring(TYPE_PREFIX.length()), count, Integer::sum);
+            }
+        }
+
+        Counts network = new Counts(total, byServer, byType);
+        String totalValue = String.valueOf(total);
+        Map<String, String> serverFields = toFields(byServer);
+        Map<String, String> typeFields = toFields(byType);
+        long ttl = ttlSeconds();
+        kv.transaction(tx -> {
+            tx.setex(RedisChannel.GLOBAL_PLAYER_COUNT.getName(), ttl, totalValue);
+            tx.del(RedisChannel.GLOBAL_PLAYER_COUNT_SERVERS.getName(), RedisChannel.GLOBAL_PLAYER_COUNT_TYPES.getName());
+            if (!serverFields.isEmpty()) {
+                tx.hset(RedisChannel.GLOBAL_PLAYER_COUNT_SERVERS.getName(), serverFields);
+                tx.expire(RedisChannel.GLOBAL_PLAYER_COUNT_SERVERS.getName(), ttl);
+            }
+            if (!typeFields.isEmpty()) {
+                tx.hset(RedisChannel.GLOBAL_PLAYER_COUNT_TYPES.getName(), typeFields);
+                tx.expire(RedisChannel.GLOBAL_PLAYER_COUNT_TYPES.getName(), ttl);
+            }
+        });
+
+        Totals totals = new Totals(network, List.copyOf(proxies), now);
+        lastTotals = totals;
+        return totals;
+    }
+
+    /**
+     * Lê a soma publicada (total e detalhamento), para quem não publica contagens.
+     */
+    public static Counts read(KeyValueStore kv) {
+        List<Supplier<?>> values = new ArrayList<>(3);
+        kv.batch(batch -> {
+            values.add(batch.get(RedisChannel.GLOBAL_PLAYER_COUNT.getName()));
+            values.add(batch.hgetAll(RedisChannel.GLOBAL_PLAYER_COUNT_SERVERS.getName()));
+            values.add(batch.hgetAll(RedisChannel.GLOBAL_PLAYER_COUNT_TYPES.getName()));
+        });
+        @SuppressWarnings("unchecked")
+        Map<String, String> servers = (Map<String, String>) values.get(1).get();
+        @SuppressWarnings("unchecked")
+        Map<String, String> types = (Map<String, String>) values.get(2).get();
+        return new Counts(parse((String) values.get(0).get()), toCounts(servers), toCounts(types));
+    }
+
+    private long ttlSeconds() {
+        return Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(ttlMillis + 999));
+    }
+
+    private static Map<String, String> toFields(Map<String, Integer> counts) {
+        Map<String, String> fields = new HashMap<>(counts.size());
+        counts.forEach((key, count) -> fields.put(key, String.valueOf(count)));
+        return fields;
+    }
+
+    private static Map<String, Integer> toCounts(Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) return Collections.emptyMap();
+        Map<String, Integer> counts = new HashMap<>(fields.size());
+        fields.forEach((key, value) -> counts.put(key, parse(value)));
+        return counts;
+    }
+
+    private static int parse(String value) {
+        if (value == null) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.realmmc.controller.shared.session;
 
 import com.realmmc.controller.core.services.ServiceRegistry;
 import com.realmmc.controller.shared.profile.ProfileService;
-import com.realmmc.controller.shared.storage.redis.RedisManager;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.Pipeline;
+import com.realmmc.controller.shared.storage.backend.KeyValueBatch;
+import com.realmmc.controller.shared.storage.backend.KeyValueScript;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.Optional;
@@ -21,12 +24,43 @@ public class SessionTrackerService {
     private static final String ONLINE_PROXY_PREFIX = "controller:online:proxy:";
     private static final String ONLINE_SERVER_PREFIX = "controller:online:server:";
     private static final String IP_TRACKING_PREFIX = "controller:ip_tracking:";
+    // Sorted set uuid -> lastHeartbeat, consultado por faixa pelo reaper
+    private static final String HEARTBEAT_INDEX_KEY = "controller:sessions:heartbeat";
+    // Hash sem TTL com os campos que identificam cada sessão nos sets ("<uuid>:<campo>"), para que
+    // o reaper consiga limpar os sets mesmo depois que o hash da sessão expirou
+    private static final String SESSION_OWNERS_KEY = "controller:sessions:owners";
+    private static final String[] OWNER_FIELDS = {"username", "proxyId", "currentServer", "ip"};
 
     private static final int SESSION_HASH_TTL_SECONDS = 300;
     private static final int ONLINE_SET_TTL_SECONDS = 60;
+    private static final int REAPER_ATTEMPTS = 3;
+
+    // KEYS: hash da sessão, índice de heartbeats, hash de donos
+    // ARGV: agora, ping, protocolo ('' mantém), servidor atual ('' mantém), TTL do hash, uuid,
+    //       campo do servidor no hash de donos
+    // Devolve {ip, proxyId, servidor salvo} para a renovação dos sets, ou nil se a sessão acabou
+    private static final KeyValueScript HEARTBEAT_SCRIPT = new KeyValueScript("""
+            if redis.call('HEXISTS', KEYS[1], 'username') == 0 then return false end
+            local saved = redis.call('HMGET', KEYS[1], 'ip', 'proxyId', 'currentServer')
+            redis.call('HSET', KEYS[1], 'lastHeartbeat', ARGV[1], 'ping', ARGV[2])
+            if ARGV[3] ~= '' then redis.call('HSET', KEYS[1], 'protocol', ARGV[3]) end
+            if ARGV[4] ~= '' then
+                redis.call('HSET', KEYS[1], 'currentServer', ARGV[4])
+                if ARGV[4] ~= saved[3] then redis.call('HSET', KEYS[3], ARGV[7], ARGV[4]) end
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            redis.call('ZADD', KEYS[2], ARGV[1], ARGV[6])
+            return saved
+            """, SessionTrackerService::heartbeatLocal);
 
     private final ProfileService profileService;
 
+    private final AtomicLong heartbeatCycles = new AtomicLong();
+    private final AtomicLong maxHeartbeatMillis = new AtomicLong();
+    private final AtomicLong heartbeatSkipped = new AtomicLong();
+    private volatile long lastHeartbeatMillis;
+    private volatile int lastHeartbeatSessions;
+
     public SessionTrackerService() {
         this.profileService = ServiceRegistry.getInstance().getService(ProfileService.class)
                 .orElseThrow(() -> new IllegalStateException("ProfileService not found for SessionTrackerService"));
@@ -36,13 +70,32 @@ public class SessionTrackerService {
     private String getProxySetKey(String proxyId) { return ONLINE_PROXY_PREFIX + proxyId; }
     private String getServerSetKey(String serverName) { return ONLINE_SERVER_PREFIX + serverName; }
     private String getIpSetKey(String ipAddress) { return IP_TRACKING_PREFIX + ipAddress; }
+    private String getOwnerField(Object uuid, String field) { return uuid + ":" + field; }
 
-    @FunctionalInterface interface JedisVoidOperation { void apply(Jedis jedis); }
-    @FunctionalInterface interface JedisOperation<T> { T apply(Jedis jedis); }
+    private String[] getOwnerFields(Object uuid) {
+        String[] fields = new String[OWNER_FIELDS.length];
+        for (int i = 0; i < fields.length; i++) fields[i] = getOwnerField(uuid, OWNER_FIELDS[i]);
+        return fields;
+    }
 
-    private void executeJedisVoid(JedisVoidOperation operation) {
-        try (Jedis jedis = RedisManager.getResource()) {
-            operation.apply(jedis);
+    /**
+     * Junta o registro do hash de donos com os campos do hash da sessão (sessões iniciadas antes
+     * do hash de donos existir só têm o segundo).
+     */
+    private static List<String> mergeOwner(List<String> owner, List<String> session) {
+        List<String> merged = new ArrayList<>(OWNER_FIELDS.length);
+        for (int i = 0; i < OWNER_FIELDS.length; i++) {
+            merged.add(owner.get(i) != null ? owner.get(i) : session.get(i));
+        }
+        return merged;
+    }
+
+    @FunctionalInterface interface StoreVoidOperation { void apply(KeyValueStore store); }
+    @FunctionalInterface interface StoreOperation<T> { T apply(KeyValueStore store); }
+
+    private void executeVoid(StoreVoidOperation operation) {
+        try {
+            operation.apply(StorageBackends.keyValue());
         } catch (JedisConnectionException e) {
             LOGGER.log(Level.SEVERE, "[SessionTracker] Redis connection error", e);
         } catch (Exception e) {
@@ -50,9 +103,9 @@ public class SessionTrackerService {
         }
     }
 
-    private <T> Optional<T> executeJedis(JedisOperation<T> operation) {
-        try (Jedis jedis = RedisManager.getResource()) {
-            return Optional.ofNullable(operation.apply(jedis));
+    private <T> Optional<T> execute(StoreOperation<T> operation) {
+        try {
+            return Optional.ofNullable(operation.apply(StorageBackends.keyValue()));
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "[SessionTracker] Error retrieving data from Redis", e);
             return Optional.empty();
@@ -68,7 +121,7 @@ public class SessionTrackerService {
         String serverSetKey = (initialServer != null && !initialServer.isEmpty()) ? getServerSetKey(initialServer) : null;
         long now = System.currentTimeMillis();
 
-        executeJedisVoid(jedis -> {
+        executeVoid(store -> {
             Map<String, String> sessionData = new HashMap<>();
 
             sessionData.put("username", username);
@@ -85,28 +138,37 @@ public class SessionTrackerService {
             sessionData.put("isPremium", String.valueOf(isPremium));
             sessionData.put("medal", currentMedal != null ? currentMedal : "none");
 
-            Pipeline pipe = jedis.pipelined();
-
-            pipe.hmset(sessionKey, sessionData);
-            pipe.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
-
-            pipe.sadd(ONLINE_ALL_KEY, username);
-
-            pipe.sadd(proxySetKey, username);
-            pipe.expire(proxySetKey, ONLINE_SET_TTL_SECONDS);
-
-            if (serverSetKey != null) {
-                pipe.sadd(serverSetKey, username);
-                pipe.expire(serverSetKey, ONLINE_SET_TTL_SECONDS);
+            Map<String, String> ownerData = new HashMap<>();
+            List<String> clearedOwnerFields = new ArrayList<>();
+            for (String field : OWNER_FIELDS) {
+                String value = sessionData.get(field);
+                if (value != null) ownerData.put(getOwnerField(uuid, field), value);
+                else clearedOwnerFields.add(getOwnerField(uuid, field));
             }
 
-            if (ip != null && !ip.isEmpty()) {
-                String ipSetKey = getIpSetKey(ip);
-                pipe.sadd(ipSetKey, uuid.toString());
-                pipe.expire(ipSetKey, SESSION_HASH_TTL_SECONDS);
-            }
-
-            pipe.sync();
+            store.batch(batch -> {
+                batch.hset(sessionKey, sessionData);
+                batch.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
+                batch.zadd(HEARTBEAT_INDEX_KEY, now, uuid.toString());
+                batch.hset(SESSION_OWNERS_KEY, ownerData);
+                if (!clearedOwnerFields.isEmpty()) batch.hdel(SESSION_OWNERS_KEY, clearedOwnerFields.toArray(new String[0]));
+
+                batch.sadd(ONLINE_ALL_KEY, username);
+
+                batch.sadd(proxySetKey, username);
+                batch.expire(proxySetKey, ONLINE_SET_TTL_SECONDS);
+
+                if (serverSetKey != null) {
+                    batch.sadd(serverSetKey, username);
+                    batch.expire(serverSetKey, ONLINE_SET_TTL_SECONDS);
+                }
+
+                if (ip != null && !ip.isEmpty()) {
+                    String ipSetKey = getIpSetKey(ip);
+                    batch.sadd(ipSetKey, uuid.toString());
+                    batch.expire(ipSetKey, SESSION_HASH_TTL_SECONDS);
+                }
+            });
             LOGGER.info("[SessionTracker] Session started for " + username + " (" + uuid + ") on " + proxyId);
         });
     }
@@ -116,13 +178,14 @@ public class SessionTrackerService {
         String sessionKey = getSessionKey(uuid);
         long now = System.currentTimeMillis();
 
-        executeJedisVoid(jedis -> {
-            if (jedis.exists(sessionKey)) {
-                Pipeline pipe = jedis.pipelined();
-                pipe.hset(sessionKey, "state", state);
-                pipe.hset(sessionKey, "lastHeartbeat", String.valueOf(now));
-                pipe.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
-                pipe.sync();
+        executeVoid(store -> {
+            if (store.exists(sessionKey)) {
+                store.batch(batch -> {
+                    batch.hset(sessionKey, "state", state);
+                    batch.hset(sessionKey, "lastHeartbeat", String.valueOf(now));
+                    batch.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
+                    batch.zadd(HEARTBEAT_INDEX_KEY, now, uuid.toString());
+                });
                 LOGGER.info("[SessionTracker] State updated to " + state + " for " + uuid);
             }
         });
@@ -132,134 +195,285 @@ public class SessionTrackerService {
         if (uuid == null) return;
         String sessionKey = getSessionKey(uuid);
 
-        executeJedisVoid(jedis -> {
-            String username = usernameArg;
-            String proxyId = null;
-            String currentServer = null;
-            String ip = null;
-
-            if (username == null || username.isEmpty()) {
-                List<String> data = jedis.hmget(sessionKey, "username", "proxyId", "currentServer", "ip");
-                username = data.get(0);
-                proxyId = data.get(1);
-                currentServer = data.get(2);
-                ip = data.get(3);
-            } else {
-                List<String> data = jedis.hmget(sessionKey, "proxyId", "currentServer", "ip");
-                proxyId = data.get(0);
-                currentServer = data.get(1);
-                ip = data.get(2);
-            }
-
-            Pipeline pipe = jedis.pipelined();
+        executeVoid(store -> {
+            List<Supplier<List<String>>> reads = new ArrayList<>(2);
+            store.batch(batch -> {
+                reads.add(batch.hmget(sessionKey, OWNER_FIELDS));
+                reads.add(batch.hmget(SESSION_OWNERS_KEY, getOwnerFields(uuid)));
+            });
+            List<String> data = mergeOwner(reads.get(1).get(), reads.get(0).get());
+            String username = (usernameArg == null || usernameArg.isEmpty()) ? data.get(0) : usernameArg;
+            store.transaction(tx -> removeSession(tx, uuid, username, data.get(1), data.get(2), data.get(3)));
+            LOGGER.info("[SessionTracker] Session ended for " + (username != null ? username : uuid));
+        });
+    }
 
-            pipe.del(sessionKey);
+    /**
+     * Enfileira a remoção completa de uma sessão: hash, índice de heartbeat, registro de dono e sets de online/IP.
+     */
+    private void removeSession(KeyValueBatch tx, UUID uuid, String username, String proxyId, String currentServer, String ip) {
+        tx.del(getSessionKey(uuid));
+        tx.zrem(HEARTBEAT_INDEX_KEY, uuid.toString());
+        tx.hdel(SESSION_OWNERS_KEY, getOwnerFields(uuid));
+
+        if (username != null) {
+            tx.srem(ONLINE_ALL_KEY, username);
+            if (proxyId != null) tx.srem(getProxySetKey(proxyId), username);
+            if (currentServer != null) tx.srem(getServerSetKey(currentServer), username);
+        }
 
-            if (username != null) {
-                pipe.srem(ONLINE_ALL_KEY, username);
-                if (proxyId != null) pipe.srem(getProxySetKey(proxyId), username);
-                if (currentServer != null) pipe.srem(getServerSetKey(currentServer), username);
-            }
+        if (ip != null) {
+            tx.srem(getIpSetKey(ip), uuid.toString());
+        }
+    }
 
-            if (ip != null) {
-                pipe.srem(getIpSetKey(ip), uuid.toString());
+    /**
+     * Encerra as sessões sem heartbeat desde {@code cutoff}. Só as entradas vencidas do índice de
+     * heartbeat são lidas, então o custo acompanha o número de sessões inativas e não o total online.
+     * <p>
+     * Os hashes das sessões ficam sob {@code WATCH} entre a leitura e a remoção, que acontece numa
+     * única transação: se um heartbeat (ou um novo login) chegar nesse meio-tempo, nada é removido e
+     * a leitura é refeita, até {@value #REAPER_ATTEMPTS} tentativas. Usuário, proxy, servidor e IP
+     * vêm do hash de donos, que não expira, então os sets também são limpos quando o hash da sessão
+     * já expirou.
+     *
+     * @param limit Máximo de sessões por chamada.
+     * @return Sessões encerradas.
+     */
+    public int reapStaleSessions(long cutoff, int limit) {
+        return execute(store -> {
+            List<String> stale = store.zrangeByScore(HEARTBEAT_INDEX_KEY, Double.NEGATIVE_INFINITY, cutoff, limit);
+            if (stale.isEmpty()) return 0;
+            List<String> watched = stale.stream().map(member -> SESSION_PREFIX + member).toList();
+
+            for (int attempt = 1; attempt <= REAPER_ATTEMPTS; attempt++) {
+                List<Supplier<List<String>>> sessions = new ArrayList<>(stale.size());
+                List<Supplier<List<String>>> owners = new ArrayList<>(stale.size());
+                List<String> invalid = new ArrayList<>();
+                Map<UUID, List<String>> expired = new LinkedHashMap<>();
+
+                boolean applied = store.transaction(watched,
+                        batch -> {
+                            for (String member : stale) {
+                                sessions.add(batch.hmget(SESSION_PREFIX + member, "username", "proxyId", "currentServer", "ip", "lastHeartbeat"));
+                                owners.add(batch.hmget(SESSION_OWNERS_KEY, getOwnerFields(member)));
+                            }
+                        },
+                        tx -> {
+                            for (int i = 0; i < stale.size(); i++) {
+                                String member = stale.get(i);
+                                List<String> data = sessions.get(i).get();
+                                UUID uuid;
+                                try {
+                                    uuid = UUID.fromString(member);
+                                } catch (IllegalArgumentException e) {
+                                    invalid.add(member);
+                                    continue;
+                                }
+                                // Heartbeat chegou entre a consulta ao índice e a leitura do hash
+                                if (parseLong(data.get(4)) > cutoff) continue;
+                                expired.put(uuid, mergeOwner(owners.get(i).get(), data));
+                            }
+                            if (!invalid.isEmpty()) tx.zrem(HEARTBEAT_INDEX_KEY, invalid.toArray(new String[0]));
+                            expired.forEach((uuid, data) -> removeSession(tx, uuid, data.get(0), data.get(1), data.get(2), data.get(3)));
+                        });
+                if (!applied) continue;
+
+                expired.forEach((uuid, data) -> LOGGER.warning("[SessionTracker] Sessão inativa encerrada: "
+                        + (data.get(0) != null ? data.get(0) : uuid) + (data.get(1) != null ? " (proxy " + data.get(1) + ")" : "")));
+                return expired.size();
             }
+            LOGGER.fine("[SessionTracker] Reaper abortado por " + REAPER_ATTEMPTS
+                    + " conflitos seguidos; as sessões serão verificadas na próxima execução.");
+            return 0;
+        }).orElse(0);
+    }
 
-            pipe.sync();
-            LOGGER.info("[SessionTracker] Session ended for " + (username != null ? username : uuid));
-        });
+    private static long parseLong(String value) {
+        if (value == null) return Long.MIN_VALUE;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
     }
 
     public void endSession(UUID uuid) {
         endSession(uuid, null);
     }
 
+    /**
+     * Heartbeat de um jogador conectado a este nó.
+     *
+     * @param currentServer Servidor atual, ou null para manter o que está salvo.
+     * @param protocol      Versão do protocolo, ou -1 se desconhecida.
+     */
+    public record Heartbeat(UUID uuid, String currentServer, int ping, int protocol) {
+    }
+
     public void updateHeartbeat(UUID uuid, String currentServer, int ping, int protocol) {
         if (uuid == null) return;
-        String sessionKey = getSessionKey(uuid);
-        long now = System.currentTimeMillis();
-
-        executeJedisVoid(jedis -> {
-            if (!jedis.exists(sessionKey)) return;
-
-            List<String> existingData = jedis.hmget(sessionKey, "ip", "proxyId", "username", "currentServer");
-            String ip = existingData.get(0);
-            String proxyId = existingData.get(1);
-            String username = existingData.get(2);
-            String savedServer = existingData.get(3);
-
-            Pipeline pipe = jedis.pipelined();
-            Map<String, String> updates = new HashMap<>();
-            updates.put("lastHeartbeat", String.valueOf(now));
-            updates.put("ping", String.valueOf(ping));
-            if (protocol != -1) updates.put("protocol", String.valueOf(protocol));
+        updateHeartbeats(List.of(new Heartbeat(uuid, currentServer, ping, protocol)));
+    }
 
-            if (currentServer != null) {
-                updates.put("currentServer", currentServer);
+    /**
+     * Renova as sessões de todos os jogadores informados em dois round trips, independente da
+     * quantidade. O primeiro pipeline executa {@link #HEARTBEAT_SCRIPT} por sessão: cada script é
+     * atômico e só grava se a sessão ainda existir, então um hash encerrado nunca é recriado e, sem
+     * {@code WATCH}, uma sessão alterada no meio do ciclo não invalida as demais. O segundo renova os
+     * TTLs dos sets de proxy/servidor/IP das sessões renovadas, cada set uma única vez.
+     *
+     * @return Quantidade de sessões renovadas.
+     */
+    public int updateHeartbeats(Collection<Heartbeat> heartbeats) {
+        if (heartbeats == null || heartbeats.isEmpty()) return 0;
+        long startedAt = System.nanoTime();
+        List<Heartbeat> entries = heartbeats.stream().filter(h -> h != null && h.uuid() != null).toList();
+        int[] renewed = {0};
+
+        executeVoid(store -> {
+            String now = String.valueOf(System.currentTimeMillis());
+            List<Supplier<Object>> results = new ArrayList<>(entries.size());
+            store.batch(batch -> {
+                for (Heartbeat h : entries) {
+                    results.add(batch.eval(HEARTBEAT_SCRIPT,
+                            List.of(getSessionKey(h.uuid()), HEARTBEAT_INDEX_KEY, SESSION_OWNERS_KEY),
+                            List.of(now,
+                                    String.valueOf(h.ping()),
+                                    h.protocol() != -1 ? String.valueOf(h.protocol()) : "",
+                                    h.currentServer() != null ? h.currentServer() : "",
+                                    String.valueOf(SESSION_HASH_TTL_SECONDS),
+                                    h.uuid().toString(),
+                                    getOwnerField(h.uuid(), "currentServer"))));
+                }
+            });
+
+            Map<String, Integer> setTtls = new LinkedHashMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                // Sessão encerrada (ou nunca iniciada): o script não gravou nada
+                if (!(results.get(i).get() instanceof List<?> saved)) {
+                    heartbeatSkipped.incrementAndGet();
+                    continue;
+                }
+                renewed[0]++;
+                Heartbeat h = entries.get(i);
+                String ip = (String) saved.get(0);
+                String proxyId = (String) saved.get(1);
+                String serverToRenew = (h.currentServer() != null) ? h.currentServer() : (String) saved.get(2);
+                if (ip != null) setTtls.put(getIpSetKey(ip), SESSION_HASH_TTL_SECONDS);
+                if (proxyId != null) setTtls.put(getProxySetKey(proxyId), ONLINE_SET_TTL_SECONDS);
+                if (serverToRenew != null) setTtls.put(getServerSetKey(serverToRenew), ONLINE_SET_TTL_SECONDS);
             }
-
-            pipe.hmset(sessionKey, updates);
-            pipe.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
-
-            if (ip != null) pipe.expire(getIpSetKey(ip), SESSION_HASH_TTL_SECONDS);
-
-            if (proxyId != null && username != null) {
-                pipe.expire(getProxySetKey(proxyId), ONLINE_SET_TTL_SECONDS);
+            if (!setTtls.isEmpty()) {
+                store.batch(batch -> setTtls.forEach((key, ttl) -> batch.expire(key, ttl)));
             }
+        });
 
-            String serverToRenew = (currentServer != null) ? currentServer : savedServer;
-            if (serverToRenew != null && username != null) {
-                pipe.expire(getServerSetKey(serverToRenew), ONLINE_SET_TTL_SECONDS);
-            }
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000L;
+        heartbeatCycles.incrementAndGet();
+        lastHeartbeatMillis = elapsedMillis;
+        maxHeartbeatMillis.accumulateAndGet(elapsedMillis, Math::max);
+        lastHeartbeatSessions = renewed[0];
+        return renewed[0];
+    }
 
-            pipe.sync();
-        });
+    /**
+     * Versão Java de {@link #HEARTBEAT_SCRIPT} para backends sem Lua.
+     */
+    private static Object heartbeatLocal(KeyValueStore store, List<String> keys, List<String> args) {
+        String sessionKey = keys.get(0);
+        if (store.hget(sessionKey, "username") == null) return null;
+        List<String> saved = store.hmget(sessionKey, "ip", "proxyId", "currentServer");
+        String server = args.get(3);
+
+        Map<String, String> updates = new HashMap<>();
+        updates.put("lastHeartbeat", args.get(0));
+        updates.put("ping", args.get(1));
+        if (!args.get(2).isEmpty()) updates.put("protocol", args.get(2));
+        if (!server.isEmpty()) updates.put("currentServer", server);
+        store.hset(sessionKey, updates);
+        if (!server.isEmpty() && !server.equals(saved.get(2))) store.hset(keys.get(2), args.get(6), server);
+        store.expire(sessionKey, Long.parseLong(args.get(4)));
+        store.zadd(keys.get(1), Double.parseDouble(args.get(0)), args.get(5));
+        return saved;
+    }
+
+    public HeartbeatStats getHeartbeatStats() {
+        return new HeartbeatStats(heartbeatCycles.get(), lastHeartbeatSessions, lastHeartbeatMillis,
+                maxHeartbeatMillis.get(), heartbeatSkipped.get());
     }
 
     public void updateServer(UUID uuid, String username, String oldServer, String newServer) {
         if (uuid == null || username == null) return;
         String sessionKey = getSessionKey(uuid);
 
-        executeJedisVoid(jedis -> {
-            Pipeline pipe = jedis.pipelined();
-
-            if (newServer != null) {
-                pipe.hset(sessionKey, "currentServer", newServer);
-            } else {
-                pipe.hdel(sessionKey, "currentServer");
-            }
-
-            if (oldServer != null) pipe.srem(getServerSetKey(oldServer), username);
-            if (newServer != null) {
-                pipe.sadd(getServerSetKey(newServer), username);
-                pipe.expire(getServerSetKey(newServer), ONLINE_SET_TTL_SECONDS);
-            }
-
-            pipe.sync();
+        executeVoid(store -> {
+            store.batch(batch -> {
+                if (newServer != null) {
+                    batch.hset(sessionKey, "currentServer", newServer);
+                    batch.hset(SESSION_OWNERS_KEY, getOwnerField(uuid, "currentServer"), newServer);
+                } else {
+                    batch.hdel(sessionKey, "currentServer");
+                    batch.hdel(SESSION_OWNERS_KEY, getOwnerField(uuid, "currentServer"));
+                }
+
+                if (oldServer != null) batch.srem(getServerSetKey(oldServer), username);
+                if (newServer != null) {
+                    batch.sadd(getServerSetKey(newServer), username);
+                    batch.expire(getServerSetKey(newServer), ONLINE_SET_TTL_SECONDS);
+                }
+            });
             LOGGER.fine("[SessionTracker] Server updated for " + username + ": " + oldServer + " -> " + newServer);
         });
     }
 
     public long getActiveSessionsCountByIp(String ip) {
         if (ip == null) return 0;
-        return executeJedis(jedis -> jedis.scard(getIpSetKey(ip))).orElse(0L);
+        return execute(store -> store.scard(getIpSetKey(ip))).orElse(0L);
     }
 
     public Optional<String> getSessionField(UUID uuid, String field) {
         if (uuid == null) return Optional.empty();
-        return executeJedis(jedis -> jedis.hget(getSessionKey(uuid), field));
+        return execute(store -> store.hget(getSessionKey(uuid), field));
     }
 
     public void setSessionField(UUID uuid, String field, String value) {
         if (uuid == null || value == null) return;
-        executeJedisVoid(jedis -> {
-            if (jedis.exists(getSessionKey(uuid))) {
-                jedis.hset(getSessionKey(uuid), field, value);
+        executeVoid(store -> {
+            if (store.exists(getSessionKey(uuid))) {
+                store.hset(getSessionKey(uuid), field, value);
+            }
+        });
+    }
+
+    /**
+     * Grava vários campos da sessão num único pipeline (só se a sessão ainda existir).
+     * Um campo {@code state} também renova o {@code lastHeartbeat} e o TTL, como em {@link #setSessionState}.
+     */
+    public void setSessionFields(UUID uuid, Map<String, String> fields) {
+        if (uuid == null || fields == null || fields.isEmpty()) return;
+        String sessionKey = getSessionKey(uuid);
+        Map<String, String> values = new HashMap<>();
+        fields.forEach((field, value) -> {
+            if (value != null) values.put(field, value);
+        });
+        boolean stateChange = values.containsKey("state");
+        if (stateChange) values.put("lastHeartbeat", String.valueOf(System.currentTimeMillis()));
+
+        executeVoid(store -> {
+            if (store.exists(sessionKey)) {
+                store.batch(batch -> {
+                    batch.hset(sessionKey, values);
+                    if (stateChange) {
+                        batch.expire(sessionKey, SESSION_HASH_TTL_SECONDS);
+                        batch.zadd(HEARTBEAT_INDEX_KEY, Double.parseDouble(values.get("lastHeartbeat")), uuid.toString());
+                    }
+                });
             }
         });
     }
 
     public Set<String> getOnlineUsernames() {
-        return executeJedis(jedis -> jedis.smembers(ONLINE_ALL_KEY)).orElse(Collections.emptySet());
+        return execute(store -> store.smembers(ONLINE_ALL_KEY)).orElse(Collections.emptySet());
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import com.mongodb.client.model.IndexOptions;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Coleção de documentos independente de backend (MongoDB ou memória).
+ * Filtros, updates e ordenações usam os builders do driver ({@code Filters}, {@code Updates}, {@code Sorts}).
+ * Um filtro {@code null} corresponde a todos os documentos.
+ *
+ * @param <T> Tipo da entidade armazenada.
+ */
+public interface DocumentCollection<T> {
+
+    Optional<T> findOne(Bson filter);
+
+    List<T> find(Bson filter);
+
+    /**
+     * @param sort       Ordenação (pode ser null).
+     * @param projection Campos desejados. É apenas uma otimização: backends podem devolver o documento inteiro.
+     * @param limit      Máximo de resultados (0 = sem limite).
+     */
+    List<T> find(Bson filter, Bson sort, Bson projection, int limit);
+
+    void forEach(Bson filter, Consumer<T> consumer);
+
+    long count(Bson filter);
+
+    void insert(T entity);
+
+    /**
+     * Substitui o primeiro documento que casa com o filtro.
+     * @return true se algum documento foi substituído ou inserido.
+     */
+    boolean replace(Bson filter, T entity, boolean upsert);
+
+    /**
+     * @return Quantidade de documentos modificados (0 ou 1).
+     */
+    long updateOne(Bson filter, Bson update);
+
+    /**
+     * Update de documento único com filtros de array para operadores posicionais {@code $[identificador]}.
+     * @return Quantidade de documentos modificados (0 ou 1).
+     */
+    long updateOne(Bson filter, Bson update, List<? extends Bson> arrayFilters);
+
+    long updateMany(Bson filter, Bson update);
+
+    /**
+     * Update com filtros de array para operadores posicionais {@code $[identificador]}.
+     */
+    long updateMany(Bson filter, Bson update, List<? extends Bson> arrayFilters);
+
+    /**
+     * Vários updates de documento único numa só ida ao banco. Com {@code ordered = false} os
+     * updates podem ser aplicados em qualquer ordem e uma falha não interrompe os demais.
+     * @return Quantidade de documentos modificados.
+     */
+    default long bulkUpdate(List<DocumentUpdate> updates, boolean ordered) {
+        long modified = 0;
+        for (DocumentUpdate update : updates) {
+            modified += update.arrayFilters().isEmpty()
+                    ? updateOne(update.filter(), update.update())
+                    : updateOne(update.filter(), update.update(), update.arrayFilters());
+        }
+        return modified;
+    }
+
+    /**
+     * Aplica o update ao primeiro documento que casa com o filtro e devolve o estado após o update.
+     */
+    Optional<T> findOneAndUpdate(Bson filter, Bson update, boolean upsert);
+
+    long deleteOne(Bson filter);
+
+    long deleteMany(Bson filter);
+
+    void createIndex(Bson keys, IndexOptions options);
+
+    default void createIndex(Bson keys) {
+        createIndex(keys, new IndexOptions());
+    }
+}
@@ -0,0 +1,14 @@
+package com.realmmc.controller.shared.storage.backend;
+
+/**
+ * Fonte de coleções de documentos (um banco de dados).
+ */
+public interface DocumentStore {
+
+    <T> DocumentCollection<T> collection(String name, Class<T> type);
+
+    /**
+     * Verifica se o backend está acessível. Lança exceção em caso de falha.
+     */
+    void ping();
+}
@@ -0,0 +1,19 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import org.bson.conversions.Bson;
+
+import java.util.List;
+
+/**
+ * Um update de documento único dentro de {@link DocumentCollection#bulkUpdate}.
+ *
+ * @param filter       Filtro do documento.
+ * @param update       Operadores de update ({@code $set}, {@code $inc}, ...).
+ * @param arrayFilters Filtros dos posicionais {@code $[identificador]} usados no update (vazio se não houver).
+ */
+public record DocumentUpdate(Bson filter, Bson update, List<? extends Bson> arrayFilters) {
+
+    public DocumentUpdate(Bson filter, Bson update) {
+        this(filter, update, List.of());
+    }
+}
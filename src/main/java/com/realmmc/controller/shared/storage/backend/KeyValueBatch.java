@@ -0,0 +1,64 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Lote de comandos enviados ao {@link KeyValueStore} num único round trip (pipeline no Redis).
+ * Leituras devolvem um {@link Supplier} cujo valor só fica disponível depois que
+ * {@link KeyValueStore#batch} retorna.
+ */
+public interface KeyValueBatch {
+
+    Supplier<String> get(String key);
+
+    void set(String key, String value);
+
+    void setex(String key, long seconds, String value);
+
+    Supplier<Boolean> exists(String key);
+
+    void del(String... keys);
+
+    void expire(String key, long seconds);
+
+    Supplier<Long> incrBy(String key, long delta);
+
+    Supplier<String> hget(String key, String field);
+
+    Supplier<List<String>> hmget(String key, String... fields);
+
+    Supplier<Map<String, String>> hgetAll(String key);
+
+    void hset(String key, String field, String value);
+
+    void hset(String key, Map<String, String> values);
+
+    void hdel(String key, String... fields);
+
+    void sadd(String key, String... members);
+
+    void srem(String key, String... members);
+
+    Supplier<Long> scard(String key);
+
+    Supplier<Set<String>> smembers(String key);
+
+    void zadd(String key, double score, String member);
+
+    void zrem(String key, String... members);
+
+    void publish(String channel, byte[] message);
+
+    /**
+     * Adiciona uma entrada ao stream, mantendo aproximadamente {@code maxLength} entradas.
+     */
+    void xadd(String stream, Map<String, String> fields, long maxLength);
+
+    /**
+     * Executa o script atomicamente; o resultado segue a conversão descrita em {@link KeyValueScript}.
+     */
+    Supplier<Object> eval(KeyValueScript script, List<String> keys, List<String> args);
+}
@@ -0,0 +1,23 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import java.util.List;
+
+/**
+ * Script executado atomicamente pelo {@link KeyValueStore} ({@code EVALSHA} no Redis). Além do
+ * código Lua, carrega uma implementação equivalente em Java usada pelos backends que não
+ * interpretam Lua (o store em memória a executa sob o próprio lock).
+ * <p>
+ * O resultado segue a conversão do Redis: {@code false}/{@code nil} viram {@code null}, strings
+ * viram {@link String}, inteiros {@link Long} e tabelas {@link List} (elementos {@code false}
+ * viram {@code null}).
+ *
+ * @param lua   Código do script; as chaves tocadas precisam vir em {@code KEYS}.
+ * @param local Implementação equivalente sobre a API do {@link KeyValueStore}.
+ */
+public record KeyValueScript(String lua, Local local) {
+
+    @FunctionalInterface
+    public interface Local {
+        Object run(KeyValueStore store, List<String> keys, List<String> args);
+    }
+}
@@ -0,0 +1,125 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Armazenamento chave-valor com a semântica do Redis usada pelo controller:
+ * strings, hashes, sets, sorted sets, TTLs, streams e pub/sub.
+ */
+public interface KeyValueStore {
+
+    String ping();
+
+    String get(String key);
+
+    void set(String key, String value);
+
+    void setex(String key, long seconds, String value);
+
+    /**
+     * Grava a chave com TTL somente se ela ainda não existir ({@code SET NX EX}).
+     * @return true se esta chamada criou a chave.
+     */
+    boolean setnx(String key, long seconds, String value);
+
+    boolean exists(String key);
+
+    long del(String... keys);
+
+    void expire(String key, long seconds);
+
+    long incrBy(String key, long delta);
+
+    String hget(String key, String field);
+
+    List<String> hmget(String key, String... fields);
+
+    Map<String, String> hgetAll(String key);
+
+    void hset(String key, String field, String value);
+
+    void hset(String key, Map<String, String> values);
+
+    long hdel(String key, String... fields);
+
+    long sadd(String key, String... members);
+
+    long srem(String key, String... members);
+
+    long scard(String key);
+
+    Set<String> smembers(String key);
+
+    boolean sismember(String key, String member);
+
+    long zadd(String key, double score, String member);
+
+    long zrem(String key, String... members);
+
+    Double zscore(String key, String member);
+
+    /**
+     * Membros com score entre {@code min} e {@code max} (inclusivos), em ordem crescente.
+     * @param limit Máximo de membros (0 = sem limite).
+     */
+    List<String> zrangeByScore(String key, double min, double max, int limit);
+
+    void publish(String channel, byte[] message);
+
+    /**
+     * Adiciona uma entrada ao stream, mantendo aproximadamente {@code maxLength} entradas.
+     * @return Id da entrada criada.
+     */
+    String xadd(String stream, Map<String, String> fields, long maxLength);
+
+    /**
+     * Lê entradas do stream a partir de {@code start} ({@code <id>} inclusivo ou {@code (<id>} exclusivo), em ordem.
+     */
+    List<KeyValueStreamEntry> xrange(String stream, String start, int count);
+
+    /**
+     * Lê as últimas {@code count} entradas do stream, da mais nova para a mais antiga ({@code XREVRANGE + -}).
+     */
+    List<KeyValueStreamEntry> xrevrange(String stream, int count);
+
+    /**
+     * Executa os comandos num único round trip.
+     */
+    void batch(Consumer<KeyValueBatch> commands);
+
+    /**
+     * Como {@link #batch}, mas os comandos são aplicados atomicamente ({@code MULTI/EXEC}):
+     * nenhum outro cliente observa um estado intermediário.
+     */
+    void transaction(Consumer<KeyValueBatch> commands);
+
+    /**
+     * Transação otimista ({@code WATCH/MULTI/EXEC}): observa {@code watchedKeys}, executa as
+     * leituras de {@code reads} num pipeline e só então enfileira {@code commands}, que já pode
+     * consultar os valores lidos para decidir o que gravar. Os comandos são aplicados atomicamente
+     * e apenas se nenhuma chave observada mudou desde o {@code WATCH}.
+     * @return false se alguma chave observada mudou; nesse caso nada foi aplicado.
+     */
+    boolean transaction(Collection<String> watchedKeys, Consumer<KeyValueBatch> reads, Consumer<KeyValueBatch> commands);
+
+    /**
+     * Indica se mensagens publicadas podem ser entregues diretamente, sem conexão de subscrição
+     * (backends locais). Quando false, o {@code RedisSubscriber} usa a conexão Redis.
+     */
+    default boolean supportsDirectSubscription() {
+        return false;
+    }
+
+    /**
+     * Registra um receptor para todas as mensagens publicadas neste store.
+     * @return Handle para cancelar a inscrição.
+     */
+    default AutoCloseable subscribeDirect(BiConsumer<String, byte[]> sink) {
+        throw new UnsupportedOperationException("Direct subscription not supported by " + getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,12 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import java.util.Map;
+
+/**
+ * Entrada de um stream (log append-only) do {@link KeyValueStore}.
+ *
+ * @param id     Identificador no formato {@code <millis>-<seq>}.
+ * @param fields Campos da entrada.
+ */
+public record KeyValueStreamEntry(String id, Map<String, String> fields) {
+}
@@ -0,0 +1,47 @@
+package com.realmmc.controller.shared.storage.backend;
+
+import com.realmmc.controller.shared.storage.memory.InMemoryDocumentStore;
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+
+/**
+ * Ponto único de acesso aos backends de armazenamento ativos.
+ * O {@code DatabaseModule} instala MongoDB/Redis; com {@code -DCONTROLLER_STORAGE=memory}
+ * (ou em testes/benchmarks) instala as implementações em memória.
+ */
+public final class StorageBackends {
+    private static volatile DocumentStore documents;
+    private static volatile KeyValueStore keyValue;
+
+    private StorageBackends() {
+    }
+
+    public static synchronized void install(DocumentStore documentStore, KeyValueStore keyValueStore) {
+        documents = documentStore;
+        keyValue = keyValueStore;
+    }
+
+    public static synchronized void installInMemory() {
+        install(new InMemoryDocumentStore(), new InMemoryKeyValueStore());
+    }
+
+    public static synchronized void reset() {
+        documents = null;
+        keyValue = null;
+    }
+
+    public static boolean isInMemoryRequested() {
+        return "memory".equalsIgnoreCase(System.getProperty("CONTROLLER_STORAGE", ""));
+    }
+
+    public static DocumentStore documents() {
+        DocumentStore current = documents;
+        if (current == null) throw new IllegalStateException("Document storage backend not initialized");
+        return current;
+    }
+
+    public static KeyValueStore keyValue() {
+        KeyValueStore current = keyValue;
+        if (current == null) throw new IllegalStateException("Key-value storage backend not initialized");
+        return current;
+    }
+}
@@ -0,0 +1,566 @@
+package com.realmmc.controller.shared.storage.memory;
+
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Avaliador dos operadores de consulta, atualização e ordenação do MongoDB usados pelo controller,
+ * aplicado a {@link BsonDocument}s em memória.
+ * <p>
+ * Consultas: igualdade implícita, {@code $eq $ne $gt $gte $lt $lte $in $nin $exists $regex $not
+ * $elemMatch $size $all $and $or $nor}, caminhos com ponto e travessia de arrays.
+ * Updates: {@code $set $setOnInsert $unset $inc $mul $min $max $push $addToSet $pull $pullAll
+ * $rename $currentDate}, incluindo os posicionais {@code $[]} e {@code $[identificador]}.
+ */
+final class BsonQueries {
+
+    private BsonQueries() {
+    }
+
+    // --- Consultas ---
+
+    static boolean matches(BsonDocument doc, BsonDocument filter) {
+        if (filter == null) return true;
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue condition = entry.getValue();
+            boolean ok = switch (key) {
+                case "$and" -> allMatch(doc, condition.asArray());
+                case "$or" -> anyMatch(doc, condition.asArray());
+                case "$nor" -> !anyMatch(doc, condition.asArray());
+                default -> {
+                    if (key.startsWith("$")) throw new UnsupportedOperationException("Operador de consulta não suportado em memória: " + key);
+                    yield matchField(resolve(doc, key), condition);
+                }
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static boolean allMatch(BsonDocument doc, BsonArray filters) {
+        for (BsonValue f : filters) if (!matches(doc, f.asDocument())) return false;
+        return true;
+    }
+
+    private static boolean anyMatch(BsonDocument doc, BsonArray filters) {
+        for (BsonValue f : filters) if (matches(doc, f.asDocument())) return true;
+        return false;
+    }
+
+    private static boolean matchField(List<BsonValue> values, BsonValue condition) {
+        if (isOperatorDocument(condition)) {
+            BsonDocument ops = condition.asDocument();
+            for (Map.Entry<String, BsonValue> op : ops.entrySet()) {
+                if (!matchOperator(values, op.getKey(), op.getValue(), ops)) return false;
+            }
+            return true;
+        }
+        return matchesEquality(values, condition);
+    }
+
+    private static boolean matchOperator(List<BsonValue> values, String op, BsonValue arg, BsonDocument ops) {
+        return switch (op) {
+            case "$eq" -> matchesEquality(values, arg);
+            case "$ne" -> !matchesEquality(values, arg);
+            case "$gt" -> anyCompare(values, arg, c -> c > 0);
+            case "$gte" -> anyCompare(values, arg, c -> c >= 0);
+            case "$lt" -> anyCompare(values, arg, c -> c < 0);
+            case "$lte" -> anyCompare(values, arg, c -> c <= 0);
+            case "$in" -> {
+                for (BsonValue candidate : arg.asArray()) if (matchesEquality(values, candidate)) yield true;
+                yield false;
+            }
+            case "$nin" -> {
+                for (BsonValue candidate : arg.asArray()) if (matchesEquality(values, candidate)) yield false;
+                yield true;
+            }
+            case "$exists" -> arg.asBoolean().getValue() != values.isEmpty();
+            case "$regex" -> {
+                String options = ops.containsKey("$options") ? ops.getString("$options").getValue() : "";
+                Pattern pattern = arg.isRegularExpression()
+                        ? compile(arg.asRegularExpression().getPattern(), arg.asRegularExpression().getOptions() + options)
+                        : compile(arg.asString().getValue(), options);
+                yield anyRegex(values, pattern);
+            }
+            case "$options" -> true; // Tratado junto com $regex
+            case "$not" -> !matchField(values, arg);
+            case "$elemMatch" -> {
+                for (BsonValue value : values) {
+                    if (!value.isArray()) continue;
+                    for (BsonValue element : value.asArray()) {
+                        if (isOperatorDocument(arg) && !isLogicalOperator(arg.asDocument().getFirstKey())) {
+                            if (matchField(List.of(element), arg)) yield true;
+                        } else if (element.isDocument() && matches(element.asDocument(), arg.asDocument())) {
+                            yield true;
+                        }
+                    }
+                }
+                yield false;
+            }
+            case "$size" -> {
+                for (BsonValue value : values) {
+                    if (value.isArray() && value.asArray().size() == arg.asNumber().intValue()) yield true;
+                }
+                yield false;
+            }
+            case "$all" -> {
+                for (BsonValue required : arg.asArray()) if (!matchesEquality(values, required)) yield false;
+                yield true;
+            }
+            default -> throw new UnsupportedOperationException("Operador de consulta não suportado em memória: " + op);
+        };
+    }
+
+    private static boolean isLogicalOperator(String key) {
+        return key.equals("$and") || key.equals("$or") || key.equals("$nor");
+    }
+
+    private static boolean isOperatorDocument(BsonValue value) {
+        if (!value.isDocument() || value.asDocument().isEmpty()) return false;
+        return value.asDocument().getFirstKey().startsWith("$");
+    }
+
+    private static boolean matchesEquality(List<BsonValue> values, BsonValue target) {
+        if (target.isNull()) {
+            if (values.isEmpty()) return true;
+            for (BsonValue v : values) {
+                if (v.isNull()) return true;
+                if (v.isArray() && v.asArray().contains(BsonNull.VALUE)) return true;
+            }
+            return false;
+        }
+        if (target.isRegularExpression()) {
+            BsonRegularExpression regex = target.asRegularExpression();
+            return anyRegex(values, compile(regex.getPattern(), regex.getOptions()));
+        }
+        for (BsonValue v : values) {
+            if (valueEquals(v, target)) return true;
+            if (v.isArray()) {
+                for (BsonValue element : v.asArray()) if (valueEquals(element, target)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyCompare(List<BsonValue> values, BsonValue target, java.util.function.IntPredicate test) {
+        for (BsonValue v : expandArrays(values)) {
+            if (typeClass(v) != typeClass(target)) continue;
+            if (test.test(compareValues(v, target))) return true;
+        }
+        return false;
+    }
+
+    private static boolean anyRegex(List<BsonValue> values, Pattern pattern) {
+        for (BsonValue v : expandArrays(values)) {
+            if (v.isString() && pattern.matcher(v.asString().getValue()).find()) return true;
+        }
+        return false;
+    }
+
+    private static List<BsonValue> expandArrays(List<BsonValue> values) {
+        List<BsonValue> expanded = new ArrayList<>(values.size());
+        for (BsonValue v : values) {
+            if (v.isArray()) expanded.addAll(v.asArray().getValues());
+            else expanded.add(v);
+        }
+        return expanded;
+    }
+
+    private static Pattern compile(String pattern, String options) {
+        int flags = 0;
+        if (options != null) {
+            if (options.contains("i")) flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            if (options.contains("m")) flags |= Pattern.MULTILINE;
+            if (options.contains("s")) flags |= Pattern.DOTALL;
+            if (options.contains("x")) flags |= Pattern.COMMENTS;
+        }
+        return Pattern.compile(pattern, flags);
+    }
+
+    /**
+     * Resolve um caminho com pontos, atravessando arrays como o MongoDB.
+     * Campos ausentes não geram valores.
+     */
+    static List<BsonValue> resolve(BsonDocument doc, String path) {
+        List<BsonValue> out = new ArrayList<>();
+        resolve(doc, path.split("\\."), 0, out);
+        return out;
+    }
+
+    private static void resolve(BsonValue current, String[] parts, int index, List<BsonValue> out) {
+        if (index == parts.length) {
+            out.add(current);
+            return;
+        }
+        String part = parts[index];
+        if (current.isDocument()) {
+            BsonValue child = current.asDocument().get(part);
+            if (child != null) resolve(child, parts, index + 1, out);
+        } else if (current.isArray()) {
+            BsonArray array = current.asArray();
+            if (isIndex(part)) {
+                int i = Integer.parseInt(part);
+                if (i < array.size()) resolve(array.get(i), parts, index + 1, out);
+            }
+            for (BsonValue element : array) {
+                if (element.isDocument()) resolve(element, parts, index, out);
+            }
+        }
+    }
+
+    // --- Comparação ---
+
+    static boolean valueEquals(BsonValue a, BsonValue b) {
+        if (a.isNumber() && b.isNumber()) return compareValues(a, b) == 0;
+        return a.equals(b);
+    }
+
+    private static int typeClass(BsonValue v) {
+        return switch (v.getBsonType()) {
+            case NULL, UNDEFINED -> 1;
+            case INT32, INT64, DOUBLE, DECIMAL128 -> 2;
+            case STRING, SYMBOL -> 3;
+            case DOCUMENT -> 4;
+            case ARRAY -> 5;
+            case BINARY -> 6;
+            case OBJECT_ID -> 7;
+            case BOOLEAN -> 8;
+            case DATE_TIME -> 9;
+            case TIMESTAMP -> 10;
+            case REGULAR_EXPRESSION -> 11;
+            default -> 12;
+        };
+    }
+
+    static int compareValues(BsonValue a, BsonValue b) {
+        int typeDiff = Integer.compare(typeClass(a), typeClass(b));
+        if (typeDiff != 0) return typeDiff;
+        return switch (a.getBsonType()) {
+            case INT32, INT64, DOUBLE, DECIMAL128 -> compareNumbers(a, b);
+            case STRING -> a.asString().getValue().compareTo(b.asString().getValue());
+            case BOOLEAN -> Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            case DATE_TIME -> Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            case TIMESTAMP -> a.asTimestamp().compareTo(b.asTimestamp());
+            case OBJECT_ID -> a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case BINARY -> Arrays.compare(a.asBinary().getData(), b.asBinary().getData());
+            default -> a.equals(b) ? 0 : a.toString().compareTo(b.toString());
+        };
+    }
+
+    private static int compareNumbers(BsonValue a, BsonValue b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+        }
+        return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+    }
+
+    private static boolean isIntegral(BsonValue v) {
+        return v.getBsonType() == BsonType.INT32 || v.getBsonType() == BsonType.INT64;
+    }
+
+    /**
+     * Comparador a partir de uma especificação {@code {campo: 1|-1}}.
+     */
+    static Comparator<BsonDocument> comparator(BsonDocument sort) {
+        Comparator<BsonDocument> comparator = (x, y) -> 0;
+        if (sort == null) return comparator;
+        for (Map.Entry<String, BsonValue> entry : sort.entrySet()) {
+            String path = entry.getKey();
+            boolean descending = entry.getValue().isNumber() && entry.getValue().asNumber().intValue() < 0;
+            Comparator<BsonDocument> field = (x, y) -> compareValues(sortKey(x, path), sortKey(y, path));
+            comparator = comparator.thenComparing(descending ? field.reversed() : field);
+        }
+        return comparator;
+    }
+
+    private static BsonValue sortKey(BsonDocument doc, String path) {
+        List<BsonValue> values = resolve(doc, path);
+        return values.isEmpty() ? BsonNull.VALUE : values.get(0);
+    }
+
+    // --- Updates ---
+
+    /**
+     * Cópia profunda de um valor BSON (documentos e arrays são mutáveis; os demais tipos usados aqui não).
+     */
+    static BsonValue copy(BsonValue value) {
+        if (value.isDocument()) return value.asDocument().clone();
+        if (value.isArray()) return value.asArray().clone();
+        return value;
+    }
+
+    /**
+     * Aplica um documento de update.
+     * @return true se o documento mudou.
+     */
+    static boolean applyUpdate(BsonDocument doc, BsonDocument update, List<BsonDocument> arrayFilters, boolean inserting) {
+        BsonDocument before = doc.clone();
+        for (Map.Entry<String, BsonValue> opEntry : update.entrySet()) {
+            String op = opEntry.getKey();
+            BsonDocument fields = opEntry.getValue().asDocument();
+            for (Map.Entry<String, BsonValue> field : fields.entrySet()) {
+                String path = field.getKey();
+                BsonValue arg = field.getValue();
+                switch (op) {
+                    case "$set" -> forEachSlot(doc, path, arrayFilters, true, slot -> slot.set(copy(arg)));
+                    case "$setOnInsert" -> {
+                        if (inserting) forEachSlot(doc, path, arrayFilters, true, slot -> slot.set(copy(arg)));
+                    }
+                    case "$unset" -> forEachSlot(doc, path, arrayFilters, false, Slot::remove);
+                    case "$inc" -> forEachSlot(doc, path, arrayFilters, true, slot -> slot.set(add(slot.get(), arg)));
+                    case "$mul" -> forEachSlot(doc, path, arrayFilters, true, slot -> slot.set(multiply(slot.get(), arg)));
+                    case "$min" -> forEachSlot(doc, path, arrayFilters, true, slot -> {
+                        BsonValue current = slot.get();
+                        if (current == null || compareValues(arg, current) < 0) slot.set(copy(arg));
+                    });
+                    case "$max" -> forEachSlot(doc, path, arrayFilters, true, slot -> {
+                        BsonValue current = slot.get();
+                        if (current == null || compareValues(arg, current) > 0) slot.set(copy(arg));
+                    });
+                    case "$currentDate" -> forEachSlot(doc, path, arrayFilters, true, slot -> slot.set(new BsonDateTime(System.currentTimeMillis())));
+                    case "$push" -> forEachSlot(doc, path, arrayFilters, true, slot -> {
+                        BsonArray array = arrayOf(slot, path);
+                        for (BsonValue item : eachValues(arg)) array.add(copy(item));
+                        if (arg.isDocument() && arg.asDocument().containsKey("$slice")) slice(array, arg.asDocument().getNumber("$slice").intValue());
+                    });
+                    case "$addToSet" -> forEachSlot(doc, path, arrayFilters, true, slot -> {
+                        BsonArray array = arrayOf(slot, path);
+                        for (BsonValue item : eachValues(arg)) {
+                            if (array.stream().noneMatch(existing -> valueEquals(existing, item))) array.add(copy(item));
+                        }
+                    });
+                    case "$pull" -> forEachSlot(doc, path, arrayFilters, false, slot -> {
+                        BsonValue current = slot.get();
+                        if (current != null && current.isArray()) current.asArray().removeIf(element -> pullMatches(element, arg));
+                    });
+                    case "$pullAll" -> forEachSlot(doc, path, arrayFilters, false, slot -> {
+                        BsonValue current = slot.get();
+                        if (current != null && current.isArray()) {
+                            current.asArray().removeIf(element -> arg.asArray().stream().anyMatch(v -> valueEquals(element, v)));
+                        }
+                    });
+                    case "$rename" -> {
+                        List<BsonValue> values = resolve(doc, path);
+                        if (!values.isEmpty()) {
+                            BsonValue value = values.get(0);
+                            forEachSlot(doc, path, arrayFilters, false, Slot::remove);
+                            forEachSlot(doc, arg.asString().getValue(), arrayFilters, true, slot -> slot.set(value));
+                        }
+                    }
+                    default -> throw new UnsupportedOperationException("Operador de update não suportado em memória: " + op);
+                }
+            }
+        }
+        return !before.equals(doc);
+    }
+
+    /**
+     * {@code $slice} do {@code $push}: positivo mantém os primeiros, negativo os últimos.
+     */
+    private static void slice(BsonArray array, int n) {
+        int keep = Math.min(Math.abs(n), array.size());
+        if (n >= 0) {
+            while (array.size() > keep) array.remove(array.size() - 1);
+        } else {
+            while (array.size() > keep) array.remove(0);
+        }
+    }
+
+    private static List<BsonValue> eachValues(BsonValue arg) {
+        if (arg.isDocument() && arg.asDocument().containsKey("$each")) {
+            return arg.asDocument().getArray("$each").getValues();
+        }
+        return List.of(arg);
+    }
+
+    private static BsonArray arrayOf(Slot slot, String path) {
+        BsonValue current = slot.get();
+        if (current == null || current.isNull()) {
+            BsonArray array = new BsonArray();
+            slot.set(array);
+            return array;
+        }
+        if (!current.isArray()) throw new IllegalArgumentException("O campo '" + path + "' não é um array");
+        return current.asArray();
+    }
+
+    private static boolean pullMatches(BsonValue element, BsonValue condition) {
+        if (isOperatorDocument(condition)) return matchField(List.of(element), condition);
+        if (condition.isDocument() && element.isDocument()) return matches(element.asDocument(), condition.asDocument());
+        return valueEquals(element, condition);
+    }
+
+    private static BsonValue add(BsonValue current, BsonValue delta) {
+        if (current == null || current.isNull()) return copy(delta);
+        if (!current.isNumber()) throw new IllegalArgumentException("$inc aplicado a valor não numérico");
+        if (current.getBsonType() == BsonType.DOUBLE || delta.getBsonType() == BsonType.DOUBLE) {
+            return new BsonDouble(current.asNumber().doubleValue() + delta.asNumber().doubleValue());
+        }
+        if (current.getBsonType() == BsonType.INT64 || delta.getBsonType() == BsonType.INT64) {
+            return new BsonInt64(current.asNumber().longValue() + delta.asNumber().longValue());
+        }
+        long sum = (long) current.asInt32().getValue() + delta.asNumber().intValue();
+        return sum == (int) sum ? new BsonInt32((int) sum) : new BsonInt64(sum);
+    }
+
+    private static BsonValue multiply(BsonValue current, BsonValue factor) {
+        if (current == null || current.isNull()) return factor.isDouble() ? new BsonDouble(0) : new BsonInt32(0);
+        if (current.getBsonType() == BsonType.DOUBLE || factor.getBsonType() == BsonType.DOUBLE) {
+            return new BsonDouble(current.asNumber().doubleValue() * factor.asNumber().doubleValue());
+        }
+        return new BsonInt64(current.asNumber().longValue() * factor.asNumber().longValue());
+    }
+
+    /**
+     * Posição alterável dentro do documento (campo de documento ou elemento de array).
+     */
+    interface Slot {
+        BsonValue get();
+
+        void set(BsonValue value);
+
+        void remove();
+    }
+
+    private static void forEachSlot(BsonDocument root, String path, List<BsonDocument> arrayFilters, boolean create,
+                                    java.util.function.Consumer<Slot> action) {
+        walk(root, path.split("\\."), 0, arrayFilters, create, action);
+    }
+
+    private static void walk(BsonValue current, String[] parts, int index, List<BsonDocument> arrayFilters, boolean create,
+                             java.util.function.Consumer<Slot> action) {
+        String part = parts[index];
+        boolean last = index == parts.length - 1;
+
+        if (current.isDocument()) {
+            BsonDocument doc = current.asDocument();
+            if (part.startsWith("$")) throw new UnsupportedOperationException("Operador posicional '" + part + "' aplicado a documento");
+            if (last) {
+                action.accept(new Slot() {
+                    @Override public BsonValue get() { return doc.get(part); }
+                    @Override public void set(BsonValue value) { doc.put(part, value); }
+                    @Override public void remove() { doc.remove(part); }
+                });
+                return;
+            }
+            BsonValue child = doc.get(part);
+            if (child == null || child.isNull()) {
+                if (!create) return;
+                child = isIndex(parts[index + 1]) ? new BsonArray() : new BsonDocument();
+                doc.put(part, child);
+            }
+            walk(child, parts, index + 1, arrayFilters, create, action);
+            return;
+        }
+
+        if (current.isArray()) {
+            BsonArray array = current.asArray();
+            List<Integer> indexes = new ArrayList<>();
+            if ("$[]".equals(part)) {
+                for (int i = 0; i < array.size(); i++) indexes.add(i);
+            } else if (part.startsWith("$[") && part.endsWith("]")) {
+                String identifier = part.substring(2, part.length() - 1);
+                BsonDocument filter = arrayFilterFor(identifier, arrayFilters);
+                for (int i = 0; i < array.size(); i++) {
+                    if (matches(new BsonDocument(identifier, array.get(i)), filter)) indexes.add(i);
+                }
+            } else if (isIndex(part)) {
+                int i = Integer.parseInt(part);
+                while (create && array.size() <= i) array.add(BsonNull.VALUE);
+                if (i < array.size()) indexes.add(i);
+            } else {
+                throw new UnsupportedOperationException("Caminho '" + part + "' inválido para array (operador '$' não suportado em memória)");
+            }
+
+            for (int i : indexes) {
+                if (last) {
+                    final int position = i;
+                    action.accept(new Slot() {
+                        @Override public BsonValue get() { return array.get(position); }
+                        @Override public void set(BsonValue value) { array.set(position, value); }
+                        @Override public void remove() { array.set(position, BsonNull.VALUE); }
+                    });
+                } else {
+                    BsonValue child = array.get(i);
+                    if (child.isDocument() || child.isArray()) walk(child, parts, index + 1, arrayFilters, create, action);
+                }
+            }
+        }
+    }
+
+    private static BsonDocument arrayFilterFor(String identifier, List<BsonDocument> arrayFilters) {
+        if (arrayFilters != null) {
+            for (BsonDocument filter : arrayFilters) {
+                if (identifier.equals(filterIdentifier(filter))) return filter;
+            }
+        }
+        throw new IllegalArgumentException("Nenhum arrayFilter para o identificador '" + identifier + "'");
+    }
+
+    private static String filterIdentifier(BsonDocument filter) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith("$")) {
+                if (entry.getValue().isArray()) {
+                    for (BsonValue nested : entry.getValue().asArray()) {
+                        String id = filterIdentifier(nested.asDocument());
+                        if (id != null) return id;
+                    }
+                }
+                continue;
+            }
+            int dot = key.indexOf('.');
+            return dot < 0 ? key : key.substring(0, dot);
+        }
+        return null;
+    }
+
+    /**
+     * Documento base de um upsert: campos de igualdade do filtro (inclusive dentro de $and).
+     */
+    static BsonDocument seedFromFilter(BsonDocument filter) {
+        BsonDocument seed = new BsonDocument();
+        if (filter != null) collectEqualities(filter, seed);
+        return seed;
+    }
+
+    private static void collectEqualities(BsonDocument filter, BsonDocument seed) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue value = entry.getValue();
+            if ("$and".equals(key)) {
+                for (BsonValue nested : value.asArray()) collectEqualities(nested.asDocument(), seed);
+            } else if (!key.startsWith("$")) {
+                BsonValue equality = value;
+                if (isOperatorDocument(value)) {
+                    if (!value.asDocument().containsKey("$eq")) continue;
+                    equality = value.asDocument().get("$eq");
+                }
+                BsonValue finalValue = copy(equality);
+                forEachSlot(seed, key, null, true, slot -> slot.set(finalValue));
+            }
+        }
+    }
+
+    private static boolean isIndex(String part) {
+        if (part.isEmpty()) return false;
+        for (int i = 0; i < part.length(); i++) if (!Character.isDigit(part.charAt(i))) return false;
+        return true;
+    }
+}
@@ -0,0 +1,296 @@
+package com.realmmc.controller.shared.storage.memory;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.IndexOptions;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Coleção em memória com a semântica de consulta/update do MongoDB (ver {@link BsonQueries}).
+ * Os documentos são guardados como {@link BsonDocument}, codificados com o mesmo
+ * {@link CodecRegistry} do driver, então cada leitura devolve uma cópia independente.
+ * Índices únicos de campo simples são respeitados (erro 11000, como no MongoDB).
+ * Projeções são ignoradas.
+ */
+public final class InMemoryDocumentCollection<T> implements DocumentCollection<T> {
+
+    private final String name;
+    private final CodecRegistry registry;
+    private final Codec<T> codec;
+
+    // Dados compartilhados entre as visões tipadas da mesma coleção; também serve de lock
+    private final Table table;
+    private final Map<BsonValue, BsonDocument> documents;
+    private final List<UniqueIndex> uniqueIndexes;
+
+    InMemoryDocumentCollection(String name, Class<T> type, CodecRegistry registry, Table table) {
+        this.name = name;
+        this.registry = registry;
+        this.codec = registry.get(type);
+        this.table = table;
+        this.documents = table.documents;
+        this.uniqueIndexes = table.uniqueIndexes;
+    }
+
+    /**
+     * Documentos e índices de uma coleção, independentes do tipo da entidade.
+     */
+    static final class Table {
+        private final Map<BsonValue, BsonDocument> documents = new LinkedHashMap<>();
+        private final List<UniqueIndex> uniqueIndexes = new ArrayList<>();
+    }
+
+    @Override
+    public Optional<T> findOne(Bson filter) {
+        synchronized (table) {
+            BsonDocument query = toBson(filter);
+            for (BsonDocument doc : documents.values()) {
+                if (BsonQueries.matches(doc, query)) return Optional.of(decode(doc));
+            }
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<T> find(Bson filter) {
+        return find(filter, null, null, 0);
+    }
+
+    @Override
+    public List<T> find(Bson filter, Bson sort, Bson projection, int limit) {
+        synchronized (table) {
+            List<BsonDocument> matched = matching(toBson(filter));
+            if (sort != null) matched.sort(BsonQueries.comparator(toBson(sort)));
+            int size = limit > 0 ? Math.min(limit, matched.size()) : matched.size();
+            List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) result.add(decode(matched.get(i)));
+            return result;
+        }
+    }
+
+    @Override
+    public void forEach(Bson filter, Consumer<T> consumer) {
+        // Consumidor roda fora do lock
+        find(filter).forEach(consumer);
+    }
+
+    @Override
+    public long count(Bson filter) {
+        synchronized (table) {
+            return matching(toBson(filter)).size();
+        }
+    }
+
+    @Override
+    public void insert(T entity) {
+        synchronized (table) {
+            BsonDocument doc = encode(entity);
+            if (!doc.containsKey("_id")) doc.put("_id", new BsonObjectId(new ObjectId()));
+            if (documents.containsKey(doc.get("_id"))) throw duplicateKey("_id_", doc.get("_id"));
+            checkUnique(doc, null);
+            documents.put(doc.get("_id"), doc);
+        }
+    }
+
+    @Override
+    public boolean replace(Bson filter, T entity, boolean upsert) {
+        synchronized (table) {
+            BsonDocument replacement = encode(entity);
+            BsonDocument existing = first(toBson(filter));
+            if (existing == null) {
+                if (!upsert) return false;
+                if (!replacement.containsKey("_id")) replacement.put("_id", new BsonObjectId(new ObjectId()));
+                checkUnique(replacement, null);
+                documents.put(replacement.get("_id"), replacement);
+                return true;
+            }
+            BsonValue id = existing.get("_id");
+            replacement.put("_id", id);
+            checkUnique(replacement, id);
+            documents.put(id, replacement);
+            return true;
+        }
+    }
+
+    @Override
+    public long updateOne(Bson filter, Bson update) {
+        return updateOne(filter, update, null);
+    }
+
+    @Override
+    public long updateOne(Bson filter, Bson update, List<? extends Bson> arrayFilters) {
+        synchronized (table) {
+            BsonDocument target = first(toBson(filter));
+            return target != null && apply(target, toBson(update), toBson(arrayFilters)) ? 1 : 0;
+        }
+    }
+
+    @Override
+    public long updateMany(Bson filter, Bson update) {
+        return updateMany(filter, update, null);
+    }
+
+    @Override
+    public long updateMany(Bson filter, Bson update, List<? extends Bson> arrayFilters) {
+        synchronized (table) {
+            List<BsonDocument> filters = toBson(arrayFilters);
+            BsonDocument updateDoc = toBson(update);
+            long modified = 0;
+            for (BsonDocument doc : matching(toBson(filter))) {
+                if (apply(doc, updateDoc, filters)) modified++;
+            }
+            return modified;
+        }
+    }
+
+    private List<BsonDocument> toBson(List<? extends Bson> arrayFilters) {
+        if (arrayFilters == null) return null;
+        List<BsonDocument> filters = new ArrayList<>(arrayFilters.size());
+        for (Bson f : arrayFilters) filters.add(toBson(f));
+        return filters;
+    }
+
+    @Override
+    public Optional<T> findOneAndUpdate(Bson filter, Bson update, boolean upsert) {
+        synchronized (table) {
+            BsonDocument query = toBson(filter);
+            BsonDocument target = first(query);
+            if (target != null) {
+                apply(target, toBson(update), null);
+                return Optional.of(decode(target));
+            }
+            if (!upsert) return Optional.empty();
+
+            BsonDocument created = BsonQueries.seedFromFilter(query);
+            BsonQueries.applyUpdate(created, toBson(update), null, true);
+            if (!created.containsKey("_id")) created.put("_id", new BsonObjectId(new ObjectId()));
+            checkUnique(created, null);
+            documents.put(created.get("_id"), created);
+            return Optional.of(decode(created));
+        }
+    }
+
+    @Override
+    public long deleteOne(Bson filter) {
+        synchronized (table) {
+            BsonDocument target = first(toBson(filter));
+            if (target == null) return 0;
+            documents.remove(target.get("_id"));
+            return 1;
+        }
+    }
+
+    @Override
+    public long deleteMany(Bson filter) {
+        synchronized (table) {
+            List<BsonDocument> matched = matching(toBson(filter));
+            for (BsonDocument doc : matched) documents.remove(doc.get("_id"));
+            return matched.size();
+        }
+    }
+
+    @Override
+    public void createIndex(Bson keys, IndexOptions options) {
+        synchronized (table) {
+            if (options == null || !options.isUnique()) return; // Índices comuns não mudam o resultado em memória
+            BsonDocument keyDoc = toBson(keys);
+            if (keyDoc.size() != 1) {
+                throw new UnsupportedOperationException("Índice único composto não suportado em memória: " + keyDoc.toJson());
+            }
+            String field = keyDoc.getFirstKey();
+            String indexName = options.getName() != null ? options.getName() : field + "_" + keyDoc.get(field).asNumber().intValue();
+            Collation collation = options.getCollation();
+            boolean caseInsensitive = collation != null && collation.getStrength() != null
+                    && (collation.getStrength() == CollationStrength.PRIMARY || collation.getStrength() == CollationStrength.SECONDARY);
+            uniqueIndexes.removeIf(index -> index.field.equals(field));
+            uniqueIndexes.add(new UniqueIndex(field, indexName, caseInsensitive));
+        }
+    }
+
+    private boolean apply(BsonDocument doc, BsonDocument update, List<BsonDocument> arrayFilters) {
+        BsonDocument candidate = doc.clone();
+        if (!BsonQueries.applyUpdate(candidate, update, arrayFilters, false)) return false;
+        checkUnique(candidate, candidate.get("_id"));
+        // Atualiza no lugar para manter a ordem de inserção
+        doc.clear();
+        doc.putAll(candidate);
+        return true;
+    }
+
+    private void checkUnique(BsonDocument doc, BsonValue selfId) {
+        for (UniqueIndex index : uniqueIndexes) {
+            Object key = index.key(doc);
+            if (key == null) continue;
+            for (BsonDocument other : documents.values()) {
+                if (selfId != null && selfId.equals(other.get("_id"))) continue;
+                if (key.equals(index.key(other))) throw duplicateKey(index.name, BsonQueries.resolve(doc, index.field).get(0));
+            }
+        }
+    }
+
+    private MongoWriteException duplicateKey(String indexName, BsonValue value) {
+        String message = "E11000 duplicate key error collection: memory." + name + " index: " + indexName + " dup key: { " + value + " }";
+        return new MongoWriteException(new WriteError(11000, message, new BsonDocument()), new ServerAddress());
+    }
+
+    private BsonDocument first(BsonDocument query) {
+        for (BsonDocument doc : documents.values()) {
+            if (BsonQueries.matches(doc, query)) return doc;
+        }
+        return null;
+    }
+
+    private List<BsonDocument> matching(BsonDocument query) {
+        List<BsonDocument> matched = new ArrayList<>();
+        for (BsonDocument doc : documents.values()) {
+            if (BsonQueries.matches(doc, query)) matched.add(doc);
+        }
+        return matched;
+    }
+
+    private BsonDocument toBson(Bson bson) {
+        return bson == null ? null : bson.toBsonDocument(BsonDocument.class, registry);
+    }
+
+    private BsonDocument encode(T entity) {
+        BsonDocument doc = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(doc), entity, EncoderContext.builder().isEncodingCollectibleDocument(true).build());
+        return doc;
+    }
+
+    private T decode(BsonDocument doc) {
+        return codec.decode(new BsonDocumentReader(doc), DecoderContext.builder().build());
+    }
+
+    private record UniqueIndex(String field, String name, boolean caseInsensitive) {
+        Object key(BsonDocument doc) {
+            List<BsonValue> values = BsonQueries.resolve(doc, field);
+            if (values.isEmpty() || values.get(0).isNull()) return null;
+            BsonValue value = values.get(0);
+            if (caseInsensitive && value.isString()) return value.asString().getValue().toLowerCase(Locale.ROOT);
+            return value;
+        }
+    }
+}
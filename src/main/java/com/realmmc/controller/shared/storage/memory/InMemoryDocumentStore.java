@@ -0,0 +1,28 @@
+package com.realmmc.controller.shared.storage.memory;
+
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.DocumentStore;
+import com.realmmc.controller.shared.storage.mongodb.MongoManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DocumentStore} em memória, para desenvolvimento local, testes e benchmarks.
+ * A mesma coleção pode ser aberta com tipos diferentes (ex.: entidade e {@code Document}).
+ */
+public final class InMemoryDocumentStore implements DocumentStore {
+
+    private final Map<String, InMemoryDocumentCollection.Table> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> DocumentCollection<T> collection(String name, Class<T> type) {
+        InMemoryDocumentCollection.Table table = tables.computeIfAbsent(name, n -> new InMemoryDocumentCollection.Table());
+        return new InMemoryDocumentCollection<>(name, type, MongoManager.codecRegistry(), table);
+    }
+
+    @Override
+    public void ping() {
+        // Sempre disponível
+    }
+}
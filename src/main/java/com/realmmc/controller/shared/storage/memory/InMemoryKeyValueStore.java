@@ -0,0 +1,599 @@
+package com.realmmc.controller.shared.storage.memory;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueBatch;
+import com.realmmc.controller.shared.storage.backend.KeyValueScript;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.KeyValueStreamEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link KeyValueStore} em memória com a semântica do Redis usada pelo controller.
+ * TTLs são verificados de forma preguiçosa no acesso. Um {@link #batch} é executado
+ * atomicamente, e mensagens publicadas são entregues diretamente aos inscritos.
+ */
+public final class InMemoryKeyValueStore implements KeyValueStore {
+    private static final Logger LOGGER = Logger.getLogger(InMemoryKeyValueStore.class.getName());
+
+    private final Object lock = new Object();
+    // Valor por chave: String, Map<String,String> (hash), Set<String>, Map<String,Double> (zset) ou Stream
+    private final Map<String, Object> values = new HashMap<>();
+    private final Map<String, Long> expirations = new HashMap<>();
+    private final List<BiConsumer<String, byte[]>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String ping() {
+        return "PONG";
+    }
+
+    @Override
+    public String get(String key) {
+        synchronized (lock) {
+            Object value = live(key);
+            return value instanceof String s ? s : null;
+        }
+    }
+
+    @Override
+    public void set(String key, String value) {
+        synchronized (lock) {
+            values.put(key, value);
+            expirations.remove(key);
+        }
+    }
+
+    @Override
+    public void setex(String key, long seconds, String value) {
+        synchronized (lock) {
+            values.put(key, value);
+            expirations.put(key, System.currentTimeMillis() + seconds * 1000L);
+        }
+    }
+
+    @Override
+    public boolean setnx(String key, long seconds, String value) {
+        synchronized (lock) {
+            if (live(key) != null) return false;
+            setex(key, seconds, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        synchronized (lock) {
+            return live(key) != null;
+        }
+    }
+
+    @Override
+    public long del(String... keys) {
+        synchronized (lock) {
+            long removed = 0;
+            for (String key : keys) {
+                if (live(key) != null) removed++;
+                values.remove(key);
+                expirations.remove(key);
+            }
+            return removed;
+        }
+    }
+
+    @Override
+    public void expire(String key, long seconds) {
+        synchronized (lock) {
+            if (live(key) != null) expirations.put(key, System.currentTimeMillis() + seconds * 1000L);
+        }
+    }
+
+    @Override
+    public long incrBy(String key, long delta) {
+        synchronized (lock) {
+            Object current = live(key);
+            long next = (current instanceof String s ? Long.parseLong(s) : 0L) + delta;
+            values.put(key, Long.toString(next));
+            return next;
+        }
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        synchronized (lock) {
+            Map<String, String> hash = hash(key, false);
+            return hash != null ? hash.get(field) : null;
+        }
+    }
+
+    @Override
+    public List<String> hmget(String key, String... fields) {
+        synchronized (lock) {
+            Map<String, String> hash = hash(key, false);
+            List<String> result = new ArrayList<>(fields.length);
+            for (String field : fields) result.add(hash != null ? hash.get(field) : null);
+            return result;
+        }
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        synchronized (lock) {
+            Map<String, String> hash = hash(key, false);
+            return hash != null ? new HashMap<>(hash) : new HashMap<>();
+        }
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        synchronized (lock) {
+            hash(key, true).put(field, value);
+        }
+    }
+
+    @Override
+    public void hset(String key, Map<String, String> entries) {
+        synchronized (lock) {
+            hash(key, true).putAll(entries);
+        }
+    }
+
+    @Override
+    public long hdel(String key, String... fields) {
+        synchronized (lock) {
+            Map<String, String> hash = hash(key, false);
+            if (hash == null) return 0;
+            long removed = 0;
+            for (String field : fields) if (hash.remove(field) != null) removed++;
+            removeIfEmpty(key, hash.isEmpty());
+            return removed;
+        }
+    }
+
+    @Override
+    public long sadd(String key, String... members) {
+        synchronized (lock) {
+            Set<String> set = set(key, true);
+            long added = 0;
+            for (String member : members) if (set.add(member)) added++;
+            return added;
+        }
+    }
+
+    @Override
+    public long srem(String key, String... members) {
+        synchronized (lock) {
+            Set<String> set = set(key, false);
+            if (set == null) return 0;
+            long removed = 0;
+            for (String member : members) if (set.remove(member)) removed++;
+            removeIfEmpty(key, set.isEmpty());
+            return removed;
+        }
+    }
+
+    @Override
+    public long scard(String key) {
+        synchronized (lock) {
+            Set<String> set = set(key, false);
+            return set != null ? set.size() : 0;
+        }
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        synchronized (lock) {
+            Set<String> set = set(key, false);
+            return set != null ? new HashSet<>(set) : new HashSet<>();
+        }
+    }
+
+    @Override
+    public boolean sismember(String key, String member) {
+        synchronized (lock) {
+            Set<String> set = set(key, false);
+            return set != null && set.contains(member);
+        }
+    }
+
+    @Override
+    public long zadd(String key, double score, String member) {
+        synchronized (lock) {
+            return zset(key, true).put(member, score) == null ? 1 : 0;
+        }
+    }
+
+    @Override
+    public long zrem(String key, String... members) {
+        synchronized (lock) {
+            Map<String, Double> zset = zset(key, false);
+            if (zset == null) return 0;
+            long removed = 0;
+            for (String member : members) if (zset.remove(member) != null) removed++;
+            removeIfEmpty(key, zset.isEmpty());
+            return removed;
+        }
+    }
+
+    @Override
+    public Double zscore(String key, String member) {
+        synchronized (lock) {
+            Map<String, Double> zset = zset(key, false);
+            return zset != null ? zset.get(member) : null;
+        }
+    }
+
+    @Override
+    public List<String> zrangeByScore(String key, double min, double max, int limit) {
+        synchronized (lock) {
+            Map<String, Double> zset = zset(key, false);
+            if (zset == null) return new ArrayList<>();
+            List<Map.Entry<String, Double>> entries = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : zset.entrySet()) {
+                if (entry.getValue() >= min && entry.getValue() <= max) entries.add(entry);
+            }
+            entries.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+            int size = limit > 0 ? Math.min(limit, entries.size()) : entries.size();
+            List<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) result.add(entries.get(i).getKey());
+            return result;
+        }
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        for (BiConsumer<String, byte[]> subscriber : subscribers) {
+            try {
+                subscriber.accept(channel, message);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "[InMemoryKeyValueStore] Erro ao entregar mensagem do canal " + channel, e);
+            }
+        }
+    }
+
+    @Override
+    public String xadd(String stream, Map<String, String> fields, long maxLength) {
+        synchronized (lock) {
+            Object current = live(stream);
+            Stream target;
+            if (current instanceof Stream s) {
+                target = s;
+            } else {
+                target = new Stream();
+                values.put(stream, target);
+            }
+            return target.add(fields, maxLength);
+        }
+    }
+
+    @Override
+    public List<KeyValueStreamEntry> xrange(String stream, String start, int count) {
+        synchronized (lock) {
+            Object current = live(stream);
+            if (!(current instanceof Stream s)) return new ArrayList<>();
+            return s.range(start, count);
+        }
+    }
+
+    @Override
+    public List<KeyValueStreamEntry> xrevrange(String stream, int count) {
+        synchronized (lock) {
+            Object current = live(stream);
+            if (!(current instanceof Stream s)) return new ArrayList<>();
+            return s.latest(count);
+        }
+    }
+
+    @Override
+    public void batch(Consumer<KeyValueBatch> commands) {
+        List<Runnable> publications = new ArrayList<>();
+        synchronized (lock) {
+            commands.accept(new Batch(publications));
+        }
+        // Entrega fora do lock, como o Redis faz após executar o pipeline
+        publications.forEach(Runnable::run);
+    }
+
+    @Override
+    public void transaction(Consumer<KeyValueBatch> commands) {
+        // O batch já roda inteiro sob o lock do store
+        batch(commands);
+    }
+
+    @Override
+    public boolean transaction(Collection<String> watchedKeys, Consumer<KeyValueBatch> reads, Consumer<KeyValueBatch> commands) {
+        // Leituras e escritas sob o mesmo lock: nenhuma chave muda no meio, então nunca aborta
+        List<Runnable> publications = new ArrayList<>();
+        synchronized (lock) {
+            Batch batch = new Batch(publications);
+            reads.accept(batch);
+            commands.accept(batch);
+        }
+        publications.forEach(Runnable::run);
+        return true;
+    }
+
+    @Override
+    public boolean supportsDirectSubscription() {
+        return true;
+    }
+
+    @Override
+    public AutoCloseable subscribeDirect(BiConsumer<String, byte[]> sink) {
+        subscribers.add(sink);
+        return () -> subscribers.remove(sink);
+    }
+
+    // --- Internos (chamados com o lock) ---
+
+    private Object live(String key) {
+        Long expiresAt = expirations.get(key);
+        if (expiresAt != null && expiresAt <= System.currentTimeMillis()) {
+            values.remove(key);
+            expirations.remove(key);
+            return null;
+        }
+        return values.get(key);
+    }
+
+    private void removeIfEmpty(String key, boolean empty) {
+        if (empty) {
+            values.remove(key);
+            expirations.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        Object value = live(key);
+        if (value == null) {
+            if (!create) return null;
+            Map<String, String> hash = new HashValue();
+            values.put(key, hash);
+            return hash;
+        }
+        if (!(value instanceof HashValue)) throw wrongType(key);
+        return (Map<String, String>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> set(String key, boolean create) {
+        Object value = live(key);
+        if (value == null) {
+            if (!create) return null;
+            Set<String> set = new SetValue();
+            values.put(key, set);
+            return set;
+        }
+        if (!(value instanceof SetValue)) throw wrongType(key);
+        return (Set<String>) value;
+    }
+
+    private Map<String, Double> zset(String key, boolean create) {
+        Object value = live(key);
+        if (value == null) {
+            if (!create) return null;
+            ZSetValue zset = new ZSetValue();
+            values.put(key, zset);
+            return zset;
+        }
+        if (!(value instanceof ZSetValue zset)) throw wrongType(key);
+        return zset;
+    }
+
+    private static IllegalStateException wrongType(String key) {
+        return new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value: " + key);
+    }
+
+    // Tipos concretos para distinguir hash de sorted set
+    private static final class HashValue extends LinkedHashMap<String, String> {
+    }
+
+    private static final class SetValue extends LinkedHashSet<String> {
+    }
+
+    private static final class ZSetValue extends HashMap<String, Double> {
+    }
+
+    /**
+     * Stream com ids {@code <millis>-<seq>} crescentes, como no Redis.
+     */
+    private static final class Stream {
+        private final List<KeyValueStreamEntry> entries = new ArrayList<>();
+        private long lastMillis = 0;
+        private long lastSeq = -1;
+
+        String add(Map<String, String> fields, long maxLength) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                lastSeq = 0;
+            } else {
+                lastSeq++;
+            }
+            String id = lastMillis + "-" + lastSeq;
+            entries.add(new KeyValueStreamEntry(id, Collections.unmodifiableMap(new LinkedHashMap<>(fields))));
+            if (maxLength > 0 && entries.size() > maxLength) {
+                entries.subList(0, (int) (entries.size() - maxLength)).clear();
+            }
+            return id;
+        }
+
+        List<KeyValueStreamEntry> range(String start, int count) {
+            boolean exclusive = start.startsWith("(");
+            long[] from = parseId(exclusive ? start.substring(1) : start);
+            List<KeyValueStreamEntry> result = new ArrayList<>();
+            for (KeyValueStreamEntry entry : entries) {
+                int cmp = compareIds(parseId(entry.id()), from);
+                if (cmp < 0 || (exclusive && cmp == 0)) continue;
+                result.add(entry);
+                if (count > 0 && result.size() >= count) break;
+            }
+            return result;
+        }
+
+        List<KeyValueStreamEntry> latest(int count) {
+            List<KeyValueStreamEntry> result = new ArrayList<>();
+            for (int i = entries.size() - 1; i >= 0 && (count <= 0 || result.size() < count); i--) {
+                result.add(entries.get(i));
+            }
+            return result;
+        }
+
+        private static long[] parseId(String id) {
+            if ("-".equals(id)) return new long[]{0, 0};
+            int dash = id.indexOf('-');
+            if (dash < 0) return new long[]{Long.parseLong(id), 0};
+            return new long[]{Long.parseLong(id.substring(0, dash)), Long.parseLong(id.substring(dash + 1))};
+        }
+
+        private static int compareIds(long[] a, long[] b) {
+            int cmp = Long.compare(a[0], b[0]);
+            return cmp != 0 ? cmp : Long.compare(a[1], b[1]);
+        }
+    }
+
+    /**
+     * Lote executado imediatamente sob o lock; as leituras já ficam resolvidas.
+     */
+    private final class Batch implements KeyValueBatch {
+        private final List<Runnable> publications;
+
+        private Batch(List<Runnable> publications) {
+            this.publications = publications;
+        }
+
+        @Override
+        public Supplier<String> get(String key) {
+            String value = InMemoryKeyValueStore.this.get(key);
+            return () -> value;
+        }
+
+        @Override
+        public void set(String key, String value) {
+            InMemoryKeyValueStore.this.set(key, value);
+        }
+
+        @Override
+        public void setex(String key, long seconds, String value) {
+            InMemoryKeyValueStore.this.setex(key, seconds, value);
+        }
+
+        @Override
+        public Supplier<Boolean> exists(String key) {
+            boolean value = InMemoryKeyValueStore.this.exists(key);
+            return () -> value;
+        }
+
+        @Override
+        public void del(String... keys) {
+            InMemoryKeyValueStore.this.del(keys);
+        }
+
+        @Override
+        public void expire(String key, long seconds) {
+            InMemoryKeyValueStore.this.expire(key, seconds);
+        }
+
+        @Override
+        public Supplier<Long> incrBy(String key, long delta) {
+            long value = InMemoryKeyValueStore.this.incrBy(key, delta);
+            return () -> value;
+        }
+
+        @Override
+        public Supplier<String> hget(String key, String field) {
+            String value = InMemoryKeyValueStore.this.hget(key, field);
+            return () -> value;
+        }
+
+        @Override
+        public Supplier<List<String>> hmget(String key, String... fields) {
+            List<String> value = InMemoryKeyValueStore.this.hmget(key, fields);
+            return () -> value;
+        }
+
+        @Override
+        public Supplier<Map<String, String>> hgetAll(String key) {
+            Map<String, String> value = InMemoryKeyValueStore.this.hgetAll(key);
+            return () -> value;
+        }
+
+        @Override
+        public void hset(String key, String field, String value) {
+            InMemoryKeyValueStore.this.hset(key, field, value);
+        }
+
+        @Override
+        public void hset(String key, Map<String, String> entries) {
+            InMemoryKeyValueStore.this.hset(key, entries);
+        }
+
+        @Override
+        public void hdel(String key, String... fields) {
+            InMemoryKeyValueStore.this.hdel(key, fields);
+        }
+
+        @Override
+        public void sadd(String key, String... members) {
+            InMemoryKeyValueStore.this.sadd(key, members);
+        }
+
+        @Override
+        public void srem(String key, String... members) {
+            InMemoryKeyValueStore.this.srem(key, members);
+        }
+
+        @Override
+        public Supplier<Long> scard(String key) {
+            long value = InMemoryKeyValueStore.this.scard(key);
+            return () -> value;
+        }
+
+        @Override
+        public Supplier<Set<String>> smembers(String key) {
+            Set<String> value = InMemoryKeyValueStore.this.smembers(key);
+            return () -> value;
+        }
+
+        @Override
+        public void zadd(String key, double score, String member) {
+            InMemoryKeyValueStore.this.zadd(key, score, member);
+        }
+
+        @Override
+        public void zrem(String key, String... members) {
+            InMemoryKeyValueStore.this.zrem(key, members);
+        }
+
+        @Override
+        public void publish(String channel, byte[] message) {
+            publications.add(() -> InMemoryKeyValueStore.this.publish(channel, message));
+        }
+
+        @Override
+        public void xadd(String stream, Map<String, String> fields, long maxLength) {
+            InMemoryKeyValueStore.this.xadd(stream, fields, maxLength);
+        }
+
+        @Override
+        public Supplier<Object> eval(KeyValueScript script, List<String> keys, List<String> args) {
+            // Já sob o lock do store: a versão Java roda atômica como o script no Redis
+            Object value = script.local().run(InMemoryKeyValueStore.this, keys, args);
+            return () -> value;
+        }
+    }
+}
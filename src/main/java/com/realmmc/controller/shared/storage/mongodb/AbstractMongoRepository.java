@@ -1,18 +1,17 @@
 package com.realmmc.controller.shared.storage.mongodb;
 
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 
 public abstract class AbstractMongoRepository<T> implements MongoRepository<T> {
-    private final MongoCollection<T> collection;
+    private final DocumentCollection<T> collection;
 
     protected AbstractMongoRepository(Class<T> type, String collectionName) {
-        MongoDatabase db = MongoManager.db();
-        this.collection = db.getCollection(collectionName, type);
+        this.collection = StorageBackends.documents().collection(collectionName, type);
     }
 
     @Override
-    public MongoCollection<T> collection() {
+    public DocumentCollection<T> collection() {
         return collection;
     }
 }
@@ -0,0 +1,138 @@
+package com.realmmc.controller.shared.storage.mongodb;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * {@link DocumentCollection} que delega para uma {@link MongoCollection}.
+ */
+public final class MongoDocumentCollection<T> implements DocumentCollection<T> {
+    private static final Bson ALL = new BsonDocument();
+
+    private final MongoCollection<T> collection;
+
+    public MongoDocumentCollection(MongoCollection<T> collection) {
+        this.collection = collection;
+    }
+
+    public MongoCollection<T> unwrap() {
+        return collection;
+    }
+
+    private static Bson orAll(Bson filter) {
+        return filter != null ? filter : ALL;
+    }
+
+    @Override
+    public Optional<T> findOne(Bson filter) {
+        return Optional.ofNullable(collection.find(orAll(filter)).first());
+    }
+
+    @Override
+    public List<T> find(Bson filter) {
+        return collection.find(orAll(filter)).into(new ArrayList<>());
+    }
+
+    @Override
+    public List<T> find(Bson filter, Bson sort, Bson projection, int limit) {
+        FindIterable<T> iterable = collection.find(orAll(filter));
+        if (sort != null) iterable = iterable.sort(sort);
+        if (projection != null) iterable = iterable.projection(projection);
+        if (limit > 0) iterable = iterable.limit(limit);
+        return iterable.into(new ArrayList<>());
+    }
+
+    @Override
+    public void forEach(Bson filter, Consumer<T> consumer) {
+        collection.find(orAll(filter)).forEach(consumer);
+    }
+
+    @Override
+    public long count(Bson filter) {
+        return collection.countDocuments(orAll(filter));
+    }
+
+    @Override
+    public void insert(T entity) {
+        collection.insertOne(entity);
+    }
+
+    @Override
+    public boolean replace(Bson filter, T entity, boolean upsert) {
+        UpdateResult result = collection.replaceOne(orAll(filter), entity, new ReplaceOptions().upsert(upsert));
+        return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+    }
+
+    @Override
+    public long updateOne(Bson filter, Bson update) {
+        return collection.updateOne(orAll(filter), update).getModifiedCount();
+    }
+
+    @Override
+    public long updateOne(Bson filter, Bson update, List<? extends Bson> arrayFilters) {
+        return collection.updateOne(orAll(filter), update, new UpdateOptions().arrayFilters(arrayFilters)).getModifiedCount();
+    }
+
+    @Override
+    public long updateMany(Bson filter, Bson update) {
+        return collection.updateMany(orAll(filter), update).getModifiedCount();
+    }
+
+    @Override
+    public long updateMany(Bson filter, Bson update, List<? extends Bson> arrayFilters) {
+        return collection.updateMany(orAll(filter), update, new UpdateOptions().arrayFilters(arrayFilters)).getModifiedCount();
+    }
+
+    @Override
+    public long bulkUpdate(List<DocumentUpdate> updates, boolean ordered) {
+        if (updates.isEmpty()) return 0;
+        List<WriteModel<T>> models = new ArrayList<>(updates.size());
+        for (DocumentUpdate update : updates) {
+            models.add(update.arrayFilters().isEmpty()
+                    ? new UpdateOneModel<>(orAll(update.filter()), update.update())
+                    : new UpdateOneModel<>(orAll(update.filter()), update.update(), new UpdateOptions().arrayFilters(update.arrayFilters())));
+        }
+        return collection.bulkWrite(models, new BulkWriteOptions().ordered(ordered)).getModifiedCount();
+    }
+
+    @Override
+    public Optional<T> findOneAndUpdate(Bson filter, Bson update, boolean upsert) {
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+                .upsert(upsert)
+                .returnDocument(ReturnDocument.AFTER);
+        return Optional.ofNullable(collection.findOneAndUpdate(orAll(filter), update, options));
+    }
+
+    @Override
+    public long deleteOne(Bson filter) {
+        return collection.deleteOne(orAll(filter)).getDeletedCount();
+    }
+
+    @Override
+    public long deleteMany(Bson filter) {
+        return collection.deleteMany(orAll(filter)).getDeletedCount();
+    }
+
+    @Override
+    public void createIndex(Bson keys, IndexOptions options) {
+        collection.createIndex(keys, options);
+    }
+}
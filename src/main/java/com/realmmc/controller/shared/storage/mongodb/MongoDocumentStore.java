@@ -0,0 +1,21 @@
+package com.realmmc.controller.shared.storage.mongodb;
+
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.DocumentStore;
+import org.bson.Document;
+
+/**
+ * {@link DocumentStore} apoiado no banco MongoDB inicializado pelo {@link MongoManager}.
+ */
+public final class MongoDocumentStore implements DocumentStore {
+
+    @Override
+    public <T> DocumentCollection<T> collection(String name, Class<T> type) {
+        return new MongoDocumentCollection<>(MongoManager.db().getCollection(name, type));
+    }
+
+    @Override
+    public void ping() {
+        MongoManager.db().runCommand(new Document("ping", 1));
+    }
+}
@@ -15,6 +15,12 @@ import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
 public final class MongoManager {
+    private static final CodecRegistry CODEC_REGISTRY = CodecRegistries.withUuidRepresentation(fromRegistries(
+            MongoClientSettings.getDefaultCodecRegistry(),
+            CodecRegistries.fromCodecs(),
+            fromProviders(PojoCodecProvider.builder().automatic(true).build())
+    ), UuidRepresentation.STANDARD);
+
     private static MongoClient client;
     private static MongoDatabase database;
 
@@ -25,16 +31,9 @@ public final class MongoManager {
         if (client != null) return;
         Objects.requireNonNull(config, "MongoConfig cannot be null");
 
-        PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder().automatic(true).build();
-        CodecRegistry pojoCodecRegistry = fromRegistries(
-                MongoClientSettings.getDefaultCodecRegistry(),
-                CodecRegistries.fromCodecs(),
-                fromProviders(pojoCodecProvider)
-        );
-
         MongoClientSettings settings = MongoClientSettings.builder()
                 .uuidRepresentation(UuidRepresentation.STANDARD)
-                .codecRegistry(pojoCodecRegistry)
+                .codecRegistry(CODEC_REGISTRY)
                 .applyConnectionString(new com.mongodb.ConnectionString(config.connectionString()))
                 .build();
 
@@ -42,6 +41,13 @@ public final class MongoManager {
         database = client.getDatabase(config.database());
     }
 
+    /**
+     * Registry de codecs (POJO automático, UUID padrão) compartilhado com os backends em memória.
+     */
+    public static CodecRegistry codecRegistry() {
+        return CODEC_REGISTRY;
+    }
+
     public static MongoDatabase db() {
         if (database == null) throw new IllegalStateException("MongoManager not initialized");
         return database;
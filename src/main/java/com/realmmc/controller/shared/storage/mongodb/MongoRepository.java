@@ -1,25 +1,30 @@
 package com.realmmc.controller.shared.storage.mongodb;
 
-import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
 import org.bson.conversions.Bson;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
 public interface MongoRepository<T> {
-    MongoCollection<T> collection();
+    DocumentCollection<T> collection();
 
     default Optional<T> findOne(Bson filter) {
-        return Optional.ofNullable(collection().find(filter).first());
+        return collection().findOne(filter);
+    }
+
+    default List<T> findAll() {
+        return collection().find(null);
     }
 
     default void insert(T entity) {
-        collection().insertOne(entity);
+        collection().insert(entity);
     }
 
     default void replace(Bson filter, T entity) {
-        collection().replaceOne(filter, entity, new com.mongodb.client.model.ReplaceOptions().upsert(true));
+        collection().replace(filter, entity, true);
     }
 
     default void update(Bson filter, Bson update) {
@@ -31,7 +36,7 @@ public interface MongoRepository<T> {
     }
 
     default void forEach(Bson filter, Consumer<T> consumer) {
-        collection().find(filter).forEach(consumer);
+        collection().forEach(filter, consumer);
     }
 
     static Bson idEquals(Object id) {
@@ -1,8 +1,7 @@
 package com.realmmc.controller.shared.storage.mongodb;
 
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
-import com.mongodb.client.model.ReturnDocument;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import org.bson.Document;
 
 public final class MongoSequences {
@@ -10,16 +9,13 @@ public final class MongoSequences {
     }
 
     public static int getNext(String key) {
-        MongoCollection<Document> counters = MongoManager.db().getCollection("counters");
+        DocumentCollection<Document> counters = StorageBackends.documents().collection("counters", Document.class);
         Document filter = new Document("_id", key);
         Document update = new Document("$inc", new Document("seq", 1));
-        FindOneAndUpdateOptions opts = new FindOneAndUpdateOptions()
-                .upsert(true)
-                .returnDocument(ReturnDocument.AFTER);
-        Document res = counters.findOneAndUpdate(filter, update, opts);
+        Document res = counters.findOneAndUpdate(filter, update, true).orElse(null);
         if (res == null) {
-            counters.insertOne(new Document("_id", key).append("seq", 1));
-            res = counters.findOneAndUpdate(filter, update, opts);
+            counters.insert(new Document("_id", key).append("seq", 1));
+            res = counters.findOneAndUpdate(filter, update, true).orElseThrow();
         }
         return res.getInteger("seq", 1);
     }
@@ -1,27 +1,77 @@
 package com.realmmc.controller.shared.storage.redis;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public enum RedisChannel {
     CONTROLLER_BROADCAST("controller:broadcast"),
-    PROFILES_SYNC("controller:profiles:sync"),
+    PROFILES_SYNC("controller:profiles:sync", true),
     COSMETICS_SYNC("controller:cosmetics:sync"),
     PREFERENCES_SYNC("controller:preferences:sync"),
-    ROLE_SYNC("controller:roles:sync"),
+    ROLE_SYNC("controller:roles:sync", true),
     ROLE_BROADCAST("controller:roles:broadcast"),
-    ROLES_UPDATE("controller:roles:update"),
+    ROLES_UPDATE("controller:roles:update", true),
     ROLE_NOTIFICATION("controller:roles:notification"),
     STAFF_CHAT("controller:staffchat"),
     SERVER_STATUS_UPDATE("controller:server:status"),
+    SERVER_REGISTRY_SYNC("controller:server:registry", true),
     GLOBAL_PLAYER_COUNT("controller:global:playercount"),
+    GLOBAL_PLAYER_COUNT_SERVERS("controller:global:playercount:servers"),
+    GLOBAL_PLAYER_COUNT_TYPES("controller:global:playercount:types"),
     GLOBAL_NETWORK_MAX_PLAYERS("controller:global:networkmaxplayers"),
     CASH_NOTIFICATION("controller:cash:notification");
 
+    private static final Set<String> DURABLE_NAMES = Arrays.stream(values())
+            .filter(RedisChannel::isDurable)
+            .map(RedisChannel::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Canais de notificação: cada entrega vira algo visível (chat, título, aviso), então repetir duplica
+    private static final Set<RedisChannel> NOTIFICATIONS = EnumSet.of(
+            CONTROLLER_BROADCAST, ROLE_BROADCAST, ROLE_NOTIFICATION, STAFF_CHAT, CASH_NOTIFICATION);
+    private static final Set<String> IDEMPOTENT_NAMES = Arrays.stream(values())
+            .filter(RedisChannel::isIdempotent)
+            .map(RedisChannel::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final String name;
+    // Canais de invalidação: também gravados no RedisEventLog para replay após reconexão
+    private final boolean durable;
 
     RedisChannel(String name) {
+        this(name, false);
+    }
+
+    RedisChannel(String name, boolean durable) {
         this.name = name;
+        this.durable = durable;
     }
 
     public String getName() {
         return name;
     }
+
+    public boolean isDurable() {
+        return durable;
+    }
+
+    public static boolean isDurable(String channelName) {
+        return DURABLE_NAMES.contains(channelName);
+    }
+
+    /**
+     * Canais de estado/invalidação, em que receber a mesma mensagem duas vezes não muda o resultado.
+     */
+    public boolean isIdempotent() {
+        return !NOTIFICATIONS.contains(this);
+    }
+
+    /**
+     * Canais fora do enum são tratados como não idempotentes.
+     */
+    public static boolean isIdempotent(String channelName) {
+        return IDEMPOTENT_NAMES.contains(channelName);
+    }
 }
\ No newline at end of file
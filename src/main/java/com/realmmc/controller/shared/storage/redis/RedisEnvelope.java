@@ -0,0 +1,238 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envelope binário de todas as mensagens trocadas entre nós via Redis.
+ * <p>
+ * Formato (big-endian):
+ * <pre>
+ * magic(1) | versão(1) | formato(1) | origem(2 + n UTF-8) | sequência(8) | timestamp(8) | corpo(4 + n) | [extensões]
+ * </pre>
+ * Corpos JSON (objeto ou array) viajam em CBOR ({@link #FORMAT_CBOR}); o resto (ex.: um UUID puro)
+ * vai como texto UTF-8. Versões futuras só podem acrescentar campos após o corpo; leitores antigos
+ * ignoram os bytes extras. Mensagens sem o byte mágico são tratadas como payload legado (versão 0,
+ * sem metadados).
+ * <p>
+ * O quadro binário é o padrão. Para atualizar uma rede que ainda tem nós sem suporte a ele, suba os
+ * nós novos com {@code -DREDIS_ENVELOPE_FRAMED=false} (modo de compatibilidade: só o corpo em texto,
+ * como antes) e remova a flag quando todos estiverem atualizados. Nesse modo as mensagens ao vivo
+ * chegam como legado, sem origem nem sequência: o descarte de eco
+ * ({@link RedisMessageListener#ignoreOwnMessages()}), a detecção de lacunas e a deduplicação não
+ * atuam, e o {@link RedisPublisher} só reenvia lotes que falharam em canais idempotentes.
+ *
+ * @param version   Versão do esquema do envelope (0 = mensagem legada sem envelope).
+ * @param origin    Identificador do nó que publicou (null em mensagens legadas).
+ * @param sequence  Sequência por canal no nó de origem, começando em 1 (0 em mensagens legadas).
+ * @param timestamp Momento da publicação em epoch millis (0 em mensagens legadas).
+ * @param channel   Canal em que a mensagem foi recebida/publicada.
+ * @param format    Codificação do corpo ({@link #FORMAT_TEXT} ou {@link #FORMAT_CBOR}).
+ * @param body      Corpo da mensagem.
+ */
+public record RedisEnvelope(int version, String origin, long sequence, long timestamp, String channel, int format, byte[] body) {
+
+    public static final byte MAGIC = (byte) 0xC7;
+    public static final int CURRENT_VERSION = 1;
+    public static final int FORMAT_TEXT = 0;
+    public static final int FORMAT_CBOR = 1;
+
+    private static final boolean FRAMED = Boolean.parseBoolean(System.getProperty("REDIS_ENVELOPE_FRAMED", "true"));
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CBORFactory CBOR = new CBORFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(CBOR)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final String LOCAL_NODE_ID = resolveLocalNodeId();
+    private static final Map<String, AtomicLong> SEQUENCES = new ConcurrentHashMap<>();
+
+    /**
+     * Envelope com corpo em texto (ex.: entradas do log de eventos).
+     */
+    public RedisEnvelope(int version, String origin, long sequence, long timestamp, String channel, byte[] body) {
+        this(version, origin, sequence, timestamp, channel, FORMAT_TEXT, body);
+    }
+
+    /**
+     * Identificador deste nó: id do servidor/proxy configurado mais um sufixo aleatório por execução,
+     * para que um restart reinicie as sequências sem parecer uma perda de mensagens.
+     */
+    public static String localNodeId() {
+        return LOCAL_NODE_ID;
+    }
+
+    /**
+     * false no modo de compatibilidade ({@code REDIS_ENVELOPE_FRAMED=false}), em que só o corpo é publicado.
+     */
+    public static boolean isFramed() {
+        return FRAMED;
+    }
+
+    /**
+     * Cria um envelope de saída deste nó, atribuindo a próxima sequência do canal.
+     */
+    public static RedisEnvelope outgoing(String channel, String body) {
+        long seq = SEQUENCES.computeIfAbsent(channel, k -> new AtomicLong()).incrementAndGet();
+        long now = System.currentTimeMillis();
+        byte[] binary = FRAMED ? toCbor(body) : null;
+        if (binary != null) {
+            return new RedisEnvelope(CURRENT_VERSION, LOCAL_NODE_ID, seq, now, channel, FORMAT_CBOR, binary);
+        }
+        return new RedisEnvelope(CURRENT_VERSION, LOCAL_NODE_ID, seq, now, channel, FORMAT_TEXT,
+                body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Bytes a publicar: o quadro binário ou, com {@code REDIS_ENVELOPE_FRAMED=false}, só o corpo em
+     * texto, legível por nós ainda não atualizados.
+     */
+    public byte[] toWire() {
+        return toWire(FRAMED);
+    }
+
+    byte[] toWire(boolean framed) {
+        if (framed) return encode();
+        return format == FORMAT_TEXT ? body : bodyAsString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serializa o envelope no formato binário.
+     */
+    public byte[] encode() {
+        byte[] originBytes = origin == null ? new byte[0] : origin.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(25 + originBytes.length + body.length);
+        try (DataOutputStream data = new DataOutputStream(out)) {
+            data.writeByte(MAGIC);
+            data.writeByte(version);
+            data.writeByte(format);
+            data.writeShort(originBytes.length);
+            data.write(originBytes);
+            data.writeLong(sequence);
+            data.writeLong(timestamp);
+            data.writeInt(body.length);
+            data.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Lê um envelope recebido. Payloads sem o byte mágico ou truncados são devolvidos como legado.
+     */
+    public static RedisEnvelope decode(String channel, byte[] raw) {
+        if (raw == null || raw.length == 0 || raw[0] != MAGIC) {
+            return legacy(channel, raw);
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(raw);
+            buffer.get(); // magic
+            int version = buffer.get() & 0xFF;
+            int format = buffer.get() & 0xFF;
+            if (format != FORMAT_TEXT && format != FORMAT_CBOR) {
+                return legacy(channel, raw);
+            }
+            byte[] originBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(originBytes);
+            long sequence = buffer.getLong();
+            long timestamp = buffer.getLong();
+            int bodyLength = buffer.getInt();
+            if (bodyLength < 0 || bodyLength > buffer.remaining()) {
+                return legacy(channel, raw);
+            }
+            byte[] body = new byte[bodyLength];
+            buffer.get(body);
+            // Bytes restantes pertencem a extensões de versões mais novas e são ignorados
+            return new RedisEnvelope(version, new String(originBytes, StandardCharsets.UTF_8), sequence, timestamp, channel, format, body);
+        } catch (BufferUnderflowException e) {
+            return legacy(channel, raw);
+        }
+    }
+
+    private static RedisEnvelope legacy(String channel, byte[] raw) {
+        return new RedisEnvelope(0, null, 0L, 0L, channel, FORMAT_TEXT, raw == null ? new byte[0] : raw);
+    }
+
+    public boolean isLegacy() {
+        return version == 0;
+    }
+
+    public boolean isFromLocalNode() {
+        return LOCAL_NODE_ID.equals(origin);
+    }
+
+    /**
+     * Corpo como texto; corpos em CBOR são convertidos de volta para JSON.
+     */
+    public String bodyAsString() {
+        if (format != FORMAT_CBOR) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        StringWriter json = new StringWriter(body.length * 2);
+        try (JsonParser parser = CBOR.createParser(body); JsonGenerator generator = JSON.createGenerator(json)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corpo CBOR inválido no canal " + channel, e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Desserializa o corpo diretamente para o tipo indicado (ex.: um record).
+     */
+    public <T> T decode(Class<T> type) {
+        try {
+            return format == FORMAT_CBOR ? CBOR_MAPPER.readValue(body, type) : MAPPER.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corpo inválido para " + type.getSimpleName() + " no canal " + channel, e);
+        }
+    }
+
+    /**
+     * Converte um corpo JSON (objeto ou array) para CBOR sem montar a árvore.
+     * @return null se o corpo não for JSON válido; nesse caso ele segue como texto.
+     */
+    static byte[] toCbor(String body) {
+        if (body == null) return null;
+        int start = 0;
+        while (start < body.length() && Character.isWhitespace(body.charAt(start))) start++;
+        if (start == body.length() || (body.charAt(start) != '{' && body.charAt(start) != '[')) return null;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length());
+        try (JsonParser parser = JSON.createParser(body); JsonGenerator generator = CBOR.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+            if (parser.nextToken() != null) return null;
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static String resolveLocalNodeId() {
+        String base = System.getProperty("controller.serverId");
+        if (base == null || base.isEmpty()) base = System.getenv("CONTROLLER_SERVER_ID");
+        if (base == null || base.isEmpty()) base = System.getProperty("controller.proxyId");
+        if (base == null || base.isEmpty()) base = "node";
+        return base + "#" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
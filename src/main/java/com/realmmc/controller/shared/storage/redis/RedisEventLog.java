@@ -0,0 +1,111 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueBatch;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.KeyValueStreamEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Log ordenado e durável dos canais de invalidação (ver {@link RedisChannel#isDurable()}).
+ * Cada mensagem publicada nesses canais também é gravada num stream, na mesma transação da
+ * publicação, permitindo que um nó que perdeu a conexão de subscrição reproduza o que veio depois
+ * do último ID que confirmou ter recebido.
+ * O tamanho de cada stream é limitado por MAXLEN aproximado.
+ */
+public final class RedisEventLog {
+    private static final Logger LOGGER = Logger.getLogger(RedisEventLog.class.getName());
+
+    public static final String STREAM_PREFIX = "controller:stream:";
+    // Cursor anterior a qualquer entrada
+    public static final String START_ID = "0-0";
+    // Máximo aproximado de entradas mantidas por stream
+    private static final long MAX_LENGTH = Long.getLong("REDIS_EVENT_LOG_MAXLEN", 10_000L);
+    // Tamanho da página ao ler o stream durante o replay
+    private static final int REPLAY_PAGE_SIZE = 500;
+
+    private RedisEventLog() {
+    }
+
+    public static String streamKey(String channel) {
+        return STREAM_PREFIX + channel;
+    }
+
+    /**
+     * Adiciona o envelope ao stream do canal dentro do lote informado.
+     */
+    public static void append(KeyValueBatch batch, RedisEnvelope envelope) {
+        batch.xadd(streamKey(envelope.channel()), toFields(envelope), MAX_LENGTH);
+    }
+
+    /**
+     * ID da entrada mais recente do stream do canal, ou {@link #START_ID} se ele estiver vazio.
+     * Serve de cursor para {@link #readAfter}.
+     */
+    public static String lastId(KeyValueStore store, String channel) {
+        List<KeyValueStreamEntry> latest = store.xrevrange(streamKey(channel), 1);
+        return latest.isEmpty() ? START_ID : latest.get(0).id();
+    }
+
+    /**
+     * Lê, em ordem, todas as entradas do canal gravadas depois do ID informado (exclusivo).
+     */
+    public static List<Entry> readAfter(KeyValueStore store, String channel, String afterId) {
+        List<Entry> result = new ArrayList<>();
+        String key = streamKey(channel);
+        String start = "(" + afterId; // Início exclusivo (Redis >= 6.2)
+        while (true) {
+            List<KeyValueStreamEntry> page = store.xrange(key, start, REPLAY_PAGE_SIZE);
+            if (page.isEmpty()) break;
+            for (KeyValueStreamEntry entry : page) {
+                RedisEnvelope envelope = fromFields(channel, entry.fields());
+                if (envelope != null) {
+                    result.add(new Entry(entry.id(), envelope));
+                }
+            }
+            if (page.size() < REPLAY_PAGE_SIZE) break;
+            start = "(" + page.get(page.size() - 1).id();
+        }
+        return result;
+    }
+
+    static Map<String, String> toFields(RedisEnvelope envelope) {
+        Map<String, String> fields = new HashMap<>(8);
+        fields.put("v", Integer.toString(envelope.version()));
+        fields.put("o", envelope.origin());
+        fields.put("s", Long.toString(envelope.sequence()));
+        fields.put("t", Long.toString(envelope.timestamp()));
+        fields.put("b", envelope.bodyAsString());
+        return fields;
+    }
+
+    static RedisEnvelope fromFields(String channel, Map<String, String> fields) {
+        try {
+            return new RedisEnvelope(
+                    Integer.parseInt(fields.getOrDefault("v", "0")),
+                    fields.get("o"),
+                    Long.parseLong(fields.getOrDefault("s", "0")),
+                    Long.parseLong(fields.getOrDefault("t", "0")),
+                    channel,
+                    fields.getOrDefault("b", "").getBytes(StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "[RedisEventLog] Entrada inválida ignorada no stream do canal " + channel + ": " + fields, e);
+            return null;
+        }
+    }
+
+    /**
+     * Entrada lida do stream.
+     *
+     * @param id       ID da entrada no stream, usado como cursor de replay.
+     * @param envelope Mensagem gravada.
+     */
+    public record Entry(String id, RedisEnvelope envelope) {
+    }
+}
@@ -0,0 +1,387 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueBatch;
+import com.realmmc.controller.shared.storage.backend.KeyValueScript;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.KeyValueStreamEntry;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link KeyValueStore} sobre o pool do {@link RedisManager}. Cada chamada usa uma conexão
+ * do pool; {@link #batch} envia todos os comandos num único pipeline e {@link #transaction}
+ * num {@code MULTI/EXEC} (com {@code WATCH} na variante otimista).
+ */
+public final class RedisKeyValueStore implements KeyValueStore {
+
+    private static final Map<String, String> SCRIPT_SHAS = new ConcurrentHashMap<>();
+
+    private static <R> R execute(Function<Jedis, R> action) {
+        try (Jedis jedis = RedisManager.getResource()) {
+            return action.apply(jedis);
+        }
+    }
+
+    private static String sha1(String script) {
+        return SCRIPT_SHAS.computeIfAbsent(script, lua -> {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(lua.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 indisponível", e);
+            }
+        });
+    }
+
+    private static XAddParams trimTo(long maxLength) {
+        XAddParams params = XAddParams.xAddParams();
+        return maxLength > 0 ? params.maxLen(maxLength).approximateTrimming() : params;
+    }
+
+    @Override
+    public String ping() {
+        return execute(Jedis::ping);
+    }
+
+    @Override
+    public String get(String key) {
+        return execute(jedis -> jedis.get(key));
+    }
+
+    @Override
+    public void set(String key, String value) {
+        execute(jedis -> jedis.set(key, value));
+    }
+
+    @Override
+    public void setex(String key, long seconds, String value) {
+        execute(jedis -> jedis.setex(key, seconds, value));
+    }
+
+    @Override
+    public boolean setnx(String key, long seconds, String value) {
+        return execute(jedis -> jedis.set(key, value, SetParams.setParams().nx().ex(seconds))) != null;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return execute(jedis -> jedis.exists(key));
+    }
+
+    @Override
+    public long del(String... keys) {
+        return execute(jedis -> jedis.del(keys));
+    }
+
+    @Override
+    public void expire(String key, long seconds) {
+        execute(jedis -> jedis.expire(key, seconds));
+    }
+
+    @Override
+    public long incrBy(String key, long delta) {
+        return execute(jedis -> jedis.incrBy(key, delta));
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return execute(jedis -> jedis.hget(key, field));
+    }
+
+    @Override
+    public List<String> hmget(String key, String... fields) {
+        return execute(jedis -> jedis.hmget(key, fields));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return execute(jedis -> jedis.hgetAll(key));
+    }
+
+    @Override
+    public void hset(String key, String field, String value) {
+        execute(jedis -> jedis.hset(key, field, value));
+    }
+
+    @Override
+    public void hset(String key, Map<String, String> values) {
+        if (values.isEmpty()) return;
+        execute(jedis -> jedis.hset(key, values));
+    }
+
+    @Override
+    public long hdel(String key, String... fields) {
+        return execute(jedis -> jedis.hdel(key, fields));
+    }
+
+    @Override
+    public long sadd(String key, String... members) {
+        return execute(jedis -> jedis.sadd(key, members));
+    }
+
+    @Override
+    public long srem(String key, String... members) {
+        return execute(jedis -> jedis.srem(key, members));
+    }
+
+    @Override
+    public long scard(String key) {
+        return execute(jedis -> jedis.scard(key));
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        return execute(jedis -> jedis.smembers(key));
+    }
+
+    @Override
+    public boolean sismember(String key, String member) {
+        return execute(jedis -> jedis.sismember(key, member));
+    }
+
+    @Override
+    public long zadd(String key, double score, String member) {
+        return execute(jedis -> jedis.zadd(key, score, member));
+    }
+
+    @Override
+    public long zrem(String key, String... members) {
+        return execute(jedis -> jedis.zrem(key, members));
+    }
+
+    @Override
+    public Double zscore(String key, String member) {
+        return execute(jedis -> jedis.zscore(key, member));
+    }
+
+    @Override
+    public List<String> zrangeByScore(String key, double min, double max, int limit) {
+        return execute(jedis -> limit > 0
+                ? jedis.zrangeByScore(key, min, max, 0, limit)
+                : jedis.zrangeByScore(key, min, max));
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        execute(jedis -> jedis.publish(channel.getBytes(StandardCharsets.UTF_8), message));
+    }
+
+    @Override
+    public String xadd(String stream, Map<String, String> fields, long maxLength) {
+        StreamEntryID id = execute(jedis -> jedis.xadd(stream, trimTo(maxLength), fields));
+        return id != null ? id.toString() : null;
+    }
+
+    @Override
+    public List<KeyValueStreamEntry> xrange(String stream, String start, int count) {
+        return toEntries(execute(jedis -> jedis.xrange(stream, start, "+", count)));
+    }
+
+    @Override
+    public List<KeyValueStreamEntry> xrevrange(String stream, int count) {
+        return toEntries(execute(jedis -> jedis.xrevrange(stream, "+", "-", count)));
+    }
+
+    private static List<KeyValueStreamEntry> toEntries(List<StreamEntry> page) {
+        List<KeyValueStreamEntry> result = new ArrayList<>(page != null ? page.size() : 0);
+        if (page != null) {
+            for (StreamEntry entry : page) {
+                result.add(new KeyValueStreamEntry(entry.getID().toString(), entry.getFields()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void batch(Consumer<KeyValueBatch> commands) {
+        try (Jedis jedis = RedisManager.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            commands.accept(new PipelineBatch(pipeline));
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public void transaction(Consumer<KeyValueBatch> commands) {
+        try (Jedis jedis = RedisManager.getResource()) {
+            Transaction transaction = jedis.multi();
+            commands.accept(new PipelineBatch(transaction));
+            transaction.exec();
+        }
+    }
+
+    @Override
+    public boolean transaction(Collection<String> watchedKeys, Consumer<KeyValueBatch> reads, Consumer<KeyValueBatch> commands) {
+        try (Jedis jedis = RedisManager.getResource()) {
+            if (!watchedKeys.isEmpty()) jedis.watch(watchedKeys.toArray(new String[0]));
+            try {
+                Pipeline pipeline = jedis.pipelined();
+                reads.accept(new PipelineBatch(pipeline));
+                pipeline.sync();
+
+                Transaction transaction = jedis.multi();
+                commands.accept(new PipelineBatch(transaction));
+                // EXEC devolve null quando o WATCH abortou a transação
+                return transaction.exec() != null;
+            } catch (RuntimeException e) {
+                try {
+                    jedis.unwatch();
+                } catch (RuntimeException ignored) {
+                    // A conexão já está quebrada; o pool a descarta
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * {@link KeyValueBatch} que enfileira no pipeline (ou no {@code MULTI}); as leituras resolvem
+     * após o {@code sync()}/{@code exec()}.
+     */
+    private record PipelineBatch(PipeliningBase pipeline, Set<String> loadedScripts) implements KeyValueBatch {
+
+        private PipelineBatch(PipeliningBase pipeline) {
+            this(pipeline, new HashSet<>());
+        }
+
+        private static <R> Supplier<R> lazy(Response<R> response) {
+            return response::get;
+        }
+
+        @Override
+        public Supplier<String> get(String key) {
+            return lazy(pipeline.get(key));
+        }
+
+        @Override
+        public void set(String key, String value) {
+            pipeline.set(key, value);
+        }
+
+        @Override
+        public void setex(String key, long seconds, String value) {
+            pipeline.setex(key, seconds, value);
+        }
+
+        @Override
+        public Supplier<Boolean> exists(String key) {
+            return lazy(pipeline.exists(key));
+        }
+
+        @Override
+        public void del(String... keys) {
+            pipeline.del(keys);
+        }
+
+        @Override
+        public void expire(String key, long seconds) {
+            pipeline.expire(key, seconds);
+        }
+
+        @Override
+        public Supplier<Long> incrBy(String key, long delta) {
+            return lazy(pipeline.incrBy(key, delta));
+        }
+
+        @Override
+        public Supplier<String> hget(String key, String field) {
+            return lazy(pipeline.hget(key, field));
+        }
+
+        @Override
+        public Supplier<List<String>> hmget(String key, String... fields) {
+            return lazy(pipeline.hmget(key, fields));
+        }
+
+        @Override
+        public Supplier<Map<String, String>> hgetAll(String key) {
+            return lazy(pipeline.hgetAll(key));
+        }
+
+        @Override
+        public void hset(String key, String field, String value) {
+            pipeline.hset(key, field, value);
+        }
+
+        @Override
+        public void hset(String key, Map<String, String> values) {
+            if (!values.isEmpty()) pipeline.hset(key, values);
+        }
+
+        @Override
+        public void hdel(String key, String... fields) {
+            pipeline.hdel(key, fields);
+        }
+
+        @Override
+        public void sadd(String key, String... members) {
+            pipeline.sadd(key, members);
+        }
+
+        @Override
+        public void srem(String key, String... members) {
+            pipeline.srem(key, members);
+        }
+
+        @Override
+        public Supplier<Long> scard(String key) {
+            return lazy(pipeline.scard(key));
+        }
+
+        @Override
+        public Supplier<Set<String>> smembers(String key) {
+            return lazy(pipeline.smembers(key));
+        }
+
+        @Override
+        public void zadd(String key, double score, String member) {
+            pipeline.zadd(key, score, member);
+        }
+
+        @Override
+        public void zrem(String key, String... members) {
+            pipeline.zrem(key, members);
+        }
+
+        @Override
+        public void publish(String channel, byte[] message) {
+            pipeline.publish(channel.getBytes(StandardCharsets.UTF_8), message);
+        }
+
+        @Override
+        public void xadd(String stream, Map<String, String> fields, long maxLength) {
+            pipeline.xadd(stream, trimTo(maxLength), fields);
+        }
+
+        @Override
+        public Supplier<Object> eval(KeyValueScript script, List<String> keys, List<String> args) {
+            // O SCRIPT LOAD (idempotente) vai à frente no mesmo lote, uma vez por script: o EVALSHA
+            // nunca recebe NOSCRIPT, nem depois de um restart do Redis
+            if (loadedScripts.add(script.lua())) {
+                pipeline.scriptLoad(script.lua(), keys.isEmpty() ? "" : keys.get(0));
+            }
+            return lazy(pipeline.evalsha(sha1(script.lua()), keys, args));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.realmmc.controller.shared.storage.redis;
+
+/**
+ * Snapshot imutável das métricas de um listener registrado no {@link RedisSubscriber}.
+ *
+ * @param channel          Canal Redis ao qual o listener está inscrito.
+ * @param listener         Nome simples da classe do listener.
+ * @param queueDepth       Mensagens do canal aguardando processamento no momento do snapshot.
+ * @param processed        Total de mensagens entregues com sucesso.
+ * @param failed           Total de mensagens cujo processamento lançou exceção.
+ * @param dropped          Total de mensagens do canal descartadas por fila cheia.
+ * @param avgLatencyMicros Latência média (fila + processamento) em microssegundos.
+ * @param maxLatencyMicros Maior latência observada (fila + processamento) em microssegundos.
+ */
+public record RedisListenerStats(
+        String channel,
+        String listener,
+        int queueDepth,
+        long processed,
+        long failed,
+        long dropped,
+        long avgLatencyMicros,
+        long maxLatencyMicros
+) {
+}
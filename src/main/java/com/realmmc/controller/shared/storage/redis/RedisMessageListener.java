@@ -2,4 +2,20 @@ package com.realmmc.controller.shared.storage.redis;
 
 public interface RedisMessageListener {
     void onMessage(String channel, String message);
+
+    /**
+     * Entrega a mensagem com os metadados do envelope. Por padrão repassa o corpo para {@link #onMessage}.
+     */
+    default void onEnvelope(RedisEnvelope envelope) {
+        onMessage(envelope.channel(), envelope.bodyAsString());
+    }
+
+    /**
+     * Se true, mensagens publicadas por este mesmo nó não são entregues a este listener.
+     * A origem só viaja no quadro binário: com {@code REDIS_ENVELOPE_FRAMED=false} o eco é entregue
+     * mesmo assim, então o listener precisa tolerá-lo.
+     */
+    default boolean ignoreOwnMessages() {
+        return false;
+    }
 }
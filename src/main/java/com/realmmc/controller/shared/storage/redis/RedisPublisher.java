@@ -1,18 +1,367 @@
 package com.realmmc.controller.shared.storage.redis;
 
-import redis.clients.jedis.Jedis;
+import com.realmmc.controller.shared.storage.backend.KeyValueBatch;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publicador Redis assíncrono. As mensagens são acumuladas por alguns milissegundos
+ * e enviadas num único pipeline, evitando um round trip (e um slot do pool) por mensagem.
+ * Enquanto não for iniciado via {@link #start()}, publica de forma síncrona.
+ * Toda mensagem sai embrulhada num {@link RedisEnvelope} (ou só o corpo, durante a atualização gradual;
+ * ver {@code REDIS_ENVELOPE_FRAMED}).
+ * <p>
+ * Um lote que falha volta para a frente da fila e é reenviado até {@code REDIS_PUBLISH_MAX_RETRIES}
+ * vezes, com espera crescente. Não dá para saber quanto do pipeline chegou ao Redis, então o lote é
+ * repetido inteiro; como o envelope é criado uma única vez por mensagem, com o quadro binário (padrão)
+ * os inscritos descartam como duplicata (mesma sequência) o que já tinham recebido. No modo de
+ * compatibilidade ({@code REDIS_ENVELOPE_FRAMED=false}) a sequência não viaja: só mensagens de canais
+ * idempotentes ({@link RedisChannel#isIdempotent(String)}) são reenviadas, e as demais (chat da staff,
+ * notificações) são descartadas em vez de correr o risco de aparecerem duas vezes.
+ */
 public final class RedisPublisher {
+    private static final Logger LOGGER = Logger.getLogger(RedisPublisher.class.getName());
+
+    // Janela de acumulação antes de enviar o pipeline
+    private static final long FLUSH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    // Máximo de mensagens por pipeline
+    private static final int MAX_BATCH_SIZE = 256;
+    // Capacidade da fila de saída
+    private static final int QUEUE_CAPACITY = 10_000;
+    // Tempo máximo que um produtor espera por espaço na fila antes de descartar
+    private static final long BACKPRESSURE_WAIT_MS = 50;
+    // Tentativas extras de um lote que falhou, e a espera antes da primeira (dobra a cada tentativa)
+    private static final int MAX_RETRIES = Integer.getInteger("REDIS_PUBLISH_MAX_RETRIES", 3);
+    private static final long RETRY_BACKOFF_MS = Long.getLong("REDIS_PUBLISH_RETRY_BACKOFF_MS", 200L);
+
+    private static final BlockingQueue<PendingPublish> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    // Mensagens pendentes com chave de coalescência: "canal|chave" -> mensagem na fila
+    private static final Map<String, PendingPublish> coalescing = new ConcurrentHashMap<>();
+    // Mensagens de lotes que falharam, aguardando reenvio (protegido pelo próprio deque)
+    private static final Deque<PendingPublish> retries = new ArrayDeque<>();
+    private static long retryAt;
+
+    private static final AtomicLong published = new AtomicLong();
+    private static final AtomicLong batches = new AtomicLong();
+    private static final AtomicLong superseded = new AtomicLong();
+    private static final AtomicLong backpressured = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong retried = new AtomicLong();
+    private static final AtomicLong maxBatch = new AtomicLong();
+
+    private static volatile boolean running = false;
+    private static Thread flusherThread;
+
     private RedisPublisher() {
     }
 
+    /**
+     * Inicia a thread de envio em lote. Deve ser chamado após a instalação dos backends
+     * ({@link StorageBackends#install}).
+     */
+    public static synchronized void start() {
+        if (running) return;
+        running = true;
+        flusherThread = new Thread(RedisPublisher::flushLoop, "Controller-Redis-Publisher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+        LOGGER.info("[RedisPublisher] Publicador assíncrono iniciado (janela " + TimeUnit.NANOSECONDS.toMillis(FLUSH_WINDOW_NANOS) + "ms, lote máx " + MAX_BATCH_SIZE + ").");
+        if (!RedisEnvelope.isFramed()) {
+            LOGGER.warning("[RedisPublisher] REDIS_ENVELOPE_FRAMED=false: publicando só o corpo (modo de compatibilidade). "
+                    + "Descarte de eco, detecção de lacunas e deduplicação ficam desligados até a flag ser removida.");
+        }
+    }
+
+    /**
+     * Para a thread de envio, enviando antes tudo o que ainda está na fila.
+     */
+    public static synchronized void stop() {
+        if (!running) return;
+        running = false;
+        Thread thread = flusherThread;
+        flusherThread = null;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Qualquer resto (ex.: join expirou) é enviado aqui mesmo, numa última tentativa
+        List<PendingPublish> remaining = new ArrayList<>();
+        synchronized (retries) {
+            remaining.addAll(retries);
+            retries.clear();
+        }
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            List<PendingPublish> failedAgain = flush(remaining);
+            discard(failedAgain);
+        }
+        LOGGER.info("[RedisPublisher] Publicador assíncrono parado. " + getStats());
+    }
+
     public static void publish(RedisChannel channel, String message) {
         publish(channel.getName(), message);
     }
 
     public static void publish(String channel, String message) {
-        try (Jedis jedis = RedisManager.getResource()) {
-            jedis.publish(channel, message);
+        if (!running) {
+            publishNow(channel, message);
+            return;
+        }
+        enqueue(new PendingPublish(channel, null, message));
+    }
+
+    /**
+     * Publica com chave de coalescência: se ainda houver na fila uma mensagem do mesmo
+     * canal com a mesma chave, ela é substituída por esta (só o estado mais recente é enviado).
+     * @param coalesceKey Chave lógica da mensagem (ex.: UUID do jogador).
+     */
+    public static void publish(RedisChannel channel, String message, String coalesceKey) {
+        publish(channel.getName(), message, coalesceKey);
+    }
+
+    public static void publish(String channel, String message, String coalesceKey) {
+        if (coalesceKey == null) {
+            publish(channel, message);
+            return;
+        }
+        if (!running) {
+            publishNow(channel, message);
+            return;
+        }
+        String key = channel + "|" + coalesceKey;
+        PendingPublish[] created = new PendingPublish[1];
+        coalescing.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.message = message;
+                superseded.incrementAndGet();
+                return existing;
+            }
+            created[0] = new PendingPublish(channel, k, message);
+            return created[0];
+        });
+        if (created[0] != null && !enqueue(created[0])) {
+            coalescing.remove(key, created[0]);
+        }
+    }
+
+    /**
+     * Publica imediatamente, num round trip próprio, sem passar pela fila.
+     */
+    public static void publishNow(String channel, String message) {
+        RedisEnvelope envelope = RedisEnvelope.outgoing(channel, message);
+        if (!RedisChannel.isDurable(channel)) {
+            StorageBackends.keyValue().batch(batch -> batch.publish(channel, envelope.toWire()));
+            return;
+        }
+        StorageBackends.keyValue().transaction(tx -> {
+            RedisEventLog.append(tx, envelope);
+            tx.publish(channel, envelope.toWire());
+        });
+    }
+
+    public static RedisPublisherStats getStats() {
+        int pendingRetries;
+        synchronized (retries) {
+            pendingRetries = retries.size();
+        }
+        return new RedisPublisherStats(queue.size() + pendingRetries, published.get(), batches.get(), superseded.get(),
+                backpressured.get(), dropped.get(), failed.get(), retried.get(), maxBatch.get());
+    }
+
+    private static boolean enqueue(PendingPublish pending) {
+        if (queue.offer(pending)) return true;
+
+        backpressured.incrementAndGet();
+        try {
+            if (queue.offer(pending, BACKPRESSURE_WAIT_MS, TimeUnit.MILLISECONDS)) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            LOGGER.warning("[RedisPublisher] Fila de publicação cheia. Mensagens descartadas: " + dropped.get() + " (canal: " + pending.channel + ")");
+        }
+        return false;
+    }
+
+    private static void flushLoop() {
+        List<PendingPublish> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (drainRetries(batch)) {
+                    requeue(flush(batch));
+                    continue;
+                }
+                PendingPublish first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + FLUSH_WINDOW_NANOS;
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingPublish next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                requeue(flush(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "[RedisPublisher] Erro inesperado na thread de publicação.", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Move para {@code batch} os reenvios pendentes, esperando antes o backoff da última falha.
+     * @return false se não há reenvios.
+     */
+    private static boolean drainRetries(List<PendingPublish> batch) throws InterruptedException {
+        synchronized (retries) {
+            if (retries.isEmpty()) return false;
+        }
+        long wait = retryAt - System.currentTimeMillis();
+        if (wait > 0) Thread.sleep(Math.min(wait, 100));
+        if (System.currentTimeMillis() < retryAt) {
+            return true; // Volta ao laço sem enviar; o batch continua vazio
+        }
+        synchronized (retries) {
+            while (batch.size() < MAX_BATCH_SIZE && !retries.isEmpty()) {
+                batch.add(retries.pollFirst());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Devolve as mensagens de um lote que falhou à frente da fila de reenvio (mantendo a ordem),
+     * descartando as que já esgotaram as tentativas.
+     */
+    private static void requeue(List<PendingPublish> failedBatch) {
+        if (failedBatch.isEmpty()) return;
+        List<PendingPublish> exhausted = new ArrayList<>();
+        List<PendingPublish> unsafe = new ArrayList<>();
+        int maxAttempt = 0;
+        synchronized (retries) {
+            for (int i = failedBatch.size() - 1; i >= 0; i--) {
+                PendingPublish pending = failedBatch.get(i);
+                if (!retryable(pending)) {
+                    unsafe.add(pending);
+                    continue;
+                }
+                if (++pending.attempts > MAX_RETRIES) {
+                    exhausted.add(pending);
+                    continue;
+                }
+                maxAttempt = Math.max(maxAttempt, pending.attempts);
+                retries.addFirst(pending);
+            }
+        }
+        if (maxAttempt > 0) {
+            retried.addAndGet(failedBatch.size() - exhausted.size() - unsafe.size());
+            retryAt = System.currentTimeMillis() + (RETRY_BACKOFF_MS << (maxAttempt - 1));
+        }
+        discard(exhausted);
+        if (!unsafe.isEmpty()) {
+            failed.addAndGet(unsafe.size());
+            LOGGER.warning("[RedisPublisher] " + unsafe.size() + " mensagem(ns) de canais não idempotentes descartada(s) sem reenvio "
+                    + "(REDIS_ENVELOPE_FRAMED=false: os inscritos não reconheceriam a duplicata).");
+        }
+    }
+
+    /**
+     * Sem o quadro binário os inscritos não têm como reconhecer um reenvio; só canais idempotentes são repetidos.
+     */
+    private static boolean retryable(PendingPublish pending) {
+        return RedisEnvelope.isFramed() || RedisChannel.isIdempotent(pending.channel);
+    }
+
+    private static void discard(List<PendingPublish> lost) {
+        if (lost.isEmpty()) return;
+        failed.addAndGet(lost.size());
+        LOGGER.severe("[RedisPublisher] " + lost.size() + " mensagem(ns) descartada(s) após " + MAX_RETRIES + " tentativas de reenvio.");
+    }
+
+    /**
+     * Envia o lote num pipeline.
+     * @return As mensagens do lote se o envio falhou; lista vazia em caso de sucesso.
+     */
+    private static List<PendingPublish> flush(List<PendingPublish> batch) {
+        if (batch.isEmpty()) return List.of();
+        try {
+            boolean durable = false;
+            for (PendingPublish pending : batch) durable |= RedisChannel.isDurable(pending.channel);
+            Consumer<KeyValueBatch> commands = pipeline -> {
+                for (PendingPublish pending : batch) {
+                    RedisEnvelope envelope = pending.envelope();
+                    if (RedisChannel.isDurable(pending.channel)) {
+                        RedisEventLog.append(pipeline, envelope);
+                    }
+                    pipeline.publish(pending.channel, envelope.toWire());
+                }
+            };
+            // Com canal durável o lote vai num MULTI: a entrada do log e a publicação ficam visíveis
+            // juntas, o que o checkpoint de replay do RedisSubscriber pressupõe
+            if (durable) {
+                StorageBackends.keyValue().transaction(commands);
+            } else {
+                StorageBackends.keyValue().batch(commands);
+            }
+            published.addAndGet(batch.size());
+            batches.incrementAndGet();
+            maxBatch.accumulateAndGet(batch.size(), Math::max);
+            return List.of();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[RedisPublisher] Falha ao enviar lote de " + batch.size() + " mensagem(ns); será reenviado.", e);
+            return new ArrayList<>(batch);
+        }
+    }
+
+    private static final class PendingPublish {
+        private final String channel;
+        private final String coalesceKey;
+        private volatile String message;
+        private RedisEnvelope envelope;
+        private int attempts;
+
+        private PendingPublish(String channel, String coalesceKey, String message) {
+            this.channel = channel;
+            this.coalesceKey = coalesceKey;
+            this.message = message;
+        }
+
+        /**
+         * Fixa a mensagem no primeiro envio; reenvios usam o mesmo envelope (mesma sequência).
+         */
+        private RedisEnvelope envelope() {
+            if (envelope == null) {
+                // Remove da coalescência antes de ler a mensagem: atualizações posteriores criam nova entrada
+                if (coalesceKey != null) {
+                    coalescing.remove(coalesceKey, this);
+                }
+                envelope = RedisEnvelope.outgoing(channel, message);
+            }
+            return envelope;
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.realmmc.controller.shared.storage.redis;
+
+/**
+ * Snapshot das métricas do {@link RedisPublisher}.
+ *
+ * @param queued        Mensagens aguardando envio.
+ * @param published     Total de mensagens enviadas.
+ * @param batches       Total de pipelines enviados.
+ * @param superseded    Mensagens substituídas por outra mais recente com a mesma chave.
+ * @param backpressured Publicações que encontraram a fila cheia e tiveram de esperar.
+ * @param dropped       Mensagens descartadas por fila cheia.
+ * @param failed        Mensagens perdidas após esgotar as tentativas de reenvio.
+ * @param retried       Mensagens devolvidas à fila após falha no envio do pipeline.
+ * @param maxBatch      Maior lote enviado num único pipeline.
+ */
+public record RedisPublisherStats(
+        int queued,
+        long published,
+        long batches,
+        long superseded,
+        long backpressured,
+        long dropped,
+        long failed,
+        long retried,
+        long maxBatch
+) {
+}
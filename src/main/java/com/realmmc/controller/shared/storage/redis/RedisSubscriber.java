@@ -1,40 +1,86 @@
 package com.realmmc.controller.shared.storage.redis;
 
 import com.realmmc.controller.shared.utils.TaskScheduler;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Gerencia a subscrição a canais Redis e o dispatch de mensagens para listeners.
- * (Versão Corrigida: registerListener apenas adiciona ao mapa)
+ * Cada canal aceita vários listeners; as mensagens são entregues fora da thread de
+ * subscrição, numa pool limitada, preservando a ordem por canal. Cada passada de um canal
+ * processa no máximo {@code REDIS_DISPATCH_BATCH} mensagens e volta para o fim da fila da pool,
+ * para que um canal movimentado não monopolize uma thread.
  */
 public final class RedisSubscriber {
     private static final Logger LOGGER = Logger.getLogger(RedisSubscriber.class.getName());
     // Intervalo (em segundos) entre tentativas de reconexão
     private static final int RECONNECT_DELAY_SECONDS = 10;
-
-    // Mapa de listeners: Channel Name -> Listener Instance
-    private final Map<String, RedisMessageListener> listeners = new ConcurrentHashMap<>();
+    // Intervalo entre checkpoints do cursor de replay (cada um é uma leitura do fim dos streams + um PING)
+    private static final int REPLAY_CHECKPOINT_SECONDS = Math.max(1, Integer.getInteger("REDIS_REPLAY_CHECKPOINT_SECONDS", 5));
+    // Máximo de mensagens pendentes por canal antes de começar a descartar
+    private static final int MAX_PENDING_PER_CHANNEL = 10_000;
+    // Mensagens processadas por passada antes de devolver a thread à pool
+    private static final int DISPATCH_BATCH = Math.max(1, Integer.getInteger("REDIS_DISPATCH_BATCH", 64));
+    // Número de threads de dispatch (limitado para não competir com o TaskScheduler)
+    private static final int DISPATCH_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    // Mapa de listeners: Channel Name -> Listeners inscritos (ordem de registro)
+    private final Map<String, List<ListenerHandle>> listeners = new ConcurrentHashMap<>();
+    // Fila serial de cada canal: Channel Name -> mensagens pendentes
+    private final Map<String, ChannelQueue> channelQueues = new ConcurrentHashMap<>();
+    // Pool de dispatch das mensagens (criada no start, finalizada no stop)
+    private volatile ExecutorService dispatchPool;
+    // Última sequência vista por "origem|canal" (detecção de lacunas)
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final AtomicLong gapsDetected = new AtomicLong();
+    private final AtomicLong missedMessages = new AtomicLong();
+    private final AtomicLong outOfOrderMessages = new AtomicLong();
+    private final AtomicLong selfEchoesSkipped = new AtomicLong();
+    private final AtomicLong legacyMessages = new AtomicLong();
+    // Cursores pendentes após uma queda: canal durável -> último ID do RedisEventLog já recebido
+    private final Map<String, String> replayCursors = new ConcurrentHashMap<>();
+    // Cursores da conexão atual: canal durável -> último ID do RedisEventLog confirmado como recebido
+    private final Map<String, String> streamCursors = new ConcurrentHashMap<>();
+    // Fins de stream lidos antes de cada PING, confirmados pelo PONG correspondente (em ordem)
+    private final ConcurrentLinkedQueue<Map<String, String>> pendingCheckpoints = new ConcurrentLinkedQueue<>();
+    private final AtomicLong replayedMessages = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
     // Flag volátil para controlar o estado de execução da thread principal
     private volatile boolean running = false;
     // Future representando a thread de subscrição principal
     private CompletableFuture<Void> future;
-    // Instância ativa do JedisPubSub (usada para unsubscribe)
-    private volatile JedisPubSub pubSub; // Tornar volátil para visibilidade entre threads
+    // Instância ativa do BinaryJedisPubSub (usada para unsubscribe)
+    private volatile BinaryJedisPubSub pubSub; // Tornar volátil para visibilidade entre threads
     // Tarefa agendada para enviar PINGs
     private ScheduledFuture<?> pingTask;
+    // Inscrição direta no backend quando ele entrega mensagens localmente (ex.: armazenamento em memória)
+    private AutoCloseable directSubscription;
 
     // --- Gerenciamento de Listeners ---
 
@@ -59,16 +105,27 @@ public final class RedisSubscriber {
         Objects.requireNonNull(channelName, "Channel name cannot be null");
         Objects.requireNonNull(listener, "RedisMessageListener cannot be null");
 
-        // 1. Adiciona ao mapa
-        listeners.put(channelName, listener);
-        LOGGER.info("Listener " + listener.getClass().getSimpleName() + " registrado para o canal: " + channelName);
+        // 1. Adiciona à lista do canal (ignora registro duplicado da mesma instância)
+        List<ListenerHandle> handles = listeners.computeIfAbsent(channelName, k -> new CopyOnWriteArrayList<>());
+        boolean firstForChannel = handles.isEmpty();
+        for (ListenerHandle handle : handles) {
+            if (handle.listener == listener) {
+                LOGGER.fine("Listener " + listener.getClass().getSimpleName() + " já registrado para o canal: " + channelName);
+                return;
+            }
+        }
+        handles.add(new ListenerHandle(channelName, listener));
+        LOGGER.info("Listener " + listener.getClass().getSimpleName() + " registrado para o canal: " + channelName + " (Total no canal: " + handles.size() + ")");
+        if (!firstForChannel) {
+            return; // Canal já subscrito
+        }
 
         // 2. Lógica de subscrição dinâmica
-        JedisPubSub currentPubSub = this.pubSub;
+        BinaryJedisPubSub currentPubSub = this.pubSub;
         if (running && currentPubSub != null && currentPubSub.isSubscribed()) {
             try {
                 LOGGER.fine("Subscrevendo dinamicamente ao novo canal: " + channelName);
-                currentPubSub.subscribe(channelName);
+                currentPubSub.subscribe(channelName.getBytes(StandardCharsets.UTF_8));
             } catch (Exception e) {
                 // Loga como SEVERE, mas não quebra a aplicação, pois o listener será pego na próxima reconexão.
                 LOGGER.log(Level.SEVERE, "Falha ao subscrever dinamicamente no canal " + channelName + ". Será tentado novamente na próxima reconexão.", e);
@@ -77,8 +134,8 @@ public final class RedisSubscriber {
     }
 
     /**
-     * Remove um listener de um canal específico (usando Enum).
-     * @param channel O canal do qual remover o listener.
+     * Remove todos os listeners de um canal específico (usando Enum).
+     * @param channel O canal do qual remover os listeners.
      */
     public void unregisterListener(RedisChannel channel) {
         if (channel != null) {
@@ -87,27 +144,236 @@ public final class RedisSubscriber {
     }
 
     /**
-     * Remove um listener de um canal específico (por nome).
+     * Remove apenas o listener indicado de um canal específico (usando Enum).
+     * @param channel O canal do qual remover o listener.
+     * @param listener A instância registrada anteriormente.
+     */
+    public void unregisterListener(RedisChannel channel, RedisMessageListener listener) {
+        if (channel != null) {
+            unregisterListener(channel.getName(), listener);
+        }
+    }
+
+    /**
+     * Remove todos os listeners de um canal específico (por nome).
      * Tenta desinscrever dinamicamente se o subscriber estiver rodando.
-     * @param channelName O nome do canal do qual remover o listener.
+     * @param channelName O nome do canal do qual remover os listeners.
      */
     public synchronized void unregisterListener(String channelName) {
         if (channelName != null) {
-            RedisMessageListener removedListener = listeners.remove(channelName);
-            if (removedListener != null) {
-                LOGGER.fine("Listener " + removedListener.getClass().getSimpleName() + " removido do mapa para o canal: " + channelName);
+            List<ListenerHandle> removed = listeners.remove(channelName);
+            channelQueues.remove(channelName);
+            if (removed != null) {
+                LOGGER.fine(removed.size() + " listener(s) removido(s) do mapa para o canal: " + channelName);
+                unsubscribeChannel(channelName);
+            }
+        }
+    }
 
-                // Tenta desinscrever dinamicamente (seguro fazer unsubscribe)
-                JedisPubSub currentPubSub = this.pubSub; // Leitura volátil
-                if (currentPubSub != null && currentPubSub.isSubscribed()) {
-                    try {
-                        currentPubSub.unsubscribe(channelName);
-                    } catch (Exception e) {
-                        LOGGER.log(Level.WARNING, "Falha ao desinscrever dinamicamente do canal " + channelName + " após desregistro.", e);
-                    }
-                }
+    /**
+     * Remove apenas o listener indicado de um canal específico (por nome).
+     * O canal só é desinscrito quando não restar nenhum listener.
+     * @param channelName O nome do canal.
+     * @param listener A instância registrada anteriormente.
+     */
+    public synchronized void unregisterListener(String channelName, RedisMessageListener listener) {
+        if (channelName == null || listener == null) return;
+        List<ListenerHandle> handles = listeners.get(channelName);
+        if (handles == null) return;
+
+        if (handles.removeIf(handle -> handle.listener == listener)) {
+            LOGGER.fine("Listener " + listener.getClass().getSimpleName() + " removido do canal: " + channelName);
+        }
+        if (handles.isEmpty()) {
+            listeners.remove(channelName);
+            channelQueues.remove(channelName);
+            unsubscribeChannel(channelName);
+        }
+    }
+
+    private void unsubscribeChannel(String channelName) {
+        replayCursors.remove(channelName);
+        streamCursors.remove(channelName);
+        // Tenta desinscrever dinamicamente (seguro fazer unsubscribe)
+        BinaryJedisPubSub currentPubSub = this.pubSub; // Leitura volátil
+        if (currentPubSub != null && currentPubSub.isSubscribed()) {
+            try {
+                currentPubSub.unsubscribe(channelName.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Falha ao desinscrever dinamicamente do canal " + channelName + " após desregistro.", e);
+            }
+        }
+    }
+
+    /**
+     * Retorna um snapshot das métricas de todos os listeners registrados.
+     */
+    public List<RedisListenerStats> getListenerStats() {
+        List<RedisListenerStats> stats = new ArrayList<>();
+        listeners.values().forEach(handles -> handles.forEach(handle -> stats.add(handle.snapshot())));
+        return Collections.unmodifiableList(stats);
+    }
+
+    // --- Dispatch ---
+
+    /**
+     * Enfileira a mensagem na fila do canal. Chamado na thread de subscrição,
+     * portanto nunca executa código de listener diretamente.
+     */
+    private void dispatch(RedisEnvelope envelope) {
+        List<ListenerHandle> handles = listeners.get(envelope.channel());
+        if (handles == null || handles.isEmpty()) return;
+        if (!trackSequence(envelope)) {
+            duplicatesSkipped.incrementAndGet();
+            return;
+        }
+        channelQueues.computeIfAbsent(envelope.channel(), ChannelQueue::new).enqueue(envelope);
+    }
+
+    /**
+     * Detecta lacunas na sequência (origem, canal). Uma sequência menor ou igual à última
+     * vista indica duplicata (ex.: reenvio de um lote do publicador, ou mensagem entregue ao vivo
+     * e de novo pelo replay). Mensagens legadas, sem sequência, sempre passam.
+     * @return false se a mensagem deve ser descartada como duplicata.
+     */
+    private boolean trackSequence(RedisEnvelope envelope) {
+        if (envelope.isLegacy()) {
+            legacyMessages.incrementAndGet();
+            return true;
+        }
+        String key = envelope.origin() + "|" + envelope.channel();
+        Long last = lastSequences.get(key);
+        if (last != null && envelope.sequence() <= last) {
+            outOfOrderMessages.incrementAndGet();
+            return false;
+        }
+        lastSequences.put(key, envelope.sequence());
+        if (last == null) return true;
+        long expected = last + 1;
+        if (envelope.sequence() > expected) {
+            long missed = envelope.sequence() - expected;
+            gapsDetected.incrementAndGet();
+            missedMessages.addAndGet(missed);
+            LOGGER.warning("Lacuna detectada no canal '" + envelope.channel() + "' vindo de " + envelope.origin() + ": " + missed + " mensagem(ns) perdida(s) (esperado " + expected + ", recebido " + envelope.sequence() + ").");
+        }
+        return true;
+    }
+
+    /**
+     * Chamado na thread de subscrição logo após a confirmação do SUBSCRIBE de um canal. Se a conexão
+     * anterior caiu, relê do RedisEventLog as entradas posteriores ao último ID confirmado antes da
+     * queda, que são despachadas antes das recebidas ao vivo nesta conexão; senão o cursor parte do
+     * fim atual do stream. Uma mensagem publicada entre o SUBSCRIBE e essa leitura chega pelos dois
+     * caminhos: com o quadro binário a cópia é descartada por sequência; no modo de compatibilidade
+     * ({@code REDIS_ENVELOPE_FRAMED=false}) ela é entregue duas vezes.
+     */
+    void onSubscribed(String channel) {
+        if (!RedisChannel.isDurable(channel)) return;
+        String pending = replayCursors.remove(channel);
+        KeyValueStore store = StorageBackends.keyValue();
+        if (pending == null) {
+            try {
+                streamCursors.put(channel, RedisEventLog.lastId(store, channel));
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Falha ao ler o fim do RedisEventLog do canal '" + channel + "'; sem replay se esta conexão cair.", e);
+            }
+            return;
+        }
+        try {
+            List<RedisEventLog.Entry> missed = RedisEventLog.readAfter(store, channel, pending);
+            long before = duplicatesSkipped.get();
+            for (RedisEventLog.Entry entry : missed) {
+                dispatch(entry.envelope());
+            }
+            long delivered = missed.size() - (duplicatesSkipped.get() - before);
+            replayedMessages.addAndGet(delivered);
+            streamCursors.put(channel, missed.isEmpty() ? pending : missed.get(missed.size() - 1).id());
+            LOGGER.info("Replay do canal '" + channel + "' concluído: " + missed.size() + " entrada(s) lida(s), " + delivered + " entregue(s).");
+        } catch (Exception e) {
+            replayCursors.putIfAbsent(channel, pending); // Tenta de novo na próxima conexão
+            LOGGER.log(Level.SEVERE, "Falha ao reproduzir mensagens perdidas do canal '" + channel + "'.", e);
+        }
+    }
+
+    /**
+     * Lê o fim atual do stream de cada canal durável inscrito, antes de um PING pela conexão de
+     * subscrição. O publicador grava no log e publica no mesmo {@code MULTI}, então toda entrada lida
+     * aqui já foi publicada, e o PONG só chega depois dessas mensagens: em {@link #onPong()} os IDs
+     * lidos passam a ser o cursor.
+     */
+    void checkpoint() {
+        Map<String, String> tails = new HashMap<>();
+        KeyValueStore store = StorageBackends.keyValue();
+        for (String channel : streamCursors.keySet()) {
+            try {
+                tails.put(channel, RedisEventLog.lastId(store, channel));
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Falha ao ler o fim do RedisEventLog do canal '" + channel + "'; cursor mantido.", e);
             }
         }
+        // Enfileira mesmo vazio: cada PONG consome o checkpoint do seu PING
+        pendingCheckpoints.add(tails);
+    }
+
+    void onPong() {
+        Map<String, String> tails = pendingCheckpoints.poll();
+        if (tails != null) {
+            tails.forEach(streamCursors::replace);
+        }
+    }
+
+    /**
+     * Guarda, para cada canal durável inscrito, o último ID confirmado, a partir do qual reler o
+     * log quando a conexão voltar. Cursores já pendentes (quedas consecutivas) são mantidos.
+     */
+    void saveReplayCursors() {
+        streamCursors.forEach(replayCursors::putIfAbsent);
+        streamCursors.clear();
+        pendingCheckpoints.clear();
+    }
+
+    /** Mensagens perdidas durante quedas e entregues via replay do RedisEventLog. */
+    public long getReplayedMessages() {
+        return replayedMessages.get();
+    }
+
+    /** Mensagens descartadas por já terem sido entregues (sequência repetida). */
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.get();
+    }
+
+    /** Total de lacunas de sequência detectadas desde o início. */
+    public long getGapsDetected() {
+        return gapsDetected.get();
+    }
+
+    /** Total de mensagens que faltaram nas lacunas detectadas. */
+    public long getMissedMessages() {
+        return missedMessages.get();
+    }
+
+    /** Mensagens recebidas com sequência repetida ou anterior à última vista (descartadas). */
+    public long getOutOfOrderMessages() {
+        return outOfOrderMessages.get();
+    }
+
+    /** Mensagens do próprio nó não entregues a listeners com {@code ignoreOwnMessages()}. */
+    public long getSelfEchoesSkipped() {
+        return selfEchoesSkipped.get();
+    }
+
+    /** Mensagens recebidas sem envelope (publicadas por clientes antigos). */
+    public long getLegacyMessages() {
+        return legacyMessages.get();
+    }
+
+    private static ExecutorService createDispatchPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(DISPATCH_THREADS, r -> {
+            Thread t = new Thread(r, "Controller-Redis-Dispatch-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     // --- Lógica de Start/Stop e Reconexão ---
@@ -124,12 +390,27 @@ public final class RedisSubscriber {
         }
 
         running = true; // Define a flag de execução
+        if (dispatchPool == null || dispatchPool.isShutdown()) {
+            dispatchPool = createDispatchPool();
+        }
+
+        KeyValueStore store = StorageBackends.keyValue();
+        if (store.supportsDirectSubscription()) {
+            // Sem conexão de subscrição: o próprio backend entrega as mensagens publicadas
+            directSubscription = store.subscribeDirect((channel, message) -> {
+                if (running && listeners.containsKey(channel)) {
+                    dispatch(RedisEnvelope.decode(channel, message));
+                }
+            });
+            LOGGER.info("RedisSubscriber inscrito diretamente no backend " + store.getClass().getSimpleName() + ".");
+            return;
+        }
         LOGGER.info("Iniciando loop de subscrição do RedisSubscriber...");
 
         // Usa TaskScheduler para rodar o loop de subscrição/reconexão de forma assíncrona
         future = TaskScheduler.runAsync(() -> {
             Jedis resource = null; // Conexão Jedis
-            JedisPubSub currentPubSub = null; // Instância do handler de mensagens
+            BinaryJedisPubSub currentPubSub = null; // Instância do handler de mensagens
 
             // Loop principal: continua enquanto 'running' for true
             while (running) {
@@ -150,24 +431,20 @@ public final class RedisSubscriber {
                     LOGGER.info("Tentando conectar ao Redis e subscrever " + channelsArray.length + " canal(s)... (" + String.join(", ", channelsArray) + ")");
                     resource = RedisManager.getResource(); // Obtém conexão do pool
 
-                    // Cria uma NOVA instância do JedisPubSub a cada tentativa de conexão
-                    currentPubSub = new JedisPubSub() {
+                    // Cria uma NOVA instância do BinaryJedisPubSub a cada tentativa de conexão
+                    currentPubSub = new BinaryJedisPubSub() {
                         @Override
-                        public void onMessage(String channel, String message) {
+                        public void onMessage(byte[] channel, byte[] message) {
                             if (!running) return; // Não processa se já pediu para parar
-                            RedisMessageListener listener = listeners.get(channel);
-                            if (listener != null) {
-                                try {
-                                    listener.onMessage(channel, message);
-                                } catch (Exception e) {
-                                    LOGGER.log(Level.SEVERE, "Erro ao processar mensagem do canal '" + channel + "' pelo listener " + listener.getClass().getSimpleName(), e);
-                                }
-                            } else {
-                                // LOGGER.warning("Mensagem recebida para o canal '" + channel + "' mas nenhum listener encontrado.");
-                            }
+                            dispatch(RedisEnvelope.decode(new String(channel, StandardCharsets.UTF_8), message));
+                        }
+                        @Override public void onSubscribe(byte[] channel, int subscribedChannels) {
+                            String channelName = new String(channel, StandardCharsets.UTF_8);
+                            LOGGER.info("Inscrito no canal Redis: " + channelName + " (Total: " + subscribedChannels + ")");
+                            onSubscribed(channelName);
                         }
-                        @Override public void onSubscribe(String channel, int subscribedChannels) { LOGGER.info("Inscrito no canal Redis: " + channel + " (Total: " + subscribedChannels + ")"); }
-                        @Override public void onUnsubscribe(String channel, int subscribedChannels) { LOGGER.info("Desinscrito do canal Redis: " + channel + " (Total: " + subscribedChannels + ")"); }
+                        @Override public void onPong(byte[] pattern) { RedisSubscriber.this.onPong(); }
+                        @Override public void onUnsubscribe(byte[] channel, int subscribedChannels) { LOGGER.info("Desinscrito do canal Redis: " + new String(channel, StandardCharsets.UTF_8) + " (Total: " + subscribedChannels + ")"); }
                     };
 
                     // Define a instância global ANTES de iniciar o ping e subscribe
@@ -179,7 +456,11 @@ public final class RedisSubscriber {
                     LOGGER.info("RedisSubscriber entrando em modo de escuta...");
                     // *** CHAMADA BLOQUEANTE ***
                     // Fica aqui até a conexão cair ou unsubscribe() ser chamado
-                    resource.subscribe(currentPubSub, channelsArray);
+                    byte[][] channelBytes = new byte[channelsArray.length][];
+                    for (int i = 0; i < channelsArray.length; i++) {
+                        channelBytes[i] = channelsArray[i].getBytes(StandardCharsets.UTF_8);
+                    }
+                    resource.subscribe(currentPubSub, channelBytes);
 
                     // Se chegou aqui, foi um unsubscribe() intencional (provavelmente vindo do stop())
                     LOGGER.info("RedisSubscriber saiu do modo de escuta (unsubscribe intencional).");
@@ -188,6 +469,7 @@ public final class RedisSubscriber {
                 } catch (JedisConnectionException jce) {
                     // --- LÓGICA DE RECONEXÃO ---
                     LOGGER.log(Level.SEVERE, "Erro de conexão Redis: " + jce.getMessage() + ". Tentando reconectar em " + RECONNECT_DELAY_SECONDS + " segundos...");
+                    saveReplayCursors();
                     // Limpa pubSub e para ping antes de esperar
                     this.pubSub = null;
                     stopPingTask();
@@ -257,7 +539,7 @@ public final class RedisSubscriber {
      * Para a thread de subscrição de fundo e limpa os recursos.
      */
     public synchronized void stop() {
-        if (!running && pubSub == null && future == null) {
+        if (!running && pubSub == null && future == null && directSubscription == null) {
             LOGGER.fine("RedisSubscriber já parado ou não iniciado.");
             return;
         }
@@ -265,12 +547,21 @@ public final class RedisSubscriber {
         running = false; // Sinaliza para o loop/thread parar
         stopPingTask(); // Para a tarefa de PING
 
-        JedisPubSub currentPubSub = this.pubSub; // Leitura volátil
+        if (directSubscription != null) {
+            try {
+                directSubscription.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Erro ao cancelar inscrição direta durante stop()", e);
+            }
+            directSubscription = null;
+        }
+
+        BinaryJedisPubSub currentPubSub = this.pubSub; // Leitura volátil
         if (currentPubSub != null) {
             try {
                 if (currentPubSub.isSubscribed()) {
                     currentPubSub.unsubscribe();
-                    LOGGER.fine("Comando unsubscribe enviado para JedisPubSub.");
+                    LOGGER.fine("Comando unsubscribe enviado para BinaryJedisPubSub.");
                 }
             } catch (Exception e) {
                 LOGGER.log(Level.WARNING, "Erro ao enviar comando unsubscribe durante stop()", e);
@@ -289,36 +580,52 @@ public final class RedisSubscriber {
             this.future = null;
         }
 
+        ExecutorService currentPool = this.dispatchPool;
+        if (currentPool != null) {
+            currentPool.shutdown();
+            try {
+                if (!currentPool.awaitTermination(2, TimeUnit.SECONDS)) {
+                    currentPool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                currentPool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            this.dispatchPool = null;
+        }
+
         LOGGER.info("Sequência de parada do RedisSubscriber concluída.");
     }
 
     // --- Tarefa de Ping ---
 
     /**
-     * Inicia uma tarefa periódica para enviar PINGs via JedisPubSub.
+     * Inicia uma tarefa periódica para enviar PINGs via BinaryJedisPubSub, cada um precedido de um
+     * {@link #checkpoint()} do cursor de replay.
      */
-    private void startPingTask(final JedisPubSub pubSubInstance) {
+    private void startPingTask(final BinaryJedisPubSub pubSubInstance) {
         if (pingTask != null && !pingTask.isDone()) {
             return;
         }
-        LOGGER.fine("Iniciando tarefa de Ping para JedisPubSub.");
+        LOGGER.fine("Iniciando tarefa de Ping para BinaryJedisPubSub.");
         try {
             pingTask = TaskScheduler.runAsyncTimer(() -> {
                 if (running && pubSubInstance != null && pubSubInstance == this.pubSub && pubSubInstance.isSubscribed()) {
                     try {
+                        checkpoint();
                         pubSubInstance.ping();
                     } catch (JedisConnectionException jce) {
-                        LOGGER.log(Level.WARNING, "Erro de conexão ao enviar PING via JedisPubSub. Parando tarefa de ping.", jce);
+                        LOGGER.log(Level.WARNING, "Erro de conexão ao enviar PING via BinaryJedisPubSub. Parando tarefa de ping.", jce);
                         stopPingTask();
                     } catch (Exception e) {
-                        LOGGER.log(Level.WARNING, "Erro inesperado ao enviar PING via JedisPubSub. Parando tarefa de ping.", e);
+                        LOGGER.log(Level.WARNING, "Erro inesperado ao enviar PING via BinaryJedisPubSub. Parando tarefa de ping.", e);
                         stopPingTask();
                     }
                 } else {
                     LOGGER.fine("Condições não atendidas para PING. Parando tarefa de PING.");
                     stopPingTask();
                 }
-            }, 1, 1, TimeUnit.MINUTES); // Delay 1 min, Repete 1 min
+            }, REPLAY_CHECKPOINT_SECONDS, REPLAY_CHECKPOINT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Falha ao agendar a tarefa de PING do RedisSubscriber!", e);
         }
@@ -342,4 +649,113 @@ public final class RedisSubscriber {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Fila serial de um canal: as mensagens são entregues em ordem a todos os listeners do canal,
+     * em passadas de até {@link #DISPATCH_BATCH} mensagens.
+     */
+    private final class ChannelQueue {
+        private final String channel;
+        private final ConcurrentLinkedQueue<PendingMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicLong dropped = new AtomicLong();
+
+        private ChannelQueue(String channel) {
+            this.channel = channel;
+        }
+
+        void enqueue(RedisEnvelope envelope) {
+            if (depth.incrementAndGet() > MAX_PENDING_PER_CHANNEL) {
+                depth.decrementAndGet();
+                if (dropped.incrementAndGet() % 1000 == 1) {
+                    LOGGER.warning("Fila do canal '" + channel + "' cheia. Mensagens descartadas: " + dropped.get());
+                }
+                return;
+            }
+            queue.offer(new PendingMessage(envelope, System.nanoTime()));
+            schedule();
+        }
+
+        private void schedule() {
+            ExecutorService pool = dispatchPool;
+            if (pool == null || !draining.compareAndSet(false, true)) return;
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                LOGGER.fine("Dispatch rejeitado para o canal '" + channel + "' (pool finalizada).");
+            }
+        }
+
+        private void drain() {
+            try {
+                PendingMessage pending;
+                int processed = 0;
+                while (processed < DISPATCH_BATCH && (pending = queue.poll()) != null) {
+                    depth.decrementAndGet();
+                    processed++;
+                    deliver(pending);
+                }
+            } finally {
+                draining.set(false);
+                // Sobrou mensagem (limite da passada) ou chegou uma entre o último poll e a liberação da flag
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void deliver(PendingMessage pending) {
+            List<ListenerHandle> handles = listeners.get(channel);
+            if (handles == null) return;
+            boolean own = pending.envelope().isFromLocalNode();
+            for (ListenerHandle handle : handles) {
+                if (own && handle.listener.ignoreOwnMessages()) {
+                    selfEchoesSkipped.incrementAndGet();
+                    continue;
+                }
+                handle.deliver(pending);
+            }
+        }
+    }
+
+    private final class ListenerHandle {
+        private final String channel;
+        private final RedisMessageListener listener;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private ListenerHandle(String channel, RedisMessageListener listener) {
+            this.channel = channel;
+            this.listener = listener;
+        }
+
+        void deliver(PendingMessage pending) {
+            try {
+                listener.onEnvelope(pending.envelope());
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                LOGGER.log(Level.SEVERE, "Erro ao processar mensagem do canal '" + channel + "' pelo listener " + listener.getClass().getSimpleName(), e);
+            }
+            long latency = System.nanoTime() - pending.enqueuedAt();
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+
+        RedisListenerStats snapshot() {
+            long done = processed.get() + failed.get();
+            long avgMicros = done == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get() / done);
+            ChannelQueue channelQueue = channelQueues.get(channel);
+            return new RedisListenerStats(channel, listener.getClass().getSimpleName(),
+                    channelQueue != null ? channelQueue.depth.get() : 0,
+                    processed.get(), failed.get(), channelQueue != null ? channelQueue.dropped.get() : 0, avgMicros,
+                    TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get()));
+        }
+    }
+
+    private record PendingMessage(RedisEnvelope envelope, long enqueuedAt) {}
+}
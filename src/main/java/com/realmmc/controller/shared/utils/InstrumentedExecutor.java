@@ -0,0 +1,123 @@
+package com.realmmc.controller.shared.utils;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor que mede a fila e o tempo das tarefas de um pool do {@link TaskScheduler}.
+ * <p>
+ * "Na fila" são as tarefas aceitas que ainda não começaram; a espera é o tempo entre o envio e o
+ * início, e a execução, o tempo dentro da tarefa. Os contadores são somas livres de trava, então o
+ * custo por tarefa é de alguns incrementos atômicos.
+ */
+final class InstrumentedExecutor extends AbstractExecutorService {
+
+    private final String name;
+    private final String kind;
+    private final ExecutorService delegate;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    InstrumentedExecutor(String name, String kind, ExecutorService delegate) {
+        this.name = name;
+        this.kind = kind;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.increment();
+        queued.incrementAndGet();
+        long enqueuedAt = System.nanoTime();
+        try {
+            delegate.execute(() -> run(task, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        record(startedAt - enqueuedAt, totalWaitNanos, maxWaitNanos);
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            record(System.nanoTime() - startedAt, totalRunNanos, maxRunNanos);
+            active.decrementAndGet();
+            completed.increment();
+        }
+    }
+
+    TaskScheduler.PoolStats stats() {
+        long done = completed.sum();
+        long started = Math.max(1, done + active.get());
+        return new TaskScheduler.PoolStats(name, kind, queued.get(), active.get(), submitted.sum(), done,
+                failed.sum(), rejected.sum(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / started),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunNanos.sum() / done),
+                TimeUnit.NANOSECONDS.toMillis(maxRunNanos.get()));
+    }
+
+    void reset() {
+        submitted.reset();
+        completed.reset();
+        failed.reset();
+        rejected.reset();
+        totalWaitNanos.reset();
+        totalRunNanos.reset();
+        maxWaitNanos.set(0);
+        maxRunNanos.set(0);
+    }
+
+    private static void record(long nanos, LongAdder total, AtomicLong max) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -5,16 +5,46 @@ import com.velocitypowered.api.scheduler.ScheduledTask; // Import Velocity Task
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask; // Import Bukkit Task
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level; // Import Level
 import java.util.logging.Logger; // Import Logger
 
+/**
+ * Agendador do controller para Velocity e Spigot.
+ * <p>
+ * O trabalho assíncrono fica em dois pools separados: um pool pequeno de timers, que só dispara
+ * tarefas atrasadas/periódicas e nunca executa o corpo delas, e um pool de I/O (threads virtuais
+ * por padrão, {@code TASK_SCHEDULER_VIRTUAL_THREADS=false} volta para um pool fixo de
+ * {@code TASK_SCHEDULER_IO_THREADS}), onde rodam {@link #runAsync}, {@link #getAsyncExecutor()} e o
+ * corpo dos timers. Assim uma tarefa lenta não atrasa os disparos dos outros timers.
+ * <p>
+ * Uma tarefa periódica nunca roda em paralelo consigo mesma: se o disparo chega com a execução
+ * anterior ainda em andamento, ele é descartado e contado como atraso (overrun). Os números de cada
+ * pool e de cada tarefa periódica ficam em {@link #getPoolStats()} e {@link #getTimerStats()}
+ * (comando {@code /scheduler}).
+ */
 public final class TaskScheduler {
+    private static final int TIMER_THREADS = Integer.getInteger("TASK_SCHEDULER_TIMER_THREADS", 2);
+    private static final int IO_THREADS = Integer.getInteger("TASK_SCHEDULER_IO_THREADS", Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private static final boolean VIRTUAL_THREADS = Boolean.parseBoolean(System.getProperty("TASK_SCHEDULER_VIRTUAL_THREADS", "true"));
+
     private static ProxyServer proxyServer;
     private static Plugin bukkitPlugin;
     private static Object pluginInstance; // Instância do plugin Velocity (@Plugin)
-    private static ScheduledExecutorService asyncPool;
+    private static ScheduledThreadPoolExecutor timerPool;
+    private static InstrumentedExecutor ioPool;
+    private static final List<RecurringTask> TIMERS = new CopyOnWriteArrayList<>();
+    private static final LongAdder TIMER_TICKS = new LongAdder();
+    private static final LongAdder TIMER_TICK_LAG_NANOS = new LongAdder();
+    private static final AtomicLong TIMER_MAX_TICK_LAG_NANOS = new AtomicLong();
     private static boolean isSpigot = false;
     private static boolean initialized = false; // Flag de inicialização
     private static final Logger LOGGER = Logger.getLogger(TaskScheduler.class.getName()); // Logger interno
@@ -30,7 +60,7 @@ public final class TaskScheduler {
         proxyServer = Objects.requireNonNull(proxy, "ProxyServer não pode ser nulo");
         pluginInstance = Objects.requireNonNull(plugin, "Instância do Plugin Velocity não pode ser nula");
         isSpigot = false;
-        asyncPool = createAsyncPool("Controller-Velocity-Async");
+        createAsyncPools("Controller-Velocity");
         initialized = true;
         LOGGER.info("TaskScheduler inicializado para Velocity.");
     }
@@ -43,25 +73,39 @@ public final class TaskScheduler {
         }
         bukkitPlugin = Objects.requireNonNull(plugin, "Plugin Bukkit não pode ser nulo");
         isSpigot = true;
-        asyncPool = createAsyncPool("Controller-Spigot-Async");
+        createAsyncPools("Controller-Spigot");
         initialized = true;
         LOGGER.info("TaskScheduler inicializado para Spigot.");
     }
 
-    // Cria o pool de threads assíncronas
-    private static ScheduledExecutorService createAsyncPool(String threadPrefix) {
-        // Usa um número razoável de threads, mínimo 2
-        int corePoolSize = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
-        LOGGER.fine("Criando asyncPool com " + corePoolSize + " threads (prefixo: " + threadPrefix + ")");
-        return Executors.newScheduledThreadPool(corePoolSize, new ThreadFactory() {
+    // Cria os pools de timers e de I/O
+    private static void createAsyncPools(String threadPrefix) {
+        timerPool = new ScheduledThreadPoolExecutor(Math.max(1, TIMER_THREADS), namedFactory(threadPrefix + "-Timer"));
+        timerPool.setRemoveOnCancelPolicy(true);
+
+        ExecutorService io;
+        String kind;
+        if (VIRTUAL_THREADS) {
+            io = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix + "-IO-", 0).factory());
+            kind = "virtual";
+        } else {
+            io = Executors.newFixedThreadPool(Math.max(1, IO_THREADS), namedFactory(threadPrefix + "-IO"));
+            kind = IO_THREADS + " threads";
+        }
+        ioPool = new InstrumentedExecutor("io", kind, io);
+        LOGGER.fine("Pools criados: timer com " + timerPool.getCorePoolSize() + " threads, I/O " + kind + " (prefixo: " + threadPrefix + ")");
+    }
+
+    private static ThreadFactory namedFactory(String threadPrefix) {
+        return new ThreadFactory() {
             private int counter = 0;
             @Override
-            public Thread newThread(Runnable r) {
+            public synchronized Thread newThread(Runnable r) {
                 Thread t = new Thread(r, threadPrefix + "-" + counter++);
                 t.setDaemon(true); // Threads da pool devem ser daemon
                 return t;
             }
-        });
+        };
     }
 
     // Garante que o scheduler foi inicializado
@@ -126,23 +170,194 @@ public final class TaskScheduler {
 
     public static CompletableFuture<Void> runAsync(Runnable task) {
         ensureInit();
-        // Usa o asyncPool criado
-        return CompletableFuture.runAsync(task, asyncPool);
+        return CompletableFuture.runAsync(task, ioPool);
     }
 
     public static ScheduledFuture<?> runAsyncLater(Runnable task, long delay, TimeUnit unit) {
         ensureInit();
-        // Usa o asyncPool criado
-        return asyncPool.schedule(task, delay, unit);
+        // O timer só repassa a tarefa para o pool de I/O
+        return timerPool.schedule(() -> ioPool.execute(task), delay, unit);
     }
 
     public static ScheduledFuture<?> runAsyncTimer(Runnable task, long delay, long interval, TimeUnit unit) {
+        return runAsyncTimer(callerName(), task, delay, interval, unit);
+    }
+
+    /**
+     * @param name Nome mostrado em {@link #getTimerStats()}; sem ele, usa a classe e o método que agendaram.
+     */
+    public static ScheduledFuture<?> runAsyncTimer(String name, Runnable task, long delay, long interval, TimeUnit unit) {
         ensureInit();
-        // Usa o asyncPool criado
-        // Converte para milissegundos para scheduleAtFixedRate
         long delayMs = unit.toMillis(delay);
-        long intervalMs = unit.toMillis(interval);
-        return asyncPool.scheduleAtFixedRate(task, delayMs, intervalMs, TimeUnit.MILLISECONDS);
+        long intervalMs = Math.max(1, unit.toMillis(interval));
+        RecurringTask recurring = new RecurringTask(name, intervalMs, task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        ScheduledFuture<?> future = timerPool.scheduleAtFixedRate(recurring, delayMs, intervalMs, TimeUnit.MILLISECONDS);
+        recurring.future = future;
+        TIMERS.add(recurring);
+        return future;
+    }
+
+    // --- Métricas ---
+
+    /**
+     * Estado de um pool.
+     *
+     * @param queued   Tarefas aceitas que ainda não começaram.
+     * @param waitAvgMs Espera média entre o envio e o início.
+     */
+    public record PoolStats(String name, String kind, int queued, int active, long submitted, long completed,
+                            long failed, long rejected, long waitAvgMs, long waitMaxMs, long runAvgMs, long runMaxMs) {
+    }
+
+    /**
+     * Estado de uma tarefa periódica.
+     *
+     * @param overruns Disparos descartados porque a execução anterior ainda não tinha terminado.
+     * @param lagMaxMs Maior atraso entre o horário previsto e o início de uma execução.
+     */
+    public record TimerStats(String name, long intervalMs, long runs, long failures, long overruns, long lastMs,
+                             long maxMs, long avgMs, long lagMaxMs, boolean running) {
+    }
+
+    public static List<PoolStats> getPoolStats() {
+        ensureInit();
+        List<PoolStats> stats = new ArrayList<>(2);
+        long ticks = TIMER_TICKS.sum();
+        stats.add(new PoolStats("timer", timerPool.getCorePoolSize() + " threads", timerPool.getQueue().size(),
+                timerPool.getActiveCount(), ticks, timerPool.getCompletedTaskCount(), 0, 0,
+                ticks == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(TIMER_TICK_LAG_NANOS.sum() / ticks),
+                TimeUnit.NANOSECONDS.toMillis(TIMER_MAX_TICK_LAG_NANOS.get()), 0, 0));
+        stats.add(ioPool.stats());
+        return stats;
+    }
+
+    /**
+     * Tarefas periódicas ativas, da maior para a menor duração máxima.
+     */
+    public static List<TimerStats> getTimerStats() {
+        TIMERS.removeIf(RecurringTask::isCancelled);
+        List<TimerStats> stats = new ArrayList<>(TIMERS.size());
+        for (RecurringTask timer : TIMERS) stats.add(timer.stats());
+        stats.sort(Comparator.comparingLong(TimerStats::maxMs).reversed());
+        return stats;
+    }
+
+    public static void resetStats() {
+        ensureInit();
+        ioPool.reset();
+        TIMER_TICKS.reset();
+        TIMER_TICK_LAG_NANOS.reset();
+        TIMER_MAX_TICK_LAG_NANOS.set(0);
+        TIMERS.forEach(RecurringTask::reset);
+    }
+
+    // Nome padrão de um timer: classe e método de quem chamou runAsyncTimer
+    private static String callerName() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(TaskScheduler.class.getName()))
+                .findFirst());
+        return frame.map(f -> {
+            String className = f.getClassName();
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            String method = f.getMethodName();
+            if (method.startsWith("lambda$")) {
+                method = method.substring("lambda$".length());
+                int suffix = method.lastIndexOf('$');
+                if (suffix > 0) method = method.substring(0, suffix);
+            }
+            return simpleName + "#" + method;
+        }).orElse("unknown");
+    }
+
+    /**
+     * Disparo de uma tarefa periódica: roda na thread de timer e só envia o corpo ao pool de I/O.
+     */
+    private static final class RecurringTask implements Runnable {
+        private final String name;
+        private final long intervalMs;
+        private final Runnable body;
+        private final long firstTickNanos;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+        private long ticks; // Só a thread do disparo altera (execuções de fixed-rate não se sobrepõem)
+        private long runs;
+        private long failures;
+        private long overruns;
+        private long lastNanos;
+        private long maxNanos;
+        private long totalNanos;
+        private long maxLagNanos;
+
+        private RecurringTask(String name, long intervalMs, Runnable body, long firstTickNanos) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+            this.body = body;
+            this.firstTickNanos = firstTickNanos;
+        }
+
+        @Override
+        public void run() {
+            long expectedAt = firstTickNanos + (ticks++) * TimeUnit.MILLISECONDS.toNanos(intervalMs);
+            long tickLag = Math.max(0, System.nanoTime() - expectedAt);
+            TIMER_TICKS.increment();
+            TIMER_TICK_LAG_NANOS.add(tickLag);
+            TIMER_MAX_TICK_LAG_NANOS.accumulateAndGet(tickLag, Math::max);
+
+            if (!running.compareAndSet(false, true)) {
+                synchronized (this) { overruns++; }
+                LOGGER.fine("[TaskScheduler] Tarefa periódica '" + name + "' ainda em execução; disparo descartado.");
+                return;
+            }
+            try {
+                ioPool.execute(() -> execute(expectedAt));
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+            }
+        }
+
+        private void execute(long expectedAt) {
+            long startedAt = System.nanoTime();
+            boolean failed = false;
+            try {
+                body.run();
+            } catch (Throwable t) {
+                failed = true;
+                LOGGER.log(Level.WARNING, "[TaskScheduler] Erro na tarefa periódica '" + name + "'", t);
+            } finally {
+                long elapsed = System.nanoTime() - startedAt;
+                synchronized (this) {
+                    runs++;
+                    if (failed) failures++;
+                    lastNanos = elapsed;
+                    maxNanos = Math.max(maxNanos, elapsed);
+                    totalNanos += elapsed;
+                    maxLagNanos = Math.max(maxLagNanos, startedAt - expectedAt);
+                }
+                running.set(false);
+            }
+        }
+
+        private boolean isCancelled() {
+            ScheduledFuture<?> f = future;
+            return f != null && f.isDone();
+        }
+
+        private synchronized TimerStats stats() {
+            return new TimerStats(name, intervalMs, runs, failures, overruns,
+                    TimeUnit.NANOSECONDS.toMillis(lastNanos), TimeUnit.NANOSECONDS.toMillis(maxNanos),
+                    runs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / runs),
+                    TimeUnit.NANOSECONDS.toMillis(maxLagNanos), running.get());
+        }
+
+        private synchronized void reset() {
+            runs = 0;
+            failures = 0;
+            overruns = 0;
+            lastNanos = 0;
+            maxNanos = 0;
+            totalNanos = 0;
+            maxLagNanos = 0;
+        }
     }
 
     // --- Cancelamento ---
@@ -176,35 +391,41 @@ public final class TaskScheduler {
         LOGGER.info("Finalizando TaskScheduler...");
         // Cancela tarefas síncronas (Bukkit/Velocity lidam com isso no disable)
 
-        // Finaliza o pool assíncrono
-        if (asyncPool != null) {
-            asyncPool.shutdown(); // Inicia shutdown gracioso
-            try {
-                // Espera um pouco para tarefas terminarem
-                if (!asyncPool.awaitTermination(5, TimeUnit.SECONDS)) {
-                    asyncPool.shutdownNow(); // Força o shutdown
-                    LOGGER.warning("Pool assíncrono forçado a finalizar.");
-                } else {
-                    LOGGER.fine("Pool assíncrono finalizado graciosamente.");
-                }
-            } catch (InterruptedException e) {
-                asyncPool.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        // Para os timers primeiro, para não enviarem tarefas a um pool de I/O já finalizado
+        shutdownPool("timer", timerPool);
+        shutdownPool("I/O", ioPool);
+        TIMERS.clear();
 
         // Limpa referências
         proxyServer = null;
         bukkitPlugin = null;
         pluginInstance = null;
-        asyncPool = null;
+        timerPool = null;
+        ioPool = null;
         initialized = false;
         LOGGER.info("TaskScheduler finalizado.");
     }
 
-    // Opcional: Getter para o Executor Assíncrono se outros serviços precisarem dele
+    private static void shutdownPool(String name, ExecutorService pool) {
+        if (pool == null) return;
+        pool.shutdown(); // Inicia shutdown gracioso
+        try {
+            // Espera um pouco para tarefas terminarem
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                pool.shutdownNow(); // Força o shutdown
+                LOGGER.warning("Pool " + name + " forçado a finalizar.");
+            } else {
+                LOGGER.fine("Pool " + name + " finalizado graciosamente.");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Executor de I/O, para encadear CompletableFutures fora das threads de evento/timer
     public static ExecutorService getAsyncExecutor() {
         ensureInit();
-        return asyncPool;
+        return ioPool;
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.realmmc.controller.shared.utils;
+
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+
+import java.util.List;
+
+/**
+ * Subcomandos do {@code /scheduler}, compartilhados entre proxy e servidor (cada nó mostra o seu
+ * próprio {@link TaskScheduler}).
+ */
+public final class TaskSchedulerReport {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private TaskSchedulerReport() {
+    }
+
+    /**
+     * @return false se os argumentos eram inválidos (a ajuda foi mostrada).
+     */
+    public static boolean handle(Object sender, String label, String[] args) {
+        String sub = args.length > 0 ? args[0].toLowerCase() : "pools";
+        switch (sub) {
+            case "pools" -> pools(sender);
+            case "timers" -> {
+                int limit = args.length > 1 ? parsePositive(args[1], -1) : DEFAULT_TOP;
+                if (limit < 0) return help(sender, label);
+                timers(sender, limit);
+            }
+            case "reset" -> {
+                TaskScheduler.resetStats();
+                pools(sender);
+            }
+            default -> {
+                return help(sender, label);
+            }
+        }
+        return true;
+    }
+
+    private static void pools(Object sender) {
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_HEADER).with("subject", "Agendador"));
+        for (TaskScheduler.PoolStats pool : TaskScheduler.getPoolStats()) {
+            String value = pool.kind() + " <gray>| fila: " + pool.queued() + ", ativas: " + pool.active()
+                    + ", enviadas: " + pool.submitted() + ", falhas: " + pool.failed() + ", rejeitadas: " + pool.rejected()
+                    + ", espera: " + pool.waitAvgMs() + "ms (máx " + pool.waitMaxMs() + "ms)"
+                    + (!"timer".equals(pool.name()) ? ", execução: " + pool.runAvgMs() + "ms (máx " + pool.runMaxMs() + "ms)" : "");
+            Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", pool.name()).with("value", value));
+        }
+        List<TaskScheduler.TimerStats> timers = TaskScheduler.getTimerStats();
+        long overruns = timers.stream().mapToLong(TaskScheduler.TimerStats::overruns).sum();
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LINE).with("key", "Timers")
+                .with("value", timers.size() + " ativos, " + overruns + " disparos descartados"));
+    }
+
+    private static void timers(Object sender, int limit) {
+        List<TaskScheduler.TimerStats> stats = TaskScheduler.getTimerStats();
+        List<TaskScheduler.TimerStats> top = stats.size() > limit ? stats.subList(0, limit) : stats;
+        Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_HEADER).with("key", "Tarefas periódicas mais lentas").with("count", top.size()));
+        if (top.isEmpty()) {
+            Messages.send(sender, MessageKey.COMMON_INFO_LIST_EMPTY);
+            return;
+        }
+        int index = 1;
+        for (TaskScheduler.TimerStats t : top) {
+            String value = t.name() + " <gray>a cada " + TimeUtils.formatDuration(t.intervalMs()) + ": máx " + t.maxMs()
+                    + "ms, média " + t.avgMs() + "ms, última " + t.lastMs() + "ms, atraso máx " + t.lagMaxMs()
+                    + "ms, " + t.runs() + " execuções, " + t.failures() + " falhas, " + t.overruns() + " descartes"
+                    + (t.running() ? " (rodando)" : "");
+            Messages.send(sender, Message.of(MessageKey.COMMON_INFO_LIST_ITEM).with("index", index++).with("value", value));
+        }
+    }
+
+    private static boolean help(Object sender, String label) {
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_HEADER).with("system", "Agendador"));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " pools").with("description", "Mostra fila, espera e execução dos pools de timer e de I/O."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " timers [n]").with("description", "Lista as tarefas periódicas mais lentas."));
+        Messages.send(sender, Message.of(MessageKey.COMMON_HELP_LINE).with("usage", "/" + label + " reset").with("description", "Zera os contadores."));
+        Messages.send(sender, MessageKey.COMMON_HELP_FOOTER_FULL);
+        return false;
+    }
+
+    private static int parsePositive(String value, int fallback) {
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed > 0 ? parsed : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -82,7 +82,13 @@ public class SpigotCashCache implements Listener, RedisMessageListener {
             JsonNode node = mapper.readTree(message);
             String action = node.path("action").asText("");
 
-            if (!"upsert".equals(action)) {
+            JsonNode source;
+            if ("upsert".equals(action)) {
+                source = node;
+            } else if ("delta".equals(action)) {
+                // Deltas só trazem os campos alterados
+                source = node.path("fields");
+            } else {
                 return;
             }
 
@@ -94,7 +100,7 @@ public class SpigotCashCache implements Listener, RedisMessageListener {
             UUID uuid = UUID.fromString(uuidStr);
 
             if (cashCache.containsKey(uuid)) {
-                JsonNode cashNode = node.path("cash");
+                JsonNode cashNode = source.path("cash");
                 if (cashNode.isInt()) {
                     int newCash = cashNode.asInt();
                     cashCache.put(uuid, newCash);
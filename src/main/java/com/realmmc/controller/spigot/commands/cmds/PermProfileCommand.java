@@ -0,0 +1,54 @@
+package com.realmmc.controller.spigot.commands.cmds;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.modules.role.PermissionProfilerReport;
+import com.realmmc.controller.modules.role.RoleService;
+import com.realmmc.controller.shared.annotations.Cmd;
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.sounds.SoundKeys;
+import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.realmmc.controller.spigot.commands.CommandInterface;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Cmd(cmd = "permprofile", aliases = {"permprof"})
+public class PermProfileCommand implements CommandInterface {
+
+    private final RoleService roleService;
+
+    public PermProfileCommand() {
+        this.roleService = ServiceRegistry.getInstance().getService(RoleService.class)
+                .orElseThrow(() -> new IllegalStateException("RoleService not found!"));
+    }
+
+    @Override
+    public void execute(CommandSender sender, String label, String[] args) {
+        if (!sender.hasPermission(PermissionProfilerReport.PERMISSION)) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_NO_PERMISSION_GROUP).with("group", PermissionProfilerReport.REQUIRED_GROUP));
+            playSound(sender, SoundKeys.USAGE_ERROR);
+            return;
+        }
+
+        boolean ok = PermissionProfilerReport.handle(sender, label, args, roleService);
+        playSound(sender, ok ? SoundKeys.SUCCESS : SoundKeys.USAGE_ERROR);
+    }
+
+    private void playSound(CommandSender sender, String key) {
+        if (sender instanceof Player player) {
+            Optional<SoundPlayer> soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
+            soundPlayerOpt.ifPresent(sp -> sp.playSound(player, key));
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(PermissionProfilerReport.PERMISSION)) return Collections.emptyList();
+        return PermissionProfilerReport.complete(args);
+    }
+}
@@ -0,0 +1,55 @@
+package com.realmmc.controller.spigot.commands.cmds;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.shared.annotations.Cmd;
+import com.realmmc.controller.shared.messaging.Message;
+import com.realmmc.controller.shared.messaging.MessageKey;
+import com.realmmc.controller.shared.messaging.Messages;
+import com.realmmc.controller.shared.sounds.SoundKeys;
+import com.realmmc.controller.shared.sounds.SoundPlayer;
+import com.realmmc.controller.shared.utils.TaskSchedulerReport;
+import com.realmmc.controller.spigot.commands.CommandInterface;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.util.StringUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Cmd(cmd = "scheduler", aliases = {"sched"})
+public class SchedulerCommand implements CommandInterface {
+
+    private final String permission = "controller.manager";
+    private final String requiredGroupName = "Gerente";
+
+    @Override
+    public void execute(CommandSender sender, String label, String[] args) {
+        if (!sender.hasPermission(permission)) {
+            Messages.send(sender, Message.of(MessageKey.COMMON_NO_PERMISSION_GROUP).with("group", requiredGroupName));
+            playSound(sender, SoundKeys.USAGE_ERROR);
+            return;
+        }
+
+        boolean ok = TaskSchedulerReport.handle(sender, label, args);
+        playSound(sender, ok ? SoundKeys.SUCCESS : SoundKeys.USAGE_ERROR);
+    }
+
+    private void playSound(CommandSender sender, String key) {
+        if (sender instanceof Player player) {
+            Optional<SoundPlayer> soundPlayerOpt = ServiceRegistry.getInstance().getService(SoundPlayer.class);
+            soundPlayerOpt.ifPresent(sp -> sp.playSound(player, key));
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(permission) || args.length != 1) return Collections.emptyList();
+        final List<String> completions = new ArrayList<>();
+        StringUtil.copyPartialMatches(args[0].toLowerCase(), Arrays.asList(
+                "pools", "timers", "reset", "help"), completions);
+        return completions;
+    }
+}
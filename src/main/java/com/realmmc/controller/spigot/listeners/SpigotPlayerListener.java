@@ -71,6 +71,7 @@ public class SpigotPlayerListener implements Listener {
         final String playerName = player.getName();
 
         loginTimestamps.put(uuid, System.currentTimeMillis());
+        profileService.markOnline(uuid);
 
         TaskScheduler.runAsync(() -> {
             try {
@@ -132,7 +133,7 @@ public class SpigotPlayerListener implements Listener {
         final Player player = event.getPlayer();
         final UUID uuid = player.getUniqueId();
 
-        roleService.invalidateSession(uuid);
+        roleService.unloadSession(uuid);
 
         Long loginTime = loginTimestamps.remove(uuid);
         if (loginTime != null) {
@@ -147,6 +148,7 @@ public class SpigotPlayerListener implements Listener {
         }
 
         this.preferencesService.removeCachedPreferences(uuid);
+        this.profileService.markOffline(uuid);
         this.roleService.clearSentWarnings(uuid);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.realmmc.controller.spigot.permission;
 
+import com.realmmc.controller.modules.role.PermissionProfiler;
 import com.realmmc.controller.modules.role.RoleService;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissibleBase;
@@ -38,19 +39,25 @@ public class RealmPermissible extends PermissibleBase {
 
         // 1. OP sempre tem permissão (respeita comportamento padrão Bukkit)
         if (super.isOp()) { // Delega para o isOp() original do Player via superclasse
+            if (PermissionProfiler.sample()) PermissionProfiler.record(permission, true, "op");
             return true;
         }
 
         // 2. Verifica se a permissão foi definida explicitamente via API Bukkit (attachments)
         // Isso permite compatibilidade com outros plugins que manipulam permissões diretamente
         if (super.isPermissionSet(permission)) {
-            return super.hasPermission(permission); // Usa a lógica padrão do PermissibleBase
+            boolean attached = super.hasPermission(permission); // Usa a lógica padrão do PermissibleBase
+            if (PermissionProfiler.sample()) PermissionProfiler.record(permission, attached, "attachment");
+            return attached;
         }
 
         // 3. Se não foi definida explicitamente e não é OP, delega para o RoleService
         // logger.finer("Checking permission '" + permission + "' for " + player.getName() + " via RoleService"); // Opcional
         boolean result = roleService.hasPermission(uuid, permission);
         // logger.finer("Result for '" + permission + "': " + result); // Opcional
+        if (PermissionProfiler.sample()) {
+            PermissionProfiler.record(permission, result, roleService.explainPermission(uuid, permission));
+        }
         return result;
     }
 
@@ -72,6 +72,10 @@ public class NametagService implements Listener, RedisMessageListener {
             JsonNode node = mapper.readTree(message);
             String uuidStr = node.path("uuid").asText(null);
 
+            if ("delta".equals(node.path("action").asText("")) && !affectsTag(node.path("fields"))) {
+                return;
+            }
+
             if (uuidStr != null) {
                 UUID uuid = UUID.fromString(uuidStr);
                 Player player = Bukkit.getPlayer(uuid);
@@ -84,6 +88,14 @@ public class NametagService implements Listener, RedisMessageListener {
         }
     }
 
+    /**
+     * Deltas de cash, IP, login etc. não mudam a tag; só cargo, medalha e nome.
+     */
+    private boolean affectsTag(JsonNode fields) {
+        return fields.has("primaryRoleName") || fields.has("roles") || fields.has("rolesUpsert")
+                || fields.has("rolesRemove") || fields.has("equippedMedal") || fields.has("name");
+    }
+
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Bukkit.getScheduler().runTaskLater(Main.getInstance(), () -> {
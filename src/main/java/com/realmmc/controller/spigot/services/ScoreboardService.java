@@ -8,8 +8,9 @@ import com.realmmc.controller.shared.messaging.MessageKey;
 import com.realmmc.controller.shared.messaging.Messages;
 import com.realmmc.controller.shared.profile.Profile;
 import com.realmmc.controller.shared.profile.ProfileService;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
 import com.realmmc.controller.shared.storage.redis.RedisChannel;
-import com.realmmc.controller.shared.storage.redis.RedisManager;
 import com.realmmc.controller.spigot.Main;
 import io.papermc.paper.scoreboard.numbers.NumberFormat;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -21,7 +22,6 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scoreboard.*;
-import redis.clients.jedis.Jedis;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -69,8 +69,9 @@ public class ScoreboardService implements Listener {
     }
 
     private void fetchNetworkPlayers() {
-        try (Jedis jedis = RedisManager.getResource()) {
-            String countStr = jedis.get(RedisChannel.GLOBAL_PLAYER_COUNT.getName());
+        try {
+            KeyValueStore store = StorageBackends.keyValue();
+            String countStr = store.get(RedisChannel.GLOBAL_PLAYER_COUNT.getName());
             if (countStr != null) {
                 this.networkOnlineCount = Integer.parseInt(countStr);
             } else {
@@ -0,0 +1,129 @@
+package com.realmmc.controller.modules.role;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PermissionMatcherTest {
+
+    private static void assertDecision(Set<String> permissions, String permission, boolean allowed, String rule) {
+        assertEquals(allowed, PermissionMatcher.compile(permissions).matches(permission), "matches(" + permission + ") em " + permissions);
+        assertEquals(rule, PermissionMatcher.decidingRule(permissions, permission), "decidingRule(" + permission + ") em " + permissions);
+    }
+
+    @Test
+    void negationBeatsEverything() {
+        assertDecision(Set.of("-a.b", "a.b"), "a.b", false, "-a.b");
+        assertDecision(Set.of("-a.b", "*"), "a.b", false, "-a.b");
+        assertDecision(Set.of("-a.b", "a.*"), "a.b", false, "-a.b");
+    }
+
+    @Test
+    void negationIsExactOnly() {
+        assertDecision(Set.of("-a.b", "a.*"), "a.b.c", true, "a.*");
+        assertDecision(Set.of("-a.b", "a.*"), "a.c", true, "a.*");
+        assertDecision(Set.of("-a.*", "*"), "a.b", true, "*");
+    }
+
+    @Test
+    void exactBeatsGlobalWildcard() {
+        assertDecision(Set.of("a.b", "*"), "a.b", true, "a.b");
+        assertDecision(Set.of("*"), "qualquer.coisa", true, "*");
+    }
+
+    @Test
+    void globalWildcardBeatsPartialWildcards() {
+        assertDecision(Set.of("*", "a.*"), "a.b", true, "*");
+    }
+
+    @Test
+    void partialWildcardPicksMostSpecific() {
+        assertDecision(Set.of("a.*", "a.b.*"), "a.b.c", true, "a.b.*");
+        assertDecision(Set.of("a.*", "a.b.*"), "a.c", true, "a.*");
+        assertDecision(Set.of("a.b.*"), "a.b.c.d", true, "a.b.*");
+    }
+
+    @Test
+    void partialWildcardNeedsASegmentAfterTheDot() {
+        assertDecision(Set.of("a.*"), "a", false, null);
+        assertDecision(Set.of("a.*"), "a.", false, null);
+        assertDecision(Set.of("a.b.*"), "a.bc", false, null);
+        assertDecision(Set.of("a.b.*"), "a.b", false, null);
+        assertDecision(Set.of("a.*"), "a..", false, null);
+        assertDecision(Set.of(".*"), ".b", true, ".*");
+    }
+
+    @Test
+    void lookupIsCaseInsensitive() {
+        assertDecision(Set.of("a.b"), "A.B", true, "a.b");
+        assertDecision(Set.of("-a.b", "*"), "A.b", false, "-a.b");
+    }
+
+    @Test
+    void unknownPermissionIsDeniedByDefault() {
+        assertDecision(Set.of("a.b"), "a.c", false, null);
+        assertDecision(Set.of(), "a.b", false, null);
+        assertFalse(PermissionMatcher.compile(Set.of("*")).matches(""));
+        assertFalse(PermissionMatcher.compile(Set.of("*")).matches(null));
+        assertNull(PermissionMatcher.decidingRule(Set.of("*"), null));
+    }
+
+    /**
+     * Implementação anterior ao {@link PermissionMatcher} (PlayerSessionData.hasPermission), mantida
+     * aqui como referência: negação exata, exata, {@code *} e wildcards parciais por segmento.
+     */
+    private static boolean baseline(Set<String> effectivePermissions, String permission) {
+        if (permission == null || permission.isEmpty()) return false;
+        String permLower = permission.toLowerCase();
+        if (effectivePermissions.contains("-" + permLower)) return false;
+        if (effectivePermissions.contains(permLower)) return true;
+        if (effectivePermissions.contains("*")) return true;
+        String[] parts = permLower.split("\\.");
+        StringBuilder builder = new StringBuilder(permLower.length());
+        for (int i = 0; i < parts.length - 1; i++) {
+            builder.append(parts[i]).append(".");
+            if (effectivePermissions.contains(builder + "*")) return true;
+        }
+        return false;
+    }
+
+    @Test
+    void matcherAgreesWithBaselineOnRandomSets() {
+        String[] nodes = {"a", "b", "c", "ab", "A", ""};
+        Random random = new Random(7);
+        for (int round = 0; round < 20_000; round++) {
+            Set<String> permissions = new HashSet<>();
+            int size = random.nextInt(6);
+            for (int i = 0; i < size; i++) {
+                String permission = randomNode(random, nodes).toLowerCase();
+                switch (random.nextInt(4)) {
+                    case 0 -> permission = "-" + permission;
+                    case 1 -> permission = permission + ".*";
+                    default -> {
+                    }
+                }
+                permissions.add(random.nextInt(20) == 0 ? "*" : permission);
+            }
+            String query = randomNode(random, nodes);
+            boolean expected = baseline(permissions, query);
+            assertEquals(expected, PermissionMatcher.compile(permissions).matches(query),
+                    "matches(" + query + ") em " + permissions);
+            String rule = PermissionMatcher.decidingRule(permissions, query);
+            assertEquals(expected, rule != null && !rule.startsWith("-"),
+                    "decidingRule(" + query + ") em " + permissions + " = " + rule);
+        }
+    }
+
+    private static String randomNode(Random random, String[] parts) {
+        StringBuilder node = new StringBuilder(parts[random.nextInt(parts.length)]);
+        int depth = random.nextInt(4);
+        for (int i = 0; i < depth; i++) node.append('.').append(parts[random.nextInt(parts.length)]);
+        return node.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.realmmc.controller.modules.role;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionProfilerTest {
+
+    @AfterEach
+    void tearDown() {
+        PermissionProfiler.disable();
+        PermissionProfiler.reset();
+    }
+
+    @Test
+    void disabledProfilerNeverSamples() {
+        PermissionProfiler.disable();
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(PermissionProfiler.sample());
+        }
+        assertEquals(0, PermissionProfiler.getTrackedNodes());
+    }
+
+    @Test
+    void fullRateSamplesEveryCheck() {
+        PermissionProfiler.enable(1);
+        assertTrue(PermissionProfiler.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(PermissionProfiler.sample());
+        }
+    }
+}
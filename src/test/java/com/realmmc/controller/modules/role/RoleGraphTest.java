@@ -0,0 +1,139 @@
+package com.realmmc.controller.modules.role;
+
+import com.realmmc.controller.shared.role.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoleGraphTest {
+
+    private static Role role(String name, List<String> permissions, String... parents) {
+        return Role.builder()
+                .name(name)
+                .permissions(new ArrayList<>(permissions))
+                .inheritance(new ArrayList<>(List.of(parents)))
+                .build();
+    }
+
+    private static List<Role> ladder() {
+        return List.of(
+                role("default", List.of("chat.use")),
+                role("vip", List.of("kit.vip"), "default"),
+                role("mvp", List.of("kit.mvp"), "vip"),
+                role("builder", List.of("worldedit.use"), "default"),
+                role("staff", List.of("staff.chat")));
+    }
+
+    @Test
+    void inheritsAlongTheChain() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(ladder(), false);
+
+        assertEquals(Set.of("chat.use", "kit.vip", "kit.mvp"), graph.effectivePermissions("MVP"));
+        assertEquals(List.of("mvp", "vip", "default"), graph.lineage("mvp"));
+        assertEquals(Set.of(), graph.effectivePermissions("inexistente"));
+    }
+
+    @Test
+    void cycleMessageCarriesThePath() {
+        RoleGraph graph = new RoleGraph();
+        RoleGraph.RoleCycleException e = assertThrows(RoleGraph.RoleCycleException.class, () -> graph.compile(List.of(
+                role("a", List.of(), "b"),
+                role("b", List.of(), "c"),
+                role("c", List.of(), "a")), false));
+
+        List<String> cycle = e.getCycle();
+        assertEquals(4, cycle.size());
+        assertEquals(cycle.get(0), cycle.get(cycle.size() - 1));
+        assertEquals(Set.of("a", "b", "c"), Set.copyOf(cycle));
+        assertTrue(e.getMessage().endsWith(String.join(" -> ", cycle)), e.getMessage());
+    }
+
+    @Test
+    void rejectedCycleKeepsThePreviousState() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(ladder(), false);
+        long version = graph.version();
+
+        List<Role> cyclic = new ArrayList<>(ladder());
+        cyclic.set(0, role("default", List.of("chat.use"), "mvp"));
+        assertThrows(RoleGraph.RoleCycleException.class, () -> graph.compile(cyclic, false));
+
+        assertEquals(version, graph.version());
+        assertEquals(Set.of("chat.use", "kit.vip"), graph.effectivePermissions("vip"));
+        assertEquals(List.of("default"), graph.lineage("default"));
+    }
+
+    @Test
+    void firstLoadCanBreakCycles() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(List.of(
+                role("a", List.of("perm.a"), "b"),
+                role("b", List.of("perm.b"), "a")), true);
+
+        // Uma das heranças do ciclo é ignorada; a outra continua valendo
+        Set<String> a = graph.effectivePermissions("a");
+        Set<String> b = graph.effectivePermissions("b");
+        assertTrue(a.contains("perm.a") && b.contains("perm.b"));
+        assertEquals(3, a.size() + b.size());
+    }
+
+    @Test
+    void recomputesOnlyDescendants() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(ladder(), false);
+        long before = graph.version();
+        Set<String> staff = graph.effectivePermissions("staff");
+        Set<String> builder = graph.effectivePermissions("builder");
+
+        List<Role> changed = new ArrayList<>(ladder());
+        changed.set(1, role("vip", List.of("kit.vip", "fly"), "default"));
+        Set<String> affected = graph.compile(changed, false);
+
+        assertEquals(Set.of("vip", "mvp"), affected);
+        assertEquals(before + 1, graph.version());
+        assertTrue(graph.effectivePermissions("mvp").contains("fly"));
+        // Quem não herda de vip mantém o conjunto já calculado
+        assertTrue(staff == graph.effectivePermissions("staff"));
+        assertTrue(builder == graph.effectivePermissions("builder"));
+    }
+
+    @Test
+    void changedSinceTracksOnlyRecomputedRoles() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(ladder(), false);
+        long before = graph.version();
+
+        assertTrue(graph.compile(ladder(), false).isEmpty());
+        assertEquals(before, graph.version());
+
+        List<Role> changed = new ArrayList<>(ladder());
+        changed.set(2, role("mvp", List.of("kit.mvp", "nick"), "vip"));
+        graph.compile(changed, false);
+
+        assertTrue(graph.changedSince(before, List.of("default", "MVP")));
+        assertFalse(graph.changedSince(before, List.of("default", "vip", "staff")));
+        assertFalse(graph.changedSince(graph.version(), List.of("mvp")));
+    }
+
+    @Test
+    void removedParentRecomputesChildren() {
+        RoleGraph graph = new RoleGraph();
+        graph.compile(ladder(), false);
+
+        List<Role> withoutDefault = new ArrayList<>(ladder());
+        withoutDefault.remove(0);
+        Set<String> affected = graph.compile(withoutDefault, false);
+
+        assertEquals(Set.of("default", "vip", "mvp", "builder"), affected);
+        assertEquals(Set.of("kit.vip"), graph.effectivePermissions("vip"));
+        assertEquals(Set.of(), graph.effectivePermissions("default"));
+    }
+}
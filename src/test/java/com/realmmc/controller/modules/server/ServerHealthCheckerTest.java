@@ -0,0 +1,101 @@
+package com.realmmc.controller.modules.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.realmmc.controller.modules.server.data.ServerInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerHealthCheckerTest {
+
+    /**
+     * Painel falso: "slow-*" nunca responde, "gone-*" devolve 404 e o resto responde na hora.
+     * Guarda as requisições para verificar quais foram canceladas.
+     */
+    private static final class FakePanel {
+        private final Map<String, CompletableFuture<Optional<JsonNode>>> requests = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        CompletableFuture<Optional<JsonNode>> probe(String pterodactylId, Duration deadline) {
+            CompletableFuture<Optional<JsonNode>> request = new CompletableFuture<>();
+            requests.put(pterodactylId, request);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            if (pterodactylId.startsWith("slow-")) {
+                request.whenComplete((details, error) -> inFlight.decrementAndGet());
+            } else if (pterodactylId.startsWith("gone-")) {
+                respond(request, Optional.empty());
+            } else {
+                CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS).execute(() ->
+                        respond(request, Optional.of(JsonNodeFactory.instance.objectNode().put("id", pterodactylId))));
+            }
+            return request;
+        }
+
+        private void respond(CompletableFuture<Optional<JsonNode>> request, Optional<JsonNode> details) {
+            // Sai da contagem antes de completar: o checker dispara a próxima sonda ao ver a resposta
+            inFlight.decrementAndGet();
+            request.complete(details);
+        }
+    }
+
+    private static ServerInfo server(String pterodactylId) {
+        return ServerInfo.builder().name("srv-" + pterodactylId).pterodactylId(pterodactylId).build();
+    }
+
+    @Test
+    void timedOutProbesAreCancelled() throws Exception {
+        FakePanel panel = new FakePanel();
+        ServerHealthChecker checker = new ServerHealthChecker(panel::probe, 2, Duration.ofMillis(100));
+
+        List<ServerHealthChecker.ProbeResult> results = checker
+                .probeAll(List.of(server("ok-1"), server("slow-1"), server("gone-1"), server("ok-2")))
+                .get(5, TimeUnit.SECONDS);
+
+        Map<String, ServerHealthChecker.ProbeResult> byId = results.stream()
+                .collect(Collectors.toMap(r -> r.server().getPterodactylId(), Function.identity()));
+        assertEquals(4, byId.size());
+        assertTrue(byId.get("slow-1").timedOut());
+        assertTrue(panel.requests.get("slow-1").isCancelled(), "a requisição que estourou o prazo continua aberta");
+        assertTrue(byId.get("ok-1").details().isPresent());
+        assertFalse(byId.get("ok-1").failed());
+        assertTrue(byId.get("gone-1").details().isEmpty());
+        assertFalse(byId.get("gone-1").failed());
+        assertEquals(0, panel.inFlight.get());
+
+        ServerHealthChecker.ProbeStats slow = checker.getProbeStats().get(0);
+        assertEquals("srv-slow-1", slow.server());
+        assertEquals(1, slow.timeouts());
+    }
+
+    @Test
+    void neverExceedsParallelism() throws Exception {
+        FakePanel panel = new FakePanel();
+        ServerHealthChecker checker = new ServerHealthChecker(panel::probe, 3, Duration.ofMillis(50));
+        List<ServerInfo> servers = IntStream.range(0, 20)
+                .mapToObj(i -> server((i % 5 == 0 ? "slow-" : "ok-") + i))
+                .toList();
+
+        List<ServerHealthChecker.ProbeResult> results = checker.probeAll(servers).get(10, TimeUnit.SECONDS);
+
+        assertEquals(20, results.size());
+        assertEquals(4, results.stream().filter(ServerHealthChecker.ProbeResult::timedOut).count());
+        assertTrue(panel.maxInFlight.get() <= 3, "em voo: " + panel.maxInFlight.get());
+        assertTrue(panel.requests.values().stream().allMatch(CompletableFuture::isDone));
+    }
+}
@@ -0,0 +1,141 @@
+package com.realmmc.controller.modules.server.balancer;
+
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Simulação determinística de uma rajada de entradas distribuída entre vários proxies.
+ * <p>
+ * Cada proxy decide com a maior entre a contagem do último snapshot (atualizado a cada
+ * {@code refreshMillis}, como o {@code playerCount} do registro) e os jogadores conectados por ele
+ * mesmo, mais, opcionalmente, as reservas em
+ * voo de todos os proxies, usando as classes reais ({@link LobbyBalancer}, {@link LobbyReservations})
+ * sobre um {@link InMemoryKeyValueStore} e um relógio simulado. O resultado mostra quanto cada
+ * estratégia ultrapassa a capacidade dos lobbies com e sem reservas.
+ */
+class LobbyBurstSimulator {
+
+    /**
+     * @param overfill       Jogadores acima da capacidade, somados entre os lobbies.
+     * @param maxUtilization Maior ocupação final de um lobby (1.0 = cheio).
+     * @param rejected       Entradas sem lobby com vaga no momento da decisão.
+     * @param spread         Desvio padrão da ocupação final entre os lobbies.
+     */
+    public record Result(LobbyBalancer.Strategy strategy, boolean reservations, int overfill, double maxUtilization,
+                         int rejected, double spread) {
+    }
+
+    private record Event(long time, long seq, int proxy, int lobby, UUID player) {
+    }
+
+    private final int proxies;
+    private final int lobbies;
+    private final int capacity;
+    private final int joins;
+    private final long burstMillis;
+    private final long connectMillis;
+    private final long refreshMillis;
+    private final long seed;
+
+    public LobbyBurstSimulator(int proxies, int lobbies, int capacity, int joins, long burstMillis,
+                               long connectMillis, long refreshMillis, long seed) {
+        this.proxies = Math.max(1, proxies);
+        this.lobbies = Math.max(1, lobbies);
+        this.capacity = Math.max(1, capacity);
+        this.joins = Math.max(0, joins);
+        this.burstMillis = Math.max(1L, burstMillis);
+        this.connectMillis = Math.max(0L, connectMillis);
+        this.refreshMillis = Math.max(1L, refreshMillis);
+        this.seed = seed;
+    }
+
+    public Result run(LobbyBalancer.Strategy strategy, boolean useReservations) {
+        long[] clock = {0L};
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        LobbyBalancer balancer = new LobbyBalancer(strategy);
+        Random random = new Random(seed);
+        LobbyReservations[] reservations = new LobbyReservations[proxies];
+        for (int p = 0; p < proxies; p++) {
+            reservations[p] = new LobbyReservations(() -> store, Math.max(1_000L, connectMillis * 4), () -> clock[0]);
+        }
+
+        int[] actual = new int[lobbies];
+        int[][] local = new int[proxies][lobbies];
+        int[] snapshot = new int[lobbies];
+        long lastRefresh = 0;
+        int rejected = 0;
+        long seq = 0;
+
+        // Chegadas: lobby = -1; conexões concluídas: lobby escolhido
+        PriorityQueue<Event> events = new PriorityQueue<>((a, b) -> a.time() != b.time()
+                ? Long.compare(a.time(), b.time()) : Long.compare(a.seq(), b.seq()));
+        for (int i = 0; i < joins; i++) {
+            long at = (long) (random.nextDouble() * burstMillis);
+            events.add(new Event(at, seq++, i % proxies, -1, new UUID(seed, i)));
+        }
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            clock[0] = event.time();
+            if (event.time() - lastRefresh >= refreshMillis) {
+                snapshot = Arrays.copyOf(actual, lobbies);
+                lastRefresh = event.time();
+            }
+
+            if (event.lobby() >= 0) {
+                actual[event.lobby()]++;
+                local[event.proxy()][event.lobby()]++;
+                reservations[event.proxy()].release(event.player());
+                continue;
+            }
+
+            Map<String, Integer> reserved = useReservations ? reservations[event.proxy()].counts(event.player()) : Map.of();
+            List<LobbyBalancer.Candidate> candidates = new ArrayList<>(lobbies);
+            for (int l = 0; l < lobbies; l++) {
+                String name = "lobby-" + (l + 1);
+                candidates.add(new LobbyBalancer.Candidate(name, Math.max(snapshot[l], local[event.proxy()][l]) + reserved.getOrDefault(name, 0), capacity));
+            }
+            var choice = balancer.select(candidates, random);
+            if (choice.isEmpty()) {
+                rejected++;
+                continue;
+            }
+            int lobby = Integer.parseInt(choice.get().name().substring("lobby-".length())) - 1;
+            if (useReservations) reservations[event.proxy()].reserve(choice.get().name(), event.player());
+            events.add(new Event(event.time() + connectMillis, seq++, event.proxy(), lobby, event.player()));
+        }
+
+        int overfill = 0;
+        double max = 0;
+        double sum = 0;
+        for (int count : actual) {
+            overfill += Math.max(0, count - capacity);
+            double utilization = (double) count / capacity;
+            max = Math.max(max, utilization);
+            sum += utilization;
+        }
+        double mean = sum / lobbies;
+        double variance = 0;
+        for (int count : actual) {
+            double d = (double) count / capacity - mean;
+            variance += d * d;
+        }
+        return new Result(strategy, useReservations, overfill, max, rejected, Math.sqrt(variance / lobbies));
+    }
+
+    public List<Result> runAll() {
+        List<Result> results = new ArrayList<>();
+        for (LobbyBalancer.Strategy strategy : LobbyBalancer.Strategy.values()) {
+            results.add(run(strategy, false));
+            results.add(run(strategy, true));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,38 @@
+package com.realmmc.controller.modules.server.balancer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LobbyBurstSimulatorTest {
+
+    // 3 proxies, 5 lobbies de 100 vagas, 450 entradas em 5 s, conexão de 800 ms, snapshot a cada 15 s
+    private static LobbyBurstSimulator simulator() {
+        return new LobbyBurstSimulator(3, 5, 100, 450, 5_000L, 800L, 15_000L, 42L);
+    }
+
+    @Test
+    void reservationsKeepTheBurstWithinCapacity() {
+        for (LobbyBalancer.Strategy strategy : LobbyBalancer.Strategy.values()) {
+            LobbyBurstSimulator.Result result = simulator().run(strategy, true);
+            assertEquals(0, result.overfill(), result.toString());
+            assertEquals(0, result.rejected(), result.toString());
+            assertTrue(result.maxUtilization() <= 1.0, result.toString());
+        }
+    }
+
+    @Test
+    void leastLoadedOverfillsWithoutReservations() {
+        LobbyBurstSimulator.Result without = simulator().run(LobbyBalancer.Strategy.LEAST_LOADED, false);
+        LobbyBurstSimulator.Result with = simulator().run(LobbyBalancer.Strategy.LEAST_LOADED, true);
+
+        assertTrue(without.overfill() > 0, without.toString());
+        assertTrue(with.spread() < without.spread(), with + " vs " + without);
+    }
+
+    @Test
+    void replayIsDeterministic() {
+        assertEquals(simulator().runAll(), simulator().runAll());
+    }
+}
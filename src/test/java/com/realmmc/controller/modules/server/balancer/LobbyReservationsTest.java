@@ -0,0 +1,87 @@
+package com.realmmc.controller.modules.server.balancer;
+
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LobbyReservationsTest {
+
+    private static final long TTL = 10_000L;
+    private static final long REFRESH = 250L;
+
+    private final long[] clock = {1_000_000L};
+    private final AtomicInteger reads = new AtomicInteger();
+    private final KeyValueStore store = countingReads(new InMemoryKeyValueStore());
+
+    private KeyValueStore countingReads(KeyValueStore delegate) {
+        return (KeyValueStore) Proxy.newProxyInstance(KeyValueStore.class.getClassLoader(), new Class<?>[]{KeyValueStore.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("zrangeByScore")) reads.incrementAndGet();
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private LobbyReservations proxy() {
+        return new LobbyReservations(() -> store, TTL, REFRESH, () -> clock[0]);
+    }
+
+    @Test
+    void ownReservationsCountWithoutReading() {
+        LobbyReservations reservations = proxy();
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        reservations.counts(null);
+        int readsBefore = reads.get();
+
+        reservations.reserve("lobby-1", a);
+        reservations.reserve("lobby-1", b);
+        assertEquals(Map.of("lobby-1", 2), reservations.counts(null));
+        assertEquals(1, reservations.reservedFor("lobby-1", a));
+
+        reservations.reserve("lobby-2", a);
+        reservations.release(b);
+        assertEquals(Map.of("lobby-2", 1), reservations.counts(null));
+        assertEquals(readsBefore, reads.get());
+    }
+
+    @Test
+    void otherProxiesAreReadOncePerWindow() {
+        LobbyReservations local = proxy();
+        LobbyReservations other = proxy();
+        other.reserve("lobby-1", UUID.randomUUID());
+
+        assertEquals(Map.of("lobby-1", 1), local.counts(null));
+        int readsAfterFirst = reads.get();
+        other.reserve("lobby-2", UUID.randomUUID());
+        for (int i = 0; i < 100; i++) local.counts(UUID.randomUUID());
+        assertEquals(readsAfterFirst, reads.get());
+        assertEquals(Map.of("lobby-1", 1), local.counts(null));
+
+        clock[0] += REFRESH;
+        assertEquals(Map.of("lobby-1", 1, "lobby-2", 1), local.counts(null));
+    }
+
+    @Test
+    void expiredReservationsStopCounting() {
+        LobbyReservations local = proxy();
+        LobbyReservations other = proxy();
+        local.reserve("lobby-1", UUID.randomUUID());
+        other.reserve("lobby-1", UUID.randomUUID());
+        assertEquals(Map.of("lobby-1", 2), local.counts(null));
+
+        clock[0] += TTL + 1;
+        assertEquals(Map.of(), local.counts(null));
+    }
+}
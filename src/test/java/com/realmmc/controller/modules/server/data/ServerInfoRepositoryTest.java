@@ -0,0 +1,77 @@
+package com.realmmc.controller.modules.server.data;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.shared.storage.backend.DocumentUpdate;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerInfoRepositoryTest {
+
+    private ServerInfoRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        StorageBackends.installInMemory();
+        repository = new ServerInfoRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StorageBackends.reset();
+    }
+
+    private static ServerInfo server(String name, int playerCount) {
+        return ServerInfo.builder().name(name).type(ServerType.LOBBY).status(ServerStatus.ONLINE)
+                .playerCount(playerCount).version(999_999L).build();
+    }
+
+    @Test
+    void versionIsIncrementedByTheDatabase() {
+        ServerInfo first = repository.save(server("lobby-1", 1));
+        ServerInfo second = repository.save(server("lobby-1", 2));
+
+        assertEquals(1L, first.getVersion());
+        assertEquals(2L, second.getVersion());
+        assertEquals(2, repository.findByName("lobby-1").orElseThrow().getPlayerCount());
+    }
+
+    @Test
+    void bulkChangesIncrementEachVersion() {
+        repository.save(server("lobby-1", 1));
+        repository.save(server("lobby-2", 1));
+        repository.save(server("lobby-2", 1));
+
+        repository.applyChanges(List.of(
+                new DocumentUpdate(Filters.eq("_id", "lobby-1"), Updates.set("playerCount", 5)),
+                new DocumentUpdate(Filters.eq("_id", "lobby-2"), Updates.set("playerCount", 6))));
+
+        List<ServerInfo> stored = repository.findByNames(List.of("lobby-1", "lobby-2"));
+        assertEquals(2, stored.size());
+        for (ServerInfo info : stored) {
+            assertEquals(info.getName().equals("lobby-1") ? 2L : 3L, info.getVersion());
+            assertEquals(info.getName().equals("lobby-1") ? 5 : 6, info.getPlayerCount());
+        }
+    }
+
+    @Test
+    void recreatedServerStaysAboveItsTombstone() {
+        repository.save(server("game-1", 0));
+        repository.save(server("game-1", 0));
+        long tombstone = repository.delete("game-1");
+
+        assertTrue(repository.findByName("game-1").isEmpty());
+        assertEquals(3L, tombstone);
+
+        ServerInfo recreated = repository.save(server("game-1", 0));
+        assertTrue(recreated.getVersion() > tombstone, "versão " + recreated.getVersion() + " <= lápide " + tombstone);
+        assertEquals(recreated.getVersion() + 1, repository.save(server("game-1", 0)).getVersion());
+    }
+}
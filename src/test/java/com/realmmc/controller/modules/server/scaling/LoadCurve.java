@@ -0,0 +1,96 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Curva de jogadores ao longo do tempo, usada pelo {@link ScalingSimulator}.
+ * Entre dois pontos o valor é interpolado linearmente; fora da curva vale o ponto mais próximo.
+ */
+record LoadCurve(List<Point> points) {
+
+    public record Point(long timeMillis, int players) {
+    }
+
+    public LoadCurve {
+        if (points.isEmpty()) throw new IllegalArgumentException("A curva precisa de pelo menos um ponto.");
+        points = points.stream().sorted(Comparator.comparingLong(Point::timeMillis)).toList();
+    }
+
+    public long durationMillis() {
+        return points.get(points.size() - 1).timeMillis() - points.get(0).timeMillis();
+    }
+
+    public int playersAt(long timeMillis) {
+        Point first = points.get(0);
+        if (timeMillis <= first.timeMillis()) return first.players();
+        for (int i = 1; i < points.size(); i++) {
+            Point b = points.get(i);
+            if (timeMillis <= b.timeMillis()) {
+                Point a = points.get(i - 1);
+                double t = (double) (timeMillis - a.timeMillis()) / Math.max(1L, b.timeMillis() - a.timeMillis());
+                return (int) Math.round(a.players() + t * (b.players() - a.players()));
+            }
+        }
+        return points.get(points.size() - 1).players();
+    }
+
+    /**
+     * Lê uma curva gravada no formato {@code segundos,jogadores}, uma amostra por linha.
+     * Linhas vazias, comentários ({@code #}) e cabeçalhos não numéricos são ignorados.
+     */
+    public static LoadCurve fromCsv(Path file) throws IOException {
+        List<Point> points = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] parts = trimmed.split("[,;\\s]+");
+            if (parts.length < 2) continue;
+            try {
+                long seconds = (long) Double.parseDouble(parts[0]);
+                int players = (int) Math.round(Double.parseDouble(parts[1]));
+                points.add(new Point(seconds * 1000L, Math.max(0, players)));
+            } catch (NumberFormatException ignored) {
+                // Cabeçalho
+            }
+        }
+        return new LoadCurve(points);
+    }
+
+    /**
+     * Curva sintética: uma onda senoidal entre {@code base} e {@code peak} com ruído. Com a mesma
+     * semente a curva é sempre a mesma, então pode ser usada em testes de regressão do scaling.
+     *
+     * @param periodMillis Período da onda (ex.: 24h para um ciclo diário).
+     * @param noise        Amplitude máxima do ruído, em jogadores.
+     */
+    public static LoadCurve synthetic(long durationMillis, long stepMillis, int base, int peak,
+                                      long periodMillis, int noise, long seed) {
+        Random random = new Random(seed);
+        List<Point> points = new ArrayList<>();
+        double amplitude = (peak - base) / 2.0;
+        for (long t = 0; t <= durationMillis; t += Math.max(1L, stepMillis)) {
+            double wave = base + amplitude - amplitude * Math.cos(2 * Math.PI * t / periodMillis);
+            int jitter = noise > 0 ? random.nextInt(2 * noise + 1) - noise : 0;
+            points.add(new Point(t, Math.max(0, (int) Math.round(wave) + jitter)));
+        }
+        return new LoadCurve(points);
+    }
+
+    /**
+     * Degrau: {@code before} jogadores até {@code atMillis}, depois {@code after}. Útil para medir a
+     * reação a um pico repentino (ex.: início de evento).
+     */
+    public static LoadCurve step(long durationMillis, long atMillis, int before, int after) {
+        return new LoadCurve(List.of(
+                new Point(0, before),
+                new Point(atMillis, before),
+                new Point(atMillis + 1, after),
+                new Point(Math.max(durationMillis, atMillis + 1), after)));
+    }
+}
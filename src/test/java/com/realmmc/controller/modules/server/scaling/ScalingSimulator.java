@@ -0,0 +1,165 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerStatus;
+import com.realmmc.controller.modules.server.data.ServerType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replay determinístico de uma {@link LoadCurve} contra uma política de scaling, sem painel.
+ * <p>
+ * O relógio é simulado: a cada tick os servidores em STARTING que completaram o boot ficam ONLINE,
+ * a demanda da curva é distribuída entre os servidores online (até a capacidade de cada um) e o
+ * {@link Autoscaler} é avaliado com o pool resultante. O mesmo par (política, curva) sempre produz a
+ * mesma linha do tempo, então o resultado pode ser comparado entre ajustes de configuração.
+ */
+class ScalingSimulator {
+
+    /**
+     * Estado do pool ao fim de um tick.
+     *
+     * @param unserved Jogadores da demanda que não couberam nos servidores online.
+     */
+    public record Tick(long timeMillis, int demand, int online, int starting, int unserved, ScalingDecision decision) {
+    }
+
+    /**
+     * @param serverMinutes         Soma do tempo de servidores ligados (online + starting).
+     * @param unservedPlayerSeconds Soma dos jogadores sem vaga ao longo do tempo.
+     */
+    public record Summary(int ticks, int maxServers, int scaleUps, int scaleDowns, double serverMinutes,
+                          long unservedPlayerSeconds, double peakUtilization) {
+    }
+
+    public record Result(List<Tick> timeline, Summary summary) {
+    }
+
+    private static final class SimServer {
+        private final String name;
+        private final boolean isStatic;
+        private ServerStatus status;
+        private long readyAt;
+        private int players;
+
+        private SimServer(String name, boolean isStatic, ServerStatus status, long readyAt) {
+            this.name = name;
+            this.isStatic = isStatic;
+            this.status = status;
+            this.readyAt = readyAt;
+        }
+    }
+
+    private final ServerType type;
+    private final ScalingPolicy policy;
+    private final int capacity;
+    private final long bootMillis;
+    private final long tickMillis;
+    private final int staticServers;
+
+    /**
+     * @param capacity      Jogadores máximos por servidor.
+     * @param bootMillis    Tempo entre a criação e o servidor ficar ONLINE.
+     * @param tickMillis    Intervalo entre avaliações (em produção, o timer do {@code ServerRegistryService}).
+     * @param staticServers Servidores estáticos já online no início (nunca desligados).
+     */
+    public ScalingSimulator(ServerType type, ScalingPolicy policy, int capacity, long bootMillis, long tickMillis, int staticServers) {
+        this.type = type;
+        this.policy = policy;
+        this.capacity = Math.max(1, capacity);
+        this.bootMillis = Math.max(0L, bootMillis);
+        this.tickMillis = Math.max(1L, tickMillis);
+        this.staticServers = Math.max(0, staticServers);
+    }
+
+    public Result run(LoadCurve curve) {
+        Autoscaler autoscaler = new Autoscaler(Map.of(type, policy));
+        String prefix = type.name().toLowerCase(Locale.ROOT) + "-";
+        List<SimServer> servers = new ArrayList<>();
+        for (int i = 1; i <= staticServers; i++) {
+            servers.add(new SimServer(prefix + i, true, ServerStatus.ONLINE, 0L));
+        }
+
+        List<Tick> timeline = new ArrayList<>();
+        long start = curve.points().get(0).timeMillis();
+        long end = start + curve.durationMillis();
+        int maxServers = servers.size();
+        int scaleUps = 0;
+        int scaleDowns = 0;
+        double serverMillis = 0;
+        double unservedMillis = 0;
+        double peakUtilization = 0;
+
+        for (long now = start; now <= end; now += tickMillis) {
+            for (SimServer server : servers) {
+                if (server.status == ServerStatus.STARTING && now >= server.readyAt) server.status = ServerStatus.ONLINE;
+            }
+
+            int demand = curve.playersAt(now);
+            int unserved = distribute(servers, demand);
+            int online = (int) servers.stream().filter(s -> s.status == ServerStatus.ONLINE).count();
+            if (online > 0) peakUtilization = Math.max(peakUtilization, (double) (demand - unserved) / (online * capacity));
+
+            ScalingDecision decision = autoscaler.evaluate(Map.of(type, view(servers)), now).get(type);
+            for (int i = 0; i < decision.scaleUp(); i++) {
+                servers.add(new SimServer(nextName(servers, prefix), false, ServerStatus.STARTING, now + bootMillis));
+                scaleUps++;
+            }
+            Set<String> stopped = new HashSet<>(decision.scaleDown());
+            scaleDowns += stopped.size();
+            servers.removeIf(s -> !s.isStatic && stopped.contains(s.name));
+
+            int starting = (int) servers.stream().filter(s -> s.status == ServerStatus.STARTING).count();
+            maxServers = Math.max(maxServers, servers.size());
+            serverMillis += (double) servers.size() * tickMillis;
+            unservedMillis += (double) unserved * tickMillis;
+            timeline.add(new Tick(now, demand, online, starting, unserved, decision));
+        }
+
+        Summary summary = new Summary(timeline.size(), maxServers, scaleUps, scaleDowns,
+                serverMillis / 60_000.0, Math.round(unservedMillis / 1000.0), peakUtilization);
+        return new Result(timeline, summary);
+    }
+
+    /**
+     * Enche os servidores online em ordem de nome, como o balanceamento por "mais cheio primeiro"
+     * dos lobbies, deixando os últimos vazios para poderem ser desligados.
+     *
+     * @return Jogadores que não couberam.
+     */
+    private int distribute(List<SimServer> servers, int demand) {
+        int left = demand;
+        List<SimServer> ordered = new ArrayList<>(servers);
+        ordered.sort(Comparator.comparing(s -> s.name));
+        for (SimServer server : ordered) {
+            if (server.status != ServerStatus.ONLINE) {
+                server.players = 0;
+                continue;
+            }
+            server.players = Math.min(capacity, left);
+            left -= server.players;
+        }
+        return left;
+    }
+
+    private PoolView view(List<SimServer> servers) {
+        List<PoolView.PoolServer> pool = new ArrayList<>(servers.size());
+        for (SimServer server : servers) {
+            pool.add(new PoolView.PoolServer(server.name, server.status, server.players, capacity, server.isStatic));
+        }
+        return new PoolView(type, pool);
+    }
+
+    private static String nextName(List<SimServer> servers, String prefix) {
+        Set<String> used = new HashSet<>();
+        for (SimServer server : servers) used.add(server.name);
+        int i = 1;
+        while (used.contains(prefix + i)) i++;
+        return prefix + i;
+    }
+}
@@ -0,0 +1,82 @@
+package com.realmmc.controller.modules.server.scaling;
+
+import com.realmmc.controller.modules.server.data.ServerStatus;
+import com.realmmc.controller.modules.server.data.ServerType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalingSimulatorTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static ScalingPolicyConfig config(double up, double down) {
+        return new ScalingPolicyConfig(true, 1, 20, 0, up, down, 30_000L, 15_000L, 30_000L, 2, false, 2 * MINUTE);
+    }
+
+    private static ScalingSimulator.Result simulate(LoadCurve curve) {
+        ScalingPolicy policy = new ThresholdScalingPolicy(config(0.70, 0.35));
+        return new ScalingSimulator(ServerType.LOBBY, policy, 100, MINUTE, 10_000L, 1).run(curve);
+    }
+
+    @Test
+    void rejectsInvalidThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new ThresholdScalingPolicy(config(0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new ThresholdScalingPolicy(config(-0.5, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new ThresholdScalingPolicy(config(Double.NaN, 0.35)));
+        assertThrows(IllegalArgumentException.class, () -> new ThresholdScalingPolicy(config(0.70, 0.70)));
+    }
+
+    @Test
+    void scaleDownPicksTheServerEmptyTheLongest() {
+        ThresholdScalingPolicy policy = new ThresholdScalingPolicy(config(0.70, 0.35));
+        ScalingState state = new ScalingState();
+
+        // lobby-10 esvazia primeiro; lobby-2 (maior pelo nome) só depois
+        policy.decide(pool(10, 0, 5), state, null, 0L);
+        policy.decide(pool(10, 0, 0), state, null, 20_000L);
+        ScalingDecision decision = policy.decide(pool(10, 0, 0), state, null, MINUTE);
+
+        assertEquals(List.of("lobby-10"), decision.scaleDown(), decision.reason());
+    }
+
+    private static PoolView pool(int lobby1, int lobby10, int lobby2) {
+        return new PoolView(ServerType.LOBBY, List.of(
+                new PoolView.PoolServer("lobby-1", ServerStatus.ONLINE, lobby1, 100, true),
+                new PoolView.PoolServer("lobby-10", ServerStatus.ONLINE, lobby10, 100, false),
+                new PoolView.PoolServer("lobby-2", ServerStatus.ONLINE, lobby2, 100, false)));
+    }
+
+    @Test
+    void stepIsServedAfterBootAndPoolShrinksBack() {
+        LoadCurve up = LoadCurve.step(30 * MINUTE, 5 * MINUTE, 40, 600);
+        ScalingSimulator.Result result = simulate(up);
+
+        ScalingSimulator.Tick last = result.timeline().get(result.timeline().size() - 1);
+        assertEquals(0, last.unserved());
+        assertTrue(last.online() * 100 * 0.70 >= 600, "online no fim: " + last.online());
+        assertTrue(result.summary().peakUtilization() <= 1.0);
+
+        LoadCurve down = LoadCurve.step(30 * MINUTE, 5 * MINUTE, 600, 40);
+        ScalingSimulator.Result shrink = simulate(down);
+        assertTrue(shrink.summary().scaleDowns() > 0);
+        ScalingSimulator.Tick end = shrink.timeline().get(shrink.timeline().size() - 1);
+        assertTrue(end.online() + end.starting() <= 2, "pool no fim: " + (end.online() + end.starting()));
+    }
+
+    @Test
+    void replayIsDeterministic() {
+        LoadCurve curve = LoadCurve.synthetic(6 * 60 * MINUTE, MINUTE, 50, 900, 3 * 60 * MINUTE, 25, 42L);
+
+        ScalingSimulator.Summary first = simulate(curve).summary();
+        ScalingSimulator.Summary second = simulate(curve).summary();
+
+        assertEquals(first, second);
+        assertTrue(first.scaleUps() > 0 && first.scaleDowns() > 0, first.toString());
+        assertTrue(first.maxServers() <= 20, first.toString());
+    }
+}
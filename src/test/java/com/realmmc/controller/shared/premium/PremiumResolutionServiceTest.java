@@ -0,0 +1,137 @@
+package com.realmmc.controller.shared.premium;
+
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PremiumResolutionServiceTest {
+
+    private static final Logger LOGGER = Logger.getLogger(PremiumResolutionServiceTest.class.getName());
+
+    private final long[] clock = {1_000_000_000L};
+
+    @BeforeEach
+    void setUp() {
+        StorageBackends.installInMemory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StorageBackends.reset();
+    }
+
+    private PremiumResolutionService service(StubPremiumLookup lookup, PremiumAccountRepository store) {
+        return new PremiumResolutionService(LOGGER, lookup, store, Runnable::run, () -> clock[0]);
+    }
+
+    private static StubPremiumLookup stub(StubPremiumLookup.Mode mode, long latencyMillis, int perMinute) {
+        return new StubPremiumLookup(Set.of("Notch"), mode, latencyMillis, perMinute);
+    }
+
+    @Test
+    void concurrentLookupsForTheSameNameAreCoalesced() {
+        StubPremiumLookup lookup = stub(StubPremiumLookup.Mode.OK, 100L, 60);
+        PremiumResolutionService service = service(lookup, null);
+
+        CompletableFuture<PremiumCheckResult> first = service.resolve("Notch");
+        CompletableFuture<PremiumCheckResult> second = service.resolve("notch");
+        assertSame(first, second);
+        assertTrue(first.join().premium());
+        assertEquals(1, lookup.getCalls());
+        assertEquals(1, service.getStats().coalesced());
+    }
+
+    @Test
+    void positiveAnswersAreCachedLongerThanNegativeOnes() {
+        StubPremiumLookup lookup = stub(StubPremiumLookup.Mode.OK, 0L, 60);
+        PremiumResolutionService service = service(lookup, null);
+
+        assertTrue(service.resolve("Notch").join().premium());
+        assertFalse(service.resolve("jeb").join().premium());
+        assertEquals("cache", service.resolve("Notch").join().source());
+        assertEquals("cache", service.resolve("jeb").join().source());
+        assertEquals(2, lookup.getCalls());
+
+        clock[0] += TimeUnit.MINUTES.toMillis(10) + 1;
+        assertEquals("cache", service.resolve("Notch").join().source());
+        assertEquals("stub", service.resolve("jeb").join().source());
+        assertEquals(3, lookup.getCalls());
+
+        clock[0] += TimeUnit.HOURS.toMillis(6);
+        assertEquals("stub", service.resolve("Notch").join().source());
+        assertEquals(4, lookup.getCalls());
+    }
+
+    @Test
+    void rateLimitPausesUpstreamForTheBackoff() {
+        StubPremiumLookup lookup = stub(StubPremiumLookup.Mode.RATE_LIMITED, 0L, 1);
+        PremiumResolutionService service = service(lookup, null);
+
+        assertTrue(service.resolve("a").join().conclusive());
+        PremiumCheckResult limited = service.resolve("b").join();
+        assertEquals(PremiumLookup.RATE_LIMITED, limited.reason());
+        assertEquals(2, lookup.getCalls());
+
+        // Dentro do backoff a fonte nem é consultada
+        assertEquals(PremiumLookup.RATE_LIMITED, service.resolve("c").join().reason());
+        assertEquals(2, lookup.getCalls());
+        assertEquals(1, service.getStats().rateLimited());
+
+        clock[0] += TimeUnit.SECONDS.toMillis(30) + 1;
+        service.resolve("d").join();
+        assertEquals(3, lookup.getCalls());
+    }
+
+    @Test
+    void outageFallsBackToRecentPersistedDecisions() {
+        PremiumAccountRepository store = new PremiumAccountRepository();
+        PremiumResolutionService online = service(stub(StubPremiumLookup.Mode.OK, 0L, 60), store);
+        PremiumCheckResult original = online.resolve("Notch").join();
+        assertTrue(store.findByName("notch").isPresent());
+
+        clock[0] += TimeUnit.DAYS.toMillis(1);
+        StubPremiumLookup down = stub(StubPremiumLookup.Mode.OUTAGE, 0L, 60);
+        PremiumResolutionService service = service(down, store);
+
+        PremiumCheckResult fallback = service.resolve("Notch").join();
+        assertTrue(fallback.premium());
+        assertEquals("store", fallback.source());
+        assertEquals(original.profile().getId(), fallback.profile().getId());
+        assertEquals(1, service.getStats().storeFallbacks());
+
+        // A decisão recuperada fica em cache por pouco tempo, sem nova consulta
+        assertEquals("cache", service.resolve("Notch").join().source());
+        assertEquals(1, down.getCalls());
+    }
+
+    @Test
+    void persistedDecisionsOlderThanThirtyDaysAreIgnored() {
+        PremiumAccountRepository store = new PremiumAccountRepository();
+        store.save(PremiumAccount.builder().name("notch").displayName("Notch").premium(false)
+                .checkedAt(clock[0] - TimeUnit.DAYS.toMillis(30) - 1).build());
+        store.save(PremiumAccount.builder().name("jeb").displayName("jeb").premium(false)
+                .checkedAt(clock[0] - TimeUnit.DAYS.toMillis(29)).build());
+        PremiumResolutionService service = service(stub(StubPremiumLookup.Mode.OUTAGE, 0L, 60), store);
+
+        PremiumCheckResult stale = service.resolve("Notch").join();
+        assertFalse(stale.conclusive());
+        assertNull(stale.profile());
+
+        PremiumCheckResult recent = service.resolve("jeb").join();
+        assertTrue(recent.conclusive());
+        assertFalse(recent.premium());
+        assertEquals("store", recent.source());
+    }
+}
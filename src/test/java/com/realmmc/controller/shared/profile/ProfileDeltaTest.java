@@ -0,0 +1,107 @@
+package com.realmmc.controller.shared.profile;
+
+import com.mongodb.client.model.Updates;
+import com.realmmc.controller.shared.role.PlayerRole;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.memory.InMemoryDocumentStore;
+import com.realmmc.controller.shared.storage.mongodb.MongoRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileDeltaTest {
+
+    private static PlayerRole role(String name, long addedAt) {
+        return PlayerRole.builder().roleName(name).addedAt(addedAt).build();
+    }
+
+    private static Profile profile(int cash, List<PlayerRole> roles) {
+        return Profile.builder().id(7).uuid(UUID.nameUUIDFromBytes(new byte[]{7})).name("Steve").username("steve")
+                .cash(cash).pendingCash(0).roles(new ArrayList<>(roles)).updatedAt(1L).build();
+    }
+
+    private static DocumentCollection<Profile> collectionWith(Profile stored) {
+        DocumentCollection<Profile> collection = new InMemoryDocumentStore().collection("profiles", Profile.class);
+        collection.insert(stored);
+        return collection;
+    }
+
+    private static List<String> roleNames(Profile profile) {
+        return profile.getRoles().stream().map(PlayerRole::getRoleName).toList();
+    }
+
+    @Test
+    void cashDeltaKeepsConcurrentIncrements() {
+        Profile persisted = profile(100, List.of());
+        DocumentCollection<Profile> collection = collectionWith(persisted);
+        // Outro nó credita 50 enquanto este tem 30 pendentes
+        collection.updateOne(MongoRepository.idEquals(7), Updates.inc("cash", 50));
+
+        Profile latest = ProfileCache.copyOf(persisted);
+        latest.setCash(130);
+        latest.setUpdatedAt(2L);
+        collection.bulkUpdate(ProfileDelta.toUpdates(persisted, latest), false);
+
+        assertEquals(180, collection.findOne(MongoRepository.idEquals(7)).orElseThrow().getCash());
+    }
+
+    @Test
+    void roleChangesKeepConcurrentRoles() {
+        Profile persisted = profile(0, List.of(role("vip", 1), role("builder", 2)));
+        DocumentCollection<Profile> collection = collectionWith(persisted);
+        // Outro nó adiciona "mod" enquanto este altera "vip", remove "builder" e adiciona "youtuber"
+        collection.updateOne(MongoRepository.idEquals(7), Updates.push("roles", role("mod", 3)));
+
+        Profile latest = ProfileCache.copyOf(persisted);
+        latest.setRoles(new ArrayList<>(List.of(role("vip", 10), role("youtuber", 4))));
+        latest.setUpdatedAt(2L);
+        collection.bulkUpdate(ProfileDelta.toUpdates(persisted, latest), false);
+
+        Profile stored = collection.findOne(MongoRepository.idEquals(7)).orElseThrow();
+        assertEquals(List.of("vip", "mod", "youtuber"), roleNames(stored));
+        assertEquals(10L, stored.getRoles().get(0).getAddedAt());
+        assertEquals(2L, stored.getUpdatedAt());
+    }
+
+    @Test
+    void roleUpdatesAreIdempotent() {
+        Profile persisted = profile(0, List.of(role("vip", 1)));
+        DocumentCollection<Profile> collection = collectionWith(persisted);
+
+        Profile latest = ProfileCache.copyOf(persisted);
+        latest.setRoles(new ArrayList<>(List.of(role("vip", 5), role("mod", 6))));
+        latest.setUpdatedAt(2L);
+        var updates = ProfileDelta.toUpdates(persisted, latest);
+        // Reenvio só dos updates de cargos, como após uma falha parcial do bulk
+        collection.bulkUpdate(updates, false);
+        collection.bulkUpdate(updates.subList(1, updates.size()), false);
+
+        Profile stored = collection.findOne(MongoRepository.idEquals(7)).orElseThrow();
+        assertEquals(List.of("vip", "mod"), roleNames(stored));
+        assertEquals(5L, stored.getRoles().get(0).getAddedAt());
+    }
+
+    @Test
+    void reorderedRolesFallBackToFullList() {
+        Profile persisted = profile(0, List.of(role("vip", 1), role("mod", 2)));
+        Profile latest = ProfileCache.copyOf(persisted);
+        latest.setRoles(new ArrayList<>(List.of(role("mod", 2), role("vip", 1))));
+
+        var updates = ProfileDelta.toUpdates(persisted, latest);
+        assertEquals(1, updates.size());
+        DocumentCollection<Profile> collection = collectionWith(persisted);
+        collection.bulkUpdate(updates, false);
+        assertEquals(List.of("mod", "vip"), roleNames(collection.findOne(MongoRepository.idEquals(7)).orElseThrow()));
+    }
+
+    @Test
+    void unchangedProfileHasNoUpdates() {
+        Profile persisted = profile(10, List.of(role("vip", 1)));
+        assertTrue(ProfileDelta.toUpdates(persisted, ProfileCache.copyOf(persisted)).isEmpty());
+    }
+}
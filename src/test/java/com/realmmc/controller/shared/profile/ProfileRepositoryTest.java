@@ -0,0 +1,64 @@
+package com.realmmc.controller.shared.profile;
+
+import com.realmmc.controller.shared.role.PlayerRole;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProfileRepositoryTest {
+
+    private static final long CUTOFF = 1_000_000L;
+
+    private ProfileRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        StorageBackends.installInMemory();
+        repository = new ProfileRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StorageBackends.reset();
+    }
+
+    private void insert(int id, PlayerRole role) {
+        repository.insert(Profile.builder().id(id).uuid(UUID.randomUUID()).name("p" + id).username("p" + id)
+                .roles(new ArrayList<>(List.of(role))).build());
+    }
+
+    private static PlayerRole role(long expiresAt, boolean paused) {
+        return PlayerRole.builder().roleName("vip").expiresAt(expiresAt).paused(paused).build();
+    }
+
+    private static List<Integer> ids(List<Profile> profiles) {
+        return profiles.stream().map(Profile::getId).toList();
+    }
+
+    @Test
+    void pausedRolesAreNotExpired() {
+        insert(1, role(CUTOFF - 10, false));
+        insert(2, role(CUTOFF - 10, true));
+        insert(3, role(CUTOFF + 10, false));
+
+        assertEquals(List.of(1), ids(repository.findWithRolesExpiredBefore(CUTOFF, null, 10)));
+    }
+
+    @Test
+    void pagesByIdPastRowsThatWereNotWritten() {
+        for (int id = 5; id >= 1; id--) insert(id, role(CUTOFF - id, false));
+
+        List<Profile> first = repository.findWithRolesExpiredBefore(CUTOFF, null, 2);
+        assertEquals(List.of(1, 2), ids(first));
+        // Nada foi gravado na primeira página; a seguinte continua depois do último id
+        assertEquals(List.of(3, 4), ids(repository.findWithRolesExpiredBefore(CUTOFF, 2, 2)));
+        assertEquals(List.of(5), ids(repository.findWithRolesExpiredBefore(CUTOFF, 4, 2)));
+    }
+}
@@ -0,0 +1,134 @@
+package com.realmmc.controller.shared.profile;
+
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.ServerAddress;
+import com.realmmc.controller.shared.storage.backend.DocumentCollection;
+import com.realmmc.controller.shared.storage.backend.DocumentStore;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import com.realmmc.controller.shared.storage.memory.InMemoryDocumentStore;
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProfileWriteBehindTest {
+
+    private enum Failure { NONE, BEFORE_APPLY, AFTER_APPLY, ON_CONFIRM }
+
+    private final UUID uuid = UUID.randomUUID();
+    private Failure failure = Failure.NONE;
+    private ProfileRepository repository;
+    private ProfileWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDocumentStore memory = new InMemoryDocumentStore();
+        StorageBackends.install(new DocumentStore() {
+            @Override
+            public <T> DocumentCollection<T> collection(String name, Class<T> type) {
+                return failing(memory.collection(name, type));
+            }
+
+            @Override
+            public void ping() {
+            }
+        }, new InMemoryKeyValueStore());
+        repository = new ProfileRepository();
+        writeBehind = new ProfileWriteBehind(repository, flush -> null);
+        repository.insert(profile(100, 1L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        StorageBackends.reset();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> DocumentCollection<T> failing(DocumentCollection<T> delegate) {
+        return (DocumentCollection<T>) Proxy.newProxyInstance(DocumentCollection.class.getClassLoader(), new Class<?>[]{DocumentCollection.class},
+                (proxy, method, args) -> {
+                    boolean bulk = method.getName().equals("bulkUpdate");
+                    if (bulk && failure == Failure.BEFORE_APPLY) throw timeout();
+                    if (method.getName().equals("find") && args != null && args.length == 4 && failure == Failure.ON_CONFIRM) throw timeout();
+                    try {
+                        Object result = method.invoke(delegate, args);
+                        if (bulk && failure == Failure.AFTER_APPLY) throw timeout();
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static MongoSocketReadTimeoutException timeout() {
+        return new MongoSocketReadTimeoutException("timeout", new ServerAddress(), new java.net.SocketTimeoutException());
+    }
+
+    private Profile profile(int cash, long updatedAt) {
+        return Profile.builder().id(1).uuid(uuid).name("p1").username("p1").cash(cash).updatedAt(updatedAt).build();
+    }
+
+    private int storedCash() {
+        return repository.findByUuid(uuid).orElseThrow().getCash();
+    }
+
+    @Test
+    void timeoutAfterCommitDoesNotReplayIncrements() {
+        writeBehind.enqueue(profile(100, 1L), profile(150, 2L));
+        failure = Failure.AFTER_APPLY;
+        writeBehind.flush(uuid);
+        assertEquals(150, storedCash());
+
+        failure = Failure.NONE;
+        writeBehind.flushAll();
+        assertEquals(150, storedCash());
+        assertEquals(0, writeBehind.getStats().pending());
+    }
+
+    @Test
+    void timeoutBeforeCommitIsWrittenOnce() {
+        writeBehind.enqueue(profile(100, 1L), profile(150, 2L));
+        failure = Failure.BEFORE_APPLY;
+        writeBehind.flush(uuid);
+        assertEquals(100, storedCash());
+
+        failure = Failure.NONE;
+        writeBehind.flushAll();
+        assertEquals(150, storedCash());
+    }
+
+    @Test
+    void newerChangesAfterAnUnknownOutcomeApplyOnlyTheirDifference() {
+        writeBehind.enqueue(profile(100, 1L), profile(150, 2L));
+        failure = Failure.AFTER_APPLY;
+        writeBehind.flush(uuid);
+
+        failure = Failure.NONE;
+        writeBehind.enqueue(profile(150, 2L), profile(170, 3L));
+        writeBehind.flushAll();
+        assertEquals(170, storedCash());
+    }
+
+    @Test
+    void failedConfirmationKeepsTheEntryQueued() {
+        writeBehind.enqueue(profile(100, 1L), profile(150, 2L));
+        failure = Failure.AFTER_APPLY;
+        writeBehind.flush(uuid);
+
+        failure = Failure.ON_CONFIRM;
+        writeBehind.flushAll();
+        assertEquals(1, writeBehind.getStats().pending());
+        assertEquals(150, storedCash());
+
+        failure = Failure.NONE;
+        writeBehind.flushAll();
+        assertEquals(150, storedCash());
+        assertEquals(0, writeBehind.getStats().pending());
+    }
+}
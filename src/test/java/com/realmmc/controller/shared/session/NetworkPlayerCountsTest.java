@@ -0,0 +1,147 @@
+package com.realmmc.controller.shared.session;
+
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+import com.realmmc.controller.shared.storage.redis.RedisChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soma de jogadores com vários proxies publicando em ordem embaralhada sobre um
+ * {@link InMemoryKeyValueStore} e um relógio simulado. No meio da execução um proxy cai sem avisar
+ * (tem que sair da soma após o TTL) e outro desliga de forma limpa (tem que sair na hora).
+ */
+class NetworkPlayerCountsTest {
+
+    private static final String[] SERVERS = {"lobby-1", "lobby-2", "bedwars-1", "bedwars-2", "survival"};
+    private static final String[] TYPES = {"LOBBY", "LOBBY", "BEDWARS", "BEDWARS", "PERSISTENT"};
+    private static final long HEARTBEAT_MILLIS = 15_000L;
+    private static final long TTL_MILLIS = 40_000L;
+    private static final int PROXIES = 4;
+    private static final int ROUNDS = 30;
+
+    private final long[] clock = {1_000_000L};
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final Random random = new Random(42L);
+    private final NetworkPlayerCounts[] nodes = new NetworkPlayerCounts[PROXIES];
+    private final NetworkPlayerCounts.Counts[] latest = new NetworkPlayerCounts.Counts[PROXIES];
+    private final long[] publishedAt = new long[PROXIES];
+    private final boolean[] alive = new boolean[PROXIES];
+    private final List<String> failures = new ArrayList<>();
+    private long maxLegacyError;
+
+    private void run() {
+        for (int p = 0; p < PROXIES; p++) {
+            nodes[p] = new NetworkPlayerCounts(() -> store, "proxy-" + p, TTL_MILLIS, () -> clock[0]);
+            alive[p] = true;
+        }
+        int crashed = 0;
+        int stopped = PROXIES - 1;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round == ROUNDS / 3) alive[crashed] = false;
+            if (round == 2 * ROUNDS / 3) {
+                alive[stopped] = false;
+                nodes[stopped].remove();
+                latest[stopped] = null;
+                check("desligamento limpo de proxy-" + stopped);
+            }
+
+            List<Integer> order = new ArrayList<>();
+            for (int p = 0; p < PROXIES; p++) if (alive[p]) order.add(p);
+            Collections.shuffle(order, random);
+            for (int p : order) {
+                clock[0] += random.nextInt(1_000);
+                latest[p] = randomCounts();
+                publishedAt[p] = clock[0];
+                nodes[p].publish(latest[p]);
+                check("rodada " + round + ", proxy-" + p);
+                legacy(p);
+            }
+            clock[0] += HEARTBEAT_MILLIS;
+        }
+    }
+
+    @Test
+    void networkSumMatchesLiveProxies() {
+        run();
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void crashedProxyLeavesTheSumAfterTtl() {
+        run();
+        assertTrue(clock[0] - publishedAt[0] > TTL_MILLIS, "proxy-0 ainda dentro do TTL no fim");
+        assertTrue(NetworkPlayerCounts.read(store).total() > 0);
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void lastWriterWinsModelWasWrong() {
+        run();
+        // No modelo antigo cada proxy sobrescrevia a chave global com a própria contagem
+        assertTrue(maxLegacyError > 0, "erro do modelo antigo: " + maxLegacyError);
+    }
+
+    private void check(String when) {
+        long now = clock[0];
+        int expectedTotal = 0;
+        Map<String, Integer> expectedServers = new HashMap<>();
+        Map<String, Integer> expectedTypes = new HashMap<>();
+        for (int p = 0; p < PROXIES; p++) {
+            if (latest[p] == null || now - publishedAt[p] > TTL_MILLIS) continue;
+            expectedTotal += latest[p].total();
+            latest[p].byServer().forEach((k, v) -> expectedServers.merge(k, v, Integer::sum));
+            latest[p].byType().forEach((k, v) -> expectedTypes.merge(k, v, Integer::sum));
+        }
+        NetworkPlayerCounts.Counts read = NetworkPlayerCounts.read(store);
+        String global = store.get(RedisChannel.GLOBAL_PLAYER_COUNT.getName());
+        if (!String.valueOf(expectedTotal).equals(global) || read.total() != expectedTotal) {
+            failures.add(when + ": total " + global + ", esperado " + expectedTotal);
+        }
+        if (!read.byServer().equals(withoutZeros(expectedServers))) {
+            failures.add(when + ": por servidor " + read.byServer() + ", esperado " + expectedServers);
+        }
+        if (!read.byType().equals(withoutZeros(expectedTypes))) {
+            failures.add(when + ": por tipo " + read.byType() + ", esperado " + expectedTypes);
+        }
+    }
+
+    private void legacy(int writer) {
+        int expected = 0;
+        for (int p = 0; p < PROXIES; p++) {
+            if (latest[p] != null && clock[0] - publishedAt[p] <= TTL_MILLIS) expected += latest[p].total();
+        }
+        maxLegacyError = Math.max(maxLegacyError, Math.abs(expected - latest[writer].total()));
+    }
+
+    private NetworkPlayerCounts.Counts randomCounts() {
+        Map<String, Integer> byServer = new HashMap<>();
+        Map<String, Integer> byType = new HashMap<>();
+        int total = 0;
+        for (int i = 0; i < SERVERS.length; i++) {
+            int count = random.nextInt(4) == 0 ? 0 : random.nextInt(200);
+            if (count == 0) continue;
+            byServer.put(SERVERS[i], count);
+            byType.merge(TYPES[i], count, Integer::sum);
+            total += count;
+        }
+        // Jogadores ainda sem servidor entram só no total
+        total += random.nextInt(5);
+        return new NetworkPlayerCounts.Counts(total, byServer, byType);
+    }
+
+    private static Map<String, Integer> withoutZeros(Map<String, Integer> counts) {
+        Map<String, Integer> result = new HashMap<>(counts);
+        result.values().removeIf(v -> v == 0);
+        return result;
+    }
+}
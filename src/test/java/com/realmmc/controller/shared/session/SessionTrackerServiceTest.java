@@ -0,0 +1,71 @@
+package com.realmmc.controller.shared.session;
+
+import com.realmmc.controller.core.services.ServiceRegistry;
+import com.realmmc.controller.shared.profile.ProfileService;
+import com.realmmc.controller.shared.storage.backend.KeyValueStore;
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTrackerServiceTest {
+
+    private final UUID alive = UUID.randomUUID();
+    private final UUID ended = UUID.randomUUID();
+    private SessionTrackerService tracker;
+
+    @BeforeEach
+    void setUp() {
+        StorageBackends.installInMemory();
+        new ServiceRegistry(Logger.getLogger(SessionTrackerServiceTest.class.getName()))
+                .registerService(ProfileService.class, new ProfileService());
+        tracker = new SessionTrackerService();
+        tracker.startSession(alive, "alive", "proxy-1", "lobby-1", 763, 20, "10.0.0.1", "1.20.1", "vanilla", true, null);
+        tracker.startSession(ended, "ended", "proxy-1", "lobby-1", 763, 20, "10.0.0.2", "1.20.1", "vanilla", false, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StorageBackends.reset();
+    }
+
+    @Test
+    void heartbeatRenewsLiveSessionsAndSkipsEndedOnes() {
+        tracker.endSession(ended, "ended");
+
+        int renewed = tracker.updateHeartbeats(List.of(
+                new SessionTrackerService.Heartbeat(alive, "lobby-2", 35, -1),
+                new SessionTrackerService.Heartbeat(ended, "lobby-2", 35, -1)));
+
+        assertEquals(1, renewed);
+        KeyValueStore store = StorageBackends.keyValue();
+        // O heartbeat não recria o hash de uma sessão encerrada
+        assertFalse(store.exists("controller:session:" + ended));
+        assertEquals("lobby-2", tracker.getSessionField(alive, "currentServer").orElseThrow());
+        assertEquals("35", tracker.getSessionField(alive, "ping").orElseThrow());
+        assertEquals("763", tracker.getSessionField(alive, "protocol").orElseThrow());
+        assertEquals("lobby-2", store.hget("controller:sessions:owners", alive + ":currentServer"));
+        assertEquals(1, tracker.getHeartbeatStats().skipped());
+        assertEquals(1, tracker.getHeartbeatStats().lastSessions());
+    }
+
+    @Test
+    void heartbeatWithoutServerKeepsTheSavedOne() {
+        assertEquals(2, tracker.updateHeartbeats(List.of(
+                new SessionTrackerService.Heartbeat(alive, null, 50, 765),
+                new SessionTrackerService.Heartbeat(ended, null, 60, -1))));
+
+        assertEquals("lobby-1", tracker.getSessionField(alive, "currentServer").orElseThrow());
+        assertEquals("765", tracker.getSessionField(alive, "protocol").orElseThrow());
+        assertTrue(StorageBackends.keyValue().exists("controller:online:server:lobby-1"));
+        assertEquals(0, tracker.getHeartbeatStats().skipped());
+    }
+}
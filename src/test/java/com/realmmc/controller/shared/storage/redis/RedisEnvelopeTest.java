@@ -0,0 +1,148 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisEnvelopeTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String CHANNEL = "controller:test";
+    private static final String JSON = "{\"uuid\":\"" + UUID.nameUUIDFromBytes(new byte[]{1})
+            + "\",\"name\":\"Steve\",\"cash\":1500,\"ratio\":0.25,\"online\":true,\"roles\":[\"vip\",\"builder\"],\"server\":null}";
+
+    record Sample(String uuid, String name, long cash, double ratio, boolean online, List<String> roles, String server) {
+    }
+
+    private static RedisEnvelope framed(String body) {
+        byte[] cbor = RedisEnvelope.toCbor(body);
+        assertNotNull(cbor);
+        return new RedisEnvelope(RedisEnvelope.CURRENT_VERSION, "proxy-1#abcd", 42L, 1_700_000_000_000L, CHANNEL,
+                RedisEnvelope.FORMAT_CBOR, cbor);
+    }
+
+    @Test
+    void cborBodySurvivesEncodeAndDecode() throws Exception {
+        RedisEnvelope sent = framed(JSON);
+        RedisEnvelope received = RedisEnvelope.decode(CHANNEL, sent.encode());
+
+        assertEquals(RedisEnvelope.CURRENT_VERSION, received.version());
+        assertEquals("proxy-1#abcd", received.origin());
+        assertEquals(42L, received.sequence());
+        assertEquals(1_700_000_000_000L, received.timestamp());
+        assertEquals(RedisEnvelope.FORMAT_CBOR, received.format());
+        assertArrayEquals(sent.body(), received.body());
+        assertEquals(MAPPER.readTree(JSON), MAPPER.readTree(received.bodyAsString()));
+        assertEquals(MAPPER.readValue(JSON, Sample.class), received.decode(Sample.class));
+    }
+
+    @Test
+    void cborBodyIsSmallerThanJson() {
+        byte[] cbor = RedisEnvelope.toCbor(JSON);
+        assertNotNull(cbor);
+        assertTrue(cbor.length < JSON.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void plainTextBodyStaysText() {
+        String uuid = UUID.randomUUID().toString();
+        assertNull(RedisEnvelope.toCbor(uuid));
+        assertNull(RedisEnvelope.toCbor("{não é json"));
+        assertNull(RedisEnvelope.toCbor("{} {}"));
+
+        RedisEnvelope sent = RedisEnvelope.outgoing(CHANNEL, uuid);
+        RedisEnvelope received = RedisEnvelope.decode(CHANNEL, sent.encode());
+        assertEquals(RedisEnvelope.FORMAT_TEXT, received.format());
+        assertEquals(uuid, received.bodyAsString());
+        assertEquals(sent.sequence(), received.sequence());
+        assertTrue(received.isFromLocalNode());
+    }
+
+    @Test
+    void outgoingSequenceGrowsPerChannel() {
+        long first = RedisEnvelope.outgoing("controller:test:seq", "a").sequence();
+        assertEquals(first + 1, RedisEnvelope.outgoing("controller:test:seq", "b").sequence());
+    }
+
+    @Test
+    void framingIsOnByDefault() {
+        assertTrue(RedisEnvelope.isFramed());
+        RedisEnvelope sent = RedisEnvelope.outgoing(CHANNEL, JSON);
+        assertEquals(RedisEnvelope.FORMAT_CBOR, sent.format());
+
+        RedisEnvelope received = RedisEnvelope.decode(CHANNEL, sent.toWire());
+        assertEquals(sent.sequence(), received.sequence());
+        assertTrue(received.isFromLocalNode());
+    }
+
+    @Test
+    void oldPublisherPayloadIsReadAsLegacy() throws Exception {
+        // Nó antigo publica o JSON cru, sem envelope
+        RedisEnvelope received = RedisEnvelope.decode(CHANNEL, JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(received.isLegacy());
+        assertNull(received.origin());
+        assertEquals(0L, received.sequence());
+        assertEquals(JSON, received.bodyAsString());
+        assertEquals(MAPPER.readValue(JSON, Sample.class), received.decode(Sample.class));
+    }
+
+    @Test
+    void compatibilityModeIsReadableByOldSubscribers() throws Exception {
+        // Nó antigo faz new String(message, UTF_8) e interpreta como JSON
+        String seenByOldNode = new String(framed(JSON).toWire(false), StandardCharsets.UTF_8);
+        assertEquals(MAPPER.readTree(JSON), MAPPER.readTree(seenByOldNode));
+
+        RedisEnvelope text = RedisEnvelope.outgoing(CHANNEL, "texto simples");
+        assertEquals("texto simples", new String(text.toWire(false), StandardCharsets.UTF_8));
+        assertArrayEquals(text.encode(), text.toWire(true));
+    }
+
+    @Test
+    void extensionBytesFromNewerVersionsAreIgnored() throws Exception {
+        byte[] frame = framed(JSON).encode();
+        byte[] extended = Arrays.copyOf(frame, frame.length + 6);
+        extended[1] = 2; // Versão futura com campos extras após o corpo
+
+        RedisEnvelope received = RedisEnvelope.decode(CHANNEL, extended);
+        assertEquals(2, received.version());
+        assertEquals(42L, received.sequence());
+        assertEquals(MAPPER.readTree(JSON), MAPPER.readTree(received.bodyAsString()));
+    }
+
+    @Test
+    void truncatedOrUnknownFramesFallBackToLegacy() {
+        byte[] frame = framed(JSON).encode();
+
+        RedisEnvelope truncated = RedisEnvelope.decode(CHANNEL, Arrays.copyOf(frame, frame.length - 3));
+        assertTrue(truncated.isLegacy());
+
+        byte[] unknownFormat = frame.clone();
+        unknownFormat[2] = 9;
+        assertTrue(RedisEnvelope.decode(CHANNEL, unknownFormat).isLegacy());
+
+        RedisEnvelope empty = RedisEnvelope.decode(CHANNEL, new byte[0]);
+        assertTrue(empty.isLegacy());
+        assertEquals("", empty.bodyAsString());
+    }
+
+    @Test
+    void eventLogStoresCborBodyAsJson() throws Exception {
+        RedisEnvelope replayed = RedisEventLog.fromFields(CHANNEL, RedisEventLog.toFields(framed(JSON)));
+
+        assertNotNull(replayed);
+        assertEquals(42L, replayed.sequence());
+        assertEquals(RedisEnvelope.FORMAT_TEXT, replayed.format());
+        assertEquals(MAPPER.readTree(JSON), MAPPER.readTree(replayed.bodyAsString()));
+    }
+}
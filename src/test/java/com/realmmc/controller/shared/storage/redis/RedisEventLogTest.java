@@ -0,0 +1,104 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.realmmc.controller.shared.storage.memory.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisEventLogTest {
+
+    private static final String CHANNEL = "controller:test:log";
+
+    private static List<RedisEnvelope> append(InMemoryKeyValueStore store, String channel, int count) {
+        List<RedisEnvelope> sent = new ArrayList<>(count);
+        store.batch(batch -> {
+            for (int i = 0; i < count; i++) {
+                RedisEnvelope envelope = RedisEnvelope.outgoing(channel, "{\"i\":" + i + "}");
+                RedisEventLog.append(batch, envelope);
+                sent.add(envelope);
+            }
+        });
+        return sent;
+    }
+
+    private static List<RedisEnvelope> readAll(InMemoryKeyValueStore store, String channel) {
+        return RedisEventLog.readAfter(store, channel, RedisEventLog.START_ID).stream().map(RedisEventLog.Entry::envelope).toList();
+    }
+
+    private static void assertSame(List<RedisEnvelope> expected, List<RedisEnvelope> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            RedisEnvelope e = expected.get(i);
+            RedisEnvelope a = actual.get(i);
+            assertEquals(e.version(), a.version());
+            assertEquals(e.origin(), a.origin());
+            assertEquals(e.sequence(), a.sequence());
+            assertEquals(e.timestamp(), a.timestamp());
+            assertEquals(e.channel(), a.channel());
+            assertEquals(e.bodyAsString(), a.bodyAsString());
+        }
+    }
+
+    @Test
+    void replaysEverythingInOrder() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        List<RedisEnvelope> sent = append(store, CHANNEL, 10);
+
+        List<RedisEnvelope> replayed = readAll(store, CHANNEL);
+        assertSame(sent, replayed);
+        assertTrue(replayed.stream().noneMatch(RedisEnvelope::isLegacy));
+    }
+
+    @Test
+    void pagesThroughEntriesWrittenInTheSameMillisecond() {
+        // Um único lote cai quase todo no mesmo milissegundo: a paginação depende do início exclusivo
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        List<RedisEnvelope> sent = append(store, CHANNEL, 1_234);
+
+        assertSame(sent, readAll(store, CHANNEL));
+    }
+
+    @Test
+    void onlyReturnsEntriesAfterTheCursor() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        assertEquals(RedisEventLog.START_ID, RedisEventLog.lastId(store, CHANNEL));
+        append(store, CHANNEL, 5);
+        String cursor = RedisEventLog.lastId(store, CHANNEL);
+        List<RedisEnvelope> recent = append(store, CHANNEL, 3);
+
+        List<RedisEventLog.Entry> read = RedisEventLog.readAfter(store, CHANNEL, cursor);
+        assertSame(recent, read.stream().map(RedisEventLog.Entry::envelope).toList());
+        assertEquals(RedisEventLog.lastId(store, CHANNEL), read.get(read.size() - 1).id());
+        assertTrue(RedisEventLog.readAfter(store, CHANNEL, RedisEventLog.lastId(store, CHANNEL)).isEmpty());
+    }
+
+    @Test
+    void channelsAreIsolated() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        List<RedisEnvelope> first = append(store, CHANNEL, 4);
+        List<RedisEnvelope> second = append(store, CHANNEL + ":other", 2);
+
+        assertSame(first, readAll(store, CHANNEL));
+        assertSame(second, readAll(store, CHANNEL + ":other"));
+        assertTrue(readAll(store, "controller:test:empty").isEmpty());
+    }
+
+    @Test
+    void skipsMalformedEntries() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        List<RedisEnvelope> before = append(store, CHANNEL, 1);
+        store.xadd(RedisEventLog.streamKey(CHANNEL), Map.of("v", "1", "o", "x", "s", "abc", "t", "0", "b", "{}"), 0);
+        List<RedisEnvelope> after = append(store, CHANNEL, 1);
+
+        List<RedisEnvelope> expected = new ArrayList<>(before);
+        expected.addAll(after);
+        assertSame(expected, readAll(store, CHANNEL));
+        assertNull(RedisEventLog.fromFields(CHANNEL, Map.of("t", "ontem")));
+    }
+}
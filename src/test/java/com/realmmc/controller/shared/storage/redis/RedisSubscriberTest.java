@@ -0,0 +1,113 @@
+package com.realmmc.controller.shared.storage.redis;
+
+import com.realmmc.controller.shared.storage.backend.StorageBackends;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Queda e volta da conexão de subscrição simuladas sobre o store em memória: as mensagens entregues
+ * ao vivo e as gravadas no RedisEventLog durante a queda chegam uma única vez cada.
+ */
+class RedisSubscriberTest {
+
+    private static final String CHANNEL = RedisChannel.ROLE_SYNC.getName();
+
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private RedisSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        StorageBackends.installInMemory();
+        subscriber = new RedisSubscriber();
+        subscriber.registerListener(RedisChannel.ROLE_SYNC, (channel, message) -> received.add(message));
+        subscriber.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriber.stop();
+        StorageBackends.reset();
+    }
+
+    private void publishLive(String... messages) {
+        for (String message : messages) RedisPublisher.publishNow(CHANNEL, message);
+    }
+
+    private void writeWhileDisconnected(String... messages) {
+        // Gravadas no log, mas a publicação não chega a este nó
+        StorageBackends.keyValue().batch(batch -> {
+            for (String message : messages) RedisEventLog.append(batch, RedisEnvelope.outgoing(CHANNEL, message));
+        });
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (received.size() < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        Thread.sleep(50);
+    }
+
+    @Test
+    void replayStartsAfterTheLastConfirmedId() throws InterruptedException {
+        writeWhileDisconnected("antes");
+        subscriber.onSubscribed(CHANNEL);
+
+        publishLive("1", "2", "3");
+        subscriber.checkpoint();
+        subscriber.onPong();
+        // Entregue ao vivo depois do último checkpoint
+        publishLive("4");
+        awaitReceived(4);
+
+        subscriber.saveReplayCursors();
+        writeWhileDisconnected("5", "6");
+        subscriber.onSubscribed(CHANNEL);
+        awaitReceived(6);
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), received);
+        assertEquals(2, subscriber.getReplayedMessages());
+        // Só a entrada posterior ao cursor e já vista ao vivo foi relida e descartada
+        assertEquals(1, subscriber.getDuplicatesSkipped());
+    }
+
+    @Test
+    void consecutiveDropsKeepTheOldestCursor() throws InterruptedException {
+        subscriber.onSubscribed(CHANNEL);
+        publishLive("1");
+        subscriber.checkpoint();
+        subscriber.onPong();
+        awaitReceived(1);
+
+        subscriber.saveReplayCursors();
+        writeWhileDisconnected("2");
+        // A segunda queda acontece antes do SUBSCRIBE ser confirmado
+        subscriber.saveReplayCursors();
+        writeWhileDisconnected("3");
+        subscriber.onSubscribed(CHANNEL);
+        awaitReceived(3);
+
+        assertEquals(List.of("1", "2", "3"), received);
+        assertEquals(0, subscriber.getDuplicatesSkipped());
+    }
+
+    @Test
+    void unansweredPingDoesNotMoveTheCursor() throws InterruptedException {
+        subscriber.onSubscribed(CHANNEL);
+        publishLive("1");
+        awaitReceived(1);
+        // PING enviado, mas a conexão cai antes do PONG
+        subscriber.checkpoint();
+        subscriber.saveReplayCursors();
+        subscriber.onSubscribed(CHANNEL);
+        awaitReceived(1);
+
+        assertEquals(List.of("1"), received);
+        assertEquals(1, subscriber.getDuplicatesSkipped());
+    }
+}